@@ -31,10 +31,12 @@ import eu.europa.ec.re3gistry2.base.utility.UserHelper;
 import eu.europa.ec.re3gistry2.base.utility.WebConstants;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemRegGroupRegRoleMappingManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegLanguagecodeManager;
 import eu.europa.ec.re3gistry2.javaapi.handler.RegBulkImportHandler;
 import eu.europa.ec.re3gistry2.model.RegGroup;
 import eu.europa.ec.re3gistry2.model.RegItem;
 import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
 import eu.europa.ec.re3gistry2.model.RegUser;
 import java.io.IOException;
 import java.util.HashMap;
@@ -92,6 +94,12 @@ public class BulkImport extends HttpServlet {
                 if (action != null && action.equals(BaseConstants.KEY_REQUEST_DOWNLOAD_BULK_TEMPLATE)) {
 
                     regBulkImportHandler.createFileTemplate(regItemclass, entityManager);
+                } else if (action != null && action.equals(BaseConstants.KEY_REQUEST_DOWNLOAD_BULK_EXPORT)) {
+                    RegLanguagecodeManager regLanguagecodeManager = new RegLanguagecodeManager(entityManager);
+                    RegLanguagecode regLanguagecode = (languageUuid != null && !languageUuid.isEmpty())
+                            ? regLanguagecodeManager.get(languageUuid)
+                            : regLanguagecodeManager.getMasterLanguage();
+                    regBulkImportHandler.createFileExport(regItem, regLanguagecode);
                 } else if (action != null && action.equals(BaseConstants.KEY_REQUEST_LOAD_BULK_TEMPLATE)) {
                     // Getting the current user from session
                     RegUser currentUser = (RegUser) request.getSession().getAttribute(BaseConstants.KEY_SESSION_USER);
@@ -32,6 +32,7 @@ import eu.europa.ec.re3gistry2.base.utility.WebConstants;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemRegGroupRegRoleMappingManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegLanguagecodeManager;
 import eu.europa.ec.re3gistry2.javaapi.solr.SolrHandler;
+import eu.europa.ec.re3gistry2.javaapi.uri.UriIndexHandler;
 import eu.europa.ec.re3gistry2.model.RegGroup;
 import eu.europa.ec.re3gistry2.model.RegLanguagecode;
 import eu.europa.ec.re3gistry2.model.RegUser;
@@ -112,6 +113,9 @@ public class RegistryManagerDataExport extends HttpServlet {
 
                 boolean result = SolrHandler.indexComplete();
 
+                // Rebuilding the URI index used by the REST API
+                result = UriIndexHandler.indexComplete() && result;
+
                 request.setAttribute(BaseConstants.KEY_REQUEST_RESULT, result);
             }
 
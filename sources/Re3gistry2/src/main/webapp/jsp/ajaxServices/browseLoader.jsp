@@ -630,6 +630,9 @@
                                 <a href=".<%=WebConstants.PAGE_URINAME_BULK_TEMPLATE%>?<%=BaseConstants.KEY_REQUEST_ITEMUUID%>=<%=regItem.getUuid()%>&<%=BaseConstants.KEY_REQUEST_ACTION%>=<%=BaseConstants.KEY_REQUEST_DOWNLOAD_BULK_TEMPLATE%>" class="btn btn-success" title="${localization.getString("template.bulkimport.title")}">
                                     <i class="fas fa-download"></i> ${localization.getString("template")}
                                 </a>
+                                <a href=".<%=WebConstants.PAGE_URINAME_BULK_TEMPLATE%>?<%=BaseConstants.KEY_REQUEST_ITEMUUID%>=<%=regItem.getUuid()%>&<%=BaseConstants.KEY_REQUEST_LANGUAGEUUID%>=<%=currentLanguage.getUuid()%>&<%=BaseConstants.KEY_REQUEST_ACTION%>=<%=BaseConstants.KEY_REQUEST_DOWNLOAD_BULK_EXPORT%>" class="btn btn-success" title="${localization.getString("export.bulkimport.title")}">
+                                    <i class="fas fa-download"></i> ${localization.getString("export.bulkimport")}
+                                </a>
                                 <hr/>
                                 <h5 for="templateFileUpload">${localization.getString("choose.csv.file")}</h5>
                                 <div class="form-group">
@@ -320,6 +320,7 @@ public class BaseConstants {
 
     public static final String KEY_REQUEST_DOWNLOAD_BULK_TEMPLATE = "downloadBulkImportTemplate";
     public static final String KEY_REQUEST_LOAD_BULK_TEMPLATE = "loadBulkImport";
+    public static final String KEY_REQUEST_DOWNLOAD_BULK_EXPORT = "downloadBulkExport";
     public static final String KEY_REQUEST_LOAD_FILE_BULK = "fileUpload.csv";
     public static final String KEY_REQUEST_BULK_ERROR = "bulkError";
     public static final String KEY_REQUEST_BULK_SUCCESS = "bulkSuccess";
@@ -505,6 +506,13 @@ public class BaseConstants {
     public static final String KEY_STATUS_LOCALID_WITHDRAWN = "withdrawn";
     public static final String KEY_STATUS_LOCALID_PUBLISHED = "published";
 
+    /* - Change types keys (log of the published RegItems) - */
+    public static final String KEY_CHANGE_TYPE_CREATED = "created";
+    public static final String KEY_CHANGE_TYPE_UPDATED = "updated";
+    public static final String KEY_CHANGE_TYPE_SUPERSEDED = "superseded";
+    public static final String KEY_CHANGE_TYPE_RETIRED = "retired";
+    public static final String KEY_CHANGE_TYPE_INVALIDATED = "invalidated";
+
     /* - Field type keys - */
     public static final String KEY_FIELD_TYPE_REGISTRY = "registry";
     public static final String KEY_FIELD_TYPE_REGISTER = "register";
@@ -583,8 +591,35 @@ public class BaseConstants {
     public static final String KEY_ALLOW_NULL_FIELDS = "application.returnnullfields";
     public static final String KEY_DISK_CACHE_PATH = "application.cache.disk.path";
     public static final String KEY_DISK_CACHE_MAXIMUM_SPACE = "application.cache.disk.maximum.space";
+    public static final String KEY_HEAP_CACHE_ENTRIES = "application.cache.heap.entries";
+    public static final String KEY_OFFHEAP_CACHE_MAXIMUM_SPACE = "application.cache.offheap.maximum.space";
+    public static final String KEY_MEMORY_CACHE_MAXIMUM_SPACE = "application.cache.memory.maximum.space";
+    public static final String KEY_MEMORY_CACHE_EXPIRE_AFTER_WRITE = "application.cache.memory.expire.after.write";
+    public static final String KEY_MEMORY_CACHE_REFRESH_AFTER_WRITE = "application.cache.memory.refresh.after.write";
+    public static final String KEY_RESPONSE_CACHE_MAXIMUM_SPACE = "application.cache.response.maximum.space";
+    public static final String KEY_RESPONSE_CACHE_GZIP = "application.cache.response.gzip";
+    public static final String KEY_NEGATIVE_CACHE_MAXIMUM_SIZE = "application.cache.negative.maximum.size";
+    public static final String KEY_NEGATIVE_CACHE_TTL = "application.cache.negative.ttl";
+    public static final String KEY_RESPONSE_STREAMING_THRESHOLD = "application.response.streaming.threshold";
+    public static final String KEY_JSON_COMPACT = "application.format.json.compact";
+    public static final String KEY_PAGE_MAXIMUM_LIMIT = "application.page.maximum.limit";
+    public static final String KEY_BATCH_MAXIMUM_SIZE = "application.batch.maximum.size";
+    public static final String KEY_ASSEMBLY_THREADS = "application.assembly.threads";
+    public static final String KEY_ASSEMBLY_QUEUE_SIZE = "application.assembly.queue.size";
+    public static final String KEY_ASSEMBLY_TIMEOUT = "application.assembly.timeout";
+    public static final String KEY_DUMP_PATH = "application.dump.path";
+    public static final String KEY_STATIC_EXPORT_PATH = "application.static.export.path";
+    public static final String KEY_STATIC_EXPORT_INTERVAL = "application.static.export.interval";
+    public static final String KEY_CACHE_INVALIDATION_INTERVAL = "application.cache.invalidation.interval";
+    public static final String KEY_CACHE_ADMIN_TOKEN = "application.cache.admin.token";
+    public static final String KEY_WARMUP_THREADS = "application.cache.warmup.threads";
+    public static final String KEY_WARMUP_CHUNK_SIZE = "application.cache.warmup.chunk.size";
+    public static final String KEY_WARMUP_MAXIMUM_RATE = "application.cache.warmup.maximum.rate";
+    public static final String KEY_WARMUP_CHECKPOINT_PATH = "application.cache.warmup.checkpoint.path";
+    public static final String KEY_WARMUP_RESUME = "application.cache.warmup.resume";
     public static final String KEY_CACHE_NAME_UUID = "items-by-uuid";
     public static final String KEY_CACHE_NAME_URL = "items-by-url";    
+    public static final String KEY_CACHE_NAME_LANGUAGES = "cached-languages";
 
     public String getKEY_APP_NAME() {
         return KEY_APP_NAME;
@@ -1970,6 +2005,10 @@ public class BaseConstants {
         return KEY_REQUEST_LOAD_BULK_TEMPLATE;
     }
 
+    public static String getKEY_REQUEST_DOWNLOAD_BULK_EXPORT() {
+        return KEY_REQUEST_DOWNLOAD_BULK_EXPORT;
+    }
+
     public static String getKEY_REQUEST_LOAD_FILE_BULK() {
         return KEY_REQUEST_LOAD_FILE_BULK;
     }
@@ -41,10 +41,24 @@ public class InitializerLight extends HttpServlet {
         try {
             //Initializing the configurations
             Configuration.getLightInstance();
+
+            //Initializing the shared EntityManagerFactory
+            try {
+                PersistenceFactory.getEntityManagerFactory();
+            } catch (Exception e) {
+                System.out.println("### Error while initializing the persistence unit: " + e.getMessage());
+            }
             System.out.println("### The system is now initialized.");
         } catch (Exception e) {
             //Error during system's copnfiguration
             System.out.println("### Error during system initialization: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void destroy() {
+        //Releasing the shared EntityManagerFactory
+        PersistenceFactory.closeAll();
+        System.out.println("### The system resources are now released.");
+    }
+}
@@ -23,25 +23,78 @@
  */
 package eu.europa.ec.re3gistry2.base.utility;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 
-
+/**
+ * Process-wide registry of the EntityManagerFactory instances, one for each
+ * persistence unit. The factories are created once (at context startup by the
+ * Initializer servlets, or lazily on first use) and closed at shutdown.
+ */
 public class PersistenceFactory {
-    
-    private PersistenceFactory(){
+
+    private static final Map<String, EntityManagerFactory> ENTITY_MANAGER_FACTORIES = new ConcurrentHashMap<>();
+
+    private PersistenceFactory() {
     }
 
+    /**
+     * Returns the shared EntityManagerFactory for the persistence unit
+     * configured in the Application.properties file.
+     *
+     * @return the shared EntityManagerFactory
+     * @throws Exception
+     */
     public static EntityManagerFactory getEntityManagerFactory() throws Exception {
-        
-//Retrieving the persistence unit name
+
+        //Retrieving the persistence unit name
         String persistenceUnitName = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_PROPERTY_PERSISTENCE_UNIT_NAME, null);
-        
+
         if (persistenceUnitName == null || persistenceUnitName.trim().length() <= 0) {
             throw new Exception("@@ Error while getting the persistence unit name; check the Application.properties file.");
         }
 
-        //Creating the EntityManagerFactory
-        return Persistence.createEntityManagerFactory(persistenceUnitName);
+        return getEntityManagerFactory(persistenceUnitName);
+    }
+
+    /**
+     * Returns the shared EntityManagerFactory for the given persistence unit,
+     * creating it on the first request.
+     *
+     * @param persistenceUnitName the persistence unit name
+     * @return the shared EntityManagerFactory
+     */
+    public static EntityManagerFactory getEntityManagerFactory(String persistenceUnitName) {
+        EntityManagerFactory entityManagerFactory = ENTITY_MANAGER_FACTORIES.get(persistenceUnitName);
+        if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
+            return entityManagerFactory;
+        }
+
+        synchronized (ENTITY_MANAGER_FACTORIES) {
+            entityManagerFactory = ENTITY_MANAGER_FACTORIES.get(persistenceUnitName);
+            if (entityManagerFactory == null || !entityManagerFactory.isOpen()) {
+                //Creating the EntityManagerFactory
+                entityManagerFactory = Persistence.createEntityManagerFactory(persistenceUnitName);
+                ENTITY_MANAGER_FACTORIES.put(persistenceUnitName, entityManagerFactory);
+            }
+            return entityManagerFactory;
+        }
+    }
+
+    /**
+     * Closes all the EntityManagerFactory instances created by this registry.
+     * To be called at application shutdown.
+     */
+    public static void closeAll() {
+        synchronized (ENTITY_MANAGER_FACTORIES) {
+            for (EntityManagerFactory entityManagerFactory : ENTITY_MANAGER_FACTORIES.values()) {
+                if (entityManagerFactory.isOpen()) {
+                    entityManagerFactory.close();
+                }
+            }
+            ENTITY_MANAGER_FACTORIES.clear();
+        }
     }
-}
\ No newline at end of file
+}
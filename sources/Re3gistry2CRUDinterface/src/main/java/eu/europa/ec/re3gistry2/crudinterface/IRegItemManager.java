@@ -29,6 +29,7 @@ import eu.europa.ec.re3gistry2.model.RegItemclass;
 import eu.europa.ec.re3gistry2.model.RegItemclasstype;
 import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
 import eu.europa.ec.re3gistry2.model.RegStatus;
+import java.util.Collection;
 import java.util.List;
 
 public interface IRegItemManager{
@@ -39,6 +40,8 @@ public interface IRegItemManager{
     public RegItem getByLocalidAndRegItemClass(String localid, RegItemclass regItemclass) throws Exception;
     public List<RegItem> getAll(RegItemclasstype regItemcalsstype) throws Exception;
     public List<RegItem> getAll(RegItemclass regItemcalss) throws Exception;
+    public List<String> getAllUuids(RegItemclass regItemcalss) throws Exception;
+    public List<RegItem> getAll(Collection<String> uuids) throws Exception;
     public List<RegItem> getAll(List<RegItemclass> regItemcalsses, int start, int maxResults) throws Exception;
     public int countAll(List<RegItemclass> regItemcalsses) throws Exception;
     public List<RegItem> getAll(RegRelationpredicate regRelationpredicate, RegItem regItemObject, int start, int length) throws Exception;
@@ -51,6 +54,10 @@ public interface IRegItemManager{
     public List<RegItem> getAllActive(RegItemclasstype regItemcalsstype) throws Exception;
     public List<RegItem> getChildItemsList(RegItem regItem) throws Exception;
     public List<RegItem> getAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, RegRelationpredicate subjectNotHavingPredicate) throws Exception;
+    public List<RegItem> getAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, RegRelationpredicate subjectNotHavingPredicate, String afterLocalid, String afterUuid, int start, int maxResults) throws Exception;
+    public List<RegItem> getAllSubjectsByRegItemObjectAndPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, String afterLocalid, String afterUuid, int maxResults) throws Exception;
+    public int countAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, RegRelationpredicate subjectNotHavingPredicate) throws Exception;
+    public List<RegItem> getAll(List<RegItemclass> regItemcalsses, String afterLocalid, String afterUuid, int start, int maxResults) throws Exception;
     public List<String> getAllItemByRegItemObjectAndPredicateAndSubjectNotPredicate(RegItem regItem, RegStatus regStatus, RegRelationpredicate regRelationPredicate, RegRelationpredicate subjectNotHavingPredicate) throws Exception;
         
     public boolean add(RegItem i) throws Exception;
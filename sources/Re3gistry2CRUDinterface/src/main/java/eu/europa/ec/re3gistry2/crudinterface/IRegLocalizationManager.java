@@ -45,6 +45,7 @@ public interface IRegLocalizationManager{
     public List<RegLocalization> getAll(RegLanguagecode regLanguagecode, List<RegItem> regItems) throws Exception;
     public List<RegLocalization> getAll(RegItemclass regItemclass) throws Exception;
     public List<RegLocalization> getAll(RegField regField) throws Exception;
+    public List<RegLocalization> getAllFieldLocalizations() throws Exception;
     public List<RegLocalization> getAll(RegField regField, RegItem regItem) throws Exception;
     public RegLocalization get(RegField regField, RegLanguagecode regLanguagecode) throws Exception;
     public List<RegLocalization> getAll(RegField regField, RegItem regItem, RegLanguagecode regLanguagecode) throws Exception;
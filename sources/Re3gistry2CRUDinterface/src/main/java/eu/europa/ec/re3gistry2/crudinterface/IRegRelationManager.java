@@ -39,6 +39,8 @@ public interface IRegRelationManager{
     
     public List<RegRelation> getAllBySubject(RegItem r) throws Exception;
     public List<RegRelation> getAllByObject(RegItem regItem) throws Exception;
+    public List<RegRelation> getAllBySubjects(List<RegItem> regItems) throws Exception;
+    public List<RegRelation> getAllByObjects(List<RegItem> regItems) throws Exception;
     public List<RegRelation> getAll(RegItem regItem, RegRelationpredicate regRelationPredicate) throws Exception;
     public List<RegRelation> getAllByRegItemObjectAndPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate) throws Exception;
     public List<RegRelation> getAllByRegItemObjectAndPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, int start, int length) throws Exception;
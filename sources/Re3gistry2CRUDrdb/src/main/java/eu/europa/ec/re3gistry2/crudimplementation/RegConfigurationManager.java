@@ -0,0 +1,85 @@
+/*
+ * Copyright 2007,2016 EUROPEAN UNION
+ * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ *
+ * Date: 2020/05/11
+ * Authors:
+ * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *
+ * This work was supported by the Interoperability solutions for public
+ * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.crudimplementation;
+
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.crudinterface.IRegConfigurationManager;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * Reads the state of the configuration of the registry: languages, relation
+ * predicates, item classes, fields and their mappings and labels, statuses
+ * and their localizations.
+ */
+public class RegConfigurationManager implements IRegConfigurationManager {
+
+    private static final List<String> STATE_QUERIES = Arrays.asList(
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_LANGUAGECODE,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_RELATIONPREDICATE,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_ITEMCLASS,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_FIELDMAPPING,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_FIELD,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_FIELD_LOCALIZATION,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_STATUS,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_STATUSGROUP,
+            SQLConstants.SQL_GET_CONFIGURATION_STATE_STATUSLOCALIZATION);
+
+    private EntityManager em;
+
+    public RegConfigurationManager(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Returns the state of the configuration tables: the number of rows and
+     * the last insert and edit dates of each one. The state changes when a
+     * row is added or removed, or edited with its edit date set.
+     *
+     * @return the state of the configuration tables
+     * @throws Exception
+     */
+    @Override
+    public String getState() throws Exception {
+
+        StringBuilder state = new StringBuilder();
+        for (String query : STATE_QUERIES) {
+            //Preparing query
+            Query q = this.em.createQuery(query);
+            Object[] row = (Object[]) q.getSingleResult();
+            state.append(row[0]).append(',')
+                    .append(getTime((Date) row[1])).append(',')
+                    .append(getTime((Date) row[2])).append(';');
+        }
+        return state.toString();
+    }
+
+    private static long getTime(Date date) {
+        return date == null ? 0L : date.getTime();
+    }
+
+}
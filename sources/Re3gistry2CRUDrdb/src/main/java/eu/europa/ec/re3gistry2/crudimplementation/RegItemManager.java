@@ -26,6 +26,8 @@ package eu.europa.ec.re3gistry2.crudimplementation;
 import eu.europa.ec.re3gistry2.crudimplementation.constants.ErrorConstants;
 import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
 import eu.europa.ec.re3gistry2.model.RegItem;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -251,6 +253,44 @@ public class RegItemManager implements IRegItemManager {
         return (List<RegItem>) q.getResultList();
     }
 
+    /**
+     * Returns the uuids of all the RegItems by RegItemclass (ordered by
+     * localid), without loading the RegItem objects
+     *
+     * @param regItemcalss
+     * @return the uuids of the RegItems
+     * @throws Exception
+     */
+    @Override
+    public List<String> getAllUuids(RegItemclass regItemcalss) throws Exception {
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_REGITEM_UUID_BY_REGITEMCLASS);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEMCLASS, regItemcalss);
+        return (List<String>) q.getResultList();
+    }
+
+    /**
+     * Returns the RegItems with the uuids passed by parameter, in one query
+     * (the uuids not found are left out)
+     *
+     * @param uuids
+     * @return the RegItems found
+     * @throws Exception
+     */
+    @Override
+    public List<RegItem> getAll(Collection<String> uuids) throws Exception {
+
+        if (uuids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_REGITEM_BY_UUIDS);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_UUIDS, uuids);
+        return (List<RegItem>) q.getResultList();
+    }
+
     /**
      * Returns all the RegItems by RegAction
      *
@@ -327,6 +367,39 @@ public class RegItemManager implements IRegItemManager {
         return tmps;
     }
 
+    /**
+     * Returns a page of the non system RegItems by a List of RegItemclass,
+     * ordered by localid and uuid. If afterLocalid and afterUuid are set, the
+     * page starts after that item (keyset pagination), otherwise at the start
+     * position.
+     *
+     * @param regItemcalsses
+     * @param afterLocalid the localid of the last item of the previous page
+     * @param afterUuid the uuid of the last item of the previous page
+     * @param start
+     * @param maxResults
+     * @return the RegItems of the page
+     * @throws Exception
+     */
+    @Override
+    public List<RegItem> getAll(List<RegItemclass> regItemcalsses, String afterLocalid, String afterUuid, int start, int maxResults) throws Exception {
+
+        //Preparing query
+        Query q;
+        if (afterLocalid != null && afterUuid != null) {
+            q = this.em.createQuery(SQLConstants.SQL_GET_REGITEM_BY_REGITEMCLASSES_NO_SYSTEMITEMS_KEYSET_AFTER);
+            q.setParameter(SQLConstants.SQL_PARAMETERS_AFTER_LOCALID, afterLocalid);
+            q.setParameter(SQLConstants.SQL_PARAMETERS_AFTER_UUID, afterUuid);
+        } else {
+            q = this.em.createQuery(SQLConstants.SQL_GET_REGITEM_BY_REGITEMCLASSES_NO_SYSTEMITEMS_KEYSET);
+            q.setFirstResult(start);
+        }
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEMCLASSES, regItemcalsses);
+        q.setMaxResults(maxResults);
+
+        return (List<RegItem>) q.getResultList();
+    }
+
     /**
      * Returns all the RegItems by a List of RegItemclass paged
      *
@@ -516,6 +589,97 @@ public class RegItemManager implements IRegItemManager {
         }
     }
 
+    /**
+     * Returns a page of the non system RegItems (subject) by RegItem (object)
+     * and RegPredicate where subject RegItems must not have second
+     * RegPredicate, ordered by localid and uuid. If afterLocalid and afterUuid
+     * are set, the page starts after that item (keyset pagination), otherwise
+     * at the start position.
+     *
+     * @param regItem object
+     * @param regRelationPredicate
+     * @param subjectNotHavingPredicate
+     * @param afterLocalid the localid of the last item of the previous page
+     * @param afterUuid the uuid of the last item of the previous page
+     * @param start
+     * @param maxResults
+     * @return the RegItems of the page
+     * @throws Exception
+     */
+    @Override
+    public List<RegItem> getAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, RegRelationpredicate subjectNotHavingPredicate, String afterLocalid, String afterUuid, int start, int maxResults) throws Exception {
+        //Preparing query
+        Query q;
+        if (afterLocalid != null && afterUuid != null) {
+            q = this.em.createQuery(SQLConstants.SQL_GET_REG_ITEM_BY_OBJECT_PREDICATE_AND_SUBJECT_FILTER_KEYSET_AFTER);
+            q.setParameter(SQLConstants.SQL_PARAMETERS_AFTER_LOCALID, afterLocalid);
+            q.setParameter(SQLConstants.SQL_PARAMETERS_AFTER_UUID, afterUuid);
+        } else {
+            q = this.em.createQuery(SQLConstants.SQL_GET_REG_ITEM_BY_OBJECT_PREDICATE_AND_SUBJECT_FILTER_KEYSET);
+            q.setFirstResult(start);
+        }
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEM, regItem);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_PREDICATE, regRelationPredicate);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_NOT_PREDICATE, subjectNotHavingPredicate);
+        q.setMaxResults(maxResults);
+
+        return (List<RegItem>) q.getResultList();
+    }
+
+    /**
+     * Returns a page of the non system RegItems (subject) by RegItem (object)
+     * and RegPredicate, ordered by localid and uuid, starting after the item
+     * with the localid and uuid passed by parameter (keyset pagination)
+     *
+     * @param regItem object
+     * @param regRelationPredicate
+     * @param afterLocalid the localid of the last item of the previous page,
+     * null for the first page
+     * @param afterUuid the uuid of the last item of the previous page, null
+     * for the first page
+     * @param maxResults
+     * @return the RegItems of the page
+     * @throws Exception
+     */
+    @Override
+    public List<RegItem> getAllSubjectsByRegItemObjectAndPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, String afterLocalid, String afterUuid, int maxResults) throws Exception {
+        //Preparing query
+        Query q;
+        if (afterLocalid != null && afterUuid != null) {
+            q = this.em.createQuery(SQLConstants.SQL_GET_REG_ITEM_BY_OBJECT_AND_PREDICATE_KEYSET_AFTER);
+            q.setParameter(SQLConstants.SQL_PARAMETERS_AFTER_LOCALID, afterLocalid);
+            q.setParameter(SQLConstants.SQL_PARAMETERS_AFTER_UUID, afterUuid);
+        } else {
+            q = this.em.createQuery(SQLConstants.SQL_GET_REG_ITEM_BY_OBJECT_AND_PREDICATE_KEYSET);
+        }
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEM, regItem);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_PREDICATE, regRelationPredicate);
+        q.setMaxResults(maxResults);
+
+        return (List<RegItem>) q.getResultList();
+    }
+
+    /**
+     * Counts the non system RegItems (subject) by RegItem (object) and
+     * RegPredicate where subject RegItems must not have second RegPredicate
+     *
+     * @param regItem object
+     * @param regRelationPredicate
+     * @param subjectNotHavingPredicate
+     * @return the number of RegItems
+     * @throws Exception
+     */
+    @Override
+    public int countAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(RegItem regItem, RegRelationpredicate regRelationPredicate, RegRelationpredicate subjectNotHavingPredicate) throws Exception {
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_REG_ITEM_BY_OBJECT_PREDICATE_AND_SUBJECT_FILTER_COUNT);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEM, regItem);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_PREDICATE, regRelationPredicate);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_NOT_PREDICATE, subjectNotHavingPredicate);
+
+        return ((Number) q.getSingleResult()).intValue();
+    }
+
     /**
      * Returns all RegItems (subject) by RegItem (object) and RegPredicate where
      * subject RegItems must not have second RegPredicate Useful for example for
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2007,2016 EUROPEAN UNION
+ * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ *
+ * Date: 2020/05/11
+ * Authors:
+ * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *
+ * This work was supported by the Interoperability solutions for public
+ * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.crudimplementation;
+
+import eu.europa.ec.re3gistry2.crudimplementation.constants.ErrorConstants;
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.crudinterface.IRegItemchangeManager;
+import eu.europa.ec.re3gistry2.model.RegItemchange;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+public class RegItemchangeManager implements IRegItemchangeManager {
+
+    private EntityManager em;
+
+    public RegItemchangeManager(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Returns the RegItemchange object
+     *
+     * @param uuid The uuid of the RegItemchange
+     * @return RegItemchange object with the uuid passed by parameter
+     * @throws java.lang.Exception
+     */
+    @Override
+    public RegItemchange get(String uuid) throws Exception {
+
+        //Checking parameters
+        if (uuid == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "uuid"));
+        }
+
+        //Preparing query
+        Query q = this.em.createNamedQuery("RegItemchange.findByUuid");
+        q.setParameter("uuid", uuid);
+        return (RegItemchange) q.getSingleResult();
+    }
+
+    /**
+     * Returns all the RegItemchange, ordered by insert date
+     *
+     * @return all the RegItemchange
+     * @throws Exception
+     */
+    @Override
+    public List<RegItemchange> getAll() throws Exception {
+
+        //Preparing query
+        Query q = this.em.createNamedQuery("RegItemchange.findAll");
+        return (List<RegItemchange>) q.getResultList();
+    }
+
+    /**
+     * Returns all the RegItemchange of the RegItem with the uuid passed by
+     * parameter, ordered by insert date
+     *
+     * @param regItemUuid the uuid of the RegItem
+     * @return all the RegItemchange of the RegItem
+     * @throws Exception
+     */
+    @Override
+    public List<RegItemchange> getAll(String regItemUuid) throws Exception {
+
+        //Checking parameters
+        if (regItemUuid == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "regItemUuid"));
+        }
+
+        //Preparing query
+        Query q = this.em.createNamedQuery("RegItemchange.findByRegItemUuid");
+        q.setParameter("regItemUuid", regItemUuid);
+        return (List<RegItemchange>) q.getResultList();
+    }
+
+    /**
+     * Returns the RegItemchange inserted from the date passed by parameter
+     * (included), ordered by insert date
+     *
+     * @param insertdate
+     * @return the RegItemchange inserted from the date
+     * @throws Exception
+     */
+    @Override
+    public List<RegItemchange> getAllSince(Date insertdate) throws Exception {
+
+        //Checking parameters
+        if (insertdate == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "insertdate"));
+        }
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_ITEMCHANGE_SINCE);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_INSERTDATE, insertdate);
+        return (List<RegItemchange>) q.getResultList();
+    }
+
+    /**
+     * Returns a page of the RegItemchange following the one with the insert
+     * date and uuid passed by parameter (an empty afterUuid includes the
+     * changes inserted at that date), up to the until date (included),
+     * ordered by insert date and uuid
+     *
+     * @param insertdate
+     * @param afterUuid
+     * @param until
+     * @param maxResults
+     * @return the page of RegItemchange
+     * @throws Exception
+     */
+    @Override
+    public List<RegItemchange> getAllAfter(Date insertdate, String afterUuid, Date until, int maxResults) throws Exception {
+
+        //Checking parameters
+        if (insertdate == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "insertdate"));
+        }
+        if (afterUuid == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "afterUuid"));
+        }
+        if (until == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "until"));
+        }
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_ITEMCHANGE_AFTER);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_INSERTDATE, insertdate);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_AFTER_UUID, afterUuid);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_UNTIL, until);
+        q.setMaxResults(maxResults);
+        return (List<RegItemchange>) q.getResultList();
+    }
+
+    /**
+     * Returns the insert date of the last RegItemchange
+     *
+     * @return the last insert date, or null if there are no RegItemchange
+     * @throws Exception
+     */
+    @Override
+    public Date getLastInsertdate() throws Exception {
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_ITEMCHANGE_LAST_INSERTDATE);
+        return (Date) q.getSingleResult();
+    }
+
+    /**
+     * Adds a RegItemchange to the database. Returns true if the operation
+     * succeed.
+     *
+     * @param regItemchange The RegItemchange object to be added
+     * @return True if the operation was successfully completed; otherwise it
+     * returns false.
+     * @throws Exception
+     */
+    @Override
+    public boolean add(RegItemchange regItemchange) throws Exception {
+        //Checking parameters
+        if (regItemchange == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, RegItemchange.class));
+        }
+
+        //Checking the DB managers
+        if (this.em == null) {
+            throw new Exception(ErrorConstants.ERROR_MANAGER_PERSISTENCE_LAYER_NULL);
+        }
+
+        //Saving the object
+        this.em.persist(regItemchange);
+
+        return true;
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2007,2016 EUROPEAN UNION
+ * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ *
+ * Date: 2020/05/11
+ * Authors:
+ * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *
+ * This work was supported by the Interoperability solutions for public
+ * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.crudimplementation;
+
+import eu.europa.ec.re3gistry2.crudimplementation.constants.ErrorConstants;
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.crudinterface.IRegItemuriManager;
+import eu.europa.ec.re3gistry2.model.RegItem;
+import eu.europa.ec.re3gistry2.model.RegItemuri;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+public class RegItemuriManager implements IRegItemuriManager {
+
+    private EntityManager em;
+
+    public RegItemuriManager(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Returns the RegItemuri object
+     *
+     * @param uri The URI of the RegItem
+     * @return RegItemuri object with the URI passed by parameter
+     * @throws java.lang.Exception
+     */
+    @Override
+    public RegItemuri get(String uri) throws Exception {
+
+        //Checking parameters
+        if (uri == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "uri"));
+        }
+
+        //Preparing query
+        Query q = this.em.createNamedQuery("RegItemuri.findByUri");
+        q.setParameter("uri", uri);
+        return (RegItemuri) q.getSingleResult();
+    }
+
+    /**
+     * Returns all the RegItemuri
+     *
+     * @return all the RegItemuri
+     * @throws Exception
+     */
+    @Override
+    public List<RegItemuri> getAll() throws Exception {
+
+        //Preparing query
+        Query q = this.em.createNamedQuery("RegItemuri.findAll");
+        return (List<RegItemuri>) q.getResultList();
+    }
+
+    /**
+     * Returns all the RegItemuri of the RegItem passed by parameter
+     *
+     * @param regItem
+     * @return all the RegItemuri of the RegItem
+     * @throws Exception
+     */
+    @Override
+    public List<RegItemuri> getAll(RegItem regItem) throws Exception {
+
+        //Checking parameters
+        if (regItem == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, RegItem.class));
+        }
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_ITEMURI_BY_ITEM);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEM, regItem);
+        return (List<RegItemuri>) q.getResultList();
+    }
+
+    /**
+     * Returns the whole URI index as a map (URI to RegItem uuid), without
+     * loading the RegItem objects.
+     *
+     * @return the map of the RegItem uuid by URI
+     * @throws Exception
+     */
+    @Override
+    public Map<String, String> getAllUuidByUri() throws Exception {
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_ITEMURI_URI_AND_ITEM_UUID);
+        List<Object[]> rows = (List<Object[]>) q.getResultList();
+
+        Map<String, String> uuidByUri = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            uuidByUri.put((String) row[0], (String) row[1]);
+        }
+        return uuidByUri;
+    }
+
+    /**
+     * Returns the URIs of the RegItems with the uuids passed by parameter, in
+     * one query (the RegItems not indexed are left out).
+     *
+     * @param uuids the uuids of the RegItems
+     * @return the map of the URI by RegItem uuid
+     * @throws Exception
+     */
+    @Override
+    public Map<String, String> getUriByUuid(Collection<String> uuids) throws Exception {
+
+        Map<String, String> uriByUuid = new HashMap<>();
+        if (uuids.isEmpty()) {
+            return uriByUuid;
+        }
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_ITEMURI_URI_AND_ITEM_UUID_BY_ITEM_UUIDS);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_UUIDS, uuids);
+        List<Object[]> rows = (List<Object[]>) q.getResultList();
+
+        for (Object[] row : rows) {
+            uriByUuid.put((String) row[1], (String) row[0]);
+        }
+        return uriByUuid;
+    }
+
+    /**
+     * Adds a RegItemuri to the database. Returns true if the operation
+     * succeed.
+     *
+     * @param regItemuri The RegItemuri object to be added
+     * @return True if the operation was successfully completed; otherwise it
+     * returns false.
+     * @throws Exception
+     */
+    @Override
+    public boolean add(RegItemuri regItemuri) throws Exception {
+        //Checking parameters
+        if (regItemuri == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, RegItemuri.class));
+        }
+
+        //Checking the DB managers
+        if (this.em == null) {
+            throw new Exception(ErrorConstants.ERROR_MANAGER_PERSISTENCE_LAYER_NULL);
+        }
+
+        //Saving the object
+        this.em.persist(regItemuri);
+
+        return true;
+    }
+
+    /**
+     * Removes the RegItemuri passed by parameter. Returns true if the
+     * operation succeed.
+     *
+     * @param regItemuri The RegItemuri object to be removed
+     * @return True if the operation was successfully completed; otherwise it
+     * returns false.
+     * @throws Exception
+     */
+    @Override
+    public boolean delete(RegItemuri regItemuri) throws Exception {
+        //Checking parameters
+        if (regItemuri == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, RegItemuri.class));
+        }
+
+        //Checking the DB managers
+        if (this.em == null) {
+            throw new Exception(ErrorConstants.ERROR_MANAGER_PERSISTENCE_LAYER_NULL);
+        }
+
+        //Removing the object
+        em.remove(regItemuri);
+
+        return true;
+    }
+
+    /**
+     * Removes all the RegItemuri of the RegItem passed by parameter.
+     *
+     * @param regItem
+     * @return the number of removed RegItemuri
+     * @throws Exception
+     */
+    @Override
+    public int deleteAll(RegItem regItem) throws Exception {
+        //Checking parameters
+        if (regItem == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, RegItem.class));
+        }
+
+        //Checking the DB managers
+        if (this.em == null) {
+            throw new Exception(ErrorConstants.ERROR_MANAGER_PERSISTENCE_LAYER_NULL);
+        }
+
+        Query q = this.em.createQuery(SQLConstants.SQL_DELETE_ITEMURI_BY_ITEM);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEM, regItem);
+        return q.executeUpdate();
+    }
+
+    /**
+     * Removes all the RegItemuri (used when rebuilding the URI index).
+     *
+     * @return the number of removed RegItemuri
+     * @throws Exception
+     */
+    @Override
+    public int deleteAll() throws Exception {
+        //Checking the DB managers
+        if (this.em == null) {
+            throw new Exception(ErrorConstants.ERROR_MANAGER_PERSISTENCE_LAYER_NULL);
+        }
+
+        Query q = this.em.createQuery(SQLConstants.SQL_DELETE_ITEMURI_ALL);
+        return q.executeUpdate();
+    }
+
+}
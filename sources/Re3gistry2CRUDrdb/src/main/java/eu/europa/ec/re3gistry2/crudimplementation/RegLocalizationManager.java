@@ -256,6 +256,21 @@ public class RegLocalizationManager implements IRegLocalizationManager {
         return (List<RegLocalization>) q.getResultList();
     }
 
+    /**
+     * Returns all the RegLocalization of the RegFields (the localizations not
+     * related to any RegItem)
+     *
+     * @return all the RegLocalization of the RegFields
+     * @throws Exception
+     */
+    @Override
+    public List<RegLocalization> getAllFieldLocalizations() throws Exception {
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_LOCALIZATION_FIELDS_NO_ITEM);
+        return (List<RegLocalization>) q.getResultList();
+    }
+
     /**
      * Returns all the RegLocalization for the specified RegField and
      * RegLanguagecode
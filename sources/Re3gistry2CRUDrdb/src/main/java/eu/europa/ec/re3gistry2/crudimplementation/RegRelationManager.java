@@ -184,6 +184,48 @@ public class RegRelationManager implements IRegRelationManager {
         return (List<RegRelation>) q.getResultList();
     }
 
+    /**
+     * Returns all the RegRelation where one of the RegItems passed as
+     * parameter is the subject
+     *
+     * @param regItems
+     * @return list of RegRelation
+     * @throws Exception
+     */
+    @Override
+    public List<RegRelation> getAllBySubjects(List<RegItem> regItems) throws Exception {
+        //Checking parameters
+        if (regItems == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "regItems"));
+        }
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_RELATION_BY_SUBJECT_ITEMS);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEM_LIST, regItems);
+        return (List<RegRelation>) q.getResultList();
+    }
+
+    /**
+     * Returns all the RegRelation where one of the RegItems passed as
+     * parameter is the object
+     *
+     * @param regItems
+     * @return list of RegRelation
+     * @throws Exception
+     */
+    @Override
+    public List<RegRelation> getAllByObjects(List<RegItem> regItems) throws Exception {
+        //Checking parameters
+        if (regItems == null) {
+            throw new Exception(MessageFormat.format(ErrorConstants.ERROR_MANAGER_PATTERN_NULL, "regItems"));
+        }
+
+        //Preparing query
+        Query q = this.em.createQuery(SQLConstants.SQL_GET_RELATION_BY_OBJECT_ITEMS);
+        q.setParameter(SQLConstants.SQL_PARAMETERS_REGITEM_LIST, regItems);
+        return (List<RegRelation>) q.getResultList();
+    }
+
     /**
      * Returns all the RegRelation by RegItem (subject) and RegPredicate
      *
@@ -51,10 +51,15 @@ public class SQLConstants {
     public static final String SQL_PARAMETERS_LABEL = "label";
     public static final String SQL_PARAMETERS_PREDICATE = "predicate";
     public static final String SQL_PARAMETERS_NOT_PREDICATE = "notpredicate";
+    public static final String SQL_PARAMETERS_AFTER_LOCALID = "afterLocalid";
+    public static final String SQL_PARAMETERS_AFTER_UUID = "afterUuid";
+    public static final String SQL_PARAMETERS_INSERTDATE = "insertdate";
+    public static final String SQL_PARAMETERS_UNTIL = "until";
     public static final String SQL_PARAMETERS_VERSIONNUMBER = "versionnumber";
     public static final String SQL_PARAMETERS_REGITEMREFERENCE = "regItemReference";
     public static final String SQL_PARAMETERS_VALUE = "value";
     public static final String SQL_PARAMETERS_REGSTATUSGROUP = "regStatusgroup";
+    public static final String SQL_PARAMETERS_UUIDS = "uuids";
 
     // RegItem
     public static final String SQL_GET_REGITEM_BY_LOCALID = "SELECT r FROM RegItem r WHERE r.localid = :localid";
@@ -62,12 +67,16 @@ public class SQLConstants {
     public static final String SQL_GET_REGITEM_BY_REGITEMCLASSTYPE = "SELECT r FROM RegItem r JOIN r.regItemclass i WHERE i.regItemclasstype = :regItemclasstype";
     public static final String SQL_GET_REGITEM_BY_REGITEMCLASSTYPE_ACTIVE = "SELECT r FROM RegItem r JOIN r.regItemclass i WHERE i.regItemclasstype = :regItemclasstype AND i.active = TRUE";
     public static final String SQL_GET_REGITEM_BY_REGITEMCLASS = "SELECT r FROM RegItem r WHERE r.regItemclass = :regItemclass";
+    public static final String SQL_GET_REGITEM_BY_UUIDS = "SELECT r FROM RegItem r WHERE r.uuid IN :uuids";
+    public static final String SQL_GET_REGITEM_UUID_BY_REGITEMCLASS = "SELECT r.uuid FROM RegItem r WHERE r.regItemclass = :regItemclass ORDER BY r.localid, r.uuid";
 
     public static final String SQL_GET_REGITEM_BY_REGITEMCLASSES = "SELECT r FROM RegItem r WHERE r.regItemclass IN :regItemclasses ORDER BY r.localid";
     public static final String SQL_GET_REGITEM_BY_REGITEMCLASSES_COUNT = "SELECT count(r) FROM RegItem r WHERE r.regItemclass IN :regItemclasses";
 
     public static final String SQL_GET_REGITEM_BY_REGITEMCLASSES_NO_SYSTEMITEMS = "SELECT r FROM RegItem r JOIN r.regItemclass c WHERE r.regItemclass IN :regItemclasses AND c.systemitem = FALSE ORDER BY r.localid";
     public static final String SQL_GET_REGITEM_BY_REGITEMCLASSES_COUNT_NO_SYSTEMITEMS = "SELECT count(r) FROM RegItem r JOIN r.regItemclass c WHERE r.regItemclass IN :regItemclasses AND c.systemitem = FALSE";
+    public static final String SQL_GET_REGITEM_BY_REGITEMCLASSES_NO_SYSTEMITEMS_KEYSET = "SELECT r FROM RegItem r JOIN r.regItemclass c WHERE r.regItemclass IN :regItemclasses AND c.systemitem = FALSE ORDER BY r.localid, r.uuid";
+    public static final String SQL_GET_REGITEM_BY_REGITEMCLASSES_NO_SYSTEMITEMS_KEYSET_AFTER = "SELECT r FROM RegItem r JOIN r.regItemclass c WHERE r.regItemclass IN :regItemclasses AND c.systemitem = FALSE AND (r.localid > :afterLocalid OR (r.localid = :afterLocalid AND r.uuid > :afterUuid)) ORDER BY r.localid, r.uuid";
 
     public static final String SQL_GET_REGITEM_BY_RELATION_AND_ITEMOBJECT = "SELECT i.regItemSubject FROM RegRelation i JOIN i.regItemObject r WHERE i.regRelationpredicate=:regRelationpredicete AND i.regItemObject = :regItemObject";
     public static final String SQL_GET_REGITEM_BY_RELATION_AND_ITEMOBJECT_COUNT = "SELECT count(i.regItemSubject) FROM RegRelation i JOIN i.regItemObject r WHERE i.regRelationpredicate=:regRelationpredicete AND i.regItemObject = :regItemObject";
@@ -78,6 +87,11 @@ public class SQLConstants {
     public static final String SQL_GET_REGITEM_BY_RELATION_AND_ITEMOBJECT_COUNT_NO_SYSTEMITEM = "SELECT count(i.regItemSubject) FROM RegRelation i JOIN i.regItemObject r JOIN r.regItemclass c WHERE i.regRelationpredicate=:regRelationpredicete AND i.regItemObject = :regItemObject AND c.systemitem = FALSE";
 
     public static final String SQL_GET_REG_ITEM_BY_OBJECT_PREDICATE_AND_SUBJECT_FILTER = "SELECT r.regItemSubject FROM RegRelation r WHERE r.regItemObject = :regitem AND r.regRelationpredicate = :predicate AND r.regItemSubject NOT IN (SELECT r1.regItemSubject FROM RegRelation r1 WHERE r1.regRelationpredicate = :notpredicate)";
+    public static final String SQL_GET_REG_ITEM_BY_OBJECT_PREDICATE_AND_SUBJECT_FILTER_COUNT = "SELECT count(s) FROM RegRelation r JOIN r.regItemSubject s JOIN s.regItemclass c WHERE r.regItemObject = :regitem AND r.regRelationpredicate = :predicate AND c.systemitem = FALSE AND r.regItemSubject NOT IN (SELECT r1.regItemSubject FROM RegRelation r1 WHERE r1.regRelationpredicate = :notpredicate)";
+    public static final String SQL_GET_REG_ITEM_BY_OBJECT_PREDICATE_AND_SUBJECT_FILTER_KEYSET = "SELECT s FROM RegRelation r JOIN r.regItemSubject s JOIN s.regItemclass c WHERE r.regItemObject = :regitem AND r.regRelationpredicate = :predicate AND c.systemitem = FALSE AND r.regItemSubject NOT IN (SELECT r1.regItemSubject FROM RegRelation r1 WHERE r1.regRelationpredicate = :notpredicate) ORDER BY s.localid, s.uuid";
+    public static final String SQL_GET_REG_ITEM_BY_OBJECT_AND_PREDICATE_KEYSET = "SELECT s FROM RegRelation r JOIN r.regItemSubject s JOIN s.regItemclass c WHERE r.regItemObject = :regitem AND r.regRelationpredicate = :predicate AND c.systemitem = FALSE ORDER BY s.localid, s.uuid";
+    public static final String SQL_GET_REG_ITEM_BY_OBJECT_AND_PREDICATE_KEYSET_AFTER = "SELECT s FROM RegRelation r JOIN r.regItemSubject s JOIN s.regItemclass c WHERE r.regItemObject = :regitem AND r.regRelationpredicate = :predicate AND c.systemitem = FALSE AND (s.localid > :afterLocalid OR (s.localid = :afterLocalid AND s.uuid > :afterUuid)) ORDER BY s.localid, s.uuid";
+    public static final String SQL_GET_REG_ITEM_BY_OBJECT_PREDICATE_AND_SUBJECT_FILTER_KEYSET_AFTER = "SELECT s FROM RegRelation r JOIN r.regItemSubject s JOIN s.regItemclass c WHERE r.regItemObject = :regitem AND r.regRelationpredicate = :predicate AND c.systemitem = FALSE AND r.regItemSubject NOT IN (SELECT r1.regItemSubject FROM RegRelation r1 WHERE r1.regRelationpredicate = :notpredicate) AND (s.localid > :afterLocalid OR (s.localid = :afterLocalid AND s.uuid > :afterUuid)) ORDER BY s.localid, s.uuid";
     public static final String SQL_GET_REG_ITEM_BY_SUBJECT_PREDICATE_AND_FILTER_PREDICATE = "SELECT r0.regItemSubject FROM (SELECT * FROM RegRelation r JOIN RegItem ri on ri.uuid = r.regItemSubject WHERE ri.regStatus = :regStatus AND r.regItemObject = :regitem AND r.regRelationpredicate = :predicate) as r0 WHERE r0.regItemSubject NOT IN (SELECT r1.regItemSubject FROM RegRelation r1 WHERE r1.regRelationpredicate = :notpredicate)";
 
     // RegItemproposed
@@ -127,6 +141,7 @@ public class SQLConstants {
     public static final String SQL_GET_LOCALIZATION_FIELDS_BY_LANGUAGE_AND_ITEMS = "SELECT r FROM RegLocalization r WHERE r.regLanguagecode = :regLanguagecode AND r.regField IS NOT NULL AND r.regItem IN :regitemList";
     public static final String SQL_GET_LOCALIZATION_FIELDS_BY_ITEMCLASS = "SELECT r FROM RegLocalization r WHERE r.regItemclass = :regitemclass";
     public static final String SQL_GET_LOCALIZATION_BY_FIELD = "SELECT r FROM RegLocalization r WHERE r.regField = :regfield AND r.regItem IS NULL";
+    public static final String SQL_GET_LOCALIZATION_FIELDS_NO_ITEM = "SELECT r FROM RegLocalization r WHERE r.regField IS NOT NULL AND r.regItem IS NULL";
     public static final String SQL_GET_LOCALIZATION_BY_FIELD_LANGUAGECODE = "SELECT r FROM RegLocalization r WHERE r.regField = :regfield AND r.regLanguagecode = :regLanguagecode AND r.regItem IS NULL";
     public static final String SQL_GET_LOCALIZATION_BY_FIELD_ITEM = "SELECT r FROM RegLocalization r WHERE r.regField = :regfield AND r.regItem = :regitem";
     public static final String SQL_GET_LOCALIZATION_BY_FIELD_ITEM_LANGUAGECODE = "SELECT r FROM RegLocalization r WHERE r.regField = :regfield AND r.regItem = :regitem AND r.regLanguagecode = :regLanguagecode";
@@ -157,9 +172,32 @@ public class SQLConstants {
     public static final String SQL_GET_LOCALIZATIONHISTORY_BY_FIELD_ITEM_ACTION = "SELECT r FROM RegLocalizationhistory r WHERE r.regField = :regfield AND r.regItemhistory = :regitem AND r.regAction = :regaction";
     public static final String SQL_GET_LOCALIZATION_FIELDS_BY_ITEMHISTORY = "SELECT r FROM RegLocalizationhistory r WHERE r.regItemhistory = :regItemhistory AND r.regField IS NOT NULL";
     
+// RegItemuri
+    public static final String SQL_GET_ITEMURI_BY_ITEM = "SELECT r FROM RegItemuri r WHERE r.regItem = :regitem";
+    public static final String SQL_GET_ITEMURI_URI_AND_ITEM_UUID = "SELECT r.uri, r.regItem.uuid FROM RegItemuri r";
+    public static final String SQL_GET_ITEMURI_URI_AND_ITEM_UUID_BY_ITEM_UUIDS = "SELECT r.uri, r.regItem.uuid FROM RegItemuri r WHERE r.regItem.uuid IN :uuids";
+    public static final String SQL_DELETE_ITEMURI_BY_ITEM = "DELETE FROM RegItemuri r WHERE r.regItem = :regitem";
+    public static final String SQL_DELETE_ITEMURI_ALL = "DELETE FROM RegItemuri r";
+    public static final String SQL_GET_ITEMCHANGE_LAST_INSERTDATE = "SELECT MAX(r.insertdate) FROM RegItemchange r";
+    public static final String SQL_GET_ITEMCHANGE_SINCE = "SELECT r FROM RegItemchange r WHERE r.insertdate >= :insertdate ORDER BY r.insertdate, r.uuid";
+    public static final String SQL_GET_ITEMCHANGE_AFTER = "SELECT r FROM RegItemchange r WHERE (r.insertdate > :insertdate OR (r.insertdate = :insertdate AND r.uuid > :afterUuid)) AND r.insertdate <= :until ORDER BY r.insertdate, r.uuid";
+
+// Configuration (number of rows, last insert and edit dates)
+    public static final String SQL_GET_CONFIGURATION_STATE_LANGUAGECODE = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegLanguagecode r";
+    public static final String SQL_GET_CONFIGURATION_STATE_RELATIONPREDICATE = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegRelationpredicate r";
+    public static final String SQL_GET_CONFIGURATION_STATE_ITEMCLASS = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegItemclass r";
+    public static final String SQL_GET_CONFIGURATION_STATE_FIELDMAPPING = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegFieldmapping r";
+    public static final String SQL_GET_CONFIGURATION_STATE_FIELD = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegField r";
+    public static final String SQL_GET_CONFIGURATION_STATE_FIELD_LOCALIZATION = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegLocalization r WHERE r.regField IS NOT NULL AND r.regItem IS NULL";
+    public static final String SQL_GET_CONFIGURATION_STATE_STATUS = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegStatus r";
+    public static final String SQL_GET_CONFIGURATION_STATE_STATUSGROUP = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegStatusgroup r";
+    public static final String SQL_GET_CONFIGURATION_STATE_STATUSLOCALIZATION = "SELECT COUNT(r), MAX(r.insertdate), MAX(r.editdate) FROM RegStatuslocalization r";
+
 // RegRelation
     public static final String SQL_GET_RELATION_BY_SUBJECT_ITEM = "SELECT r FROM RegRelation r WHERE r.regItemSubject = :regitem";
     public static final String SQL_GET_RELATION_BY_OBJECT_ITEM = "SELECT r FROM RegRelation r WHERE r.regItemObject = :regitem";
+    public static final String SQL_GET_RELATION_BY_SUBJECT_ITEMS = "SELECT r FROM RegRelation r WHERE r.regItemSubject IN :regitemList";
+    public static final String SQL_GET_RELATION_BY_OBJECT_ITEMS = "SELECT r FROM RegRelation r WHERE r.regItemObject IN :regitemList";
     public static final String SQL_GET_RELATION_COLLECTION_REFERENCE = "SELECT r FROM RegRelation r WHERE r.regItemSubject = :regitem AND r.regRelationpredicate = :predicate";
     public static final String SQL_GET_RELATION_OBJECT_PREDICATE = "SELECT r FROM RegRelation r WHERE r.regItemObject = :regitem AND r.regRelationpredicate = :predicate";
     public static final String SQL_GET_RELATION_SUBJECT_PREDICATE = "SELECT r FROM RegRelation r WHERE r.regItemSubject = :regitem AND r.regRelationpredicate = :predicate";
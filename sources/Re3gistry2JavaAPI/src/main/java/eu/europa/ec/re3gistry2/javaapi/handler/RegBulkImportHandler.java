@@ -61,10 +61,14 @@ import eu.europa.ec.re3gistry2.model.uuidhandlers.RegItemUuidHelper;
 import eu.europa.ec.re3gistry2.model.uuidhandlers.RegItemproposedUuidHelper;
 import eu.europa.ec.re3gistry2.model.uuidhandlers.RegLocalizationproposedUuidHelper;
 import eu.europa.ec.re3gistry2.model.uuidhandlers.RegRelationproposedUuidHelper;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -106,6 +110,9 @@ public class RegBulkImportHandler {
     private final String SUBSTITUTE_LANGUAGE = "{language}";
     private final String SUBSTITUTE_ITEMLOCALID = "{itemLocalID}";
 
+    // Number of items read at once by the export
+    private static final int EXPORT_PAGE_SIZE = 500;
+
     public RegBulkImportHandler(HttpServletRequest request, HttpServletResponse response) throws Exception {
         entityManager = PersistenceFactory.getEntityManagerFactory().createEntityManager();
         LOGGER = Configuration.getInstance().getLogger();
@@ -155,6 +162,154 @@ public class RegBulkImportHandler {
         }
     }
 
+    /**
+     * Writes the items of the register in the format of the bulk import
+     * template, in the language passed by parameter. The items are read page
+     * by page and written as they are read: the persistence context is
+     * cleared after each page, so that the memory used does not depend on the
+     * size of the register.
+     *
+     * Relation references are written as the localids of the referenced
+     * items, the collection columns are left empty.
+     *
+     * @param regItem the register
+     * @param regLanguagecode the language of the exported values
+     * @throws Exception
+     */
+    public void createFileExport(RegItem regItem, RegLanguagecode regLanguagecode) throws Exception {
+        RegItemclassManager regItemclassManager = new RegItemclassManager(entityManager);
+        RegFieldmappingManager regFieldmappingManager = new RegFieldmappingManager(entityManager);
+        RegItemManager regItemManager = new RegItemManager(entityManager);
+        RegLocalizationManager regLocalizationManager = new RegLocalizationManager(entityManager);
+
+        List<RegItemclass> child = regItemclassManager.getChildItemclass(regItem.getRegItemclass());
+        RegItemclass regItemclassChild = child.get(0);
+        List<RegFieldmapping> regFieldMappingListWithoutSomeFields = new ArrayList<>();
+        for (RegFieldmapping regFieldMapping : regFieldmappingManager.getAllOrderAscByListorder(regItemclassChild)) {
+            if (checkIfFieldTypeIsParentReferenceOrString(regFieldMapping.getRegField().getRegFieldtype().getUuid())) {
+                regFieldMappingListWithoutSomeFields.add(regFieldMapping);
+            }
+        }
+
+        // Reading the uuids once: the entities are detached after each page
+        List<String> fieldUuids = new ArrayList<>();
+        List<Boolean> relationReferences = new ArrayList<>();
+        for (RegFieldmapping regFieldMapping : regFieldMappingListWithoutSomeFields) {
+            fieldUuids.add(regFieldMapping.getRegField().getUuid());
+            relationReferences.add(regFieldMapping.getRegField().getRegFieldtype().getUuid().equals(BaseConstants.KEY_FIELDTYPE_RELATIONREFERENCE_UUID));
+        }
+        String language = regLanguagecode.getIso6391code();
+        List<RegItemclass> itemclasses = Collections.singletonList(regItemclassChild);
+
+        response.setContentType("application/octet-stream");
+        response.setHeader("Content-Disposition", "attachment;filename=" + regItemclassChild.getLocalid() + ".csv");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+            writer.write(generateCsvFileBuffer(regFieldMappingListWithoutSomeFields).toString());
+
+            String afterLocalid = null;
+            String afterUuid = null;
+            List<RegItem> regItems;
+            do {
+                regItems = regItemManager.getAll(itemclasses, afterLocalid, afterUuid, 0, EXPORT_PAGE_SIZE);
+                if (regItems.isEmpty()) {
+                    break;
+                }
+
+                // item uuid -> field uuid -> localizations
+                Map<String, Map<String, List<RegLocalization>>> localizations = new HashMap<>();
+                for (RegLocalization regLocalization : regLocalizationManager.getAll(regLanguagecode, regItems)) {
+                    localizations.computeIfAbsent(regLocalization.getRegItem().getUuid(), k -> new HashMap<>())
+                            .computeIfAbsent(regLocalization.getRegField().getUuid(), k -> new ArrayList<>())
+                            .add(regLocalization);
+                }
+
+                for (RegItem item : regItems) {
+                    Map<String, List<RegLocalization>> itemLocalizations = localizations.getOrDefault(item.getUuid(), Collections.emptyMap());
+                    writer.write("\n");
+                    writer.write(escapeValue(item.getLocalid()));
+                    writer.write("|");
+                    writer.write(language);
+                    for (int i = 0; i < fieldUuids.size(); i++) {
+                        List<RegLocalization> values = itemLocalizations.getOrDefault(fieldUuids.get(i), Collections.emptyList());
+                        writer.write("|");
+                        if (relationReferences.get(i)) {
+                            writer.write(escapeValue(getRelationReferenceValue(values)));
+                            writer.write("|");
+                        } else {
+                            writer.write(escapeValue(getLocalizationValue(values)));
+                        }
+                    }
+                }
+
+                RegItem last = regItems.get(regItems.size() - 1);
+                afterLocalid = last.getLocalid();
+                afterUuid = last.getUuid();
+                entityManager.clear();
+            } while (regItems.size() == EXPORT_PAGE_SIZE);
+        }
+    }
+
+    private static String getLocalizationValue(List<RegLocalization> values) {
+        RegLocalization first = null;
+        for (RegLocalization regLocalization : values) {
+            if (first == null || regLocalization.getFieldValueIndex() < first.getFieldValueIndex()) {
+                first = regLocalization;
+            }
+        }
+        if (first == null || first.getValue() == null) {
+            return "";
+        }
+        // One line per item
+        return first.getValue().replaceAll("\\r?\\n", " ");
+    }
+
+    /**
+     * Escapes the delimiter and the escape character in a value of the bulk
+     * file, each one preceded by a backslash, as read by
+     * {@link #splitLine(String)}.
+     */
+    static String escapeValue(String value) {
+        if (value.indexOf('|') < 0 && value.indexOf('\\') < 0) {
+            return value;
+        }
+        return value.replace("\\", "\\\\").replace("|", "\\|");
+    }
+
+    /**
+     * Splits a line of the bulk file on the "|" delimiters which are not
+     * escaped, and unescapes the values. A backslash followed by another
+     * character is kept as is.
+     */
+    static List<String> splitLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length() && (line.charAt(i + 1) == '|' || line.charAt(i + 1) == '\\')) {
+                value.append(line.charAt(++i));
+            } else if (c == '|') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private static String getRelationReferenceValue(List<RegLocalization> values) {
+        List<String> localids = new ArrayList<>();
+        for (RegLocalization regLocalization : values) {
+            RegRelation regRelation = regLocalization.getRegRelationReference();
+            if (regRelation != null && regRelation.getRegItemObject() != null) {
+                localids.add(regRelation.getRegItemObject().getLocalid());
+            }
+        }
+        return String.join(",", localids);
+    }
+
     private static StringBuilder generateCsvFileBuffer(List<RegFieldmapping> regFieldMappingListWithoutStatus) {
         StringBuilder writer = new StringBuilder();
 
@@ -204,8 +359,7 @@ public class RegBulkImportHandler {
                 additionLines.removeAll(Collections.singleton(null));
                 additionLines.removeAll(Collections.singleton(""));
 
-                String[] headerLineSplitted = fileList.get(0).split("\\|", -1);
-                List<String> headerListSplitted = new ArrayList<>(Arrays.asList(headerLineSplitted));
+                List<String> headerListSplitted = splitLine(fileList.get(0));
                 LOGGER.info("###");
                 LOGGER.info("### ANALIZE FILE ###");
                 HashMap<String, ArrayList<FieldsBulkImport>> itemsBulkImport = analyzeFile(headerListSplitted, additionLines, regItem);
@@ -633,8 +787,7 @@ public class RegBulkImportHandler {
 
         int line = 2;
         for (String additionLine : additionLines) {
-            String[] lineSplitted = additionLine.split("\\|", -1);
-            List<String> listListSplitted = new ArrayList<>(Arrays.asList(lineSplitted));
+            List<String> listListSplitted = splitLine(additionLine);
 
             final String localId = listListSplitted.get(0);
             final String language2Letters = listListSplitted.get(1);
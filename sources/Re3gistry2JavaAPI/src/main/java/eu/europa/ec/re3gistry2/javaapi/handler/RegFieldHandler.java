@@ -85,6 +85,7 @@ public class RegFieldHandler {
             try {
                 RegLocalization regLocalization = regLocalizationManager.get(formLocalizationUuid);
                 regLocalization.setValue(value);
+                regLocalization.setEditdate(new Date());
 
                 // The writing operation on the Database are synchronized
                 /* ## Start Synchronized ## */
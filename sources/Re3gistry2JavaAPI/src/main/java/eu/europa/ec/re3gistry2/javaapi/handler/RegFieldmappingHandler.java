@@ -233,6 +233,7 @@ public class RegFieldmappingHandler {
                             // Reordering the RegItemclass
 
                             temp.setListorder(newPosition);
+                            temp.setEditdate(new Date());
 
                             regFieldmappingManager.update(temp);
 
@@ -323,6 +324,7 @@ public class RegFieldmappingHandler {
                             if(regField.getRegFieldtype().getLocalid().equals(BaseConstants.KEY_FIELD_TYPE_GROUP) && regField.getRegRoleReference().getLocalid().equals(BaseConstants.KEY_ROLE_SUBMITTINGORGANIZATION)){
                                 temp.setMultivalue(true);
                             }
+                            temp.setEditdate(new Date());
 
                             regFieldmappingManager.update(temp);
 
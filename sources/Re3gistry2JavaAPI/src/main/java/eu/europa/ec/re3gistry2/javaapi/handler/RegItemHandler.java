@@ -28,6 +28,7 @@ import eu.europa.ec.re3gistry2.base.utility.Configuration;
 import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemRegGroupRegRoleMappingManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemchangeManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemproposedManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemproposedRegGroupRegRoleMappingManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegLocalizationManager;
@@ -37,6 +38,7 @@ import eu.europa.ec.re3gistry2.crudimplementation.RegRelationpredicateManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegRelationproposedManager;
 import eu.europa.ec.re3gistry2.model.RegItem;
 import eu.europa.ec.re3gistry2.model.RegItemRegGroupRegRoleMapping;
+import eu.europa.ec.re3gistry2.model.RegItemchange;
 import eu.europa.ec.re3gistry2.model.RegItemproposed;
 import eu.europa.ec.re3gistry2.model.RegItemproposedRegGroupRegRoleMapping;
 import eu.europa.ec.re3gistry2.model.RegLocalization;
@@ -46,6 +48,7 @@ import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
 import eu.europa.ec.re3gistry2.model.RegRelationproposed;
 import eu.europa.ec.re3gistry2.model.uuidhandlers.RegItemRegGroupRegRoleMappingUuidHelper;
 import eu.europa.ec.re3gistry2.model.uuidhandlers.RegItemUuidHelper;
+import eu.europa.ec.re3gistry2.model.uuidhandlers.RegItemchangeUuidHelper;
 import eu.europa.ec.re3gistry2.model.uuidhandlers.RegLocalizationUuidHelper;
 import eu.europa.ec.re3gistry2.model.uuidhandlers.RegRelationUuidHelper;
 import java.util.Date;
@@ -55,6 +58,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import org.apache.logging.log4j.Logger;
 import eu.europa.ec.re3gistry2.javaapi.solr.SolrHandler;
+import eu.europa.ec.re3gistry2.javaapi.uri.UriIndexHandler;
 
 public class RegItemHandler {
 
@@ -100,6 +104,7 @@ public class RegItemHandler {
         RegRelationManager regRelationManager = new RegRelationManager(entityManager);
         RegItemproposedRegGroupRegRoleMappingManager regItemproposedRegGroupRegRoleMappingManager = new RegItemproposedRegGroupRegRoleMappingManager(entityManager);
         RegItemRegGroupRegRoleMappingManager regItemhistoryRegGroupRegRoleMappingManager = new RegItemRegGroupRegRoleMappingManager(entityManager);
+        RegItemchangeManager regItemchangeManager = new RegItemchangeManager(entityManager);
 
         String operationSuccess = null;
         RegItem regItem = null;
@@ -386,6 +391,13 @@ public class RegItemHandler {
                     regItemproposedRegGroupRegRoleMappingManager.delete(tmpRegItemproposedRegGroupRegRoleMapping);
                 }
 
+                // Logging the change in the same transaction: the readers of
+                // the published data (e.g. the REST API cache) follow this log
+                Date changeDate = new Date();
+                String changetype = getChangetype(regItemProposed, newRegItem != null);
+                String changeUuid = RegItemchangeUuidHelper.getUuid(regItem, regItemProposed.getRegAction(), changetype, changeDate);
+                regItemchangeManager.add(new RegItemchange(changeUuid, regItem.getUuid(), changetype, changeDate));
+
                 entityManager.getTransaction().commit();
 
                 if (!entityManager.getTransaction().isActive()) {
@@ -406,6 +418,11 @@ public class RegItemHandler {
                 logger.error("@ RegItemHelper.regItemProposedToRegItem: Solr indexing error.", e);
             }
 
+            // Updating the URI index
+            if (!UriIndexHandler.indexSingleItem(regItem)) {
+                logger.error("@ RegItemHelper.regItemProposedToRegItem: URI indexing error.");
+            }
+
         } catch (NoResultException e) {
             logger.error("@ RegItemHelper.regItemProposedToRegItem: unable to perform the requests.", e);
             operationSuccess = systemLocalization.getString(BaseConstants.KEY_ERROR_GENERIC);
@@ -422,4 +439,28 @@ public class RegItemHandler {
         return operationSuccess;
     }
 
+    /**
+     * Returns the type of change published with the RegItemproposed passed by
+     * parameter.
+     *
+     * @param regItemProposed
+     * @param newRegItem true if the RegItemproposed creates a new RegItem
+     * @return the change type (see BaseConstants.KEY_CHANGE_TYPE_*)
+     */
+    private String getChangetype(RegItemproposed regItemProposed, boolean newRegItem) {
+        if (newRegItem) {
+            return BaseConstants.KEY_CHANGE_TYPE_CREATED;
+        }
+        switch (regItemProposed.getRegStatus().getLocalid()) {
+            case BaseConstants.KEY_STATUS_LOCALID_SUPERSEDED:
+                return BaseConstants.KEY_CHANGE_TYPE_SUPERSEDED;
+            case BaseConstants.KEY_STATUS_LOCALID_RETIRED:
+                return BaseConstants.KEY_CHANGE_TYPE_RETIRED;
+            case BaseConstants.KEY_STATUS_LOCALID_INVALID:
+                return BaseConstants.KEY_CHANGE_TYPE_INVALIDATED;
+            default:
+                return BaseConstants.KEY_CHANGE_TYPE_UPDATED;
+        }
+    }
+
 }
@@ -269,6 +269,7 @@ public class RegItemclassHandler {
                     // Reordering the RegItemclass
 
                     temp.setDataprocedureorder(newPosition);
+                    temp.setEditdate(new Date());
 
                     regItemclassManager.update(temp);
 
@@ -414,6 +415,7 @@ public class RegItemclassHandler {
 
                     regItemclass.setLocalid(localId);
                     regItemclass.setBaseuri(baseUri);
+                    regItemclass.setEditdate(new Date());
 
                     regItemclassManager.update(regItemclass);
 
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2007,2016 EUROPEAN UNION
+ * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ *
+ * Date: 2020/05/11
+ * Authors:
+ * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *
+ * This work was supported by the Interoperability solutions for public
+ * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.javaapi.uri;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemuriManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegRelationManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegRelationpredicateManager;
+import eu.europa.ec.re3gistry2.model.RegItem;
+import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.model.RegItemuri;
+import eu.europa.ec.re3gistry2.model.RegRelation;
+import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.persistence.EntityManager;
+import javax.persistence.NoResultException;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Maintains the persistent URI index (reg_itemuri table), used by the REST API
+ * to resolve an URI to a RegItem without recomputing the URI of the
+ * candidates. The URIs are built with the same rules used by the REST API.
+ */
+public class UriIndexHandler {
+
+    // Do not run 2 complete index rebuilds together
+    private static final AtomicBoolean INDEX_COMPLETE_RUNNING = new AtomicBoolean(false);
+
+    private UriIndexHandler() {
+    }
+
+    /**
+     * Rebuilds the whole URI index from the current RegItems.
+     *
+     * @return true if the index has been rebuilt
+     */
+    public static boolean indexComplete() {
+
+        // Init logger
+        Logger logger = Configuration.getInstance().getLogger();
+
+        if (!INDEX_COMPLETE_RUNNING.compareAndSet(false, true)) {
+            return false;
+        }
+
+        EntityManager em = null;
+        try {
+            // Getting the DB manager
+            em = PersistenceFactory.getEntityManagerFactory().createEntityManager();
+
+            // Instantiating managers
+            RegItemManager regItemManager = new RegItemManager(em);
+            RegItemuriManager regItemuriManager = new RegItemuriManager(em);
+            UriBuilder uriBuilder = new UriBuilder(em);
+
+            em.getTransaction().begin();
+
+            regItemuriManager.deleteAll();
+
+            Set<String> indexedUris = new HashSet<>();
+            Date now = new Date();
+            for (RegItem regItem : regItemManager.getAll()) {
+                if (regItem.getExternal()) {
+                    continue;
+                }
+                String uri = uriBuilder.getURI(regItem);
+                if (uri == null || !indexedUris.add(uri)) {
+                    logger.warn("@ UriIndexHandler.indexComplete: URI not indexed for the RegItem " + regItem.getUuid() + ": " + uri);
+                    continue;
+                }
+                regItemuriManager.add(new RegItemuri(uri, regItem, now));
+            }
+
+            em.getTransaction().commit();
+            return true;
+
+        } catch (Exception e) {
+            logger.error("@ UriIndexHandler.indexComplete: error while rebuilding the URI index.", e);
+            if (em != null && em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            return false;
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+            INDEX_COMPLETE_RUNNING.set(false);
+        }
+    }
+
+    /**
+     * Updates the URI index for the RegItem passed by parameter and for the
+     * items contained in it through the collection relation (their URI
+     * depends on the collection chain).
+     *
+     * @param regItem the published RegItem
+     * @return true if the index has been updated
+     */
+    public static boolean indexSingleItem(RegItem regItem) {
+
+        // Init logger
+        Logger logger = Configuration.getInstance().getLogger();
+
+        if (regItem == null) {
+            return false;
+        }
+
+        EntityManager em = null;
+        try {
+            // Getting the DB manager
+            em = PersistenceFactory.getEntityManagerFactory().createEntityManager();
+
+            // Instantiating managers
+            RegItemManager regItemManager = new RegItemManager(em);
+            RegRelationManager regRelationManager = new RegRelationManager(em);
+            RegRelationpredicateManager regRelationpredicateManager = new RegRelationpredicateManager(em);
+            RegRelationpredicate hasCollection = regRelationpredicateManager.get(BaseConstants.KEY_PREDICATE_COLLECTION);
+            UriBuilder uriBuilder = new UriBuilder(em);
+
+            em.getTransaction().begin();
+
+            // Walking down the collection tree, starting from the published item
+            LinkedList<RegItem> toIndex = new LinkedList<>();
+            Set<String> visited = new HashSet<>();
+            toIndex.add(regItemManager.get(regItem.getUuid()));
+            while (!toIndex.isEmpty()) {
+                RegItem current = toIndex.removeFirst();
+                if (!visited.add(current.getUuid())) {
+                    continue;
+                }
+                indexItem(current, uriBuilder.getURI(current), em);
+
+                if (BaseConstants.KEY_ITEMCLASS_TYPE_ITEM.equals(current.getRegItemclass().getRegItemclasstype().getLocalid())) {
+                    List<RegRelation> children = regRelationManager.getAllByRegItemObjectAndPredicate(current, hasCollection);
+                    if (children != null) {
+                        for (RegRelation child : children) {
+                            toIndex.add(child.getRegItemSubject());
+                        }
+                    }
+                }
+            }
+
+            em.getTransaction().commit();
+            return true;
+
+        } catch (Exception e) {
+            logger.error("@ UriIndexHandler.indexSingleItem: error while indexing the RegItem " + regItem.getUuid() + ".", e);
+            if (em != null && em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            return false;
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
+    private static void indexItem(RegItem regItem, String uri, EntityManager em) throws Exception {
+        RegItemuriManager regItemuriManager = new RegItemuriManager(em);
+
+        boolean alreadyIndexed = false;
+        for (RegItemuri regItemuri : regItemuriManager.getAll(regItem)) {
+            if (regItemuri.getUri().equals(uri)) {
+                alreadyIndexed = true;
+            } else {
+                regItemuriManager.delete(regItemuri);
+            }
+        }
+
+        // External items are identified by their own localid
+        if (alreadyIndexed || uri == null || regItem.getExternal()) {
+            return;
+        }
+
+        try {
+            // The URI was assigned to another RegItem: moving it
+            RegItemuri regItemuri = regItemuriManager.get(uri);
+            regItemuri.setRegItem(regItem);
+            regItemuri.setInsertdate(new Date());
+        } catch (NoResultException e) {
+            regItemuriManager.add(new RegItemuri(uri, regItem, new Date()));
+        }
+    }
+
+    /**
+     * Builds the RegItem URIs (same rules as the REST API), caching the URIs
+     * already computed.
+     */
+    private static class UriBuilder {
+
+        private final RegRelationManager regRelationManager;
+        private final RegRelationpredicate hasRegistry;
+        private final RegRelationpredicate hasRegister;
+        private final RegRelationpredicate hasCollection;
+        private final Map<String, String> uriByUuid = new HashMap<>();
+
+        UriBuilder(EntityManager em) throws Exception {
+            RegRelationpredicateManager regRelationpredicateManager = new RegRelationpredicateManager(em);
+            this.regRelationManager = new RegRelationManager(em);
+            this.hasRegistry = regRelationpredicateManager.get(BaseConstants.KEY_PREDICATE_REGISTRY);
+            this.hasRegister = regRelationpredicateManager.get(BaseConstants.KEY_PREDICATE_REGISTER);
+            this.hasCollection = regRelationpredicateManager.get(BaseConstants.KEY_PREDICATE_COLLECTION);
+        }
+
+        String getURI(RegItem regItem) throws Exception {
+            if (regItem == null) {
+                return null;
+            }
+            String uri = uriByUuid.get(regItem.getUuid());
+            if (uri == null) {
+                uri = buildURI(regItem);
+                uriByUuid.put(regItem.getUuid(), uri);
+            }
+            return uri;
+        }
+
+        private String buildURI(RegItem regItem) throws Exception {
+            RegItemclass itemclass = regItem.getRegItemclass();
+            switch (itemclass.getRegItemclasstype().getLocalid()) {
+                case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
+                    return itemclass.getBaseuri() + "/" + regItem.getLocalid();
+                case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
+                    if (itemclass.getBaseuri() != null) {
+                        return itemclass.getBaseuri() + "/" + regItem.getLocalid();
+                    }
+                    return getURI(getRelatedItem(regItem, hasRegistry)) + "/" + regItem.getLocalid();
+                case BaseConstants.KEY_ITEMCLASS_TYPE_ITEM:
+                    if (regItem.getExternal()) {
+                        return regItem.getLocalid();
+                    }
+                    String registerURI = getURI(getRelatedItem(regItem, hasRegister));
+                    LinkedList<String> collectionChain = new LinkedList<>();
+                    RegItem collection = getRelatedItem(regItem, hasCollection);
+                    while (collection != null) {
+                        collectionChain.addFirst(collection.getLocalid());
+                        collection = getRelatedItem(collection, hasCollection);
+                    }
+                    if (collectionChain.isEmpty()) {
+                        return registerURI + "/" + regItem.getLocalid();
+                    }
+                    return registerURI + "/" + String.join("/", collectionChain) + "/" + regItem.getLocalid();
+                default:
+                    throw new RuntimeException("Invalid type");
+            }
+        }
+
+        private RegItem getRelatedItem(RegItem regItem, RegRelationpredicate predicate) throws Exception {
+            List<RegRelation> relations = regRelationManager.getAllByRegItemSubjectAndPredicate(regItem, predicate);
+            if (relations == null || relations.isEmpty()) {
+                return null;
+            }
+            return relations.get(0).getRegItemObject();
+        }
+    }
+}
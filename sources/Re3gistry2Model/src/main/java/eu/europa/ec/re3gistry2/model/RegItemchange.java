@@ -0,0 +1,141 @@
+/*
+ * Copyright 2007,2016 EUROPEAN UNION
+ * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ *
+ * Date: 2020/05/11
+ * Authors:
+ * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *
+ * This work was supported by the Interoperability solutions for public
+ * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.model;
+
+import java.io.Serializable;
+import java.util.Date;
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.xml.bind.annotation.XmlRootElement;
+
+
+@Entity
+@Table(name = "reg_itemchange")
+@XmlRootElement
+@NamedQueries({
+    @NamedQuery(name = "RegItemchange.findAll", query = "SELECT r FROM RegItemchange r ORDER BY r.insertdate, r.uuid")
+    , @NamedQuery(name = "RegItemchange.findByUuid", query = "SELECT r FROM RegItemchange r WHERE r.uuid = :uuid")
+    , @NamedQuery(name = "RegItemchange.findByRegItemUuid", query = "SELECT r FROM RegItemchange r WHERE r.regItemUuid = :regItemUuid ORDER BY r.insertdate, r.uuid")})
+public class RegItemchange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    @Id
+    @Basic(optional = false)
+    @NotNull
+    @Size(min = 1, max = 50)
+    @Column(name = "uuid")
+    private String uuid;
+    @Basic(optional = false)
+    @NotNull
+    @Size(min = 1, max = 50)
+    @Column(name = "reg_item_uuid")
+    private String regItemUuid;
+    @Basic(optional = false)
+    @NotNull
+    @Size(min = 1, max = 20)
+    @Column(name = "changetype")
+    private String changetype;
+    @Basic(optional = false)
+    @NotNull
+    @Column(name = "insertdate")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date insertdate;
+
+    public RegItemchange() {
+    }
+
+    public RegItemchange(String uuid, String regItemUuid, String changetype, Date insertdate) {
+        this.uuid = uuid;
+        this.regItemUuid = regItemUuid;
+        this.changetype = changetype;
+        this.insertdate = insertdate;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(String uuid) {
+        this.uuid = uuid;
+    }
+
+    public String getRegItemUuid() {
+        return regItemUuid;
+    }
+
+    public void setRegItemUuid(String regItemUuid) {
+        this.regItemUuid = regItemUuid;
+    }
+
+    public String getChangetype() {
+        return changetype;
+    }
+
+    public void setChangetype(String changetype) {
+        this.changetype = changetype;
+    }
+
+    public Date getInsertdate() {
+        return insertdate;
+    }
+
+    public void setInsertdate(Date insertdate) {
+        this.insertdate = insertdate;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        hash += (uuid != null ? uuid.hashCode() : 0);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        
+        if (!(object instanceof RegItemchange)) {
+            return false;
+        }
+        RegItemchange other = (RegItemchange) object;
+        if ((this.uuid == null && other.uuid != null) || (this.uuid != null && !this.uuid.equals(other.uuid))) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "eu.europa.ec.re3gistry2.model.RegItemchange[ uuid=" + uuid + " ]";
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2007,2016 EUROPEAN UNION
+ * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ * the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ *
+ * Date: 2020/05/11
+ * Authors:
+ * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *
+ * This work was supported by the Interoperability solutions for public
+ * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.model;
+
+import java.io.Serializable;
+import java.util.Date;
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.xml.bind.annotation.XmlRootElement;
+
+
+@Entity
+@Table(name = "reg_itemuri")
+@XmlRootElement
+@NamedQueries({
+    @NamedQuery(name = "RegItemuri.findAll", query = "SELECT r FROM RegItemuri r")
+    , @NamedQuery(name = "RegItemuri.findByUri", query = "SELECT r FROM RegItemuri r WHERE r.uri = :uri")
+    , @NamedQuery(name = "RegItemuri.findByInsertdate", query = "SELECT r FROM RegItemuri r WHERE r.insertdate = :insertdate")})
+public class RegItemuri implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    @Id
+    @Basic(optional = false)
+    @NotNull
+    @Size(min = 1, max = 2000)
+    @Column(name = "uri")
+    private String uri;
+    @Basic(optional = false)
+    @NotNull
+    @Column(name = "insertdate")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date insertdate;
+    @JoinColumn(name = "reg_item", referencedColumnName = "uuid")
+    @ManyToOne(optional = false)
+    private RegItem regItem;
+
+    public RegItemuri() {
+    }
+
+    public RegItemuri(String uri, RegItem regItem, Date insertdate) {
+        this.uri = uri;
+        this.regItem = regItem;
+        this.insertdate = insertdate;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public Date getInsertdate() {
+        return insertdate;
+    }
+
+    public void setInsertdate(Date insertdate) {
+        this.insertdate = insertdate;
+    }
+
+    public RegItem getRegItem() {
+        return regItem;
+    }
+
+    public void setRegItem(RegItem regItem) {
+        this.regItem = regItem;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        hash += (uri != null ? uri.hashCode() : 0);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        
+        if (!(object instanceof RegItemuri)) {
+            return false;
+        }
+        RegItemuri other = (RegItemuri) object;
+        if ((this.uri == null && other.uri != null) || (this.uri != null && !this.uri.equals(other.uri))) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "eu.europa.ec.re3gistry2.model.RegItemuri[ uri=" + uri + " ]";
+    }
+
+}
@@ -32,11 +32,25 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 public enum ApiError {
 
     UUID_URI_REQUIRED(400, "bad-request", "Either uri or uuid query parameter required"),
+    INVALID_PAGE(400, "bad-request", "Invalid limit, offset or cursor query parameter"),
+    INVALID_PROJECTION(400, "bad-request", "Invalid embed query parameter: none, all or a list of containedItems, isDefinedBy, inScheme, topConcepts, narrower and broader"),
+    PROJECTION_NOT_SUPPORTED(400, "bad-request", "The fields and embed query parameters are only supported by the json, jsonc, cbor and smile formats"),
+    INVALID_SINCE(400, "bad-request", "Missing or invalid since query parameter: a timestamp or a token is required"),
+    INVALID_BATCH(400, "bad-request", "The body must be a json object with uuid and/or uri arrays"),
+    PREFIX_REQUIRED(400, "bad-request", "The prefix query parameter is required"),
+    UNAUTHORIZED(401, "unauthorized", "A valid admin token is required"),
+    ADMIN_TOKEN_NOT_CONFIGURED(403, "forbidden", "The operation is disabled until an admin token is configured"),
     NOT_FOUND(404, "not-found", "Element not found"),
+    METHOD_NOT_ALLOWED(405, "method-not-allowed", "The method is not allowed on this resource"),
     VERSION_NOT_FOUND(404, "version-not-found", "Element with specified version not found"),
+    WARMUP_IN_PROGRESS(409, "conflict", "Another warm-up is running, retry once it has completed"),
+    EXPORT_IN_PROGRESS(409, "conflict", "A rebuild of the static export is already queued or running"),
+    BATCH_TOO_LARGE(413, "batch-too-large", "Too many uuids and uris in one request"),
+    RANGE_NOT_SATISFIABLE(416, "range-not-satisfiable", "The requested range is not satisfiable"),
     FORMAT_NOT_SUPPORTED(406, "unknown-format", "The requested media type is not supported"),
     LANGUAGE_NOT_SUPPORTED(406, "unknown-language", "The requested language is not available"),
-    INTERNAL_SERVER_ERROR(500, "internal-server-error", "The server had an internal error");
+    INTERNAL_SERVER_ERROR(500, "internal-server-error", "The server had an internal error"),
+    SERVICE_UNAVAILABLE(503, "service-unavailable", "The server is too busy, retry later");
 
     private final ApiResponse error;
 
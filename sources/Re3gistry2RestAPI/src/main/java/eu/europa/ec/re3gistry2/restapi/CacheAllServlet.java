@@ -27,61 +27,83 @@
 package eu.europa.ec.re3gistry2.restapi;
 
 import java.io.IOException;
-import javax.persistence.EntityManager;
-import javax.persistence.EntityManagerFactory;
+
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
 import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
-import eu.europa.ec.re3gistry2.crudimplementation.RegLanguagecodeManager;
-import eu.europa.ec.re3gistry2.model.RegLanguagecode;
-import eu.europa.ec.re3gistry2.restapi.cache.CacheAll;
 import eu.europa.ec.re3gistry2.restapi.cache.ItemCache;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import eu.europa.ec.re3gistry2.restapi.cache.WarmUp;
+import eu.europa.ec.re3gistry2.restapi.util.RequestUtil;
+import eu.europa.ec.re3gistry2.restapi.util.ResponseUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+/**
+ * Warms up the item cache: /cacheall starts (or resumes) the warm-up,
+ * /cacheall/status returns its progress and /cacheall/stop stops it.
+ */
 public class CacheAllServlet extends HttpServlet {
 
-    private static final Logger LOG = LogManager.getLogger(CacheServlet.class.getName());
+    static final String ATTRIBUTE_WARMUP_KEY = "re3gistry-rest-api-warmup";
+    private static final Logger LOG = LogManager.getLogger(CacheAllServlet.class.getName());
     private static final long serialVersionUID = 1L;
 
-    private EntityManagerFactory emf;
-    private ItemCache cache;
-    private Logger logger;
+    private WarmUp warmUp;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
         try {
-            this.emf = PersistenceFactory.getEntityManagerFactory();
-            this.cache = (ItemCache) config.getServletContext().getAttribute(CacheServlet.ATTRIBUTE_CACHE_KEY);
-            this.logger = LogManager.getLogger("Re3gistry2");
+            ItemCache cache = (ItemCache) config.getServletContext().getAttribute(CacheServlet.ATTRIBUTE_CACHE_KEY);
+            this.warmUp = new WarmUp(PersistenceFactory.getEntityManagerFactory(), cache);
+            config.getServletContext().setAttribute(ATTRIBUTE_WARMUP_KEY, warmUp);
+            String resume = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_WARMUP_RESUME, "true");
+            if (Boolean.parseBoolean(resume.trim())) {
+                warmUp.resume();
+            }
         } catch (Exception e) {
-            this.logger.error("Unexpected exception occured: cannot load the configuration system", e);
+            LOG.error("Unexpected exception occured: cannot load the configuration system", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (warmUp != null) {
+            warmUp.stop();
         }
     }
 
     @Override
     public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
-            // Getting all the available languages
-            EntityManager em = this.emf.createEntityManager();
-
-            RegLanguagecodeManager languageManager = new RegLanguagecodeManager(em);
-            List<RegLanguagecode> availableLanguages = languageManager.getAll();
-
-            ExecutorService executor = Executors.newFixedThreadPool(availableLanguages.size());
-
-            for (RegLanguagecode languageCode : availableLanguages) {
-                Future result = executor.submit(new CacheAll(this.emf, this.cache, this.logger, languageCode));
+            if (!CacheServlet.isAuthorized(req)) {
+                resp.setHeader("WWW-Authenticate", "Bearer");
+                ResponseUtil.err(resp, ApiError.UNAUTHORIZED);
+                return;
+            }
+            if (warmUp == null) {
+                ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+                return;
+            }
+            String path = req.getPathInfo();
+            if (path == null || path.equals("/")) {
+                boolean restart = Boolean.parseBoolean(RequestUtil.getParamTrimmed(req, "restart", "false"));
+                warmUp.start(restart);
+            } else if (path.equals("/stop")) {
+                warmUp.stop();
+            } else if (!path.equals("/status")) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
             }
-            executor.shutdown();
+            ResponseUtil.okJson(resp, warmUp.getStatus());
         } catch (Exception e) {
+            LOG.error("Unexpected exception occured", e);
+            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
         }
     }
 }
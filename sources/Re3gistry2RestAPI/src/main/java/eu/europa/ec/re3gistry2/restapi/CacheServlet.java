@@ -27,33 +27,145 @@
 package eu.europa.ec.re3gistry2.restapi;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.persistence.EntityManager;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-//import eu.europa.ec.re3gistry2.restapi.cache.CaffeineCache;
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemuriManager;
+import eu.europa.ec.re3gistry2.restapi.cache.CacheInvalidator;
+import eu.europa.ec.re3gistry2.restapi.cache.CacheReport;
+import eu.europa.ec.re3gistry2.restapi.cache.CaffeineCache;
+import eu.europa.ec.re3gistry2.restapi.cache.DependencyTrackingCache;
 import eu.europa.ec.re3gistry2.restapi.cache.EhCache;
 import eu.europa.ec.re3gistry2.restapi.cache.ItemCache;
+import eu.europa.ec.re3gistry2.restapi.cache.NegativeCache;
+import eu.europa.ec.re3gistry2.restapi.cache.RequestStatistics;
+import eu.europa.ec.re3gistry2.restapi.cache.ResponseCache;
+import eu.europa.ec.re3gistry2.restapi.cache.UriIndex;
+import eu.europa.ec.re3gistry2.restapi.cache.WarmUp;
 import eu.europa.ec.re3gistry2.restapi.util.RequestUtil;
 import eu.europa.ec.re3gistry2.restapi.util.ResponseUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Administration of the caches: /cache/flush evicts one item (uuid query
+ * parameter) or everything, /cache/stats reports the state of the caches,
+ * /cache/evict evicts the items whose URI starts with the prefix query
+ * parameter and /cache/warm loads them. If an admin token is configured, it
+ * is required by all the operations. Otherwise /cache/stats, /cache/evict and
+ * /cache/warm are disabled, and only /cache/flush is open: it discloses
+ * nothing, and keeps the caches manageable on the installations without a
+ * token.
+ */
 public class CacheServlet extends HttpServlet {
 
     static final String ATTRIBUTE_CACHE_KEY = "re3gistry-rest-api-cache";
+    static final String ATTRIBUTE_RESPONSE_CACHE_KEY = "re3gistry-rest-api-response-cache";
+    static final String ATTRIBUTE_NEGATIVE_CACHE_KEY = "re3gistry-rest-api-negative-cache";
+    private static final int DEFAULT_TOP = 10;
+    private static final int MAXIMUM_TOP = 1000;
+    private static final String INVALIDATOR_STATE_FILE = "last-change.properties";
+    private static final String REQUEST_STATISTICS_FILE = "request-statistics.properties";
     private static final Logger LOG = LogManager.getLogger(ItemsServlet.class.getName());
     private static final long serialVersionUID = 1L;
 
-    private static ItemCache cache;
+    private static DependencyTrackingCache cache;
+    private static ResponseCache responseCache;
+    private static NegativeCache negativeCache;
+    private static CacheInvalidator invalidator;
+    private static ScheduledExecutorService invalidationExecutor;
+    // null if the cache does not survive the restarts
+    private static Path statisticsFile;
 
     public void init(ServletConfig config) throws ServletException {
-        //this.cache = new CaffeineCache();
-        this.cache = new EhCache();
+        this.cache = new DependencyTrackingCache(createItemCache());
         config.getServletContext().setAttribute(ATTRIBUTE_CACHE_KEY, cache);
+        this.responseCache = new ResponseCache();
+        config.getServletContext().setAttribute(ATTRIBUTE_RESPONSE_CACHE_KEY, responseCache);
+        this.negativeCache = new NegativeCache();
+        config.getServletContext().setAttribute(ATTRIBUTE_NEGATIVE_CACHE_KEY, negativeCache);
+
+        try {
+            String diskPath = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_PATH, "").trim();
+            // Kept next to the disk tier, which survives the restarts
+            Path stateFile = diskPath.isEmpty() ? null : Paths.get(diskPath, INVALIDATOR_STATE_FILE);
+            this.statisticsFile = diskPath.isEmpty() ? null : Paths.get(diskPath, REQUEST_STATISTICS_FILE);
+            if (statisticsFile != null) {
+                // The most requested items of the previous runs are warmed up first
+                RequestStatistics.load(statisticsFile);
+            }
+            this.invalidator = new CacheInvalidator(PersistenceFactory.getEntityManagerFactory(), cache, responseCache, negativeCache, stateFile);
+            int interval = getInvalidationInterval();
+            if (interval > 0) {
+                // Following the changes published by the registry manager
+                this.invalidationExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "re3gistry-rest-api-cache-invalidator");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                invalidationExecutor.scheduleWithFixedDelay(invalidator, 0, interval, TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to follow the published changes, the cache has to be flushed manually", e);
+        }
+    }
+
+    private ItemCache createItemCache() {
+        Properties properties = Configuration.getInstance().getProperties();
+        String diskPath = properties.getProperty(BaseConstants.KEY_DISK_CACHE_PATH, "").trim();
+        String offheapSpace = properties.getProperty(BaseConstants.KEY_OFFHEAP_CACHE_MAXIMUM_SPACE, "0").trim();
+        if (diskPath.isEmpty() && (offheapSpace.isEmpty() || "0".equals(offheapSpace))) {
+            // Heap only: bounded by the size of the items
+            return new CaffeineCache();
+        }
+        try {
+            return new EhCache();
+        } catch (Exception e) {
+            // e.g. the disk store is locked by another instance
+            LOG.error("Unable to initialize the disk cache, using an in-memory cache", e);
+            return new CaffeineCache();
+        }
+    }
+
+    private int getInvalidationInterval() {
+        String interval = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_CACHE_INVALIDATION_INTERVAL, "30");
+        try {
+            return Integer.parseInt(interval.trim());
+        } catch (NumberFormatException e) {
+            return 30;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (invalidationExecutor != null) {
+            invalidationExecutor.shutdownNow();
+        }
+        if (statisticsFile != null) {
+            RequestStatistics.save(statisticsFile);
+        }
+        if (cache != null) {
+            cache.close();
+        }
     }
 
     @Override
@@ -61,6 +173,42 @@ public class CacheServlet extends HttpServlet {
     public void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         String path = req.getPathInfo();
+        if (!isAuthorized(req)) {
+            resp.setHeader("WWW-Authenticate", "Bearer");
+            ResponseUtil.err(resp, ApiError.UNAUTHORIZED);
+            return;
+        }
+        if ("/stats".equals(path)) {
+            // The statistics disclose the requested URIs
+            if (getAdminToken().isEmpty()) {
+                ResponseUtil.err(resp, ApiError.ADMIN_TOKEN_NOT_CONFIGURED);
+                return;
+            }
+            writeStatistics(req, resp);
+            return;
+        }
+        if ("/evict".equals(path) || "/warm".equals(path)) {
+            try {
+                if (getAdminToken().isEmpty()) {
+                    ResponseUtil.err(resp, ApiError.ADMIN_TOKEN_NOT_CONFIGURED);
+                    return;
+                }
+                String prefix = RequestUtil.getParamTrimmed(req, "prefix", null);
+                if (prefix == null || prefix.isEmpty()) {
+                    ResponseUtil.err(resp, ApiError.PREFIX_REQUIRED);
+                    return;
+                }
+                if ("/evict".equals(path)) {
+                    evict(resp, prefix);
+                } else {
+                    warm(resp, prefix);
+                }
+            } catch (Exception e) {
+                LOG.error("Unexpected exception occured", e);
+                ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+            }
+            return;
+        }
         if (!"/flush".equals(path)) {
             try {
                 ResponseUtil.err(resp, ApiError.NOT_FOUND);
@@ -73,10 +221,31 @@ public class CacheServlet extends HttpServlet {
         boolean flushAll = uuid == null || uuid.isEmpty();
         if (flushAll) {
             cache.removeAll();
+            responseCache.removeAll();
+            negativeCache.removeAll();
+            UriIndex.removeAll();
+            // The configuration may have changed as well
+            RegistryMetadata.invalidate();
+        } else if (invalidator != null) {
+            // Evicting also the items embedding the flushed one
+            EntityManager em = null;
+            try {
+                em = PersistenceFactory.getEntityManagerFactory().createEntityManager();
+                invalidator.invalidate(uuid, em);
+            } catch (Exception e) {
+                LOG.error("Unexpected exception occured", e);
+            } finally {
+                if (em != null) {
+                    em.close();
+                }
+            }
         } else {
             for (String language : cache.getLanguages()) {
                 cache.remove(language, uuid);
             }
+            responseCache.remove(uuid);
+            negativeCache.removeAll();
+            UriIndex.remove(uuid);
         }
         try {
             ResponseUtil.ok(resp, new ApiResponse(200, "ok", "Flushed"));
@@ -89,4 +258,97 @@ public class CacheServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Checks the admin token, if configured.
+     *
+     * @param req the request
+     * @return false if a token is configured and the request does not carry
+     * it, true if no token is configured (the operations needing one check it
+     * themselves)
+     */
+    static boolean isAuthorized(HttpServletRequest req) {
+        String token = getAdminToken();
+        if (token.isEmpty()) {
+            return true;
+        }
+        String authorization = req.getHeader("Authorization");
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return false;
+        }
+        // Constant time comparison
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                authorization.substring(7).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String getAdminToken() {
+        return Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_CACHE_ADMIN_TOKEN, "").trim();
+    }
+
+    private void writeStatistics(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        try {
+            int top = getTop(req);
+            List<CacheReport.HotItem> hottestItems = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : RequestStatistics.getMostRequested(top).entrySet()) {
+                hottestItems.add(new CacheReport.HotItem(entry.getKey(), UriIndex.getUri(entry.getKey()), entry.getValue()));
+            }
+            // Reading the whole disk tier: only on demand
+            boolean languages = Boolean.parseBoolean(RequestUtil.getParamTrimmed(req, "languages", "false"));
+            ResponseUtil.okJson(resp, new CacheReport(cache.getStatistics(),
+                    languages ? cache.countEntriesByLanguage() : null,
+                    cache.getLoadLatencies(), hottestItems,
+                    responseCache.getSize(), responseCache.getWeight(), negativeCache.getSize()));
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured", e);
+            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private int getTop(HttpServletRequest req) {
+        try {
+            int top = Integer.parseInt(RequestUtil.getParamTrimmed(req, "top", Integer.toString(DEFAULT_TOP)));
+            return Math.min(Math.max(top, 0), MAXIMUM_TOP);
+        } catch (NumberFormatException e) {
+            return DEFAULT_TOP;
+        }
+    }
+
+    private void evict(HttpServletResponse resp, String prefix) throws Exception {
+        if (invalidator == null) {
+            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+            return;
+        }
+        EntityManager em = PersistenceFactory.getEntityManagerFactory().createEntityManager();
+        try {
+            int evicted = invalidator.invalidateByUriPrefix(prefix, em);
+            ResponseUtil.ok(resp, new ApiResponse(200, "ok", "Evicted " + evicted + " items"));
+        } finally {
+            em.close();
+        }
+    }
+
+    private void warm(HttpServletResponse resp, String prefix) throws Exception {
+        WarmUp warmUp = (WarmUp) getServletContext().getAttribute(CacheAllServlet.ATTRIBUTE_WARMUP_KEY);
+        if (warmUp == null) {
+            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+            return;
+        }
+        List<String> uuids;
+        EntityManager em = PersistenceFactory.getEntityManagerFactory().createEntityManager();
+        try {
+            uuids = UriIndex.getUuidsByUriPrefix(prefix, new RegItemuriManager(em));
+        } finally {
+            em.close();
+        }
+        if (uuids.isEmpty()) {
+            ResponseUtil.err(resp, ApiError.NOT_FOUND);
+            return;
+        }
+        if (!warmUp.start(uuids)) {
+            // The status would be the one of the running warm-up
+            ResponseUtil.err(resp, ApiError.WARMUP_IN_PROGRESS);
+            return;
+        }
+        ResponseUtil.okJson(resp, warmUp.getStatus());
+    }
+
 }
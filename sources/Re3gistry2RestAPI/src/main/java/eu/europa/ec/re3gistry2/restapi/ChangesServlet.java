@@ -0,0 +1,164 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemchangeManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemuriManager;
+import eu.europa.ec.re3gistry2.model.RegItemchange;
+import eu.europa.ec.re3gistry2.restapi.model.Change;
+import eu.europa.ec.re3gistry2.restapi.model.ChangeList;
+import eu.europa.ec.re3gistry2.restapi.util.ChangeToken;
+import eu.europa.ec.re3gistry2.restapi.util.PageRequest;
+import eu.europa.ec.re3gistry2.restapi.util.RequestUtil;
+import eu.europa.ec.re3gistry2.restapi.util.ResponseUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Change feed for incremental harvesting: /changes?since=&lt;timestamp|token&gt;
+ * lists, in pages, the items created, updated, superseded, retired or
+ * invalidated since then, read from the log of the published changes
+ * (reg_itemchange, indexed by insert date and uuid).
+ */
+public class ChangesServlet extends HttpServlet {
+
+    private static final Logger LOG = LogManager.getLogger(ChangesServlet.class.getName());
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_LIMIT = 100;
+    // The last changes are listed only once this delay has passed: a change
+    // is dated before its transaction commits, so a later page could
+    // otherwise skip a change committed late with an earlier date
+    private static final long SETTLE_MILLIS = 60 * 1000L;
+
+    private EntityManagerFactory emf;
+    private int maximumLimit;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        try {
+            this.emf = PersistenceFactory.getEntityManagerFactory();
+            String maximumLimit = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_PAGE_MAXIMUM_LIMIT, "1000");
+            this.maximumLimit = Math.max(Integer.parseInt(maximumLimit.trim()), 1);
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured: cannot load the configuration system", e);
+        }
+    }
+
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        try {
+            String path = req.getPathInfo();
+            if (path != null && !path.equals("/")) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+
+            String since = RequestUtil.getParamTrimmed(req, "since", null);
+            ChangeToken token;
+            try {
+                token = since != null ? ChangeToken.parse(since) : null;
+            } catch (IllegalArgumentException e) {
+                token = null;
+            }
+            if (token == null) {
+                ResponseUtil.err(resp, ApiError.INVALID_SINCE);
+                return;
+            }
+
+            int limit;
+            try {
+                limit = Integer.parseInt(RequestUtil.getParamTrimmed(req, PageRequest.PARAM_LIMIT, Integer.toString(DEFAULT_LIMIT)));
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit < 1) {
+                ResponseUtil.err(resp, ApiError.INVALID_PAGE);
+                return;
+            }
+            limit = Math.min(limit, maximumLimit);
+
+            EntityManager em = null;
+            try {
+                em = emf.createEntityManager();
+                RegItemchangeManager regItemchangeManager = new RegItemchangeManager(em);
+                RegItemuriManager regItemuriManager = new RegItemuriManager(em);
+
+                Date until = new Date(System.currentTimeMillis() - SETTLE_MILLIS);
+                List<RegItemchange> rows = regItemchangeManager.getAllAfter(token.getInsertdate(), token.getAfterUuid(), until, limit + 1);
+                boolean more = rows.size() > limit;
+                if (more) {
+                    rows = rows.subList(0, limit);
+                }
+
+                // The URIs of the page are read from the index table: the
+                // changed items are, on purpose, not in the in-memory index
+                Set<String> uuids = new HashSet<>();
+                for (RegItemchange row : rows) {
+                    uuids.add(row.getRegItemUuid());
+                }
+                Map<String, String> uriByUuid = regItemuriManager.getUriByUuid(uuids);
+
+                List<Change> changes = new ArrayList<>(rows.size());
+                for (RegItemchange row : rows) {
+                    String uuid = row.getRegItemUuid();
+                    String date = row.getInsertdate().toInstant().toString();
+                    changes.add(new Change(uuid, uriByUuid.get(uuid), row.getChangetype(), date));
+                }
+                String next = rows.isEmpty() ? token.getToken() : ChangeToken.getToken(rows.get(rows.size() - 1));
+                ResponseUtil.okJson(resp, new ChangeList(changes, next, more));
+            } finally {
+                if (em != null) {
+                    em.close();
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured", e);
+            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+}
@@ -0,0 +1,385 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemchangeManager;
+import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.format.Formatter;
+import eu.europa.ec.re3gistry2.restapi.format.JSONLinesFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.NTriplesFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.RenderContext;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.util.RequestUtil;
+import eu.europa.ec.re3gistry2.restapi.util.ResponseUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Dump of all the published items of a register (uuid or uri query
+ * parameter) or, without parameters, of the whole registry, in N-Triples or
+ * JSON Lines.
+ *
+ * The dump is written once, page by page straight from the database, to a
+ * gzipped file, and served from it until the registry changes: the file is
+ * versioned by the date of the last published change. Being a plain file, it
+ * can be downloaded in parts with the Range header, e.g. to resume an
+ * interrupted download.
+ */
+public class DumpServlet extends HttpServlet {
+
+    private static final Logger LOG = LogManager.getLogger(DumpServlet.class.getName());
+    private static final long serialVersionUID = 1L;
+
+    private static final String CONTENT_TYPE = "application/gzip";
+    private static final String DEFAULT_FORMAT = "nt";
+    private static final String REGISTRY_KEY = "registry";
+    private static final int BUFFER_SIZE = 8192;
+    // Range header that can not be satisfied by the file
+    private static final long[] NOT_SATISFIABLE = new long[0];
+
+    // One lock per dump, so that each dump is written only once at a time
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private EntityManagerFactory emf;
+    private Map<String, Formatter> formatters;
+    private File directory;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        try {
+            this.emf = PersistenceFactory.getEntityManagerFactory();
+            this.formatters = new HashMap<>();
+            addFormatter(new NTriplesFormatter());
+            addFormatter(new JSONLinesFormatter());
+
+            String path = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DUMP_PATH, "").trim();
+            this.directory = path.isEmpty() ? new File(System.getProperty("java.io.tmpdir"), "re3gistry2-dump") : new File(path);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                LOG.error("Cannot create the dump folder " + directory.getAbsolutePath());
+            }
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured: cannot load the configuration system", e);
+        }
+    }
+
+    private void addFormatter(Formatter formatter) {
+        formatters.put(formatter.getFormatName(), formatter);
+    }
+
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        try {
+            String path = req.getPathInfo();
+            if (path != null && !path.equals("/")) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+
+            String lang = RequestUtil.getParamTrimmed(req, "lang", null);
+            String uuid = RequestUtil.getParamTrimmed(req, "uuid", null);
+            String uri = RequestUtil.getParamTrimmed(req, "uri", null);
+            String format = RequestUtil.getParamTrimmed(req, "format", DEFAULT_FORMAT);
+
+            Formatter formatter = formatters.get(format);
+            if (formatter == null) {
+                ResponseUtil.err(resp, ApiError.FORMAT_NOT_SUPPORTED);
+                return;
+            }
+
+            File file;
+            String filename;
+            InputStream in;
+            EntityManager em = null;
+            try {
+                em = emf.createEntityManager();
+
+                RegistryMetadata metadata = RegistryMetadata.get(em);
+                RegLanguagecode languageCode = lang == null ? metadata.getMasterLanguage() : metadata.getLanguage(lang);
+                if (languageCode == null) {
+                    ResponseUtil.err(resp, ApiError.LANGUAGE_NOT_SUPPORTED);
+                    return;
+                }
+
+                ItemSupplier itemSupplier = new ItemSupplier(em, metadata.getMasterLanguage(), languageCode);
+                itemSupplier.setContainedItemsStreamed(true);
+
+                Item register = null;
+                if (uuid != null || uri != null) {
+                    try {
+                        register = uuid != null ? itemSupplier.getItemByUuid(uuid) : itemSupplier.getItemByUri(uri);
+                    } catch (NoResultException e) {
+                        register = null;
+                    }
+                    if (register == null || BaseConstants.KEY_ITEMCLASS_TYPE_ITEM.equals(register.getType())) {
+                        ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                        return;
+                    }
+                    if (BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY.equals(register.getType())) {
+                        register = null;
+                    }
+                }
+
+                String name = register != null ? register.getLocalid() : REGISTRY_KEY;
+                String key = (register != null ? register.getUuid() : REGISTRY_KEY) + "-" + languageCode.getIso6391code() + "." + format;
+                filename = name + "." + format + ".gz";
+
+                Date lastChange = new RegItemchangeManager(em).getLastInsertdate();
+                file = new File(directory, key + "-" + (lastChange != null ? lastChange.getTime() : 0L) + ".gz");
+
+                // The file is opened while holding the lock: once open, it can
+                // be read even if a newer dump replaces it
+                synchronized (LOCKS.computeIfAbsent(key, k -> new Object())) {
+                    if (!file.exists()) {
+                        writeDump(em, metadata, languageCode, itemSupplier, register, formatter, key, file);
+                    }
+                    in = new FileInputStream(file);
+                }
+            } finally {
+                if (em != null) {
+                    em.close();
+                }
+            }
+
+            try {
+                send(req, resp, file, filename, in);
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured", e);
+            if (!resp.isCommitted()) {
+                ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    /**
+     * Writes the dump to a temporary file, moved in place once complete, then
+     * deletes the previous versions of the dump.
+     */
+    private void writeDump(EntityManager em, RegistryMetadata metadata, RegLanguagecode languageCode,
+            ItemSupplier itemSupplier, Item register, Formatter formatter, String key, File file) throws Exception {
+        File tmp = File.createTempFile(key + "-", ".tmp", directory);
+        try {
+            try (OutputStream out = new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp), BUFFER_SIZE), BUFFER_SIZE)) {
+                if (register != null) {
+                    writeRegister(metadata, languageCode, itemSupplier, register, formatter, out);
+                } else {
+                    for (String uuid : getRegistryAndRegisterUuids(em, metadata)) {
+                        Item item = itemSupplier.getItemByUuid(uuid);
+                        if (item == null) {
+                            continue;
+                        }
+                        if (BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER.equals(item.getType())) {
+                            writeRegister(metadata, languageCode, itemSupplier, item, formatter, out);
+                        } else {
+                            formatter.write(item, new RenderContext(languageCode, metadata), out);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+
+        File[] previous = directory.listFiles((dir, name) -> name.startsWith(key + "-") && name.endsWith(".gz"));
+        if (previous != null) {
+            for (File old : previous) {
+                if (!old.equals(file)) {
+                    Files.deleteIfExists(old.toPath());
+                }
+            }
+        }
+    }
+
+    private void writeRegister(RegistryMetadata metadata, RegLanguagecode languageCode, ItemSupplier itemSupplier,
+            Item register, Formatter formatter, OutputStream out) throws Exception {
+        RenderContext context = new RenderContext(languageCode, metadata,
+                handler -> itemSupplier.forEachPublishedItem(register.getUuid(), handler));
+        formatter.write(register, context, out);
+    }
+
+    /**
+     * Returns the uuids of the registry and of the registers, in the order of
+     * their item classes
+     */
+    private List<String> getRegistryAndRegisterUuids(EntityManager em, RegistryMetadata metadata) throws Exception {
+        RegItemManager regItemManager = new RegItemManager(em);
+
+        List<RegItemclass> itemclasses = new ArrayList<>(metadata.getItemclasses());
+        itemclasses.sort(Comparator.comparingInt(RegItemclass::getDataprocedureorder));
+
+        List<String> list = new ArrayList<>();
+        for (String type : new String[]{BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY, BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER}) {
+            for (RegItemclass itemclass : itemclasses) {
+                if (type.equals(itemclass.getRegItemclasstype().getLocalid())) {
+                    list.addAll(regItemManager.getAllUuids(itemclass));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Sends the file, or the single byte range requested, unless the client
+     * already has it
+     */
+    private void send(HttpServletRequest req, HttpServletResponse resp, File file, String filename, InputStream in) throws IOException {
+        String etag = "\"" + file.getName() + "\"";
+        long length = file.length();
+
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Accept-Ranges", "bytes");
+        resp.setDateHeader("Last-Modified", file.lastModified());
+        if (RequestUtil.isNotModified(req, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long[] range = null;
+        String ifRange = req.getHeader("If-Range");
+        if (ifRange == null || ifRange.trim().equals(etag)) {
+            range = parseRange(req.getHeader("Range"), length);
+        }
+        if (range == NOT_SATISFIABLE) {
+            resp.setHeader("Content-Range", "bytes */" + length);
+            ResponseUtil.err(resp, ApiError.RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        long start = 0;
+        long count = length;
+        if (range != null) {
+            start = range[0];
+            count = range[1] - range[0] + 1;
+            resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            resp.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+        } else {
+            resp.setStatus(HttpServletResponse.SC_OK);
+        }
+        resp.setContentType(CONTENT_TYPE);
+        resp.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+        resp.setHeader("Content-Length", Long.toString(count));
+
+        long skipped = 0;
+        while (skipped < start) {
+            long n = in.skip(start - skipped);
+            if (n <= 0) {
+                throw new IOException("Unexpected end of file " + file.getName());
+            }
+            skipped += n;
+        }
+        try (OutputStream out = resp.getOutputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (count > 0) {
+                int n = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+                if (n < 0) {
+                    throw new IOException("Unexpected end of file " + file.getName());
+                }
+                out.write(buffer, 0, n);
+                count -= n;
+            }
+        }
+    }
+
+    /**
+     * Parses a Range header with a single byte range.
+     *
+     * @param header the Range header
+     * @param length the length of the file
+     * @return the first and last byte of the range, NOT_SATISFIABLE if the
+     * range is outside the file, or null if the whole file has to be sent
+     * (no header, unsupported or invalid range)
+     */
+    static long[] parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last bytes of the file
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return NOT_SATISFIABLE;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= length) {
+                return NOT_SATISFIABLE;
+            }
+            return new long[]{start, Math.min(end, length - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
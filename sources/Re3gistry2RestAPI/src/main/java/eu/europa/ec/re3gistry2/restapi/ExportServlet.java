@@ -0,0 +1,164 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
+import eu.europa.ec.re3gistry2.restapi.export.StaticExport;
+import eu.europa.ec.re3gistry2.restapi.util.ResponseUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the static export up to date with the published changes, if an
+ * export folder is configured: POST /export starts a complete export (with
+ * the admin token, one at a time) and /export/status returns the state of
+ * the export.
+ */
+public class ExportServlet extends HttpServlet {
+
+    private static final Logger LOG = LogManager.getLogger(ExportServlet.class.getName());
+    private static final long serialVersionUID = 1L;
+
+    private StaticExport export;
+    private ScheduledExecutorService executor;
+    // A rebuild is queued or running
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        try {
+            String path = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_STATIC_EXPORT_PATH, "").trim();
+            if (path.isEmpty()) {
+                return;
+            }
+            this.export = new StaticExport(PersistenceFactory.getEntityManagerFactory(), Paths.get(path), ItemsServlet.createFormatters());
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "re3gistry-rest-api-static-export");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(export, 0, getInterval(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured: cannot load the configuration system", e);
+        }
+    }
+
+    private int getInterval() {
+        String interval = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_STATIC_EXPORT_INTERVAL, "60");
+        try {
+            return Math.max(Integer.parseInt(interval.trim()), 1);
+        } catch (NumberFormatException e) {
+            return 60;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        try {
+            if (export == null) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+            String path = req.getPathInfo();
+            if (path == null || path.equals("/")) {
+                resp.setHeader("Allow", "POST");
+                ResponseUtil.err(resp, ApiError.METHOD_NOT_ALLOWED);
+                return;
+            } else if (!path.equals("/status")) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+            ResponseUtil.okJson(resp, export.getStatus());
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured", e);
+            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        try {
+            String path = req.getPathInfo();
+            if (export == null || (path != null && !path.equals("/"))) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+            // Rendering everything again is expensive: never open to anyone
+            if (CacheServlet.getAdminToken().isEmpty()) {
+                ResponseUtil.err(resp, ApiError.ADMIN_TOKEN_NOT_CONFIGURED);
+                return;
+            }
+            if (!CacheServlet.isAuthorized(req)) {
+                resp.setHeader("WWW-Authenticate", "Bearer");
+                ResponseUtil.err(resp, ApiError.UNAUTHORIZED);
+                return;
+            }
+            if (!rebuilding.compareAndSet(false, true)) {
+                ResponseUtil.err(resp, ApiError.EXPORT_IN_PROGRESS);
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        export.rebuild();
+                    } finally {
+                        rebuilding.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                rebuilding.set(false);
+                throw e;
+            }
+            ResponseUtil.okJson(resp, export.getStatus());
+        } catch (Exception e) {
+            LOG.error("Unexpected exception occured", e);
+            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
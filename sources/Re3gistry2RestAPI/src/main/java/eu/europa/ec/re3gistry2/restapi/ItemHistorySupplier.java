@@ -28,7 +28,6 @@ package eu.europa.ec.re3gistry2.restapi;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -39,17 +38,12 @@ import javax.persistence.NoResultException;
 
 import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
 import eu.europa.ec.re3gistry2.base.utility.Configuration;
-import eu.europa.ec.re3gistry2.crudimplementation.RegFieldManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegFieldmappingManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegItemclassManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemhistoryManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemuriManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegLocalizationManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegLocalizationhistoryManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegRelationhistoryManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegRelationpredicateManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegStatusManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegStatuslocalizationManager;
 import eu.europa.ec.re3gistry2.model.RegField;
 import eu.europa.ec.re3gistry2.model.RegFieldmapping;
 import eu.europa.ec.re3gistry2.model.RegItem;
@@ -63,6 +57,7 @@ import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
 import eu.europa.ec.re3gistry2.model.RegStatus;
 import eu.europa.ec.re3gistry2.model.RegStatusgroup;
 import eu.europa.ec.re3gistry2.model.RegStatuslocalization;
+import eu.europa.ec.re3gistry2.restapi.cache.UriIndex;
 import eu.europa.ec.re3gistry2.restapi.model.BasicContainedItem;
 import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
@@ -88,14 +83,12 @@ public class ItemHistorySupplier {
 
     private final RegItemManager regItemManager;
     private final RegItemhistoryManager regItemhistoryManager;
+    private final RegItemuriManager regItemuriManager;
     private final RegRelationhistoryManager regRelationhistoryManager;
-    private final RegFieldManager regFieldManager;
     private final RegLocalizationhistoryManager regLocalizationhistoryManager;
     private final RegLocalizationManager regLocalizationManager;
-    private final RegFieldmappingManager regFieldmappingManager;
-    private final RegStatusManager regStatusManager;
-    private final RegStatuslocalizationManager regStatusLocalizationManager;
     private final ItemSupplier itemSupplier;
+    private final RegistryMetadata metadata;
 
     private final RegLanguagecode masterLanguage;
     private final RegLanguagecode languageCode;
@@ -108,41 +101,31 @@ public class ItemHistorySupplier {
     private final RegRelationpredicate hasPredecessor;
     private final RegRelationpredicate hasReference;
 
-    // Lazily populated
-    private RegField labelField;
-    private Map<String, String> fieldToLabel;
-    private Map<String, StatusLocalization> statusToLocalization;
-    private Map<String, List<RegFieldmapping>> itemclassToFieldmapping;
     private boolean topConceptItem = false;
-    private final RegItemclassManager regItemClassManager;
 
     public ItemHistorySupplier(EntityManager em,
             RegLanguagecode masterLanguage,
             RegLanguagecode languageCode) throws Exception {
 
-        this.regItemClassManager = new RegItemclassManager(em);
         this.regItemManager = new RegItemManager(em);
         this.regItemhistoryManager = new RegItemhistoryManager(em);
-        RegRelationpredicateManager relationPredicateManager = new RegRelationpredicateManager(em);
+        this.regItemuriManager = new RegItemuriManager(em);
         this.regRelationhistoryManager = new RegRelationhistoryManager(em);
-        this.regFieldManager = new RegFieldManager(em);
         this.regLocalizationhistoryManager = new RegLocalizationhistoryManager(em);
         this.regLocalizationManager = new RegLocalizationManager(em);
-        this.regFieldmappingManager = new RegFieldmappingManager(em);
-        this.regStatusManager = new RegStatusManager(em);
-        this.regStatusLocalizationManager = new RegStatuslocalizationManager(em);
         this.itemSupplier = new ItemSupplier(em, masterLanguage, languageCode);
+        this.metadata = RegistryMetadata.get(em);
 
         this.masterLanguage = masterLanguage;
         this.languageCode = languageCode;
 
-        this.hasRegistry = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_REGISTRY);
-        this.hasRegister = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_REGISTER);
-        this.hasParent = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_PARENT);
-        this.hasCollection = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_COLLECTION);
-        this.hasSuccessor = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_SUCCESSOR);
-        this.hasPredecessor = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_PREDECESSOR);
-        this.hasReference = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_REFERENCE);
+        this.hasRegistry = metadata.getPredicate(BaseConstants.KEY_PREDICATE_REGISTRY);
+        this.hasRegister = metadata.getPredicate(BaseConstants.KEY_PREDICATE_REGISTER);
+        this.hasParent = metadata.getPredicate(BaseConstants.KEY_PREDICATE_PARENT);
+        this.hasCollection = metadata.getPredicate(BaseConstants.KEY_PREDICATE_COLLECTION);
+        this.hasSuccessor = metadata.getPredicate(BaseConstants.KEY_PREDICATE_SUCCESSOR);
+        this.hasPredecessor = metadata.getPredicate(BaseConstants.KEY_PREDICATE_PREDECESSOR);
+        this.hasReference = metadata.getPredicate(BaseConstants.KEY_PREDICATE_REFERENCE);
     }
 
     public Item getItemHistoryByUuid(String uuid) throws Exception {
@@ -160,6 +143,23 @@ public class ItemHistorySupplier {
     }
 
     private RegItemhistory getRegItemByUri(String uri, int version) throws Exception {
+        // Looking up the URI index first, with the URI of the current version
+        String versionSuffix = ":" + version;
+        if (uri.endsWith(versionSuffix)) {
+            String uuid = UriIndex.getUuid(uri.substring(0, uri.length() - versionSuffix.length()), regItemuriManager);
+            if (uuid != null) {
+                try {
+                    for (RegItemhistory regItemhistory : regItemhistoryManager.getByRegItemReference(regItemManager.get(uuid))) {
+                        if (regItemhistory.getVersionnumber() == version) {
+                            return regItemhistory;
+                        }
+                    }
+                } catch (NoResultException e) {
+                    UriIndex.remove(uuid);
+                }
+            }
+        }
+
         int i = uri.lastIndexOf('/');
         if (i < 0) {
             throw new NoResultException();
@@ -168,9 +168,9 @@ public class ItemHistorySupplier {
         int uriCollection = uri.substring(0, i).lastIndexOf('/');
         String regItemClassLocalId = uri.replace(localidWithVersion, "").substring(uriCollection + 1).replace("/", "");
         String localid = localidWithVersion.replace(":" + version, "");
-        RegItemclass regItemRegItemClass = regItemClassManager.getByLocalid(regItemClassLocalId);
+        RegItemclass regItemRegItemClass = metadata.getItemclassByLocalid(regItemClassLocalId);
         try {
-            RegItemclass parentRegItemRegItemClass = regItemClassManager.getChildItemclass(regItemRegItemClass).get(0);
+            RegItemclass parentRegItemRegItemClass = metadata.getChildItemclasses(regItemRegItemClass).get(0);
             RegItemhistory regItem;
             try {
                 regItem = regItemhistoryManager.getByLocalidVersionnumberAndRegItemClass(localid, version, parentRegItemRegItemClass);
@@ -361,16 +361,7 @@ public class ItemHistorySupplier {
     }
 
     private List<RegFieldmapping> getFieldmappings(RegItemclass itemclass) throws Exception {
-        if (itemclassToFieldmapping == null) {
-            itemclassToFieldmapping = new HashMap<>();
-        }
-        String key = itemclass.getUuid();
-        List<RegFieldmapping> fieldMappings = itemclassToFieldmapping.get(key);
-        if (fieldMappings == null) {
-            fieldMappings = regFieldmappingManager.getAll(itemclass);
-            itemclassToFieldmapping.put(key, fieldMappings);
-        }
-        return fieldMappings;
+        return metadata.getFieldmappings(itemclass);
     }
 
     private LocalizedProperty getLocalizedProperty(RegFieldmapping fieldmapping,
@@ -513,53 +504,31 @@ public class ItemHistorySupplier {
     }
 
     private String getLabelForField(RegField field) throws Exception {
-        if (fieldToLabel == null) {
-            fieldToLabel = new HashMap<>();
-        }
-        String key = field.getUuid();
-        String label = fieldToLabel.get(key);
-        if (label != null) {
-            return label;
-        }
+        String label = metadata.getFieldLabel(field, languageCode);
         if (label == null) {
-            try {
-                label = regLocalizationManager.get(field, languageCode).getValue();
-            } catch (NoResultException ignore) {
-                label = regLocalizationManager.get(field, masterLanguage).getValue();
+            label = metadata.getFieldLabel(field, masterLanguage);
+            if (label == null) {
+                throw new NoResultException();
             }
-            fieldToLabel.put(key, label);
         }
         return label;
     }
 
     private StatusLocalization getLocalizedStatus(RegStatus regStatus) throws Exception {
-        if (statusToLocalization == null) {
-            statusToLocalization = new HashMap<>();
-        }
-        String key = regStatus.getUuid();
-        StatusLocalization statusLocalization = statusToLocalization.get(key);
-        if (statusLocalization == null) {
-            RegStatusgroup regStatusgroup = regStatus.getRegStatusgroup();
-            RegStatuslocalization statusLoc;
-            String lang;
-            try {
-                statusLoc = regStatusLocalizationManager.get(regStatus, languageCode);
-                lang = languageCode.getIso6391code();
-            } catch (NoResultException ignore) {
-                //  Try masterLanguage
-                try {
-                    statusLoc = regStatusLocalizationManager.get(regStatus, masterLanguage);
-                    lang = masterLanguage.getIso6391code();
-                } catch (NoResultException ignore2) {
-                    return null;
-                }
+        RegStatusgroup regStatusgroup = regStatus.getRegStatusgroup();
+        RegStatuslocalization statusLoc = metadata.getStatusLocalization(regStatus, languageCode);
+        String lang = languageCode.getIso6391code();
+        if (statusLoc == null) {
+            //  Try masterLanguage
+            statusLoc = metadata.getStatusLocalization(regStatus, masterLanguage);
+            lang = masterLanguage.getIso6391code();
+            if (statusLoc == null) {
+                return null;
             }
-            String value = statusLoc.getLabel();
-            String href = regStatusgroup.getBaseuri() + "/" + regStatusgroup.getLocalid() + "/" + regStatus.getLocalid();
-            statusLocalization = new StatusLocalization(lang, value, href);
-            statusToLocalization.put(key, statusLocalization);
         }
-        return statusLocalization;
+        String value = statusLoc.getLabel();
+        String href = regStatusgroup.getBaseuri() + "/" + regStatusgroup.getLocalid() + "/" + regStatus.getLocalid();
+        return new StatusLocalization(lang, value, href);
     }
 
     private LocalizedProperty getLinksToRelatedItems(RegField field,
@@ -643,10 +612,7 @@ public class ItemHistorySupplier {
     }
 
     private RegField getLabelField() throws Exception {
-        if (labelField == null) {
-            labelField = regFieldManager.getByLocalid(BaseConstants.KEY_FIELD_MANDATORY_LABEL_LOCALID);
-        }
-        return labelField;
+        return metadata.getLabelField();
     }
 
     private void setVersionAndHistory(RegItemhistory regItemhistory, ContainedItem item, Integer version) throws Exception {
@@ -724,6 +690,7 @@ public class ItemHistorySupplier {
                 containedItemsList = getRegisters(regItemhistory);
 
                 if (containedItemsList != null && !containedItemsList.isEmpty()) {
+                    itemSupplier.prefetchRelations(containedItemsList);
                     for (RegItem containedItem : containedItemsList) {
 
                         if (!containedItem.getRegItemclass().getSystemitem()) {
@@ -739,6 +706,7 @@ public class ItemHistorySupplier {
                 containedItemsList = getDirectlyContainedItemsOfRegister(regItemhistory);
 
                 if (containedItemsList != null && !containedItemsList.isEmpty()) {
+                    itemSupplier.prefetchRelations(containedItemsList);
                     for (RegItem containedItem : containedItemsList) {
 
                         if (!containedItem.getRegItemclass().getSystemitem()) {
@@ -785,6 +753,7 @@ public class ItemHistorySupplier {
                 }
 
                 if (containedItemsList != null && !containedItemsList.isEmpty()) {
+                    itemSupplier.prefetchRelations(containedItemsList);
                     for (RegItem containedItem : containedItemsList) {
 
                         if (!containedItem.getRegItemclass().getSystemitem()) {
@@ -893,6 +862,7 @@ public class ItemHistorySupplier {
         }
 
         if (narrowerList != null && !narrowerList.isEmpty()) {
+            itemSupplier.prefetchRelations(narrowerList);
             for (RegItem childItem : narrowerList) {
                 if (!childItem.getRegItemclass().getSystemitem()) {
                     narrower.add(itemSupplier.toContainedItemWithoutItems(childItem));
@@ -980,7 +950,7 @@ public class ItemHistorySupplier {
     }
 
     private List<String> getAllColectionsNoParentOfItem(RegItemhistory regItemhistory) throws Exception {
-        return regItemhistoryManager.getAllItemByRegItemObjectAndPredicateAndSubjectNotPredicate(regItemhistory, regStatusManager.get("1"), hasCollection, hasParent);
+        return regItemhistoryManager.getAllItemByRegItemObjectAndPredicateAndSubjectNotPredicate(regItemhistory, metadata.getStatus("1"), hasCollection, hasParent);
     }
 
     private List<RegItem> getRelatedItemsByObject(RegItemhistory regItemhistory, RegRelationpredicate predicate) throws Exception {
@@ -28,6 +28,7 @@ package eu.europa.ec.re3gistry2.restapi;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -41,16 +42,11 @@ import javax.persistence.NoResultException;
 
 import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
 import eu.europa.ec.re3gistry2.base.utility.Configuration;
-import eu.europa.ec.re3gistry2.crudimplementation.RegFieldManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegFieldmappingManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegItemclassManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemhistoryManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemuriManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegLocalizationManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegRelationManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegRelationpredicateManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegStatusManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegStatuslocalizationManager;
 import eu.europa.ec.re3gistry2.model.RegField;
 import eu.europa.ec.re3gistry2.model.RegFieldmapping;
 import eu.europa.ec.re3gistry2.model.RegItem;
@@ -63,6 +59,8 @@ import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
 import eu.europa.ec.re3gistry2.model.RegStatus;
 import eu.europa.ec.re3gistry2.model.RegStatusgroup;
 import eu.europa.ec.re3gistry2.model.RegStatuslocalization;
+import eu.europa.ec.re3gistry2.restapi.cache.UriIndex;
+import eu.europa.ec.re3gistry2.restapi.format.ContainedItemSource;
 import eu.europa.ec.re3gistry2.restapi.model.BasicContainedItem;
 import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
@@ -70,7 +68,10 @@ import eu.europa.ec.re3gistry2.restapi.model.ItemClass;
 import eu.europa.ec.re3gistry2.restapi.model.ItemRef;
 import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
 import eu.europa.ec.re3gistry2.restapi.model.LocalizedPropertyValue;
+import eu.europa.ec.re3gistry2.restapi.model.Pagination;
 import eu.europa.ec.re3gistry2.restapi.model.VersionInformation;
+import eu.europa.ec.re3gistry2.restapi.util.PageRequest;
+import eu.europa.ec.re3gistry2.restapi.util.Projection;
 import eu.europa.ec.re3gistry2.restapi.util.StatusLocalization;
 import java.text.SimpleDateFormat;
 import javax.persistence.EntityManager;
@@ -88,15 +89,20 @@ public class ItemSupplier {
     private static final String TYPE_REGISTER = BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER;
     private static final String TYPE_ITEM = BaseConstants.KEY_ITEMCLASS_TYPE_ITEM;
 
-    private final RegItemclassManager regItemClassManager;
+    // Number of contained items read at once when they are streamed
+    private static final int STREAM_PAGE_SIZE = 500;
+    // Number of items read with one query when they are requested in batch
+    private static final int BATCH_SIZE = 500;
+
+    private final EntityManager em;
+
     private final RegItemManager regItemManager;
     private final RegItemhistoryManager regItemHistoryManager;
+    private final RegItemuriManager regItemuriManager;
     private final RegRelationManager regRelationManager;
-    private final RegFieldManager regFieldManager;
     private final RegLocalizationManager reglocalizationManager;
-    private final RegFieldmappingManager regFieldmappingManager;
-    private final RegStatusManager regStatusManager;
-    private final RegStatuslocalizationManager regStatusLocalizationManager;
+    private final RelationGraph relationGraph;
+    private final RegistryMetadata metadata;
 
     private final RegLanguagecode masterLanguage;
     private final RegLanguagecode languageCode;
@@ -109,43 +115,212 @@ public class ItemSupplier {
     private final RegRelationpredicate hasPredecessor;
     private final RegRelationpredicate hasReference;
 
-    // Lazily populated
-    private RegField labelField;
-    private Map<String, String> fieldToLabel;
-    private Map<String, StatusLocalization> statusToLocalization;
-    private Map<String, List<RegFieldmapping>> itemclassToFieldmapping;
     private boolean topConceptItem = false;
+    private PageRequest page;
+    private Projection projection;
+    private boolean containedItemsStreamed;
+    // Last RegItem looked up by uuid or URI, read once by the count of its
+    // contained items and by its assembly
+    private String resolvedKey;
+    private RegItem resolved;
 
     public ItemSupplier(EntityManager em,
             RegLanguagecode masterLanguage,
             RegLanguagecode languageCode) throws Exception {
 
-        this.regItemClassManager = new RegItemclassManager(em);
+        this.em = em;
         this.regItemManager = new RegItemManager(em);
         this.regItemHistoryManager = new RegItemhistoryManager(em);
-        RegRelationpredicateManager relationPredicateManager = new RegRelationpredicateManager(em);
+        this.regItemuriManager = new RegItemuriManager(em);
         this.regRelationManager = new RegRelationManager(em);
-        this.regFieldManager = new RegFieldManager(em);
         this.reglocalizationManager = new RegLocalizationManager(em);
-        this.regFieldmappingManager = new RegFieldmappingManager(em);
-        this.regStatusManager = new RegStatusManager(em);
-        this.regStatusLocalizationManager = new RegStatuslocalizationManager(em);
+        this.relationGraph = new RelationGraph(regRelationManager);
+        this.metadata = RegistryMetadata.get(em);
 
         this.masterLanguage = masterLanguage;
         this.languageCode = languageCode;
 
-        this.hasRegistry = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_REGISTRY);
-        this.hasRegister = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_REGISTER);
-        this.hasParent = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_PARENT);
-        this.hasCollection = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_COLLECTION);
-        this.hasSuccessor = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_SUCCESSOR);
-        this.hasPredecessor = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_PREDECESSOR);
-        this.hasReference = relationPredicateManager.get(BaseConstants.KEY_PREDICATE_REFERENCE);
+        this.hasRegistry = metadata.getPredicate(BaseConstants.KEY_PREDICATE_REGISTRY);
+        this.hasRegister = metadata.getPredicate(BaseConstants.KEY_PREDICATE_REGISTER);
+        this.hasParent = metadata.getPredicate(BaseConstants.KEY_PREDICATE_PARENT);
+        this.hasCollection = metadata.getPredicate(BaseConstants.KEY_PREDICATE_COLLECTION);
+        this.hasSuccessor = metadata.getPredicate(BaseConstants.KEY_PREDICATE_SUCCESSOR);
+        this.hasPredecessor = metadata.getPredicate(BaseConstants.KEY_PREDICATE_PREDECESSOR);
+        this.hasReference = metadata.getPredicate(BaseConstants.KEY_PREDICATE_REFERENCE);
+    }
+
+    /**
+     * Limits the contained items of the registers and registries to the page
+     * passed by parameter (null to get all of them).
+     *
+     * @param page the requested page
+     */
+    public void setPage(PageRequest page) {
+        this.page = page;
+    }
+
+    /**
+     * Leaves the contained items of the registers out of the items: they are
+     * read afterwards with {@link #forEachContainedItem}.
+     *
+     * @param containedItemsStreamed true to stream the contained items
+     */
+    public void setContainedItemsStreamed(boolean containedItemsStreamed) {
+        this.containedItemsStreamed = containedItemsStreamed;
+    }
+
+    /**
+     * Limits the items to the fields and embedded sections of the projection
+     * passed by parameter (null to get all of them). The parts left out are
+     * not read at all.
+     *
+     * @param projection the requested projection
+     */
+    public void setProjection(Projection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Checks if the items are built without all their contained items (paged
+     * or streamed) or fields (projected), in which case they must not be
+     * cached.
+     *
+     * @return true if the items may be partial
+     */
+    public boolean isPartial() {
+        return page != null || containedItemsStreamed || projection != null;
+    }
+
+    private boolean includes(String field) {
+        return projection == null || projection.includes(field);
+    }
+
+    private boolean embeds(String section) {
+        return projection == null || projection.embeds(section);
+    }
+
+    /**
+     * Reads the items directly contained in the register, page by page in
+     * (localid, uuid) order, and passes them to the handler. Only one page is
+     * kept in memory: the relations and the persistence context are cleared
+     * after each page.
+     *
+     * @param registerUuid the uuid of the register
+     * @param handler the handler of the contained items
+     * @throws Exception
+     */
+    public void forEachContainedItem(String registerUuid, ContainedItemSource.Handler handler) throws Exception {
+        forEachItemOfRegister(registerUuid, false, handler);
+    }
+
+    /**
+     * Reads all the published items of the register, including the ones
+     * contained in collections, page by page in (localid, uuid) order, and
+     * passes them to the handler. Only one page is kept in memory, as in
+     * {@link #forEachContainedItem}.
+     *
+     * @param registerUuid the uuid of the register
+     * @param handler the handler of the items
+     * @throws Exception
+     */
+    public void forEachPublishedItem(String registerUuid, ContainedItemSource.Handler handler) throws Exception {
+        forEachItemOfRegister(registerUuid, true, handler);
+    }
+
+    private void forEachItemOfRegister(String registerUuid, boolean allPublished, ContainedItemSource.Handler handler) throws Exception {
+        RegItem register = regItemManager.get(registerUuid);
+        String afterLocalid = null;
+        String afterUuid = null;
+        List<RegItem> rows;
+        do {
+            if (allPublished) {
+                rows = regItemManager.getAllSubjectsByRegItemObjectAndPredicate(register, hasRegister,
+                        afterLocalid, afterUuid, STREAM_PAGE_SIZE);
+            } else {
+                rows = regItemManager.getAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(register, hasRegister, hasCollection,
+                        afterLocalid, afterUuid, 0, STREAM_PAGE_SIZE);
+            }
+            if (rows.isEmpty()) {
+                break;
+            }
+            relationGraph.prefetch(rows);
+            for (RegItem containedItem : rows) {
+                if (containedItem.getRegItemclass().getSystemitem()) {
+                    continue;
+                }
+                if (allPublished && !containedItem.getRegStatus().getIspublic()) {
+                    continue;
+                }
+                handler.handle(toContainedItemWithoutItems(containedItem));
+            }
+            RegItem last = rows.get(rows.size() - 1);
+            afterLocalid = last.getLocalid();
+            afterUuid = last.getUuid();
+
+            relationGraph.clear();
+            em.clear();
+        } while (rows.size() == STREAM_PAGE_SIZE);
+    }
+
+    /**
+     * Counts the items directly contained in the register with the uuid or
+     * URI passed by parameter, without reading them.
+     *
+     * @param uuid the uuid of the register, null to look it up by URI
+     * @param uri the URI of the register
+     * @return the number of contained items, 0 if it is not a register
+     * @throws Exception
+     */
+    public int countContainedItems(String uuid, String uri) throws Exception {
+        RegItem regItem;
+        try {
+            regItem = uuid != null ? getRegItemByUuid(uuid) : getRegItemByUri(uri);
+        } catch (NoResultException e) {
+            return 0;
+        }
+        if (regItem == null || !TYPE_REGISTER.equals(regItem.getRegItemclass().getRegItemclasstype().getLocalid())) {
+            return 0;
+        }
+        return regItemManager.countAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(regItem, hasRegister, hasCollection);
     }
 
     public Item getItemByUuid(String uuid) throws Exception {
         // Not possible to request specific version with uuid
-        return toItem(regItemManager.get(uuid));
+        return toItem(getRegItemByUuid(uuid));
+    }
+
+    private RegItem getRegItemByUuid(String uuid) throws Exception {
+        String key = "uuid|" + uuid;
+        if (!key.equals(resolvedKey)) {
+            resolved = regItemManager.get(uuid);
+            resolvedKey = key;
+        }
+        return resolved;
+    }
+
+    /**
+     * Builds the items with the uuids passed by parameter. The items and their
+     * relations are read with one query per batch of uuids, instead of one
+     * per item.
+     *
+     * @param uuids the uuids of the items
+     * @return the items by uuid, without the ones not found or not public
+     * @throws Exception
+     */
+    public Map<String, Item> getItemsByUuids(Collection<String> uuids) throws Exception {
+        Map<String, Item> items = new HashMap<>();
+        List<String> list = new ArrayList<>(uuids);
+        for (int i = 0; i < list.size(); i += BATCH_SIZE) {
+            List<RegItem> rows = regItemManager.getAll(new ArrayList<>(list.subList(i, Math.min(i + BATCH_SIZE, list.size()))));
+            relationGraph.prefetch(rows);
+            for (RegItem regItem : rows) {
+                Item item = toItem(regItem);
+                if (item != null) {
+                    items.put(regItem.getUuid(), item);
+                }
+            }
+        }
+        return items;
     }
 
     public Item getItem(RegItem regItem) throws Exception {
@@ -162,6 +337,25 @@ public class ItemSupplier {
     }
 
     private RegItem getRegItemByUri(String uri) throws Exception {
+        String key = "uri|" + uri;
+        if (!key.equals(resolvedKey)) {
+            resolved = findRegItemByUri(uri);
+            resolvedKey = key;
+        }
+        return resolved;
+    }
+
+    private RegItem findRegItemByUri(String uri) throws Exception {
+        // Looking up the URI index first
+        String uuid = UriIndex.getUuid(uri, regItemuriManager);
+        if (uuid != null) {
+            try {
+                return regItemManager.get(uuid);
+            } catch (NoResultException e) {
+                UriIndex.remove(uuid);
+            }
+        }
+
         int i = uri.lastIndexOf('/');
         if (i < 0) {
             throw new NoResultException();
@@ -170,8 +364,8 @@ public class ItemSupplier {
         try {
             int uriCollection = uri.substring(0, i).lastIndexOf('/');
             String regItemClassLocalId = uri.substring(uriCollection + 1).replace("/" + localid, "");
-            RegItemclass parentClass = regItemClassManager.get(regItemClassLocalId);
-            RegItemclass regItemRegItemClass = regItemClassManager.getChildItemclass(parentClass).get(0);
+            RegItemclass parentClass = metadata.getItemclass(regItemClassLocalId);
+            RegItemclass regItemRegItemClass = metadata.getChildItemclasses(parentClass).get(0);
 
             RegItem regItem = regItemManager.getByLocalidAndRegItemClass(localid, regItemRegItemClass);
             if (uri.equals(getURI(regItem))) {
@@ -255,15 +449,33 @@ public class ItemSupplier {
     private ContainedItem setMainPropertiesForRegItem(RegItem regItem, ContainedItem item) throws Exception {
         item.setUuid(regItem.getUuid());
         item.setUri(getURI(regItem));
-        item.setLocalid(regItem.getLocalid());
+        if (includes(Projection.LOCALID)) {
+            item.setLocalid(regItem.getLocalid());
+        }
         item.setLatest(true);
-        item.setInsertdate(regItem.getInsertdate());
-        item.setEditdate(regItem.getEditdate());
-        setVersionAndHistory(regItem, item);
+        if (includes(Projection.INSERT_DATE)) {
+            item.setInsertdate(regItem.getInsertdate());
+        }
+        if (includes(Projection.EDIT_DATE)) {
+            item.setEditdate(regItem.getEditdate());
+        }
+        if (includes(Projection.VERSION) || includes(Projection.VERSION_HISTORY)) {
+            setVersionAndHistory(regItem, item);
+            if (!includes(Projection.VERSION)) {
+                item.setVersion(null);
+            } else if (!includes(Projection.VERSION_HISTORY)) {
+                item.setVersionHistory(null);
+            }
+        }
         item.setType(regItem.getRegItemclass().getRegItemclasstype().getLocalid());
         item.setLanguage(languageCode.getIso6391code());
         item.setItemclass(new ItemClass(regItem.getRegItemclass().getLocalid()));
-        item.setProperties(getLocalizedProperties(regItem, fieldMapping -> !fieldMapping.getHidden()));
+        if (projection == null) {
+            item.setProperties(getLocalizedProperties(regItem, fieldMapping -> !fieldMapping.getHidden()));
+        } else if (projection.includesProperties()) {
+            item.setProperties(getLocalizedProperties(regItem, fieldMapping -> !fieldMapping.getHidden()
+                    && projection.includesProperty(fieldMapping.getRegField().getLocalid())));
+        }
 
         switch (regItem.getRegItemclass().getRegItemclasstype().getLocalid()) {
             case TYPE_REGISTRY:
@@ -278,18 +490,20 @@ public class ItemSupplier {
             default:
                 throw new RuntimeException("Unexpected type");
         }
-        if (topConceptItem) {
+        if (topConceptItem && includes(Projection.HAS_COLLECTION)) {
             List<RegItem> hasCollectionList = getRelatedItemsBySubject(regItem, hasCollection);
             if (hasCollectionList != null && !hasCollectionList.isEmpty()) {
                 item.setHasCollection(true);
             }
+        }
+        if (topConceptItem && includes(Projection.IS_PARENT)) {
             List<RegItem> isParentList = getRelatedItemsBySubject(regItem, hasParent);
             if (isParentList != null && !isParentList.isEmpty()) {
                 item.setIsParent(true);
             }
-            if (regItem.getExternal()) {
-                item.setExternal(true);
-            }
+        }
+        if (topConceptItem && regItem.getExternal()) {
+            item.setExternal(true);
         }
         return item;
     }
@@ -322,13 +536,19 @@ public class ItemSupplier {
 
                 break;
             case TYPE_REGISTER:
-                registryRef = toItemRef(getRelatedItemBySubject(regItem, hasRegistry));
+                if (includes(Projection.REGISTRY)) {
+                    registryRef = toItemRef(getRelatedItemBySubject(regItem, hasRegistry));
+                }
 
                 // Making an assumption that register can not be parent or collection to any item
                 break;
             case TYPE_ITEM:
-                registryRef = toItemRef(getRelatedItemBySubject(regItem, hasRegistry));
-                registerRef = toItemRef(getRelatedItemBySubject(regItem, hasRegister));
+                if (includes(Projection.REGISTRY)) {
+                    registryRef = toItemRef(getRelatedItemBySubject(regItem, hasRegistry));
+                }
+                if (includes(Projection.REGISTER)) {
+                    registerRef = toItemRef(getRelatedItemBySubject(regItem, hasRegister));
+                }
 
                 break;
             default:
@@ -343,6 +563,9 @@ public class ItemSupplier {
     }
 
     private void setContainedItemsFromRegItem(RegItem regItem, ContainedItem item) throws Exception {
+        if (!embeds(Projection.CONTAINED_ITEMS)) {
+            return;
+        }
         List<ContainedItem> containedItems = new ArrayList<>();
         List<RegItem> containedItemsList = null;
         switch (regItem.getRegItemclass().getRegItemclasstype().getLocalid()) {
@@ -350,6 +573,7 @@ public class ItemSupplier {
                 containedItemsList = getRegisters(regItem);
 
                 if (containedItemsList != null && !containedItemsList.isEmpty()) {
+                    relationGraph.prefetch(containedItemsList);
                     for (RegItem containedItem : containedItemsList) {
 
                         if (!containedItem.getRegItemclass().getSystemitem()) {
@@ -362,9 +586,17 @@ public class ItemSupplier {
                 }
                 break;
             case TYPE_REGISTER:
-                containedItemsList = getDirectlyContainedItemsOfRegister(regItem);
+                if (containedItemsStreamed) {
+                    break;
+                }
+                if (page != null && item instanceof Item) {
+                    containedItemsList = getPageOfDirectlyContainedItemsOfRegister(regItem, (Item) item);
+                } else {
+                    containedItemsList = getDirectlyContainedItemsOfRegister(regItem);
+                }
 
                 if (containedItemsList != null && !containedItemsList.isEmpty()) {
+                    relationGraph.prefetch(containedItemsList);
                     for (RegItem containedItem : containedItemsList) {
 
                         if (!containedItem.getRegItemclass().getSystemitem()) {
@@ -394,6 +626,7 @@ public class ItemSupplier {
                         containedItemsList = getRelatedItemsByObject(regItem, hasParent);
                     }
 //                    }
+                    relationGraph.prefetch(containedItemsList);
                     for (RegItem childItem : containedItemsList) {
                         if (!childItem.getRegItemclass().getSystemitem()) {
                             topConcepts.add(toBasicContainedItem(childItem));
@@ -429,23 +662,26 @@ public class ItemSupplier {
     }
 
     private void setContainedItemsFromRegItemClassWithParent(RegItem regItem, ContainedItem item) throws Exception {
+        if (!embeds(Projection.CONTAINED_ITEMS)) {
+            return;
+        }
         List<ContainedItem> containedItems = new ArrayList<>();
         List<RegItem> containedItemsList = new ArrayList<>();
         switch (regItem.getRegItemclass().getRegItemclasstype().getLocalid()) {
             case TYPE_REGISTRY:
 
                 //theme register, codelist register
-                List<RegItemclass> childItemClassList = regItemClassManager.getChildItemclass(regItem.getRegItemclass());
+                List<RegItemclass> childItemClassList = metadata.getChildItemclasses(regItem.getRegItemclass());
 
                 List<RegItemclass> itemclassWithChildren = new ArrayList<>();
                 for (RegItemclass regItemclass : childItemClassList) {
                     if (!regItemclass.getSystemitem()) {
                         //theme am, codelist
-                        List<RegItemclass> childofChildItemClassList = regItemClassManager.getChildItemclass(regItemclass);
+                        List<RegItemclass> childofChildItemClassList = metadata.getChildItemclasses(regItemclass);
                         List<RegItemclass> grandchildItemClassList = new ArrayList<>();
                         for (RegItemclass childofChildItemClass : childofChildItemClassList) {
                             //codelistvalues
-                            grandchildItemClassList = regItemClassManager.getChildItemclass(childofChildItemClass);
+                            grandchildItemClassList = metadata.getChildItemclasses(childofChildItemClass);
                             if (!grandchildItemClassList.isEmpty()) {
                                 break;
                             }
@@ -458,11 +694,16 @@ public class ItemSupplier {
                     }
                 }
 
-                for (RegItemclass regItemclass : itemclassWithChildren) {
-                    containedItemsList.addAll(regItemManager.getAll(regItemclass));
+                if (page != null && item instanceof Item) {
+                    containedItemsList = getPageOfItems(itemclassWithChildren, (Item) item);
+                } else {
+                    for (RegItemclass regItemclass : itemclassWithChildren) {
+                        containedItemsList.addAll(regItemManager.getAll(regItemclass));
+                    }
                 }
 
                 if (containedItemsList != null && !containedItemsList.isEmpty()) {
+                    relationGraph.prefetch(containedItemsList);
                     for (RegItem containedItem : containedItemsList) {
 
                         if (!containedItem.getRegItemclass().getSystemitem()) {
@@ -485,6 +726,9 @@ public class ItemSupplier {
     }
 
     private void setInSchemeAndTopConceptOfFromRegItem(RegItem regItem, ContainedItem containedItem) throws Exception {
+        if (!embeds(Projection.IN_SCHEME)) {
+            return;
+        }
 
         BasicContainedItem basicContainedItem = null;
         switch (regItem.getRegItemclass().getRegItemclasstype().getLocalid()) {
@@ -518,6 +762,9 @@ public class ItemSupplier {
     }
 
     private void setBroaderFromRegItem(RegItem regItem, ContainedItem containedItem) throws Exception {
+        if (!embeds(Projection.BROADER)) {
+            return;
+        }
         List<BasicContainedItem> broader = new ArrayList<>();
         List<RegItem> broaderList = null;
 
@@ -555,6 +802,9 @@ public class ItemSupplier {
     }
 
     private void setNarrowerFromRegItem(RegItem regItem, ContainedItem containedItem) throws Exception {
+        if (!embeds(Projection.NARROWER)) {
+            return;
+        }
         List<BasicContainedItem> narrower = new ArrayList<>();
         List<RegItem> narrowerList = null;
         if (regItem != null && containedItem != null) {
@@ -576,6 +826,7 @@ public class ItemSupplier {
             }
 
             if (narrowerList != null && !narrowerList.isEmpty()) {
+                relationGraph.prefetch(narrowerList);
                 for (RegItem childItem : narrowerList) {
                     if (!childItem.getRegItemclass().getSystemitem()) {
                         try {
@@ -593,6 +844,9 @@ public class ItemSupplier {
     }
 
     private void setTopConceptsFromRegItem(RegItem regItem, ContainedItem containedItem) throws Exception {
+        if (!embeds(Projection.TOP_CONCEPTS)) {
+            return;
+        }
         List<BasicContainedItem> topConcepts = new ArrayList<>();
         List<RegItem> childItemList = new ArrayList<>();
 
@@ -622,6 +876,7 @@ public class ItemSupplier {
                 throw new RuntimeException("Unexpected type");
         }
 
+        relationGraph.prefetchBySubject(childItemList);
         for (RegItem childItem : childItemList) {
             if (!childItem.getRegItemclass().getSystemitem()) {
                 topConcepts.add(toBasicContainedItem(childItem));
@@ -634,6 +889,9 @@ public class ItemSupplier {
     }
 
     private void setIsDefinedByFromRegItem(RegItem regItem, ContainedItem containedItem) throws Exception {
+        if (!embeds(Projection.IS_DEFINED_BY)) {
+            return;
+        }
         List<ContainedItem> isDefinedBy = new ArrayList<>();
 
         switch (regItem.getRegItemclass().getRegItemclasstype().getLocalid()) {
@@ -663,7 +921,7 @@ public class ItemSupplier {
         String uri = getURI(regItem);
 
         RegField labelField = getLabelField();
-        RegFieldmapping labelFieldmapping = regFieldmappingManager.getByFieldAndItemClass(labelField, regItem.getRegItemclass());
+        RegFieldmapping labelFieldmapping = metadata.getFieldmapping(labelField, regItem.getRegItemclass());
 
         String lang = languageCode.getIso6391code();
         String id = labelField.getLocalid();
@@ -686,16 +944,17 @@ public class ItemSupplier {
     }
 
     private RegField getLabelField() throws Exception {
-        if (labelField == null) {
-            labelField = regFieldManager.getByLocalid(BaseConstants.KEY_FIELD_MANDATORY_LABEL_LOCALID);
-        }
-        return labelField;
+        return metadata.getLabelField();
     }
 
     protected String getURI(RegItem regItem) throws Exception {
         if (regItem == null) {
             return null;
         }
+        String indexedURI = UriIndex.getUri(regItem.getUuid(), regItemuriManager);
+        if (indexedURI != null) {
+            return indexedURI;
+        }
         RegItemclass itemclass = regItem.getRegItemclass();
         switch (itemclass.getRegItemclasstype().getLocalid()) {
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
@@ -730,16 +989,7 @@ public class ItemSupplier {
     }
 
     private List<RegFieldmapping> getFieldmappings(RegItemclass itemclass) throws Exception {
-        if (itemclassToFieldmapping == null) {
-            itemclassToFieldmapping = new HashMap<>();
-        }
-        String key = itemclass.getUuid();
-        List<RegFieldmapping> fieldMappings = itemclassToFieldmapping.get(key);
-        if (fieldMappings == null) {
-            fieldMappings = regFieldmappingManager.getAll(itemclass);
-            itemclassToFieldmapping.put(key, fieldMappings);
-        }
-        return fieldMappings;
+        return metadata.getFieldmappings(itemclass);
     }
 
     private List<LocalizedProperty> getLocalizedProperties(RegItem regItem, Predicate<RegFieldmapping> fieldmappingFilter) throws Exception {
@@ -770,33 +1020,20 @@ public class ItemSupplier {
     }
 
     private StatusLocalization getLocalizedStatus(RegStatus regStatus) throws Exception {
-        if (statusToLocalization == null) {
-            statusToLocalization = new HashMap<>();
-        }
-        String key = regStatus.getUuid();
-        StatusLocalization statusLocalization = statusToLocalization.get(key);
-        if (statusLocalization == null) {
-            RegStatusgroup regStatusgroup = regStatus.getRegStatusgroup();
-            RegStatuslocalization statusLoc;
-            String lang;
-            try {
-                statusLoc = regStatusLocalizationManager.get(regStatus, languageCode);
-                lang = languageCode.getIso6391code();
-            } catch (NoResultException ignore) {
-                //  Try masterLanguage
-                try {
-                    statusLoc = regStatusLocalizationManager.get(regStatus, masterLanguage);
-                    lang = masterLanguage.getIso6391code();
-                } catch (NoResultException ignore2) {
-                    return null;
-                }
+        RegStatusgroup regStatusgroup = regStatus.getRegStatusgroup();
+        RegStatuslocalization statusLoc = metadata.getStatusLocalization(regStatus, languageCode);
+        String lang = languageCode.getIso6391code();
+        if (statusLoc == null) {
+            //  Try masterLanguage
+            statusLoc = metadata.getStatusLocalization(regStatus, masterLanguage);
+            lang = masterLanguage.getIso6391code();
+            if (statusLoc == null) {
+                return null;
             }
-            String value = statusLoc.getLabel();
-            String href = regStatusgroup.getBaseuri() + "/" + regStatusgroup.getLocalid() + "/" + regStatus.getLocalid();
-            statusLocalization = new StatusLocalization(lang, value, href);
-            statusToLocalization.put(key, statusLocalization);
         }
-        return statusLocalization;
+        String value = statusLoc.getLabel();
+        String href = regStatusgroup.getBaseuri() + "/" + regStatusgroup.getLocalid() + "/" + regStatus.getLocalid();
+        return new StatusLocalization(lang, value, href);
     }
 
     private LocalizedProperty getLocalizedProperty(RegFieldmapping fieldmapping,
@@ -1019,21 +1256,12 @@ public class ItemSupplier {
     }
 
     private String getLabelForField(RegField field) throws Exception {
-        if (fieldToLabel == null) {
-            fieldToLabel = new HashMap<>();
-        }
-        String key = field.getUuid();
-        String label = fieldToLabel.get(key);
-        if (label != null) {
-            return label;
-        }
+        String label = metadata.getFieldLabel(field, languageCode);
         if (label == null) {
-            try {
-                label = reglocalizationManager.get(field, languageCode).getValue();
-            } catch (NoResultException ignore) {
-                label = reglocalizationManager.get(field, masterLanguage).getValue();
+            label = metadata.getFieldLabel(field, masterLanguage);
+            if (label == null) {
+                throw new NoResultException();
             }
-            fieldToLabel.put(key, label);
         }
         return label;
     }
@@ -1053,7 +1281,7 @@ public class ItemSupplier {
     }
 
     private List<RegItem> getItemsOfType(String classtype) throws Exception {
-        List<RegItemclass> allItemClasses = regItemClassManager.getAll();
+        List<RegItemclass> allItemClasses = metadata.getItemclasses();
         List<RegItemclass> itemclasses = allItemClasses.stream()
                 .filter(it -> it.getRegItemclasstype().getLocalid().equals(classtype))
                 .collect(Collectors.toList());
@@ -1068,8 +1296,38 @@ public class ItemSupplier {
         return regItemManager.getAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(register, hasRegister, hasCollection);
     }
 
+    private List<RegItem> getPageOfDirectlyContainedItemsOfRegister(RegItem register, Item item) throws Exception {
+        // One more item is fetched to know if there is a next page
+        List<RegItem> rows = regItemManager.getAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(register, hasRegister, hasCollection,
+                page.getAfterLocalid(), page.getAfterUuid(), page.getOffset(), page.getLimit() + 1);
+        int total = regItemManager.countAllSubjectsByRegItemObjectAndPredicateAndSubjectNotPredicate(register, hasRegister, hasCollection);
+        return toPage(rows, total, item);
+    }
+
+    private List<RegItem> getPageOfItems(List<RegItemclass> itemclasses, Item item) throws Exception {
+        if (itemclasses.isEmpty()) {
+            item.setPagination(new Pagination(0, page.getLimit(), page.hasCursor() ? null : page.getOffset(), null));
+            return new ArrayList<>();
+        }
+        // One more item is fetched to know if there is a next page
+        List<RegItem> rows = regItemManager.getAll(itemclasses,
+                page.getAfterLocalid(), page.getAfterUuid(), page.getOffset(), page.getLimit() + 1);
+        int total = regItemManager.countAll(itemclasses, false);
+        return toPage(rows, total, item);
+    }
+
+    private List<RegItem> toPage(List<RegItem> rows, int total, Item item) {
+        String next = null;
+        if (rows.size() > page.getLimit()) {
+            rows = rows.subList(0, page.getLimit());
+            next = PageRequest.getCursor(rows.get(rows.size() - 1));
+        }
+        item.setPagination(new Pagination(total, page.getLimit(), page.hasCursor() ? null : page.getOffset(), next));
+        return rows;
+    }
+
     private List<String> getAllColectionsNoParentOfItem(RegItem item) throws Exception {
-        return regItemManager.getAllItemByRegItemObjectAndPredicateAndSubjectNotPredicate(item, regStatusManager.get("1"), hasCollection, hasParent);
+        return regItemManager.getAllItemByRegItemObjectAndPredicateAndSubjectNotPredicate(item, metadata.getStatus("1"), hasCollection, hasParent);
     }
 
     private List<RegItem> getCollectionChain(RegItem regItem) throws Exception {
@@ -1097,30 +1355,22 @@ public class ItemSupplier {
     }
 
     private List<RegItem> getRelatedItemsBySubject(RegItem regItem, RegRelationpredicate predicate) throws Exception {
-
-        if (regRelationManager != null && regItem != null && predicate != null
-                && regRelationManager.getAllByRegItemSubjectAndPredicate(regItem, predicate) != null) {
-            return regRelationManager.getAllByRegItemSubjectAndPredicate(regItem, predicate).stream()
-                    .map(rel -> rel.getRegItemObject())
-                    .collect(Collectors.toList());
-        } else {
-            return null;
-        }
+        return relationGraph.getObjects(regItem, predicate);
     }
 
     private List<RegItem> getRelatedItemsByObject(RegItem regItem, RegRelationpredicate predicate) throws Exception {
+        return relationGraph.getSubjects(regItem, predicate);
+    }
 
-        if (regRelationManager != null && regItem != null && predicate != null
-                && regRelationManager.getAllByRegItemObjectAndPredicate(regItem, predicate) != null) {
-            List<RegRelation> relations = regRelationManager.getAllByRegItemObjectAndPredicate(regItem, predicate);
-            List<RegItem> subjects = new ArrayList<>();
-            relations.forEach((relation) -> {
-                subjects.add(relation.getRegItemSubject());
-            });
-            return subjects;
-        } else {
-            return null;
-        }
+    /**
+     * Loads in a few set-based queries the relations of the items passed by
+     * parameter, to be used before converting a list of items.
+     *
+     * @param regItems the items to be prefetched
+     * @throws Exception
+     */
+    protected void prefetchRelations(List<RegItem> regItems) throws Exception {
+        relationGraph.prefetch(regItems);
     }
 
 }
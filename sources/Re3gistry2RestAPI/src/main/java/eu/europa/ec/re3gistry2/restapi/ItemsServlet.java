@@ -26,14 +26,27 @@
  */
 package eu.europa.ec.re3gistry2.restapi;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.NoResultException;
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -41,21 +54,41 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
 import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
-import eu.europa.ec.re3gistry2.crudimplementation.RegLanguagecodeManager;
 import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.cache.CachedResponse;
 import eu.europa.ec.re3gistry2.restapi.cache.ItemCache;
+import eu.europa.ec.re3gistry2.restapi.cache.NegativeCache;
+import eu.europa.ec.re3gistry2.restapi.cache.RequestStatistics;
+import eu.europa.ec.re3gistry2.restapi.cache.ResponseCache;
+import eu.europa.ec.re3gistry2.restapi.cache.SingleFlight;
+import eu.europa.ec.re3gistry2.restapi.cache.UriIndex;
+import eu.europa.ec.re3gistry2.restapi.format.AbstractRDFFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.CBORFormatter;
 import eu.europa.ec.re3gistry2.restapi.format.CSVFormatter;
 import eu.europa.ec.re3gistry2.restapi.format.Formatter;
 import eu.europa.ec.re3gistry2.restapi.format.ISO19135Formatter;
 import eu.europa.ec.re3gistry2.restapi.format.JSONFormatter;
 import eu.europa.ec.re3gistry2.restapi.format.JSONInternalFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.JSONLDFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.JSONLinesFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.NTriplesFormatter;
 import eu.europa.ec.re3gistry2.restapi.format.RDFFormatter;
 import eu.europa.ec.re3gistry2.restapi.format.RORFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.RenderContext;
+import eu.europa.ec.re3gistry2.restapi.format.SmileFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.TurtleFormatter;
 import eu.europa.ec.re3gistry2.restapi.format.XMLFormatter;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
 import eu.europa.ec.re3gistry2.restapi.util.NoVersionException;
+import eu.europa.ec.re3gistry2.restapi.util.PageRequest;
+import eu.europa.ec.re3gistry2.restapi.util.Projection;
 import eu.europa.ec.re3gistry2.restapi.util.RequestUtil;
 import eu.europa.ec.re3gistry2.restapi.util.ResponseUtil;
 
@@ -63,32 +96,123 @@ public class ItemsServlet extends HttpServlet {
 
     private static final Logger LOG = LogManager.getLogger(ItemsServlet.class.getName());
     private static final long serialVersionUID = 1L;
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final int RETRY_AFTER_SECONDS = 5;
 
     private static EntityManagerFactory emf;
     private static ItemCache cache;
+    private static ResponseCache responseCache;
+    private static NegativeCache negativeCache;
+    // Running assemblies, by item and language
+    private static final SingleFlight<Optional<Item>> loads = new SingleFlight<>();
     private static Map<String, Formatter> formatters;
+    // Formatter chosen for each media type when the format is negotiated
+    private static Map<String, Formatter> mediaTypes;
+    private static int maximumBatchSize;
+    private static int streamingThreshold;
+    private static int maximumPageLimit;
+    // Executor of the requests to the database, bounded so that a burst of
+    // slow requests can not take all the container threads
+    private static ThreadPoolExecutor assemblyExecutor;
+    private static long assemblyTimeoutNanos;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
         try {
             this.emf = PersistenceFactory.getEntityManagerFactory();
             this.cache = (ItemCache) config.getServletContext().getAttribute(CacheServlet.ATTRIBUTE_CACHE_KEY);
+            this.responseCache = (ResponseCache) config.getServletContext().getAttribute(CacheServlet.ATTRIBUTE_RESPONSE_CACHE_KEY);
+            this.negativeCache = (NegativeCache) config.getServletContext().getAttribute(CacheServlet.ATTRIBUTE_NEGATIVE_CACHE_KEY);
             this.formatters = new HashMap<>();
+            this.mediaTypes = new HashMap<>();
+            this.streamingThreshold = getIntProperty(BaseConstants.KEY_RESPONSE_STREAMING_THRESHOLD, 1000);
+            this.maximumPageLimit = Math.max(getIntProperty(BaseConstants.KEY_PAGE_MAXIMUM_LIMIT, 1000), 1);
+            this.maximumBatchSize = Math.max(getIntProperty(BaseConstants.KEY_BATCH_MAXIMUM_SIZE, 1000), 1);
 
-            addFormatter(new JSONInternalFormatter());
-            addFormatter(new XMLFormatter());
-            addFormatter(new JSONFormatter());
-            addFormatter(new ISO19135Formatter());
-            addFormatter(new RDFFormatter());
-            addFormatter(new CSVFormatter(emf));
-            addFormatter(new RORFormatter());
+            for (Formatter formatter : createFormatters()) {
+                addFormatter(formatter);
+            }
+
+            int threads = getIntProperty(BaseConstants.KEY_ASSEMBLY_THREADS, 16);
+            if (threads > 0) {
+                int queueSize = Math.max(getIntProperty(BaseConstants.KEY_ASSEMBLY_QUEUE_SIZE, 100), 1);
+                AtomicInteger threadCount = new AtomicInteger();
+                this.assemblyExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueSize), r -> {
+                            Thread thread = new Thread(r, "re3gistry-rest-api-assembly-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                assemblyExecutor.allowCoreThreadTimeOut(true);
+            }
+            this.assemblyTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(getIntProperty(BaseConstants.KEY_ASSEMBLY_TIMEOUT, 30), 1));
         } catch (Exception e) {
             LOG.error("Unexpected exception occured: cannot load the configuration system", e);
         }
     }
 
+    @Override
+    public void destroy() {
+        if (assemblyExecutor != null) {
+            assemblyExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the formatters of the items, in negotiation order: the first
+     * formatter of a media type is the negotiated one.
+     *
+     * @return the formatters
+     */
+    public static List<Formatter> createFormatters() {
+        String compact = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_JSON_COMPACT, "false");
+        List<Formatter> list = new ArrayList<>();
+        list.add(new JSONFormatter(Boolean.parseBoolean(compact.trim())));
+        list.add(new JSONInternalFormatter());
+        list.add(new SmileFormatter());
+        list.add(new CBORFormatter());
+        list.add(new XMLFormatter());
+        list.add(new ISO19135Formatter());
+        list.add(new RDFFormatter());
+        list.add(new TurtleFormatter());
+        list.add(new NTriplesFormatter());
+        list.add(new JSONLDFormatter(Boolean.parseBoolean(compact.trim())));
+        list.add(new CSVFormatter());
+        list.add(new JSONLinesFormatter());
+        list.add(new RORFormatter());
+        return list;
+    }
+
     private void addFormatter(Formatter formatter) {
         formatters.put(formatter.getFormatName(), formatter);
+        mediaTypes.putIfAbsent(formatter.getContentType(), formatter);
+    }
+
+    /**
+     * Chooses the formatter of the request: the one of the format parameter
+     * or, if there is none, the first one matching the Accept header. The
+     * wildcard media ranges do not select any formatter.
+     */
+    private Formatter getFormatter(HttpServletRequest req, String format) {
+        if (format != null) {
+            return formatters.get(format);
+        }
+        for (String mediaType : RequestUtil.getAcceptedMediaTypes(req)) {
+            Formatter formatter = mediaTypes.get(mediaType);
+            if (formatter != null) {
+                return formatter;
+            }
+        }
+        return null;
+    }
+
+    private int getIntProperty(String key, int defaultValue) {
+        String value = Configuration.getInstance().getProperties().getProperty(key, Integer.toString(defaultValue));
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     @Override
@@ -114,7 +238,7 @@ public class ItemsServlet extends HttpServlet {
             }
 
             Predicate<Item> typeFilter = getTypeFilter(path);
-            Formatter formatter = formatters.get(format);
+            Formatter formatter = getFormatter(req, format);
 
             if (typeFilter == null) {
                 ResponseUtil.err(resp, ApiError.NOT_FOUND);
@@ -129,85 +253,369 @@ public class ItemsServlet extends HttpServlet {
                 return;
             }
 
-            EntityManager em = null;
+            format = formatter.getFormatName();
+
+            PageRequest page;
             try {
-                em = emf.createEntityManager();
+                page = PageRequest.parse(req, maximumPageLimit);
+            } catch (IllegalArgumentException e) {
+                ResponseUtil.err(resp, ApiError.INVALID_PAGE);
+                return;
+            }
 
-                RegLanguagecodeManager languageManager = new RegLanguagecodeManager(em);
-                RegLanguagecode masterLanguage = languageManager.getMasterLanguage();
-                RegLanguagecode languageCode = getLanguageCode(languageManager, lang, masterLanguage);
-                if (languageCode == null) {
-                    ResponseUtil.err(resp, ApiError.LANGUAGE_NOT_SUPPORTED);
+            Projection projection;
+            try {
+                projection = Projection.parse(req);
+            } catch (IllegalArgumentException e) {
+                ResponseUtil.err(resp, ApiError.INVALID_PROJECTION);
+                return;
+            }
+            if (projection != null && !supportsProjection(formatter)) {
+                ResponseUtil.err(resp, ApiError.PROJECTION_NOT_SUPPORTED);
+                return;
+            }
+
+            // The items are cached by the code of the language they are
+            // assembled in, the master language if none is requested
+            RegistryMetadata metadata;
+            RegLanguagecode languageCode;
+            try {
+                metadata = RegistryMetadata.get(emf);
+                languageCode = getLanguageCode(metadata, lang, metadata.getMasterLanguage());
+            } catch (Exception e) {
+                LOG.error("Unexpected exception occured", e);
+                ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+                return;
+            }
+            if (languageCode == null) {
+                ResponseUtil.err(resp, ApiError.LANGUAGE_NOT_SUPPORTED);
+                return;
+            }
+            String language = languageCode.getIso6391code();
+
+            // Answering with the already encoded response, if available
+            String responseKey = ResponseCache.getKey(path, uuid != null ? uuid : uri, language, format, page, projection);
+            CachedResponse cachedResponse = responseCache.get(responseKey);
+            if (cachedResponse != null) {
+                RequestStatistics.record(cachedResponse.getUuid());
+                ResponseUtil.ok(req, resp, cachedResponse);
+                return;
+            }
+            if (negativeCache.isMissing(NegativeCache.getKey(uuid, uri))) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+
+            // Formatting the cached items on the container thread: only the
+            // misses wait for the executor and the database
+            if (page == null && projection == null) {
+                Item cached = uuid != null ? cache.getByUuid(language, uuid) : cache.getByUrl(language, uri);
+                if (cached != null) {
+                    if (!typeFilter.test(cached)) {
+                        ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                        return;
+                    }
+                    RequestStatistics.record(cached.getUuid());
+                    try {
+                        respond(req, resp, cached, new RenderContext(languageCode, metadata), format, formatter, responseKey);
+                    } catch (Exception e) {
+                        LOG.error("Unexpected exception occured", e);
+                        if (!resp.isCommitted()) {
+                            ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+                        }
+                    }
                     return;
                 }
+            }
 
-                ItemSupplier itemSupplier = new ItemSupplier(em,
-                        masterLanguage, languageCode);
-                ItemHistorySupplier itemHistorySupplier = new ItemHistorySupplier(em,
-                        masterLanguage, languageCode);
+            // Assembling the item out of the container thread
+            String itemUri = uri;
+            String itemFormat = format;
+            dispatch(req, resp, () -> assemble(req, resp, language, uuid, itemUri, itemFormat, formatter, typeFilter, page, projection, responseKey));
+        } catch (IOException e) {
+            LOG.error("Unexpected exception occured", e);
+        }
+    }
 
-                Optional<Item> optItem;
-                if (uuid != null) {
-                    try {
-                        optItem = getItemByUuid(uuid, lang, itemSupplier);
-                    } catch (Exception ex) {
-                        optItem = getItemHistoryByUuid(uuid, lang, itemHistorySupplier);
+    /**
+     * Runs the assembly of the response on the assembly executor, releasing
+     * the container thread meanwhile. The request is answered with 503 and
+     * Retry-After if the queue of the executor is full, or if the assembly
+     * could not start before the timeout.
+     */
+    private void dispatch(HttpServletRequest req, HttpServletResponse resp, Runnable assembly) throws IOException {
+        if (assemblyExecutor == null || !req.isAsyncSupported()) {
+            assembly.run();
+            return;
+        }
+        AsyncContext async = req.startAsync();
+        // The assembly can not be interrupted: the response is always
+        // completed by the task
+        async.setTimeout(0L);
+        long deadline = System.nanoTime() + assemblyTimeoutNanos;
+        try {
+            assemblyExecutor.execute(() -> {
+                try {
+                    if (System.nanoTime() - deadline > 0L) {
+                        unavailable(resp);
+                    } else {
+                        assembly.run();
                     }
+                } catch (Exception e) {
+                    LOG.error("Unexpected exception occured", e);
+                } finally {
+                    async.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            unavailable(resp);
+            async.complete();
+        }
+    }
+
+    private void unavailable(HttpServletResponse resp) throws IOException {
+        resp.setHeader("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+        ResponseUtil.err(resp, ApiError.SERVICE_UNAVAILABLE);
+    }
+
+    private void assemble(HttpServletRequest req, HttpServletResponse resp, String language, String uuid, String uri, String format,
+            Formatter formatter, Predicate<Item> typeFilter, PageRequest page, Projection projection, String responseKey) {
+        EntityManager em = null;
+        try {
+            em = emf.createEntityManager();
+
+            RegistryMetadata metadata = RegistryMetadata.get(em);
+            RegLanguagecode masterLanguage = metadata.getMasterLanguage();
+            // Removed since the request was received, if null
+            RegLanguagecode languageCode = metadata.getLanguage(language);
+            if (languageCode == null) {
+                ResponseUtil.err(resp, ApiError.LANGUAGE_NOT_SUPPORTED);
+                return;
+            }
+
+            ItemSupplier itemSupplier = new ItemSupplier(em,
+                    masterLanguage, languageCode);
+            itemSupplier.setPage(page);
+            itemSupplier.setProjection(projection);
+            // Large registers are exported item by item, as they are read;
+            // the smaller ones take the cached path. Only reached on a miss
+            // of the item cache: the items are counted only if they are
+            // registers, and looked up once for the count and the assembly
+            boolean export = page == null && streamsContainedItems(formatter)
+                    && streamingThreshold >= 0
+                    && itemSupplier.countContainedItems(uuid, uri) >= streamingThreshold;
+            itemSupplier.setContainedItemsStreamed(export);
+            ItemHistorySupplier itemHistorySupplier = new ItemHistorySupplier(em,
+                    masterLanguage, languageCode);
+
+            StatusSupplier statusSupplier = new StatusSupplier(em, masterLanguage, languageCode);
+
+            String missingKey = NegativeCache.getKey(uuid, uri);
+            Optional<Item> optItem;
+            if (itemSupplier.isPartial()) {
+                optItem = findItem(uuid, uri, language, itemSupplier, itemHistorySupplier, statusSupplier);
+            } else {
+                // One assembly per item and language: the concurrent requests
+                // wait for its result
+                optItem = loads.load(missingKey + "|" + language,
+                        () -> findItem(uuid, uri, language, itemSupplier, itemHistorySupplier, statusSupplier));
+            }
+            if (!optItem.isPresent()) {
+                negativeCache.putMissing(missingKey);
+            }
+
+            RenderContext context = new RenderContext(languageCode, metadata);
+            Item item = optItem.filter(typeFilter).orElse(null);
+            if (item == null) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+            RequestStatistics.record(item.getUuid());
+            if (export && BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER.equals(item.getType())) {
+                RenderContext exportContext = new RenderContext(languageCode, metadata,
+                        handler -> itemSupplier.forEachContainedItem(item.getUuid(), handler));
+                if (ResponseUtil.requiresContentLength(req)) {
+                    ResponseUtil.ok(resp, item, exportContext, formatter);
                 } else {
-                    Integer version = getVersionFromUri(uri);
-                    //version is null if the uri doesnt contain any version information, so is a RegItem
-                    if (version != null) {
-                        if (version == 0) {
-                            optItem = getItemByUri(uri.replace(":" + version, ""), lang, itemSupplier);
-                        } else {
-                            optItem = getItemHistoryByUri(uri, version, lang, itemHistorySupplier);
-                            if (!optItem.isPresent()) {
-                                optItem = getItemByUri(uri.replace(":" + version, ""), lang, itemSupplier);
-                            }
-                        }
+                    ResponseUtil.stream(req, resp, item, exportContext, formatter);
+                }
+            } else {
+                respond(req, resp, item, context, format, formatter, responseKey);
+            }
+        } catch (NoResultException e) {
+            negativeCache.putMissing(NegativeCache.getKey(uuid, uri));
+            try {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+            } catch (IOException ex) {
+                LOG.error("Unexpected exception occured", ex);
+            }
+        } catch (NoVersionException e) {
+            try {
+                ResponseUtil.err(resp, ApiError.VERSION_NOT_FOUND);
+            } catch (IOException ex) {
+                LOG.error("Unexpected exception occured", ex);
+            }
+        } catch (Exception e) {
+            try {
+                LOG.error("Unexpected exception occured", e);
+                if (resp.isCommitted()) {
+                    // Failed while streaming, the status is already sent
+                    return;
+                }
+                ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
+            } catch (IOException ex) {
+                LOG.error("Unexpected exception occured", ex);
+            }
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the item, keeping the encoded response in the response cache
+     * unless it is too large to be buffered.
+     */
+    private void respond(HttpServletRequest req, HttpServletResponse resp, Item item, RenderContext context,
+            String format, Formatter formatter, String responseKey) throws Exception {
+        if (isStreamed(item) && !ResponseUtil.requiresContentLength(req)) {
+            // Too large to be buffered (and cached)
+            ResponseUtil.stream(req, resp, item, context, formatter);
+        } else {
+            CachedResponse response = toCachedResponse(item, context, format, formatter);
+            responseCache.put(responseKey, response);
+            ResponseUtil.ok(req, resp, response);
+        }
+    }
+
+    /**
+     * Answers POST /items/batch: the body is a json object with the arrays
+     * "uuid" and/or "uri" (and optionally "lang" and "format", also accepted
+     * as query parameters). The items are written in the order of the request,
+     * the uuids first, as a json array or, with format=ndjson, one json object
+     * per line. Each entry holds the requested uuid or uri, the status and
+     * (if found) the item in the jsonc model.
+     */
+    @Override
+    public void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        try {
+            if (!"/batch".equals(req.getPathInfo())) {
+                ResponseUtil.err(resp, ApiError.NOT_FOUND);
+                return;
+            }
+
+            JsonNode body;
+            try {
+                body = JSONInternalFormatter.OM.readTree(req.getInputStream());
+            } catch (IOException e) {
+                body = null;
+            }
+            if (body == null || !body.isObject()) {
+                ResponseUtil.err(resp, ApiError.INVALID_BATCH);
+                return;
+            }
+            Set<String> uuids = getTextValues(body.get("uuid"));
+            Set<String> uris = getTextValues(body.get("uri"));
+            if (uuids == null || uris == null) {
+                ResponseUtil.err(resp, ApiError.INVALID_BATCH);
+                return;
+            }
+            if (uuids.isEmpty() && uris.isEmpty()) {
+                ResponseUtil.err(resp, ApiError.UUID_URI_REQUIRED);
+                return;
+            }
+            if (uuids.size() + uris.size() > maximumBatchSize) {
+                ResponseUtil.err(resp, ApiError.BATCH_TOO_LARGE);
+                return;
+            }
+
+            String lang = body.hasNonNull("lang") ? body.get("lang").asText() : RequestUtil.getParamTrimmed(req, "lang", null);
+            String format = body.hasNonNull("format") ? body.get("format").asText() : RequestUtil.getParamTrimmed(req, "format", null);
+            if (format == null) {
+                format = RequestUtil.getAcceptedMediaTypes(req).contains(NDJSON_CONTENT_TYPE) ? "ndjson" : "json";
+            }
+            if (!"json".equals(format) && !"ndjson".equals(format)) {
+                ResponseUtil.err(resp, ApiError.FORMAT_NOT_SUPPORTED);
+                return;
+            }
+
+            EntityManager em = null;
+            try {
+                em = emf.createEntityManager();
+
+                RegistryMetadata metadata = RegistryMetadata.get(em);
+                RegLanguagecode masterLanguage = metadata.getMasterLanguage();
+                RegLanguagecode languageCode = getLanguageCode(metadata, lang, masterLanguage);
+                if (languageCode == null) {
+                    ResponseUtil.err(resp, ApiError.LANGUAGE_NOT_SUPPORTED);
+                    return;
+                }
+                String language = languageCode.getIso6391code();
+
+                // Cache hits first, the misses are then read all together
+                Map<String, Item> itemsByUuid = new HashMap<>();
+                Map<String, Item> itemsByUri = new HashMap<>();
+                Set<String> missingUuids = new LinkedHashSet<>();
+                List<String> missingUris = new ArrayList<>();
+                for (String uuid : uuids) {
+                    Item cached = cache.getByUuid(language, uuid);
+                    if (cached != null) {
+                        itemsByUuid.put(uuid, cached);
                     } else {
-                        if (uri.endsWith(":0")) {
-                            optItem = getItemByUri(uri.replace("0:", ""), lang, itemSupplier);
-                        } else {
-                            optItem = getItemByUri(uri, lang, itemSupplier);
-                        }
+                        missingUuids.add(uuid);
                     }
                 }
-
-                //try to see if is a status request
-                if (!optItem.isPresent()) {
-                    StatusSupplier statusSupplier = new StatusSupplier(em, masterLanguage, languageCode);
-                    if (uuid != null) {
-                        optItem = getItemStatusByUuid(uuid, lang, statusSupplier);
+                Map<String, String> indexedUris = new HashMap<>();
+                for (String uri : uris) {
+                    Item cached = cache.getByUrl(language, uri);
+                    String indexedUuid = cached == null ? UriIndex.getUuid(uri) : null;
+                    if (cached != null) {
+                        itemsByUri.put(uri, cached);
+                    } else if (indexedUuid != null) {
+                        indexedUris.put(uri, indexedUuid);
+                        missingUuids.add(indexedUuid);
                     } else {
-                        optItem = getItemStatusByUri(uri, lang, statusSupplier);
+                        missingUris.add(uri);
                     }
                 }
 
-                Item item = optItem.filter(typeFilter).orElse(null);
-                if (item == null) {
-                    ResponseUtil.err(resp, ApiError.NOT_FOUND);
-                } else {
-                    ResponseUtil.ok(resp, item, languageCode, formatter);
+                ItemSupplier itemSupplier = new ItemSupplier(em, masterLanguage, languageCode);
+                Map<String, Item> loaded = itemSupplier.getItemsByUuids(missingUuids);
+                for (Item item : loaded.values()) {
+                    cache.add(language, item);
                 }
-            } catch (NoResultException e) {
-                try {
-                    ResponseUtil.err(resp, ApiError.NOT_FOUND);
-                } catch (IOException ex) {
-                    LOG.error("Unexpected exception occured", ex);
+                for (String uuid : uuids) {
+                    itemsByUuid.computeIfAbsent(uuid, loaded::get);
                 }
-            } catch (NoVersionException e) {
-                try {
-                    ResponseUtil.err(resp, ApiError.VERSION_NOT_FOUND);
-                } catch (IOException ex) {
-                    LOG.error("Unexpected exception occured", ex);
+                for (Map.Entry<String, String> indexedUri : indexedUris.entrySet()) {
+                    Item item = loaded.get(indexedUri.getValue());
+                    if (item != null) {
+                        itemsByUri.put(indexedUri.getKey(), item);
+                    } else {
+                        missingUris.add(indexedUri.getKey());
+                    }
                 }
+                // The uris not in the index are resolved one by one
+                for (String uri : missingUris) {
+                    Item item;
+                    try {
+                        item = itemSupplier.getItemByUri(uri);
+                    } catch (NoResultException e) {
+                        item = null;
+                    }
+                    if (item != null) {
+                        cache.add(language, item);
+                        itemsByUri.put(uri, item);
+                    }
+                }
+
+                writeBatch(resp, "ndjson".equals(format), uuids, itemsByUuid, uris, itemsByUri);
             } catch (Exception e) {
-                try {
-                    LOG.error("Unexpected exception occured", e);
+                LOG.error("Unexpected exception occured", e);
+                if (!resp.isCommitted()) {
                     ResponseUtil.err(resp, ApiError.INTERNAL_SERVER_ERROR);
-                } catch (IOException ex) {
-                    LOG.error("Unexpected exception occured", ex);
                 }
             } finally {
                 if (em != null) {
@@ -219,6 +627,110 @@ public class ItemsServlet extends HttpServlet {
         }
     }
 
+    private Set<String> getTextValues(JsonNode array) {
+        Set<String> values = new LinkedHashSet<>();
+        if (array == null || array.isNull()) {
+            return values;
+        }
+        if (!array.isArray()) {
+            return null;
+        }
+        for (JsonNode value : array) {
+            if (!value.isTextual()) {
+                return null;
+            }
+            String text = value.asText().trim();
+            if (!text.isEmpty()) {
+                values.add(text);
+            }
+        }
+        return values;
+    }
+
+    private void writeBatch(HttpServletResponse resp, boolean ndjson,
+            Set<String> uuids, Map<String, Item> itemsByUuid,
+            Set<String> uris, Map<String, Item> itemsByUri) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(ndjson ? NDJSON_CONTENT_TYPE : "application/json");
+        resp.setCharacterEncoding("UTF-8");
+        OutputStream out = resp.getOutputStream();
+        try (JsonGenerator gen = JSONInternalFormatter.OM.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .createGenerator(out)) {
+            if (ndjson) {
+                gen.setRootValueSeparator(new SerializedString("\n"));
+            } else {
+                gen.writeStartArray();
+            }
+            for (String uuid : uuids) {
+                writeBatchEntry(gen, "uuid", uuid, itemsByUuid.get(uuid));
+            }
+            for (String uri : uris) {
+                writeBatchEntry(gen, "uri", uri, itemsByUri.get(uri));
+            }
+            if (ndjson) {
+                gen.writeRaw('\n');
+            } else {
+                gen.writeEndArray();
+            }
+        }
+    }
+
+    private void writeBatchEntry(JsonGenerator gen, String key, String value, Item item) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField(key, value);
+        if (item == null) {
+            gen.writeNumberField("status", HttpServletResponse.SC_NOT_FOUND);
+        } else {
+            RequestStatistics.record(item.getUuid());
+            gen.writeNumberField("status", HttpServletResponse.SC_OK);
+            gen.writeObjectField("item", item);
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Checks if the formatter can write the contained items of a register
+     * from a {@link eu.europa.ec.re3gistry2.restapi.format.ContainedItemSource}
+     */
+    public static boolean streamsContainedItems(Formatter formatter) {
+        return formatter instanceof CSVFormatter
+                || formatter instanceof AbstractRDFFormatter
+                || formatter instanceof JSONLinesFormatter;
+    }
+
+    /**
+     * Checks if the formatter writes the items from their model as is,
+     * leaving out the fields missing from the projected items
+     */
+    public static boolean supportsProjection(Formatter formatter) {
+        return formatter instanceof JSONFormatter
+                || formatter instanceof JSONInternalFormatter
+                || formatter instanceof CBORFormatter
+                || formatter instanceof SmileFormatter;
+    }
+
+    private boolean isStreamed(Item item) {
+        if (streamingThreshold < 0) {
+            return false;
+        }
+        int size = 0;
+        if (item.getContainedItems() != null) {
+            size += item.getContainedItems().size();
+        }
+        if (item.getContainedItemsBeeingParentItemClass() != null) {
+            size += item.getContainedItemsBeeingParentItemClass().size();
+        }
+        return size >= streamingThreshold;
+    }
+
+    private CachedResponse toCachedResponse(Item item, RenderContext context, String format, Formatter formatter) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        formatter.write(item, context, baos);
+        return CachedResponse.create(item, context.getLanguage().getIso6391code(), format,
+                formatter.getContentType(), baos.toByteArray(), responseCache.isGzip());
+    }
+
     private int countOccurance(String whereToCount, String whatToCount) {
         int lastIndex = 0;
         int count = 0;
@@ -252,16 +764,11 @@ public class ItemsServlet extends HttpServlet {
         return version;
     }
 
-    private RegLanguagecode getLanguageCode(RegLanguagecodeManager languageManager, String lang, RegLanguagecode fallback) throws Exception {
+    private RegLanguagecode getLanguageCode(RegistryMetadata metadata, String lang, RegLanguagecode fallback) throws Exception {
         if (lang == null) {
             return fallback;
         }
-        for (RegLanguagecode l : languageManager.getAll()) {
-            if (l.getIso6391code().equals(lang) || l.getIso6392code().equals(lang)) {
-                return l;
-            }
-        }
-        return null;
+        return metadata.getLanguage(lang);
     }
 
     private Predicate<Item> getTypeFilter(String path) {
@@ -292,12 +799,62 @@ public class ItemsServlet extends HttpServlet {
         return s;
     }
 
+    /**
+     * Looks for the item, then for a version of the item, then for a status
+     * with the uuid or uri passed by parameter.
+     */
+    private Optional<Item> findItem(String uuid, String uri, String language, ItemSupplier itemSupplier,
+            ItemHistorySupplier itemHistorySupplier, StatusSupplier statusSupplier) throws Exception {
+        Optional<Item> optItem;
+        if (uuid != null) {
+            try {
+                optItem = getItemByUuid(uuid, language, itemSupplier);
+            } catch (Exception ex) {
+                optItem = getItemHistoryByUuid(uuid, language, itemHistorySupplier);
+            }
+        } else {
+            Integer version = getVersionFromUri(uri);
+            //version is null if the uri doesnt contain any version information, so is a RegItem
+            if (version != null) {
+                if (version == 0) {
+                    optItem = getItemByUri(uri.replace(":" + version, ""), language, itemSupplier);
+                } else {
+                    optItem = getItemHistoryByUri(uri, version, language, itemHistorySupplier);
+                    if (!optItem.isPresent()) {
+                        optItem = getItemByUri(uri.replace(":" + version, ""), language, itemSupplier);
+                    }
+                }
+            } else {
+                if (uri.endsWith(":0")) {
+                    optItem = getItemByUri(uri.replace("0:", ""), language, itemSupplier);
+                } else {
+                    optItem = getItemByUri(uri, language, itemSupplier);
+                }
+            }
+        }
+
+        //try to see if is a status request
+        if (!optItem.isPresent()) {
+            if (uuid != null) {
+                optItem = getItemStatusByUuid(uuid, language, statusSupplier);
+            } else {
+                optItem = getItemStatusByUri(uri, language, statusSupplier);
+            }
+        }
+
+        return optItem;
+    }
+
     private Optional<Item> getItemByUuid(String uuid, String language, ItemSupplier itemSupplier) throws Exception {
+        if (itemSupplier.isPartial()) {
+            // The cached items hold all their contained items
+            return Optional.ofNullable(itemSupplier.getItemByUuid(uuid));
+        }
         Item cached = cache.getByUuid(language, uuid);
         if (cached != null) {
             return Optional.of(cached);
         }
-        Item item = itemSupplier.getItemByUuid(uuid);
+        Item item = load(() -> itemSupplier.getItemByUuid(uuid));
         if (item == null) {
             return Optional.empty();
         }
@@ -307,28 +864,43 @@ public class ItemsServlet extends HttpServlet {
     }
 
     private Optional<Item> getItemByUri(String uri, String language, ItemSupplier itemSupplier) throws Exception {
+        if (itemSupplier.isPartial()) {
+            // The cached items hold all their contained items
+            return Optional.ofNullable(itemSupplier.getItemByUri(uri));
+        }
+        // Also found if cached by uuid only
         Item cached = cache.getByUrl(language, uri);
         if (cached != null) {
             return Optional.of(cached);
         }
 
-        Item item = itemSupplier.getItemByUri(uri);
+        Item item = load(() -> itemSupplier.getItemByUri(uri));
         if (item == null) {
             return Optional.empty();
         }
 
         cache.add(language, item);
-
-        Item it = cache.getByUrl(language, uri);
-
         return Optional.of(item);
     }
 
-    private Optional<Item> getItemHistoryByUuid(String uuid, String language, ItemHistorySupplier itemHistorySupplier) throws Exception {
-        Item cached = cache.getByUuid(language, uuid);
-        if (cached != null) {
-            return Optional.of(cached);
+    /**
+     * Assembles an item missing from the cache, recording the time spent in
+     * the statistics of the cache.
+     */
+    private Item load(Callable<Item> assembly) throws Exception {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Item item = assembly.call();
+            success = item != null;
+            return item;
+        } finally {
+            cache.recordLoad(System.nanoTime() - start, success);
         }
+    }
+
+    private Optional<Item> getItemHistoryByUuid(String uuid, String language, ItemHistorySupplier itemHistorySupplier) throws Exception {
+        // Already looked up in the cache by getItemByUuid
         Item item = itemHistorySupplier.getItemHistoryByUuid(uuid);
         if (item == null) {
             return Optional.empty();
@@ -354,10 +926,7 @@ public class ItemsServlet extends HttpServlet {
     }
 
     private Optional<Item> getItemStatusByUuid(String uuid, String language, StatusSupplier statusSupplier) throws Exception {
-        Item cached = cache.getByUuid(language, uuid);
-        if (cached != null) {
-            return Optional.of(cached);
-        }
+        // Already looked up in the cache by getItemByUuid
         Item item = statusSupplier.getItemByUuid(uuid);
         if (item == null) {
             return Optional.empty();
@@ -368,11 +937,7 @@ public class ItemsServlet extends HttpServlet {
     }
 
     private Optional<Item> getItemStatusByUri(String uri, String language, StatusSupplier statusSupplier) throws Exception {
-        Item cached = cache.getByUrl(language, uri);
-        if (cached != null) {
-            return Optional.of(cached);
-        }
-
+        // Already looked up in the cache by getItemByUri
         Item item = statusSupplier.getItemByUri(uri);
         if (item == null) {
             return Optional.empty();
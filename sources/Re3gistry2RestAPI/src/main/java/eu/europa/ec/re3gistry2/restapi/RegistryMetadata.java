@@ -0,0 +1,433 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.crudimplementation.RegFieldManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegFieldmappingManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemclassManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegLanguagecodeManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegLocalizationManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegRelationpredicateManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegStatusManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegStatusgroupManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegStatuslocalizationManager;
+import eu.europa.ec.re3gistry2.model.RegField;
+import eu.europa.ec.re3gistry2.model.RegFieldmapping;
+import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.model.RegLocalization;
+import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
+import eu.europa.ec.re3gistry2.model.RegStatus;
+import eu.europa.ec.re3gistry2.model.RegStatusgroup;
+import eu.europa.ec.re3gistry2.model.RegStatuslocalization;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Immutable snapshot of the registry metadata needed to assemble the
+ * responses: item classes (with their parent/child tree), field mappings,
+ * field labels, statuses and their localizations, relation predicates and
+ * languages.
+ *
+ * The snapshot is shared by all the requests and loaded lazily the first time
+ * it is needed. When the configuration changes it is invalidated, and the next
+ * request loads a new one and swaps it in; requests already running keep
+ * working on the snapshot they started with.
+ */
+public final class RegistryMetadata {
+
+    private static final Logger LOG = LogManager.getLogger(RegistryMetadata.class.getName());
+
+    private static final AtomicReference<RegistryMetadata> CURRENT = new AtomicReference<>();
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    // Value of GENERATION when the snapshot started loading
+    private final long generation;
+
+    private final RegLanguagecode masterLanguage;
+    private final List<RegLanguagecode> languages;
+
+    private final Map<String, RegRelationpredicate> predicateByUuid;
+
+    private final List<RegItemclass> itemclasses;
+    private final Map<String, RegItemclass> itemclassByUuid;
+    private final Map<String, RegItemclass> itemclassByLocalid;
+    // parent itemclass uuid -> child itemclasses
+    private final Map<String, List<RegItemclass>> itemclassChildren;
+    // itemclass uuid -> fieldmappings ordered by listorder
+    private final Map<String, List<RegFieldmapping>> fieldmappingsByItemclass;
+
+    private final Map<String, RegField> fieldByLocalid;
+    // field uuid -> language uuid -> label
+    private final Map<String, Map<String, String>> fieldLabels;
+
+    private final Map<String, RegStatus> statusByUuid;
+    private final Map<String, RegStatusgroup> statusgroupByUuid;
+    // status (or statusgroup) uuid -> language uuid -> localization
+    private final Map<String, Map<String, RegStatuslocalization>> statusLocalizations;
+    private final Map<String, Map<String, RegStatuslocalization>> statusgroupLocalizations;
+
+    private RegistryMetadata(EntityManager em, long generation) throws Exception {
+        this.generation = generation;
+        RegLanguagecodeManager regLanguagecodeManager = new RegLanguagecodeManager(em);
+        masterLanguage = regLanguagecodeManager.getMasterLanguage();
+        languages = Collections.unmodifiableList(new ArrayList<>(regLanguagecodeManager.getAll()));
+
+        Map<String, RegRelationpredicate> predicates = new HashMap<>();
+        for (RegRelationpredicate predicate : new RegRelationpredicateManager(em).getAll()) {
+            predicates.put(predicate.getUuid(), predicate);
+        }
+        predicateByUuid = Collections.unmodifiableMap(predicates);
+
+        Map<String, RegItemclass> byUuid = new HashMap<>();
+        Map<String, RegItemclass> byLocalid = new HashMap<>();
+        Map<String, List<RegItemclass>> children = new HashMap<>();
+        List<RegItemclass> allItemclasses = new RegItemclassManager(em).getAll();
+        for (RegItemclass itemclass : allItemclasses) {
+            byUuid.put(itemclass.getUuid(), itemclass);
+            byLocalid.put(itemclass.getLocalid(), itemclass);
+            if (itemclass.getRegItemclassParent() != null) {
+                children.computeIfAbsent(itemclass.getRegItemclassParent().getUuid(), k -> new ArrayList<>()).add(itemclass);
+            }
+        }
+        itemclasses = Collections.unmodifiableList(new ArrayList<>(allItemclasses));
+        itemclassByUuid = Collections.unmodifiableMap(byUuid);
+        itemclassByLocalid = Collections.unmodifiableMap(byLocalid);
+        itemclassChildren = unmodifiableLists(children);
+
+        Map<String, List<RegFieldmapping>> fieldmappings = new HashMap<>();
+        for (RegFieldmapping fieldmapping : new RegFieldmappingManager(em).getAll()) {
+            fieldmappings.computeIfAbsent(fieldmapping.getRegItemclass().getUuid(), k -> new ArrayList<>()).add(fieldmapping);
+        }
+        for (List<RegFieldmapping> list : fieldmappings.values()) {
+            list.sort(Comparator.comparingInt(RegFieldmapping::getListorder));
+        }
+        fieldmappingsByItemclass = unmodifiableLists(fieldmappings);
+
+        Map<String, RegField> fields = new HashMap<>();
+        for (RegField field : new RegFieldManager(em).getAll()) {
+            fields.put(field.getLocalid(), field);
+        }
+        fieldByLocalid = Collections.unmodifiableMap(fields);
+
+        Map<String, Map<String, String>> labels = new HashMap<>();
+        for (RegLocalization localization : new RegLocalizationManager(em).getAllFieldLocalizations()) {
+            labels.computeIfAbsent(localization.getRegField().getUuid(), k -> new HashMap<>())
+                    .put(localization.getRegLanguagecode().getUuid(), localization.getValue());
+        }
+        fieldLabels = unmodifiableMaps(labels);
+
+        Map<String, RegStatus> statuses = new HashMap<>();
+        for (RegStatus status : new RegStatusManager(em).getAll()) {
+            statuses.put(status.getUuid(), status);
+        }
+        statusByUuid = Collections.unmodifiableMap(statuses);
+
+        Map<String, RegStatusgroup> statusgroups = new HashMap<>();
+        for (RegStatusgroup statusgroup : new RegStatusgroupManager(em).getAll()) {
+            statusgroups.put(statusgroup.getUuid(), statusgroup);
+        }
+        statusgroupByUuid = Collections.unmodifiableMap(statusgroups);
+
+        Map<String, Map<String, RegStatuslocalization>> byStatus = new HashMap<>();
+        Map<String, Map<String, RegStatuslocalization>> byStatusgroup = new HashMap<>();
+        for (RegStatuslocalization localization : new RegStatuslocalizationManager(em).getAll()) {
+            String language = localization.getRegLanguagecode().getUuid();
+            if (localization.getRegStatus() != null) {
+                byStatus.computeIfAbsent(localization.getRegStatus().getUuid(), k -> new HashMap<>()).put(language, localization);
+            }
+            if (localization.getRegStatusgroup() != null) {
+                byStatusgroup.computeIfAbsent(localization.getRegStatusgroup().getUuid(), k -> new HashMap<>()).put(language, localization);
+            }
+        }
+        statusLocalizations = unmodifiableMaps(byStatus);
+        statusgroupLocalizations = unmodifiableMaps(byStatusgroup);
+    }
+
+    /**
+     * Returns the current metadata snapshot, loading it with the EntityManager
+     * passed by parameter if not available.
+     *
+     * @param em the EntityManager used to load the snapshot, if needed
+     * @return the current metadata snapshot
+     * @throws Exception
+     */
+    public static RegistryMetadata get(EntityManager em) throws Exception {
+        long generation = GENERATION.get();
+        RegistryMetadata metadata = CURRENT.get();
+        // A snapshot published while being invalidated is never served
+        if (metadata != null && metadata.generation == generation) {
+            return metadata;
+        }
+        RegistryMetadata loaded = new RegistryMetadata(em, generation);
+        // Not publishing a snapshot invalidated while it was being loaded
+        if (generation == GENERATION.get() && CURRENT.compareAndSet(metadata, loaded)) {
+            LOG.info("Registry metadata snapshot loaded");
+            return loaded;
+        }
+        metadata = CURRENT.get();
+        return metadata != null && metadata.generation == generation ? metadata : loaded;
+    }
+
+    /**
+     * Returns the current metadata snapshot, opening an EntityManager to load
+     * it only if not available.
+     *
+     * @param emf the EntityManagerFactory used to load the snapshot, if needed
+     * @return the current metadata snapshot
+     * @throws Exception
+     */
+    public static RegistryMetadata get(EntityManagerFactory emf) throws Exception {
+        RegistryMetadata metadata = CURRENT.get();
+        if (metadata != null && metadata.generation == GENERATION.get()) {
+            return metadata;
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            return get(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Discards the current metadata snapshot: the next request will load a new
+     * one. Called when the configuration of the registry changes, detected by
+     * the {@link eu.europa.ec.re3gistry2.restapi.cache.CacheInvalidator} poll,
+     * and when the caches are flushed.
+     */
+    public static void invalidate() {
+        GENERATION.incrementAndGet();
+        CURRENT.set(null);
+    }
+
+    public RegLanguagecode getMasterLanguage() {
+        return masterLanguage;
+    }
+
+    public List<RegLanguagecode> getLanguages() {
+        return languages;
+    }
+
+    /**
+     * Returns the language identified by the ISO 639-1 or ISO 639-2 code.
+     *
+     * @param code the ISO 639-1 or ISO 639-2 code of the language
+     * @return the language, or null if not available
+     */
+    public RegLanguagecode getLanguage(String code) {
+        for (RegLanguagecode language : languages) {
+            if (language.getIso6391code().equals(code) || language.getIso6392code().equals(code)) {
+                return language;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the relation predicate with the uuid passed by parameter.
+     *
+     * @param uuid the uuid of the predicate
+     * @return the relation predicate
+     * @throws NoResultException if the predicate does not exist
+     */
+    public RegRelationpredicate getPredicate(String uuid) {
+        return required(predicateByUuid.get(uuid));
+    }
+
+    public List<RegItemclass> getItemclasses() {
+        return itemclasses;
+    }
+
+    /**
+     * Returns the item class with the uuid passed by parameter.
+     *
+     * @param uuid the uuid of the item class
+     * @return the item class
+     * @throws NoResultException if the item class does not exist
+     */
+    public RegItemclass getItemclass(String uuid) {
+        return required(itemclassByUuid.get(uuid));
+    }
+
+    /**
+     * Returns the item class with the localid passed by parameter.
+     *
+     * @param localid the localid of the item class
+     * @return the item class
+     * @throws NoResultException if the item class does not exist
+     */
+    public RegItemclass getItemclassByLocalid(String localid) {
+        return required(itemclassByLocalid.get(localid));
+    }
+
+    /**
+     * Returns the item classes having the item class passed by parameter as
+     * parent.
+     *
+     * @param parent the parent item class
+     * @return the child item classes, never null
+     */
+    public List<RegItemclass> getChildItemclasses(RegItemclass parent) {
+        return itemclassChildren.getOrDefault(parent.getUuid(), Collections.emptyList());
+    }
+
+    /**
+     * Returns the field mappings of the item class, ordered by listorder.
+     *
+     * @param itemclass the item class
+     * @return the field mappings, never null
+     */
+    public List<RegFieldmapping> getFieldmappings(RegItemclass itemclass) {
+        return fieldmappingsByItemclass.getOrDefault(itemclass.getUuid(), Collections.emptyList());
+    }
+
+    /**
+     * Returns the mapping of the field in the item class.
+     *
+     * @param field the field
+     * @param itemclass the item class
+     * @return the field mapping
+     * @throws NoResultException if the field is not mapped in the item class
+     */
+    public RegFieldmapping getFieldmapping(RegField field, RegItemclass itemclass) {
+        for (RegFieldmapping fieldmapping : getFieldmappings(itemclass)) {
+            if (fieldmapping.getRegField().getUuid().equals(field.getUuid())) {
+                return fieldmapping;
+            }
+        }
+        throw new NoResultException();
+    }
+
+    /**
+     * Returns the field with the localid passed by parameter.
+     *
+     * @param localid the localid of the field
+     * @return the field
+     * @throws NoResultException if the field does not exist
+     */
+    public RegField getField(String localid) {
+        return required(fieldByLocalid.get(localid));
+    }
+
+    public RegField getLabelField() {
+        return getField(BaseConstants.KEY_FIELD_MANDATORY_LABEL_LOCALID);
+    }
+
+    /**
+     * Returns the label of the field in the language passed by parameter.
+     *
+     * @param field the field
+     * @param language the language of the label
+     * @return the label, or null if not available in that language
+     */
+    public String getFieldLabel(RegField field, RegLanguagecode language) {
+        return fieldLabels.getOrDefault(field.getUuid(), Collections.emptyMap()).get(language.getUuid());
+    }
+
+    /**
+     * Returns the status with the uuid passed by parameter.
+     *
+     * @param uuid the uuid of the status
+     * @return the status
+     * @throws NoResultException if the status does not exist
+     */
+    public RegStatus getStatus(String uuid) {
+        return required(statusByUuid.get(uuid));
+    }
+
+    /**
+     * Returns the status group with the uuid passed by parameter.
+     *
+     * @param uuid the uuid of the status group
+     * @return the status group
+     * @throws NoResultException if the status group does not exist
+     */
+    public RegStatusgroup getStatusgroup(String uuid) {
+        return required(statusgroupByUuid.get(uuid));
+    }
+
+    /**
+     * Returns the localization of the status in the language passed by
+     * parameter.
+     *
+     * @param status the status
+     * @param language the language of the localization
+     * @return the localization, or null if not available in that language
+     */
+    public RegStatuslocalization getStatusLocalization(RegStatus status, RegLanguagecode language) {
+        return statusLocalizations.getOrDefault(status.getUuid(), Collections.emptyMap()).get(language.getUuid());
+    }
+
+    /**
+     * Returns the localization of the status group in the language passed by
+     * parameter.
+     *
+     * @param statusgroup the status group
+     * @param language the language of the localization
+     * @return the localization, or null if not available in that language
+     */
+    public RegStatuslocalization getStatusgroupLocalization(RegStatusgroup statusgroup, RegLanguagecode language) {
+        return statusgroupLocalizations.getOrDefault(statusgroup.getUuid(), Collections.emptyMap()).get(language.getUuid());
+    }
+
+    private static <T> T required(T value) {
+        if (value == null) {
+            throw new NoResultException();
+        }
+        return value;
+    }
+
+    private static <T> Map<String, List<T>> unmodifiableLists(Map<String, List<T>> map) {
+        Map<String, List<T>> copy = new HashMap<>();
+        for (Map.Entry<String, List<T>> entry : map.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static <T> Map<String, Map<String, T>> unmodifiableMaps(Map<String, Map<String, T>> map) {
+        Map<String, Map<String, T>> copy = new HashMap<>();
+        for (Map.Entry<String, Map<String, T>> entry : map.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import eu.europa.ec.re3gistry2.crudimplementation.RegRelationManager;
+import eu.europa.ec.re3gistry2.model.RegItem;
+import eu.europa.ec.re3gistry2.model.RegRelation;
+import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the RegRelation rows involved in the assembly of a
+ * response. The relations are loaded with set-based queries (by subject list
+ * and by object list) and grouped by item and predicate, so that the related
+ * items of every item can be read without further database round trips.
+ *
+ * Instances are not thread safe and are meant to live as long as the supplier
+ * that owns them (i.e. a single request).
+ */
+public class RelationGraph {
+
+    // Maximum number of items bound to a single IN clause
+    private static final int BATCH_SIZE = 500;
+
+    private final RegRelationManager regRelationManager;
+
+    // item uuid -> predicate uuid -> relations
+    private final Map<String, Map<String, List<RegRelation>>> bySubject = new HashMap<>();
+    private final Map<String, Map<String, List<RegRelation>>> byObject = new HashMap<>();
+
+    public RelationGraph(RegRelationManager regRelationManager) {
+        this.regRelationManager = regRelationManager;
+    }
+
+    /**
+     * Loads all the relations in which the items passed by parameter are the
+     * subject or the object. Items already loaded are skipped.
+     *
+     * @param regItems the items to be prefetched
+     * @throws Exception
+     */
+    public void prefetch(Collection<RegItem> regItems) throws Exception {
+        prefetchBySubject(regItems);
+        prefetchByObject(regItems);
+    }
+
+    /**
+     * Loads all the relations in which the items passed by parameter are the
+     * subject. Items already loaded are skipped.
+     *
+     * @param regItems the items to be prefetched
+     * @throws Exception
+     */
+    public void prefetchBySubject(Collection<RegItem> regItems) throws Exception {
+        List<RegItem> missing = getMissing(regItems, bySubject);
+        for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+            List<RegItem> batch = missing.subList(i, Math.min(i + BATCH_SIZE, missing.size()));
+            for (RegItem regItem : batch) {
+                bySubject.put(regItem.getUuid(), new HashMap<>());
+            }
+            for (RegRelation relation : regRelationManager.getAllBySubjects(batch)) {
+                index(bySubject, relation.getRegItemSubject(), relation);
+            }
+        }
+    }
+
+    /**
+     * Loads all the relations in which the items passed by parameter are the
+     * object. Items already loaded are skipped.
+     *
+     * @param regItems the items to be prefetched
+     * @throws Exception
+     */
+    public void prefetchByObject(Collection<RegItem> regItems) throws Exception {
+        List<RegItem> missing = getMissing(regItems, byObject);
+        for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+            List<RegItem> batch = missing.subList(i, Math.min(i + BATCH_SIZE, missing.size()));
+            for (RegItem regItem : batch) {
+                byObject.put(regItem.getUuid(), new HashMap<>());
+            }
+            for (RegRelation relation : regRelationManager.getAllByObjects(batch)) {
+                index(byObject, relation.getRegItemObject(), relation);
+            }
+        }
+    }
+
+    /**
+     * Returns the objects of the relations having the item passed by parameter
+     * as subject and the given predicate.
+     *
+     * @param regItem the subject
+     * @param predicate the predicate
+     * @return the list of related items (never null)
+     * @throws Exception
+     */
+    public List<RegItem> getObjects(RegItem regItem, RegRelationpredicate predicate) throws Exception {
+        if (regItem == null || predicate == null) {
+            return Collections.emptyList();
+        }
+        if (!bySubject.containsKey(regItem.getUuid())) {
+            prefetchBySubject(Collections.singletonList(regItem));
+        }
+        return bySubject.get(regItem.getUuid())
+                .getOrDefault(predicate.getUuid(), Collections.emptyList())
+                .stream()
+                .map(RegRelation::getRegItemObject)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the subjects of the relations having the item passed by
+     * parameter as object and the given predicate.
+     *
+     * @param regItem the object
+     * @param predicate the predicate
+     * @return the list of related items (never null)
+     * @throws Exception
+     */
+    public List<RegItem> getSubjects(RegItem regItem, RegRelationpredicate predicate) throws Exception {
+        if (regItem == null || predicate == null) {
+            return Collections.emptyList();
+        }
+        if (!byObject.containsKey(regItem.getUuid())) {
+            prefetchByObject(Collections.singletonList(regItem));
+        }
+        return byObject.get(regItem.getUuid())
+                .getOrDefault(predicate.getUuid(), Collections.emptyList())
+                .stream()
+                .map(RegRelation::getRegItemSubject)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Forgets all the loaded relations, e.g. once a page of items has been
+     * written.
+     */
+    public void clear() {
+        bySubject.clear();
+        byObject.clear();
+    }
+
+    private static List<RegItem> getMissing(Collection<RegItem> regItems, Map<String, Map<String, List<RegRelation>>> index) {
+        Map<String, RegItem> missing = new LinkedHashMap<>();
+        for (RegItem regItem : regItems) {
+            if (regItem != null && !index.containsKey(regItem.getUuid())) {
+                missing.put(regItem.getUuid(), regItem);
+            }
+        }
+        return new ArrayList<>(missing.values());
+    }
+
+    private static void index(Map<String, Map<String, List<RegRelation>>> index, RegItem regItem, RegRelation relation) {
+        index.computeIfAbsent(regItem.getUuid(), k -> new HashMap<>())
+                .computeIfAbsent(relation.getRegRelationpredicate().getUuid(), k -> new ArrayList<>())
+                .add(relation);
+    }
+
+}
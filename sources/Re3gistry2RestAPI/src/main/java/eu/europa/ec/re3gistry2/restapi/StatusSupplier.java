@@ -26,15 +26,12 @@
  */
 package eu.europa.ec.re3gistry2.restapi;
 
-import eu.europa.ec.re3gistry2.crudimplementation.RegFieldManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegItemclassManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegLocalizationManager;
 import javax.persistence.NoResultException;
 
 import eu.europa.ec.re3gistry2.crudimplementation.RegStatusManager;
 import eu.europa.ec.re3gistry2.crudimplementation.RegStatusgroupManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegStatuslocalizationManager;
 import eu.europa.ec.re3gistry2.model.RegField;
 import eu.europa.ec.re3gistry2.model.RegItem;
 import eu.europa.ec.re3gistry2.model.RegLanguagecode;
@@ -59,10 +56,8 @@ public class StatusSupplier {
     private final RegStatusManager regStatusManager;
     private final RegItemManager regItemManager;
     private final RegLocalizationManager regLocalizationManager;
-    private final RegFieldManager regFieldManager;
-    private final RegItemclassManager regItemcassManager;
     private final RegStatusgroupManager regStatusgroupManager;
-    private final RegStatuslocalizationManager regStatusLocalizationManager;
+    private final RegistryMetadata metadata;
 
     private final RegLanguagecode masterLanguage;
     private final RegLanguagecode languageCode;
@@ -73,11 +68,9 @@ public class StatusSupplier {
 
         this.regStatusManager = new RegStatusManager(em);
         this.regItemManager = new RegItemManager(em);
-        this.regItemcassManager = new RegItemclassManager(em);
-        this.regFieldManager = new RegFieldManager(em);
         this.regLocalizationManager = new RegLocalizationManager(em);
         this.regStatusgroupManager = new RegStatusgroupManager(em);
-        this.regStatusLocalizationManager = new RegStatuslocalizationManager(em);
+        this.metadata = RegistryMetadata.get(em);
 
         this.masterLanguage = masterLanguage;
         this.languageCode = languageCode;
@@ -134,7 +127,7 @@ public class StatusSupplier {
 
     private ContainedItem setMainPropertiesForRegStatus(RegStatus regStatus, Item item) throws Exception {
         item.setUuid(regStatus.getUuid());
-        final RegStatusgroup statusgroup = regStatusgroupManager.get(regStatus.getRegStatusgroup().getUuid());
+        final RegStatusgroup statusgroup = metadata.getStatusgroup(regStatus.getRegStatusgroup().getUuid());
 
         String baseuri = statusgroup.getBaseuri();
         item.setUri(baseuri + "/" + statusgroup.getLocalid() + "/" + regStatus.getLocalid());
@@ -146,11 +139,10 @@ public class StatusSupplier {
 
         RegStatuslocalization regStatusLocalization;
         String language;
-        try {
-            regStatusLocalization = regStatusLocalizationManager.get(regStatus, languageCode);
-            language = languageCode.getIso6391code();
-        } catch (Exception ex) {
-            regStatusLocalization = regStatusLocalizationManager.get(regStatus, masterLanguage);
+        regStatusLocalization = metadata.getStatusLocalization(regStatus, languageCode);
+        language = languageCode.getIso6391code();
+        if (regStatusLocalization == null) {
+            regStatusLocalization = metadata.getStatusLocalization(regStatus, masterLanguage);
             language = masterLanguage.getIso6391code();
         }
         setProperties(regStatusLocalization, language, localid, item);
@@ -171,8 +163,8 @@ public class StatusSupplier {
         List<RegLocalization> regLocalizations;
         String groupLanguage;
 
-        RegField labelField = regFieldManager.getByLocalid("label");
-        RegItem registryItem = regItemManager.getByLocalidAndRegItemClass(registrylocalid, regItemcassManager.getByLocalid(registrylocalid));
+        RegField labelField = metadata.getLabelField();
+        RegItem registryItem = regItemManager.getByLocalidAndRegItemClass(registrylocalid, metadata.getItemclassByLocalid(registrylocalid));
         try {
             regLocalizations = regLocalizationManager.getAll(labelField, registryItem, languageCode);
             groupLanguage = languageCode.getIso6391code();
@@ -198,11 +190,10 @@ public class StatusSupplier {
     private void setStatusRegister(final RegStatusgroup statusgroup, Item item) throws Exception {
         RegStatuslocalization regStatusGroupLocalization;
         String groupLanguage;
-        try {
-            regStatusGroupLocalization = regStatusLocalizationManager.get(statusgroup, languageCode);
-            groupLanguage = languageCode.getIso6391code();
-        } catch (Exception ex) {
-            regStatusGroupLocalization = regStatusLocalizationManager.get(statusgroup, masterLanguage);
+        regStatusGroupLocalization = metadata.getStatusgroupLocalization(statusgroup, languageCode);
+        groupLanguage = languageCode.getIso6391code();
+        if (regStatusGroupLocalization == null) {
+            regStatusGroupLocalization = metadata.getStatusgroupLocalization(statusgroup, masterLanguage);
             groupLanguage = masterLanguage.getIso6391code();
         }
         List<LocalizedProperty> propertiesStatusRegister = new ArrayList<>();
@@ -228,11 +219,10 @@ public class StatusSupplier {
 
         RegStatuslocalization regStatusLocalization;
         String language;
-        try {
-            regStatusLocalization = regStatusLocalizationManager.get(regStatusgroup, languageCode);
-            language = languageCode.getIso6391code();
-        } catch (Exception ex) {
-            regStatusLocalization = regStatusLocalizationManager.get(regStatusgroup, masterLanguage);
+        regStatusLocalization = metadata.getStatusgroupLocalization(regStatusgroup, languageCode);
+        language = languageCode.getIso6391code();
+        if (regStatusLocalization == null) {
+            regStatusLocalization = metadata.getStatusgroupLocalization(regStatusgroup, masterLanguage);
             language = masterLanguage.getIso6391code();
         }
 
@@ -0,0 +1,338 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+
+import eu.europa.ec.re3gistry2.crudimplementation.RegConfigurationManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemchangeManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemuriManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegRelationManager;
+import eu.europa.ec.re3gistry2.model.RegItem;
+import eu.europa.ec.re3gistry2.model.RegItemchange;
+import eu.europa.ec.re3gistry2.model.RegItemuri;
+import eu.europa.ec.re3gistry2.model.RegRelation;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Follows the log of the published changes (reg_itemchange table, written by
+ * the registry manager at publication time) and evicts the affected entries
+ * of the caches, in every language: the changed item, the items it points to
+ * (register, collection, parent...) which list it among their contained
+ * items, and every cached item embedding it. The uuids and URIs cached as not
+ * found are forgotten.
+ *
+ * The configuration of the registry (item classes, fields, statuses,
+ * languages...) is not in that log: its tables are checked at each poll, and
+ * a change (row added, removed or edited) discards the registry metadata and
+ * flushes the caches.
+ *
+ * With a persistent cache, the date of the last change read and the state of
+ * the configuration are saved next to it, and the changes published while the
+ * application was down are applied at the start. If that date or that state
+ * is unknown, the persistent cache is flushed.
+ */
+public class CacheInvalidator implements Runnable {
+
+    private static final Logger LOG = LogManager.getLogger(CacheInvalidator.class.getName());
+
+    // The changes are read again for this time span, as a transaction may
+    // commit a change dated before the last change already read
+    private static final long OVERLAP_MILLIS = 5 * 60 * 1000L;
+    private static final String STATE_LAST_CHANGE = "last.change";
+    private static final String STATE_CONFIGURATION = "configuration";
+
+    private final EntityManagerFactory emf;
+    private final DependencyTrackingCache cache;
+    private final ResponseCache responseCache;
+    private final NegativeCache negativeCache;
+    // null if the cache does not survive the restarts
+    private final Path stateFile;
+
+    // uuid -> insertdate of the changes already applied within the overlap
+    private final Map<String, Date> appliedChanges;
+    private Date lastChange;
+    private String configuration;
+
+    public CacheInvalidator(EntityManagerFactory emf, DependencyTrackingCache cache, ResponseCache responseCache, NegativeCache negativeCache) {
+        this(emf, cache, responseCache, negativeCache, null);
+    }
+
+    /**
+     * @param stateFile the file keeping the date of the last change read and
+     * the state of the configuration, for a cache surviving the restarts (null
+     * otherwise)
+     */
+    public CacheInvalidator(EntityManagerFactory emf, DependencyTrackingCache cache, ResponseCache responseCache, NegativeCache negativeCache, Path stateFile) {
+        this.emf = emf;
+        this.cache = cache;
+        this.responseCache = responseCache;
+        this.negativeCache = negativeCache;
+        this.stateFile = stateFile;
+        this.appliedChanges = new HashMap<>();
+    }
+
+    @Override
+    public synchronized void run() {
+        EntityManager em = null;
+        try {
+            em = emf.createEntityManager();
+            RegItemchangeManager regItemchangeManager = new RegItemchangeManager(em);
+            Properties state = null;
+            if (lastChange == null || configuration == null) {
+                state = readState();
+            }
+
+            checkConfiguration(em, state);
+
+            if (lastChange == null) {
+                lastChange = readLastChange(state);
+                if (lastChange == null) {
+                    if (stateFile != null) {
+                        // The changes missed by the persistent cache are unknown
+                        LOG.warn("No record of the last change applied to the persistent cache, flushing it");
+                        cache.removeAll();
+                    }
+                    // The changes published before the start are not relevant
+                    lastChange = regItemchangeManager.getLastInsertdate();
+                    if (lastChange == null) {
+                        lastChange = new Date(0L);
+                    }
+                    writeState();
+                    return;
+                }
+                LOG.info("Applying the changes published since " + lastChange.toInstant() + " to the persistent cache");
+            }
+
+            Date since = new Date(lastChange.getTime() - OVERLAP_MILLIS);
+            List<RegItemchange> changes = regItemchangeManager.getAllSince(since);
+            for (RegItemchange change : changes) {
+                if (appliedChanges.containsKey(change.getUuid())) {
+                    continue;
+                }
+                invalidate(change.getRegItemUuid(), em);
+                appliedChanges.put(change.getUuid(), change.getInsertdate());
+                if (change.getInsertdate().after(lastChange)) {
+                    lastChange = change.getInsertdate();
+                }
+            }
+            appliedChanges.values().removeIf(date -> date.before(since));
+            if (!changes.isEmpty()) {
+                writeState();
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to read the log of the published changes", e);
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Flushes the caches if the configuration of the registry has changed
+     * since the previous poll (or, for a persistent cache, since the state
+     * saved with it).
+     */
+    private void checkConfiguration(EntityManager em, Properties state) throws Exception {
+        String current = new RegConfigurationManager(em).getState();
+        if (configuration == null) {
+            configuration = state != null ? state.getProperty(STATE_CONFIGURATION) : null;
+            if (configuration == null) {
+                // Without the date of the last change the cache is flushed below
+                if (stateFile != null && state.getProperty(STATE_LAST_CHANGE) != null) {
+                    LOG.warn("No record of the configuration of the persistent cache, flushing it");
+                    cache.removeAll();
+                }
+                configuration = current;
+                writeState();
+                return;
+            }
+        }
+        if (!configuration.equals(current)) {
+            LOG.info("The configuration of the registry has changed, flushing the caches");
+            RegistryMetadata.invalidate();
+            cache.removeAll();
+            responseCache.removeAll();
+            negativeCache.removeAll();
+            UriIndex.removeAll();
+            configuration = current;
+            writeState();
+        }
+    }
+
+    private Properties readState() {
+        Properties state = new Properties();
+        if (stateFile == null || !Files.isRegularFile(stateFile)) {
+            return state;
+        }
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            state.load(in);
+        } catch (IOException e) {
+            LOG.error("Unable to read the state of the cache from " + stateFile, e);
+        }
+        return state;
+    }
+
+    private Date readLastChange(Properties state) {
+        String value = state.getProperty(STATE_LAST_CHANGE);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new Date(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            LOG.error("Unable to read the date of the last change from " + stateFile, e);
+            return null;
+        }
+    }
+
+    private void writeState() {
+        if (stateFile == null) {
+            return;
+        }
+        Properties state = new Properties();
+        if (lastChange != null) {
+            state.setProperty(STATE_LAST_CHANGE, Long.toString(lastChange.getTime()));
+        }
+        if (configuration != null) {
+            state.setProperty(STATE_CONFIGURATION, configuration);
+        }
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(stateFile.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                state.store(out, null);
+            }
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.error("Unable to save the state of the cache to " + stateFile, e);
+        }
+    }
+
+    /**
+     * Evicts the item passed by parameter and the items depending on it from
+     * the caches.
+     *
+     * @param uuid the uuid of the changed item
+     * @param em the entity manager used to read the relations of the item
+     */
+    public void invalidate(String uuid, EntityManager em) {
+        RegItemuriManager regItemuriManager = new RegItemuriManager(em);
+        String oldUri = UriIndex.getUri(uuid, regItemuriManager);
+        Set<String> uris = new HashSet<>();
+        Set<String> changed = new HashSet<>();
+        changed.add(uuid);
+        try {
+            RegItem regItem = new RegItemManager(em).get(uuid);
+            for (RegRelation relation : new RegRelationManager(em).getAllBySubject(regItem)) {
+                changed.add(relation.getRegItemObject().getUuid());
+            }
+            for (RegItemuri regItemuri : regItemuriManager.getAll(regItem)) {
+                uris.add(regItemuri.getUri());
+            }
+        } catch (NoResultException e) {
+            // Removed item: only the cached items embedding it are affected
+        } catch (Exception e) {
+            LOG.error("Unable to read the relations of the item " + uuid, e);
+        }
+        if (oldUri != null && !uris.contains(oldUri)) {
+            // Moved or removed: the URIs of the items below it have changed
+            // too (rewritten in the index by the registry manager)
+            String prefix = oldUri + "/";
+            changed.addAll(UriIndex.removeByUriPrefix(prefix));
+            changed.addAll(cache.getUuidsByUriPrefix(prefix));
+        }
+
+        Set<String> evicted = new HashSet<>();
+        for (String changedUuid : changed) {
+            evicted.add(changedUuid);
+            evicted.addAll(cache.getDependents(changedUuid, UriIndex.getUri(changedUuid, regItemuriManager)));
+        }
+        for (String evictedUuid : evicted) {
+            for (String language : cache.getLanguages()) {
+                cache.remove(language, evictedUuid);
+            }
+            cache.untrack(evictedUuid);
+            responseCache.remove(evictedUuid);
+        }
+        // The URI of the item may have changed, or be published now
+        UriIndex.remove(uuid);
+        negativeCache.removeAll();
+        LOG.debug("Evicted " + evicted.size() + " items for the change of " + uuid);
+    }
+
+    /**
+     * Evicts the items whose URI starts with the prefix passed by parameter
+     * (e.g. a whole register) and the items depending on them from the
+     * caches.
+     *
+     * @param prefix the prefix of the URIs
+     * @param em the entity manager used to read the URI index
+     * @return the number of evicted items
+     */
+    public int invalidateByUriPrefix(String prefix, EntityManager em) {
+        Set<String> matching = new HashSet<>(cache.getUuidsByUriPrefix(prefix));
+        matching.addAll(UriIndex.getUuidsByUriPrefix(prefix, new RegItemuriManager(em)));
+
+        Set<String> evicted = new HashSet<>();
+        for (String uuid : matching) {
+            evicted.add(uuid);
+            evicted.addAll(cache.getDependents(uuid, UriIndex.getUri(uuid)));
+        }
+        for (String evictedUuid : evicted) {
+            for (String language : cache.getLanguages()) {
+                cache.remove(language, evictedUuid);
+            }
+            cache.untrack(evictedUuid);
+            responseCache.remove(evictedUuid);
+        }
+        negativeCache.removeAll();
+        LOG.info("Evicted " + evicted.size() + " items for the URIs starting with " + prefix);
+        return evicted.size();
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of the caches of the REST API, as returned to the operators by
+ * /cache/stats.
+ */
+public class CacheReport {
+
+    private final CacheStatistics items;
+    private final Map<String, Long> entriesByLanguage;
+    private final LoadLatencies.Snapshot loads;
+    private final List<HotItem> hottestItems;
+    private final long responses;
+    private final long responseBytes;
+    private final long missing;
+
+    public CacheReport(CacheStatistics items, Map<String, Long> entriesByLanguage, LoadLatencies.Snapshot loads,
+            List<HotItem> hottestItems, long responses, long responseBytes, long missing) {
+        this.items = items;
+        this.entriesByLanguage = entriesByLanguage;
+        this.loads = loads;
+        this.hottestItems = hottestItems;
+        this.responses = responses;
+        this.responseBytes = responseBytes;
+        this.missing = missing;
+    }
+
+    public CacheStatistics getItems() {
+        return items;
+    }
+
+    /**
+     * @return the number of cached items by language, null if not counted
+     */
+    public Map<String, Long> getEntriesByLanguage() {
+        return entriesByLanguage;
+    }
+
+    public LoadLatencies.Snapshot getLoads() {
+        return loads;
+    }
+
+    public List<HotItem> getHottestItems() {
+        return hottestItems;
+    }
+
+    public long getResponses() {
+        return responses;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public long getMissing() {
+        return missing;
+    }
+
+    /**
+     * Estimated heap used by the cached items and responses. The items on
+     * heap are not measured by the disk cache: only the responses are counted
+     * then.
+     *
+     * @return the size in bytes
+     */
+    public long getEstimatedHeapBytes() {
+        return Math.max(items.getHeapBytes(), 0L) + responseBytes;
+    }
+
+    /**
+     * One of the most requested items.
+     */
+    public static class HotItem {
+
+        private final String uuid;
+        private final String uri;
+        private final long requests;
+
+        public HotItem(String uuid, String uri, long requests) {
+            this.uuid = uuid;
+            this.uri = uri;
+            this.requests = requests;
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+    }
+
+}
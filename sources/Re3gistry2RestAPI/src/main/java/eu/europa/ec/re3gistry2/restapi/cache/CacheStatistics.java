@@ -0,0 +1,130 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.util.List;
+
+/**
+ * Statistics of a cache, as returned to the operators.
+ */
+public class CacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final double hitRate;
+    private final long evictions;
+    private final List<Tier> tiers;
+
+    public CacheStatistics(long hits, long misses, long evictions, List<Tier> tiers) {
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRate = hits + misses == 0 ? 0.0 : Math.round(hits * 10000.0 / (hits + misses)) / 10000.0;
+        this.evictions = evictions;
+        this.tiers = tiers;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public List<Tier> getTiers() {
+        return tiers;
+    }
+
+    /**
+     * Estimated heap used by the entries, -1 if it is not measured.
+     *
+     * @return the size in bytes
+     */
+    public long getHeapBytes() {
+        for (Tier tier : tiers) {
+            if (Tier.HEAP.equals(tier.getName())) {
+                return tier.getBytes();
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Entries stored in one of the tiers of the cache (heap, offheap or disk).
+     */
+    public static class Tier {
+
+        public static final String HEAP = "heap";
+        public static final String OFFHEAP = "offheap";
+        public static final String DISK = "disk";
+
+        private final String name;
+        private final long entries;
+        private final long bytes;
+        private final long maximumBytes;
+
+        /**
+         * @param name the name of the tier
+         * @param entries the number of entries
+         * @param bytes the space used, -1 if it is not measured
+         * @param maximumBytes the space allocated, -1 if the tier is bounded
+         * by number of entries
+         */
+        public Tier(String name, long entries, long bytes, long maximumBytes) {
+            this.name = name;
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maximumBytes = maximumBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMaximumBytes() {
+            return maximumBytes;
+        }
+
+    }
+
+}
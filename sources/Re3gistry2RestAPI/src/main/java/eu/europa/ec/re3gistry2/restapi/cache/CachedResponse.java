@@ -0,0 +1,136 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.Pagination;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoded response of an item in a given language and format, ready to be
+ * copied to the client, with its (optional) gzipped copy and its ETag.
+ */
+public class CachedResponse {
+
+    // Smaller bodies are not worth compressing
+    private static final int GZIP_MIN_LENGTH = 1024;
+
+    private final String uuid;
+    private final String etag;
+    private final String contentType;
+    private final byte[] body;
+    private final byte[] gzippedBody;
+    private final Pagination pagination;
+
+    private CachedResponse(String uuid, String etag, String contentType, byte[] body, byte[] gzippedBody, Pagination pagination) {
+        this.uuid = uuid;
+        this.etag = etag;
+        this.contentType = contentType;
+        this.body = body;
+        this.gzippedBody = gzippedBody;
+        this.pagination = pagination;
+    }
+
+    /**
+     * Creates the cached response of the item passed by parameter.
+     *
+     * @param item the item encoded in the body
+     * @param language the language of the response
+     * @param format the format of the response
+     * @param contentType the content type of the response
+     * @param body the encoded item
+     * @param gzip true to keep also a gzipped copy of the body
+     * @return the cached response
+     * @throws IOException
+     */
+    public static CachedResponse create(Item item, String language, String format,
+            String contentType, byte[] body, boolean gzip) throws IOException {
+        byte[] gzippedBody = null;
+        if (gzip && body.length >= GZIP_MIN_LENGTH) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(baos)) {
+                out.write(body);
+            }
+            gzippedBody = baos.toByteArray();
+        }
+        return new CachedResponse(item.getUuid(), getETag(item, language, format, body), contentType, body, gzippedBody, item.getPagination());
+    }
+
+    /**
+     * Returns the ETag of the representation of the item. It is derived from
+     * the uuid, version and editdate of the item; a checksum of the body is
+     * added to cover the changes of the related items (e.g. the items
+     * contained in a register) which do not alter the item itself.
+     */
+    private static String getETag(Item item, String language, String format, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        long date = item.getEditdate() != null ? item.getEditdate().getTime()
+                : item.getInsertdate() != null ? item.getInsertdate().getTime() : 0L;
+        int version = item.getVersion() != null ? item.getVersion().getNumber() : 0;
+        // Weak, as the gzipped and the identity encodings share it
+        return "W/\"" + item.getUuid() + "-" + version + "-" + Long.toHexString(date)
+                + "-" + language + "-" + format + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getGzippedBody() {
+        return gzippedBody;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    /**
+     * Returns the approximate size of the response in memory, in bytes.
+     *
+     * @return the size of the response
+     */
+    public int getWeight() {
+        return body.length + (gzippedBody != null ? gzippedBody.length : 0) + etag.length() * 2 + 64;
+    }
+
+}
@@ -27,28 +27,111 @@
 package eu.europa.ec.re3gistry2.restapi.cache;
 
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
-import com.github.benmanes.caffeine.cache.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.NoResultException;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.CacheWriter;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
 
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.base.utility.PersistenceFactory;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.ItemSupplier;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+/**
+ * In-memory ItemCache, bounded by the size of the items. The items are kept
+ * encoded (see {@link ItemCodec}) and decoded on each hit. Each item is stored
+ * once, by language and uuid; the URLs only point to the uuid of the item.
+ *
+ * The entries may expire a given time after they are written and, if a
+ * refresh time is configured, be reloaded in the background when read after
+ * that time (the old item is returned meanwhile).
+ */
 public class CaffeineCache implements ItemCache {
 
+    private static final Logger LOG = LogManager.getLogger(CaffeineCache.class.getName());
+
+    private static final long DEFAULT_MAXIMUM_SPACE_MB = 256;
+    // Entry, key and holder of the encoded item, roughly
+    private static final int ENTRY_OVERHEAD = 150;
+
     private final Set<String> languages;
-    private final Cache<String, Item> itemsByUuid;
-    private final Cache<String, Item> itemsByURL;
+    private final ConcurrentStatsCounter stats;
+    private final ItemCodec codec;
+    private final LoadingCache<String, EncodedItem> items;
+    // language_url -> uuid of the item
+    private final ConcurrentMap<String, String> uuidByUrl;
+    private final long maximumWeight;
+    private volatile BiConsumer<String, String> evictionListener;
 
     public CaffeineCache() {
-        this.languages = new HashSet<>();
-        this.itemsByUuid = Caffeine.newBuilder()
-                .maximumSize(10000)
-                .build();
-        this.itemsByURL = Caffeine.newBuilder()
-                .maximumSize(10000)
-                .build();
+        this.languages = ConcurrentHashMap.newKeySet();
+        this.uuidByUrl = new ConcurrentHashMap<>();
+        this.stats = new ConcurrentStatsCounter();
+        this.codec = new ItemCodec();
+        this.maximumWeight = Math.max(getLong(BaseConstants.KEY_MEMORY_CACHE_MAXIMUM_SPACE, DEFAULT_MAXIMUM_SPACE_MB), 1L) * 1024 * 1024;
+        long expireAfterWrite = getLong(BaseConstants.KEY_MEMORY_CACHE_EXPIRE_AFTER_WRITE, 0L);
+        long refreshAfterWrite = getLong(BaseConstants.KEY_MEMORY_CACHE_REFRESH_AFTER_WRITE, 0L);
+
+        Caffeine<String, EncodedItem> builder = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String key, EncodedItem item) -> ENTRY_OVERHEAD + 2 * key.length() + item.bytes.length)
+                .recordStats(() -> stats)
+                // Unindexing the URL atomically with the removal of the item
+                .writer(new CacheWriter<String, EncodedItem>() {
+                    @Override
+                    public void write(String key, EncodedItem item) {
+                    }
+
+                    @Override
+                    public void delete(String key, EncodedItem item, RemovalCause cause) {
+                        if (item != null && item.uri != null) {
+                            uuidByUrl.remove(getLanguage(key) + "_" + item.uri, item.uuid);
+                        }
+                    }
+                })
+                // Called once the entry is removed
+                .removalListener((String key, EncodedItem item, RemovalCause cause) -> {
+                    BiConsumer<String, String> listener = evictionListener;
+                    if (key != null && item != null && listener != null && cause.wasEvicted()) {
+                        listener.accept(getLanguage(key), item.uuid);
+                    }
+                });
+        if (expireAfterWrite > 0) {
+            builder = builder.expireAfterWrite(expireAfterWrite, TimeUnit.SECONDS);
+        }
+        if (refreshAfterWrite > 0) {
+            builder = builder.refreshAfterWrite(refreshAfterWrite, TimeUnit.SECONDS);
+        }
+        this.items = builder.build(new ItemLoader());
+    }
+
+    private static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(Configuration.getInstance().getProperties()
+                    .getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     @Override
@@ -58,39 +141,147 @@ public class CaffeineCache implements ItemCache {
 
     @Override
     public Item getByUuid(String language, String uuid) {
-        return itemsByUuid.getIfPresent(getCacheKey(language, uuid));
+        EncodedItem item = items.getIfPresent(getCacheKey(language, uuid));
+        return item == null ? null : codec.decode(item.bytes);
     }
 
     @Override
     public Item getByUrl(String language, String url) {
-        return itemsByURL.getIfPresent(getCacheKey(language, url));
+        String uuid = uuidByUrl.get(getCacheKey(language, url));
+        if (uuid == null) {
+            uuid = UriIndex.getUuid(url);
+        }
+        // Read without statistics: exactly one hit or miss is recorded
+        EncodedItem item = uuid == null ? null : items.asMap().get(getCacheKey(language, uuid));
+        if (item == null || !url.equals(item.uri)) {
+            stats.recordMisses(1);
+            return null;
+        }
+        stats.recordHits(1);
+        return codec.decode(item.bytes);
+    }
+
+    @Override
+    public boolean contains(String language, String uuid) {
+        return items.asMap().containsKey(getCacheKey(language, uuid));
     }
 
     @Override
     public void add(String language, Item item) {
+        EncodedItem encoded;
+        try {
+            encoded = new EncodedItem(item, codec.encode(item));
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Unable to cache the item " + item.getUuid() + ": " + e.getMessage());
+            return;
+        }
         languages.add(language);
-        itemsByUuid.put(getCacheKey(language, item.getUuid()), item);
-        itemsByURL.put(getCacheKey(language, item.getUri()), item);
+        items.put(getCacheKey(language, item.getUuid()), encoded);
+        if (item.getUri() != null) {
+            uuidByUrl.put(getCacheKey(language, item.getUri()), item.getUuid());
+        }
     }
 
     @Override
     public void remove(String language, String uuid) {
-        Item item = itemsByUuid.getIfPresent(getCacheKey(language, uuid));
-        if (item != null) {
-            itemsByUuid.invalidate(getCacheKey(language, uuid));
-            itemsByURL.invalidate(getCacheKey(language, item.getUri()));
-        }
+        items.invalidate(getCacheKey(language, uuid));
     }
 
     private String getCacheKey(String language, String uuidOrUrl) {
         return language + "_" + uuidOrUrl;
     }
 
+    private static String getLanguage(String key) {
+        return key.substring(0, key.indexOf('_'));
+    }
+
     @Override
     public void removeAll() {
         languages.clear();
-        itemsByUuid.invalidateAll();
-        itemsByURL.invalidateAll();
+        items.invalidateAll();
+        uuidByUrl.clear();
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release, the entries live on the heap only
+    }
+
+    @Override
+    public void setEvictionListener(BiConsumer<String, String> listener) {
+        this.evictionListener = listener;
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        CacheStats snapshot = stats.snapshot();
+        long weight = items.policy().eviction().map(Policy.Eviction::weightedSize)
+                .map(size -> size.orElse(0L)).orElse(0L);
+        CacheStatistics.Tier heap = new CacheStatistics.Tier(CacheStatistics.Tier.HEAP, items.estimatedSize(), weight, maximumWeight);
+        return new CacheStatistics(snapshot.hitCount(), snapshot.missCount(), snapshot.evictionCount(), Collections.singletonList(heap));
+    }
+
+    @Override
+    public Map<String, Long> countEntriesByLanguage() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (String key : items.asMap().keySet()) {
+            counts.merge(getLanguage(key), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Reloads the items to be refreshed. The items are only reloaded: they
+     * are never loaded by the cache, the missing ones are assembled and added
+     * by the caller.
+     */
+    private class ItemLoader implements CacheLoader<String, EncodedItem> {
+
+        @Override
+        public EncodedItem load(String key) {
+            return null;
+        }
+
+        @Override
+        public EncodedItem reload(String key, EncodedItem oldItem) throws Exception {
+            String language = getLanguage(key);
+            String uuid = key.substring(language.length() + 1);
+            EntityManager em = PersistenceFactory.getEntityManagerFactory().createEntityManager();
+            try {
+                RegistryMetadata metadata = RegistryMetadata.get(em);
+                RegLanguagecode languageCode = metadata.getLanguage(language);
+                if (languageCode == null) {
+                    // Language removed from the registry
+                    languageCode = metadata.getMasterLanguage();
+                }
+                Item item = new ItemSupplier(em, metadata.getMasterLanguage(), languageCode).getItemByUuid(uuid);
+                // null (no longer public) removes the item
+                return item == null ? null : new EncodedItem(item, codec.encode(item));
+            } catch (NoResultException e) {
+                // Not a current item (e.g. an old version): kept as is
+                return oldItem;
+            } finally {
+                em.close();
+            }
+        }
+
+    }
+
+    /**
+     * Encoded item, with the identifiers needed to index it.
+     */
+    private static class EncodedItem {
+
+        private final String uuid;
+        private final String uri;
+        private final byte[] bytes;
+
+        private EncodedItem(Item item, byte[] bytes) {
+            this.uuid = item.getUuid();
+            this.uri = item.getUri();
+            this.bytes = bytes;
+        }
+
     }
 
 }
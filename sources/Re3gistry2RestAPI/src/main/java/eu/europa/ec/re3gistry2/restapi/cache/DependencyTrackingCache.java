@@ -0,0 +1,313 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+import eu.europa.ec.re3gistry2.restapi.model.BasicContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.ItemRef;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedPropertyValue;
+
+/**
+ * ItemCache keeping track of the reverse dependencies of the cached items:
+ * for each uuid (or URI) embedded in a cached item (contained items,
+ * narrower, top concepts, register, links in the properties...) the uuids of
+ * the cached items embedding it. This way a change to an item can evict every
+ * cached representation showing it, not only the item itself.
+ */
+public class DependencyTrackingCache implements ItemCache {
+
+    private final ItemCache cache;
+    // uuid or URI of the embedded item -> uuids of the cached items embedding it
+    private final ConcurrentMap<String, Set<String>> dependents;
+    // uuid of the cached item -> uuids and URIs of the items it embeds
+    private final ConcurrentMap<String, Set<String>> dependencies;
+    private final ConcurrentMap<String, String> uriByUuid;
+    private final LoadLatencies loadLatencies;
+
+    public DependencyTrackingCache(ItemCache cache) {
+        this.cache = cache;
+        this.dependents = new ConcurrentHashMap<>();
+        this.dependencies = new ConcurrentHashMap<>();
+        this.uriByUuid = new ConcurrentHashMap<>();
+        this.loadLatencies = new LoadLatencies();
+        // The dependencies of the items evicted for space or expired are
+        // forgotten once no language holds them anymore
+        cache.setEvictionListener(this::evicted);
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return cache.getLanguages();
+    }
+
+    @Override
+    public Item getByUuid(String language, String uuid) {
+        Item item = cache.getByUuid(language, uuid);
+        if (item != null && !dependencies.containsKey(item.getUuid())) {
+            // e.g. an entry restored from the disk tier after a restart
+            track(item);
+        }
+        return item;
+    }
+
+    @Override
+    public Item getByUrl(String language, String url) {
+        Item item = cache.getByUrl(language, url);
+        if (item != null && !dependencies.containsKey(item.getUuid())) {
+            track(item);
+        }
+        return item;
+    }
+
+    @Override
+    public boolean contains(String language, String uuid) {
+        return cache.contains(language, uuid);
+    }
+
+    @Override
+    public void add(String language, Item item) {
+        cache.add(language, item);
+        track(item);
+    }
+
+    @Override
+    public void remove(String language, String uuid) {
+        // The dependencies are kept, the item may be cached in other languages
+        cache.remove(language, uuid);
+    }
+
+    @Override
+    public void removeAll() {
+        cache.removeAll();
+        dependents.clear();
+        dependencies.clear();
+        uriByUuid.clear();
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+
+    @Override
+    public void setEvictionListener(BiConsumer<String, String> listener) {
+        cache.setEvictionListener((language, uuid) -> {
+            evicted(language, uuid);
+            listener.accept(language, uuid);
+        });
+    }
+
+    private void evicted(String language, String uuid) {
+        // Called after the removal: the item may have been added again since
+        for (String other : cache.getLanguages()) {
+            if (cache.contains(other, uuid)) {
+                return;
+            }
+        }
+        untrack(uuid);
+    }
+
+    @Override
+    public void recordLoad(long loadTimeNanos, boolean success) {
+        loadLatencies.record(loadTimeNanos, success);
+        cache.recordLoad(loadTimeNanos, success);
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    @Override
+    public Map<String, Long> countEntriesByLanguage() {
+        return cache.countEntriesByLanguage();
+    }
+
+    public LoadLatencies.Snapshot getLoadLatencies() {
+        return loadLatencies.snapshot();
+    }
+
+    /**
+     * Returns the uuids of the cached items whose URI starts with the prefix
+     * passed by parameter (e.g. the items of a register).
+     *
+     * @param prefix the prefix of the URIs
+     * @return the uuids of the matching cached items
+     */
+    public Set<String> getUuidsByUriPrefix(String prefix) {
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, String> entry : uriByUuid.entrySet()) {
+            if (entry.getValue().startsWith(prefix)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the uuids of the cached items embedding the item passed by
+     * parameter.
+     *
+     * @param uuid the uuid of the embedded item
+     * @param uri the URI of the embedded item, if known
+     * @return the uuids of the dependent cached items
+     */
+    public Set<String> getDependents(String uuid, String uri) {
+        Set<String> result = new HashSet<>();
+        addDependents(result, uuid);
+        addDependents(result, uri);
+        addDependents(result, uriByUuid.get(uuid));
+        return result;
+    }
+
+    /**
+     * Forgets the dependencies of the item passed by parameter, to be called
+     * once it has been removed in every language.
+     *
+     * @param uuid the uuid of the item
+     */
+    public void untrack(String uuid) {
+        uriByUuid.remove(uuid);
+        Set<String> embedded = dependencies.remove(uuid);
+        if (embedded == null) {
+            return;
+        }
+        for (String key : embedded) {
+            dependents.computeIfPresent(key, (k, uuids) -> {
+                uuids.remove(uuid);
+                return uuids.isEmpty() ? null : uuids;
+            });
+        }
+    }
+
+    private void addDependents(Set<String> result, String key) {
+        if (key == null) {
+            return;
+        }
+        Set<String> uuids = dependents.get(key);
+        if (uuids != null) {
+            result.addAll(uuids);
+        }
+    }
+
+    private void track(Item item) {
+        String uuid = item.getUuid();
+        if (uuid == null) {
+            return;
+        }
+        Set<String> embedded = new HashSet<>();
+        collectEmbedded(item, embedded);
+        embedded.remove(uuid);
+        if (item.getUri() != null) {
+            embedded.remove(item.getUri());
+            uriByUuid.put(uuid, item.getUri());
+        }
+
+        Set<String> previous = dependencies.put(uuid, Collections.unmodifiableSet(embedded));
+        if (previous != null) {
+            for (String key : previous) {
+                if (!embedded.contains(key)) {
+                    dependents.computeIfPresent(key, (k, uuids) -> {
+                        uuids.remove(uuid);
+                        return uuids.isEmpty() ? null : uuids;
+                    });
+                }
+            }
+        }
+        for (String key : embedded) {
+            dependents.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(uuid);
+        }
+    }
+
+    private void collectEmbedded(ContainedItem item, Set<String> embedded) {
+        collect(item.getRegistry(), embedded);
+        collect(item.getRegister(), embedded);
+        collect(item.getInScheme(), embedded);
+        collect(item.getTopConceptOf(), embedded);
+        collectAll(item.getIsDefinedBy(), embedded);
+        collectAll(item.getContainedItems(), embedded);
+        collectAll(item.getContainedItemsBeeingParentItemClass(), embedded);
+        collectAll(item.getNarrower(), embedded);
+        collectAll(item.getBroader(), embedded);
+        collectAll(item.getTopConcepts(), embedded);
+        if (item.getProperties() != null) {
+            for (LocalizedProperty property : item.getProperties()) {
+                if (property.getValues() == null) {
+                    continue;
+                }
+                for (LocalizedPropertyValue value : property.getValues()) {
+                    addKey(value.getHref(), embedded);
+                }
+            }
+        }
+    }
+
+    private void collectAll(List<? extends BasicContainedItem> items, Set<String> embedded) {
+        if (items == null) {
+            return;
+        }
+        for (BasicContainedItem item : items) {
+            collect(item, embedded);
+        }
+    }
+
+    private void collect(BasicContainedItem item, Set<String> embedded) {
+        if (item == null) {
+            return;
+        }
+        addKey(item.getUri(), embedded);
+        if (item instanceof ContainedItem) {
+            ContainedItem containedItem = (ContainedItem) item;
+            addKey(containedItem.getUuid(), embedded);
+            collectEmbedded(containedItem, embedded);
+        }
+    }
+
+    private void collect(ItemRef ref, Set<String> embedded) {
+        if (ref != null) {
+            addKey(ref.getUri(), embedded);
+        }
+    }
+
+    private void addKey(String key, Set<String> embedded) {
+        if (key != null && !key.isEmpty()) {
+            embedded.add(key);
+        }
+    }
+
+}
@@ -26,181 +26,252 @@ package eu.europa.ec.re3gistry2.restapi.cache;
 import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
 import eu.europa.ec.re3gistry2.base.utility.Configuration;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import org.ehcache.PersistentCacheManager;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
 import org.ehcache.config.builders.CacheManagerBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.DefaultStatisticsService;
+import org.ehcache.core.statistics.TierStatistics;
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+import org.ehcache.event.EventType;
 
+/**
+ * ItemCache backed by a tiered Ehcache (heap, optional off-heap and, if a disk
+ * path is configured, a persistent disk tier). The cache manager is created
+ * once and kept open until {@link #close()} is called, so that the disk store
+ * survives the restarts of the application.
+ */
 public class EhCache implements ItemCache {
 
-    private final Set<String> languages;
-    private final Object sync;
+    private static final Logger LOG = LogManager.getLogger(EhCache.class.getName());
+
+    private static final int DEFAULT_HEAP_ENTRIES = 1000;
+    private static final int DEFAULT_DISK_SPACE_GB = 5;
+    private static final int LANGUAGES_HEAP_ENTRIES = 100;
+
+    private final StatisticsService statisticsService;
+    private final CacheManager cacheManager;
+    private final Cache<String, Item> itemsByUuid;
+    private final Cache<String, Item> itemsByUrl;
+    // Languages having items in the cache, persisted together with the items
+    private final Cache<String, String> languages;
+    private volatile BiConsumer<String, String> evictionListener;
+    // Each lookup may read both caches: the hits and misses are counted here
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     public EhCache() {
-        this.languages = new HashSet<>();
-        this.sync = new Object();
+        String cachePath = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_PATH, null);
+        int heapEntries = getIntProperty(BaseConstants.KEY_HEAP_CACHE_ENTRIES, DEFAULT_HEAP_ENTRIES);
+        int offheapMegabytes = getIntProperty(BaseConstants.KEY_OFFHEAP_CACHE_MAXIMUM_SPACE, 0);
+        int diskGigabytes = getIntProperty(BaseConstants.KEY_DISK_CACHE_MAXIMUM_SPACE, DEFAULT_DISK_SPACE_GB);
+        boolean persistent = cachePath != null && !cachePath.trim().isEmpty();
+
+        ResourcePoolsBuilder itemPools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(heapEntries, EntryUnit.ENTRIES);
+        if (offheapMegabytes > 0) {
+            itemPools = itemPools.offheap(offheapMegabytes, MemoryUnit.MB);
+        }
+        ResourcePoolsBuilder languagePools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(LANGUAGES_HEAP_ENTRIES, EntryUnit.ENTRIES);
+        if (persistent) {
+            itemPools = itemPools.disk(diskGigabytes, MemoryUnit.GB, true);
+            languagePools = languagePools.disk(1, MemoryUnit.MB, true);
+        }
+
+        this.statisticsService = new DefaultStatisticsService();
+        if (persistent) {
+            this.cacheManager = build(CacheManagerBuilder.newCacheManagerBuilder().using(statisticsService).with(CacheManagerBuilder.persistence(cachePath)), itemPools, languagePools, this::evicted);
+        } else {
+            this.cacheManager = build(CacheManagerBuilder.newCacheManagerBuilder().using(statisticsService), itemPools, languagePools, this::evicted);
+        }
+
+        this.itemsByUuid = cacheManager.getCache(BaseConstants.KEY_CACHE_NAME_UUID, String.class, Item.class);
+        this.itemsByUrl = cacheManager.getCache(BaseConstants.KEY_CACHE_NAME_URL, String.class, Item.class);
+        this.languages = cacheManager.getCache(BaseConstants.KEY_CACHE_NAME_LANGUAGES, String.class, String.class);
+
+        LOG.info("Item cache initialized (heap entries: " + heapEntries + ", off-heap MB: " + offheapMegabytes
+                + (persistent ? ", disk GB: " + diskGigabytes + ", path: " + cachePath : ", no disk tier") + ")");
     }
 
     @Override
     public Set<String> getLanguages() {
-        return Collections.unmodifiableSet(languages);
+        Set<String> set = new HashSet<>();
+        for (Cache.Entry<String, String> entry : languages) {
+            set.add(entry.getKey());
+        }
+        return Collections.unmodifiableSet(set);
     }
 
     @Override
     public Item getByUuid(String language, String uuid) {
-        synchronized (sync) {
-            String cachePath = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_PATH, null);
-            String cacheMaximumDiskSpace = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_MAXIMUM_SPACE, "5");
-            int cacheMaximumGig;
-            try {
-                cacheMaximumGig = Integer.parseInt(cacheMaximumDiskSpace);
-            } catch (Exception e) {
-                cacheMaximumGig = 5;
-            }
-
-            if (cachePath != null && !cachePath.trim().equals("")) {
-                PersistentCacheManager persistentCacheManager = CacheManagerBuilder.newCacheManagerBuilder()
-                        .with(CacheManagerBuilder.persistence(cachePath))
-                        .withCache(BaseConstants.KEY_CACHE_NAME_UUID, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).build(true);
-
-                Item it = persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_UUID, String.class, Item.class).get(getCacheKey(language, uuid));
-                persistentCacheManager.close();
-
-                return it;
-            } else {
-                return null;
-            }
-        }
+        return record(itemsByUuid.get(getCacheKey(language, uuid)));
     }
 
     @Override
     public Item getByUrl(String language, String url) {
-        synchronized (sync) {
-            String cachePath = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_PATH, null);
-            String cacheMaximumDiskSpace = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_MAXIMUM_SPACE, "5");
-            int cacheMaximumGig;
-            try {
-                cacheMaximumGig = Integer.parseInt(cacheMaximumDiskSpace);
-            } catch (Exception e) {
-                cacheMaximumGig = 5;
+        Item item = itemsByUrl.get(getCacheKey(language, url));
+        if (item == null) {
+            // The entry by URL may have been evicted on its own
+            String uuid = UriIndex.getUuid(url);
+            if (uuid != null) {
+                item = itemsByUuid.get(getCacheKey(language, uuid));
+                if (item != null && !url.equals(item.getUri())) {
+                    item = null;
+                }
             }
+        }
+        return record(item);
+    }
 
-            if (cachePath != null && !cachePath.trim().equals("")) {
-                PersistentCacheManager persistentCacheManager = CacheManagerBuilder.newCacheManagerBuilder()
-                        .with(CacheManagerBuilder.persistence(cachePath))
-                        .withCache(BaseConstants.KEY_CACHE_NAME_URL, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).build(true);
+    private Item record(Item item) {
+        if (item != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return item;
+    }
 
-                Item it = persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_URL, String.class, Item.class).get(getCacheKey(language, url));
-                persistentCacheManager.close();
+    @Override
+    public boolean contains(String language, String uuid) {
+        return itemsByUuid.containsKey(getCacheKey(language, uuid));
+    }
 
-                return it;
-            } else {
-                return null;
-            }
+    @Override
+    public void add(String language, Item item) {
+        languages.putIfAbsent(language, language);
+        itemsByUuid.put(getCacheKey(language, item.getUuid()), item);
+        itemsByUrl.put(getCacheKey(language, item.getUri()), item);
+    }
+
+    @Override
+    public void remove(String language, String uuid) {
+        Item item = itemsByUuid.get(getCacheKey(language, uuid));
+        if (item != null) {
+            itemsByUuid.remove(getCacheKey(language, uuid));
+            itemsByUrl.remove(getCacheKey(language, item.getUri()));
         }
     }
 
     @Override
-    public void add(String language, Item item) {
-        synchronized (sync) {
-            String cachePath = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_PATH, null);
-            String cacheMaximumDiskSpace = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_MAXIMUM_SPACE, "5");
-            int cacheMaximumGig;
-            try {
-                cacheMaximumGig = Integer.parseInt(cacheMaximumDiskSpace);
-            } catch (Exception e) {
-                cacheMaximumGig = 5;
-            }
+    public void removeAll() {
+        itemsByUuid.clear();
+        itemsByUrl.clear();
+        languages.clear();
+    }
 
-            if (cachePath != null && !cachePath.trim().equals("")) {
-                PersistentCacheManager persistentCacheManager = CacheManagerBuilder.newCacheManagerBuilder()
-                        .with(CacheManagerBuilder.persistence(cachePath))
-                        .withCache(BaseConstants.KEY_CACHE_NAME_UUID, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).withCache(BaseConstants.KEY_CACHE_NAME_URL, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).build(true);
+    @Override
+    public void close() {
+        // Closing (not destroying) the manager keeps the disk store
+        cacheManager.close();
+    }
 
-                persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_UUID, String.class, Item.class).put(getCacheKey(language, item.getUuid()), item);
-                persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_URL, String.class, Item.class).put(getCacheKey(language, item.getUri()), item);
-                persistentCacheManager.close();
+    @Override
+    public void setEvictionListener(BiConsumer<String, String> listener) {
+        this.evictionListener = listener;
+    }
 
-                languages.add(language);
-            }
+    private void evicted(CacheEvent<? extends String, ? extends Item> event) {
+        BiConsumer<String, String> listener = evictionListener;
+        String key = event.getKey();
+        if (listener != null) {
+            listener.accept(key.substring(0, key.indexOf('_')), key.substring(key.indexOf('_') + 1));
         }
     }
 
     @Override
-    public void remove(String language, String uuid) {
-        synchronized (sync) {
-            String cachePath = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_PATH, null);
-            String cacheMaximumDiskSpace = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_MAXIMUM_SPACE, "5");
-            int cacheMaximumGig;
-            try {
-                cacheMaximumGig = Integer.parseInt(cacheMaximumDiskSpace);
-            } catch (Exception e) {
-                cacheMaximumGig = 5;
+    public CacheStatistics getStatistics() {
+        // Each item is stored twice, by uuid and by URL
+        long evictions = 0L;
+        Map<String, long[]> tiers = new LinkedHashMap<>();
+        for (String name : new String[]{BaseConstants.KEY_CACHE_NAME_UUID, BaseConstants.KEY_CACHE_NAME_URL}) {
+            org.ehcache.core.statistics.CacheStatistics statistics = statisticsService.getCacheStatistics(name);
+            evictions += statistics.getCacheEvictions();
+            for (Map.Entry<String, TierStatistics> tier : statistics.getTierStatistics().entrySet()) {
+                long[] sums = tiers.computeIfAbsent(getTierName(tier.getKey()), k -> new long[3]);
+                sums[0] += tier.getValue().getMappings();
+                sums[1] = add(sums[1], tier.getValue().getOccupiedByteSize());
+                sums[2] = add(sums[2], tier.getValue().getAllocatedByteSize());
             }
+        }
+        List<CacheStatistics.Tier> list = new ArrayList<>();
+        for (Map.Entry<String, long[]> tier : tiers.entrySet()) {
+            long[] sums = tier.getValue();
+            list.add(new CacheStatistics.Tier(tier.getKey(), sums[0], sums[1], sums[2]));
+        }
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions, list);
+    }
 
-            if (cachePath != null && !cachePath.trim().equals("")) {
-                PersistentCacheManager persistentCacheManager = CacheManagerBuilder.newCacheManagerBuilder()
-                        .with(CacheManagerBuilder.persistence(cachePath))
-                        .withCache(BaseConstants.KEY_CACHE_NAME_UUID, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).withCache(BaseConstants.KEY_CACHE_NAME_URL, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).build(true);
-
-                Item item = persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_UUID, String.class, Item.class).get(getCacheKey(language, uuid));
-                if (item != null) {
-                    persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_UUID, String.class, Item.class).remove(getCacheKey(language, uuid));
-                    persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_URL, String.class, Item.class).remove(getCacheKey(language, item.getUri()));
-                }
+    // Not measured (-1) if not measured in one of the caches
+    private static long add(long sum, long value) {
+        return sum < 0L || value < 0L ? -1L : sum + value;
+    }
 
-                persistentCacheManager.close();
-            }
+    private static String getTierName(String tier) {
+        switch (tier) {
+            case "OnHeap":
+                return CacheStatistics.Tier.HEAP;
+            case "OffHeap":
+                return CacheStatistics.Tier.OFFHEAP;
+            case "Disk":
+                return CacheStatistics.Tier.DISK;
+            default:
+                return tier;
         }
     }
 
     @Override
-    public void removeAll() {
-        languages.clear();
-
-        synchronized (sync) {
-            String cachePath = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_PATH, null);
-            String cacheMaximumDiskSpace = Configuration.getInstance().getProperties().getProperty(BaseConstants.KEY_DISK_CACHE_MAXIMUM_SPACE, "5");
-            int cacheMaximumGig;
-            try {
-                cacheMaximumGig = Integer.parseInt(cacheMaximumDiskSpace);
-            } catch (Exception e) {
-                cacheMaximumGig = 5;
-            }
-
-            if (cachePath != null && !cachePath.trim().equals("")) {
-                PersistentCacheManager persistentCacheManager = CacheManagerBuilder.newCacheManagerBuilder()
-                        .with(CacheManagerBuilder.persistence(cachePath))
-                        .withCache(BaseConstants.KEY_CACHE_NAME_UUID, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).withCache(BaseConstants.KEY_CACHE_NAME_URL, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder().disk(cacheMaximumGig, MemoryUnit.GB, true))
-                        ).build(true);
-
-                persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_UUID, String.class, Item.class).clear();
-                persistentCacheManager.getCache(BaseConstants.KEY_CACHE_NAME_URL, String.class, Item.class).clear();
-                persistentCacheManager.close();
-            }
+    public Map<String, Long> countEntriesByLanguage() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Cache.Entry<String, Item> entry : itemsByUuid) {
+            String key = entry.getKey();
+            counts.merge(key.substring(0, key.indexOf('_')), 1L, Long::sum);
         }
+        return counts;
     }
 
     private String getCacheKey(String language, String uuidOrUrl) {
         return language + "_" + uuidOrUrl;
     }
+
+    private static <T extends CacheManager> T build(CacheManagerBuilder<T> builder, ResourcePoolsBuilder itemPools, ResourcePoolsBuilder languagePools,
+            CacheEventListener<String, Item> evictionListener) {
+        return builder
+                .withCache(BaseConstants.KEY_CACHE_NAME_UUID, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class, itemPools)
+                        .withService(CacheEventListenerConfigurationBuilder
+                                .newEventListenerConfiguration(evictionListener, EventType.EVICTED, EventType.EXPIRED)
+                                .unordered().asynchronous()))
+                .withCache(BaseConstants.KEY_CACHE_NAME_URL, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Item.class, itemPools))
+                .withCache(BaseConstants.KEY_CACHE_NAME_LANGUAGES, CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, languagePools))
+                .build(true);
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        String value = Configuration.getInstance().getProperties().getProperty(key, null);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
@@ -26,20 +26,86 @@
  */
 package eu.europa.ec.re3gistry2.restapi.cache;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import eu.europa.ec.re3gistry2.restapi.model.Item;
 
+/**
+ * Cache of the assembled items, by language and uuid. The language is always
+ * the ISO 639-1 code the item was assembled in, never null: the requests
+ * without a language use the code of the master language.
+ */
 public interface ItemCache {
 
     public Set<String> getLanguages();
 
     public Item getByUuid(String language, String uuid);
+
+    /**
+     * Returns the item with the URL passed by parameter, found by URL or by
+     * the uuid the URI index gives for it. Counts one hit or one miss.
+     *
+     * @param language the language of the item
+     * @param url the URL of the item
+     * @return the cached item, or null
+     */
     public Item getByUrl(String language, String url);
 
+    /**
+     * Checks if the item is cached, without counting a hit or a miss.
+     *
+     * @param language the language of the item
+     * @param uuid the uuid of the item
+     * @return true if the item is cached in the language
+     */
+    public boolean contains(String language, String uuid);
+
+    /**
+     * Adds the item assembled in the language passed by parameter.
+     *
+     * @param language the ISO 639-1 code of the language, not null
+     * @param item the item
+     */
     public void add(String language, Item item);
 
     public void remove(String language, String uuid);
     public void removeAll();
 
+    public void close();
+
+    /**
+     * Sets the listener called with the language and the uuid of the items
+     * leaving the cache on their own, i.e. evicted for space or expired,
+     * once they are removed.
+     *
+     * @param listener the listener
+     */
+    public void setEvictionListener(BiConsumer<String, String> listener);
+
+    /**
+     * Records the time spent assembling an item missing from the cache.
+     *
+     * @param loadTimeNanos the time spent, in nanoseconds
+     * @param success false if the assembly failed
+     */
+    public default void recordLoad(long loadTimeNanos, boolean success) {
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return the statistics
+     */
+    public CacheStatistics getStatistics();
+
+    /**
+     * Counts the cached items in each language. The whole cache is read: with
+     * a disk tier this may take a while.
+     *
+     * @return the number of items by language code
+     */
+    public Map<String, Long> countEntriesByLanguage();
+
 }
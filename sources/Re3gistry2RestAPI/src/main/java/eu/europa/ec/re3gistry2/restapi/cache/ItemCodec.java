@@ -0,0 +1,490 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.europa.ec.re3gistry2.restapi.model.BasicContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.ItemClass;
+import eu.europa.ec.re3gistry2.restapi.model.ItemRef;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedPropertyValue;
+import eu.europa.ec.re3gistry2.restapi.model.Pagination;
+import eu.europa.ec.re3gistry2.restapi.model.VersionInformation;
+
+/**
+ * Compact binary encoding of the items kept in the in-memory cache.
+ *
+ * The strings repeated across the items (languages, field ids and labels,
+ * types, item classes, labels of the links) and the URIs up to their last
+ * slash are replaced by their id in a dictionary shared by all the items; the
+ * other strings are written in UTF-8. The decoded items share the strings of
+ * the dictionary.
+ *
+ * The ids are only valid within this instance: the encoded items must not be
+ * persisted.
+ */
+public class ItemCodec {
+
+    // Bounding the memory used: the strings past this limit are written inline
+    private static final int MAXIMUM_DICTIONARY_SIZE = 65536;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_BASIC = 1;
+    private static final int TYPE_CONTAINED = 2;
+    private static final int TYPE_ITEM = 3;
+
+    // Dictionary references: 0 is null, 1 an inline string, id + 2 otherwise
+    private static final int REF_NULL = 0;
+    private static final int REF_INLINE = 1;
+    private static final int REF_OFFSET = 2;
+
+    private static final int FLAG_HAS_COLLECTION = 1;
+    private static final int FLAG_IS_PARENT = 2;
+    private static final int FLAG_LATEST = 4;
+    private static final int FLAG_EXTERNAL = 8;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Grown by copy: an id is always published before the items using it
+    private volatile String[] strings = new String[1024];
+    private int size;
+
+    public byte[] encode(Item item) {
+        Writer out = new Writer();
+        writeItem(out, item);
+        return out.toByteArray();
+    }
+
+    public Item decode(byte[] bytes) {
+        return (Item) readItem(new Reader(bytes));
+    }
+
+    public int getDictionarySize() {
+        return ids.size();
+    }
+
+    private int getId(String s) {
+        Integer id = ids.get(s);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(s);
+            if (id != null) {
+                return id;
+            }
+            if (size >= MAXIMUM_DICTIONARY_SIZE) {
+                return -1;
+            }
+            String[] array = strings;
+            if (size == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[size] = s;
+            strings = array;
+            ids.put(s, size);
+            return size++;
+        }
+    }
+
+    private void writeItem(Writer out, BasicContainedItem item) {
+        if (item == null) {
+            out.writeVarint(TYPE_NULL);
+            return;
+        }
+        if (!(item instanceof ContainedItem)) {
+            if (item.getClass() != BasicContainedItem.class) {
+                throw new IllegalArgumentException("Unsupported item type " + item.getClass().getName());
+            }
+            out.writeVarint(TYPE_BASIC);
+            writeUri(out, item.getUri());
+            return;
+        }
+        if (item.getClass() != ContainedItem.class && item.getClass() != Item.class) {
+            throw new IllegalArgumentException("Unsupported item type " + item.getClass().getName());
+        }
+        ContainedItem containedItem = (ContainedItem) item;
+        out.writeVarint(item instanceof Item ? TYPE_ITEM : TYPE_CONTAINED);
+        out.writeString(containedItem.getUuid());
+        writeUri(out, containedItem.getUri());
+        out.writeString(containedItem.getLocalid());
+        writeVersion(out, containedItem.getVersion());
+        if (writeSize(out, containedItem.getVersionHistory())) {
+            for (VersionInformation version : containedItem.getVersionHistory()) {
+                writeVersion(out, version);
+            }
+        }
+        writeToken(out, containedItem.getLanguage());
+        writeToken(out, containedItem.getType());
+        int flags = (containedItem.isHasCollection() ? FLAG_HAS_COLLECTION : 0)
+                | (containedItem.isIsParent() ? FLAG_IS_PARENT : 0)
+                | (containedItem.isLatest() ? FLAG_LATEST : 0)
+                | (containedItem.isExternal() ? FLAG_EXTERNAL : 0);
+        out.writeVarint(flags);
+        writeDate(out, containedItem.getInsertdate());
+        writeDate(out, containedItem.getEditdate());
+        writeToken(out, containedItem.getItemclass() == null ? null : containedItem.getItemclass().getId());
+        out.writeBoolean(containedItem.getItemclass() != null);
+        writeItemRef(out, containedItem.getRegistry());
+        writeItemRef(out, containedItem.getRegister());
+        writeItem(out, containedItem.getInScheme());
+        writeItem(out, containedItem.getTopConceptOf());
+        writeItems(out, containedItem.getIsDefinedBy());
+        writeProperties(out, containedItem.getProperties());
+        writeItems(out, containedItem.getContainedItemsBeeingParentItemClass());
+        writeItems(out, containedItem.getContainedItems());
+        writeItems(out, containedItem.getNarrower());
+        writeItems(out, containedItem.getBroader());
+        writeItems(out, containedItem.getTopConcepts());
+        if (item instanceof Item) {
+            Pagination pagination = ((Item) item).getPagination();
+            out.writeBoolean(pagination != null);
+            if (pagination != null) {
+                out.writeVarint(pagination.getTotal());
+                out.writeVarint(pagination.getLimit());
+                out.writeVarint(pagination.getOffset() == null ? 0 : pagination.getOffset() + 1);
+                out.writeString(pagination.getNext());
+            }
+        }
+    }
+
+    private BasicContainedItem readItem(Reader in) {
+        int type = in.readVarint();
+        if (type == TYPE_NULL) {
+            return null;
+        }
+        if (type == TYPE_BASIC) {
+            BasicContainedItem item = new BasicContainedItem();
+            item.setUri(readUri(in));
+            return item;
+        }
+        ContainedItem item = type == TYPE_ITEM ? new Item() : new ContainedItem();
+        item.setUuid(in.readString());
+        item.setUri(readUri(in));
+        item.setLocalid(in.readString());
+        item.setVersion(readVersion(in));
+        int versions = in.readSize();
+        if (versions >= 0) {
+            List<VersionInformation> versionHistory = new ArrayList<>(versions);
+            for (int i = 0; i < versions; i++) {
+                versionHistory.add(readVersion(in));
+            }
+            item.setVersionHistory(versionHistory);
+        }
+        item.setLanguage(readToken(in));
+        item.setType(readToken(in));
+        int flags = in.readVarint();
+        item.setHasCollection((flags & FLAG_HAS_COLLECTION) != 0);
+        item.setIsParent((flags & FLAG_IS_PARENT) != 0);
+        item.setLatest((flags & FLAG_LATEST) != 0);
+        item.setExternal((flags & FLAG_EXTERNAL) != 0);
+        item.setInsertdate(readDate(in));
+        item.setEditdate(readDate(in));
+        String itemclass = readToken(in);
+        if (in.readBoolean()) {
+            item.setItemclass(new ItemClass(itemclass));
+        }
+        item.setRegistry(readItemRef(in));
+        item.setRegister(readItemRef(in));
+        item.setInScheme(readItem(in));
+        item.setTopConceptOf(readItem(in));
+        item.setIsDefinedBy(readItems(in));
+        item.setProperties(readProperties(in));
+        item.setContainedItemsBeeingParentItemClass(readItems(in));
+        item.setContainedItems(readItems(in));
+        item.setNarrower(readItems(in));
+        item.setBroader(readItems(in));
+        item.setTopConcepts(readItems(in));
+        if (item instanceof Item && in.readBoolean()) {
+            int total = in.readVarint();
+            int limit = in.readVarint();
+            int offset = in.readVarint();
+            ((Item) item).setPagination(new Pagination(total, limit, offset == 0 ? null : offset - 1, in.readString()));
+        }
+        return item;
+    }
+
+    private void writeItems(Writer out, List<? extends BasicContainedItem> items) {
+        if (writeSize(out, items)) {
+            for (BasicContainedItem item : items) {
+                writeItem(out, item);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends BasicContainedItem> List<T> readItems(Reader in) {
+        int size = in.readSize();
+        if (size < 0) {
+            return null;
+        }
+        List<T> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add((T) readItem(in));
+        }
+        return items;
+    }
+
+    private void writeItemRef(Writer out, ItemRef ref) {
+        out.writeBoolean(ref != null);
+        if (ref != null) {
+            writeUri(out, ref.getUri());
+            writeProperties(out, ref.getProperties());
+        }
+    }
+
+    private ItemRef readItemRef(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String uri = readUri(in);
+        return new ItemRef(uri, readProperties(in));
+    }
+
+    private void writeProperties(Writer out, List<LocalizedProperty> properties) {
+        if (!writeSize(out, properties)) {
+            return;
+        }
+        for (LocalizedProperty property : properties) {
+            writeToken(out, property.getLang());
+            writeToken(out, property.getId());
+            out.writeBoolean(property.getIstitle() != null);
+            writeToken(out, property.getLabel());
+            out.writeVarint(property.getOrder());
+            out.writeBoolean("true".equals(property.getTablevisible()));
+            if (writeSize(out, property.getValues())) {
+                for (LocalizedPropertyValue value : property.getValues()) {
+                    writeUri(out, value.getHref());
+                    // The labels of the links repeat (e.g. statuses), the literals hardly
+                    if (value.getHref() != null) {
+                        writeToken(out, value.getValue());
+                    } else {
+                        out.writeString(value.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private List<LocalizedProperty> readProperties(Reader in) {
+        int size = in.readSize();
+        if (size < 0) {
+            return null;
+        }
+        List<LocalizedProperty> properties = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String lang = readToken(in);
+            String id = readToken(in);
+            boolean istitle = in.readBoolean();
+            String label = readToken(in);
+            int order = in.readVarint();
+            boolean tablevisible = in.readBoolean();
+            List<LocalizedPropertyValue> values = null;
+            int count = in.readSize();
+            if (count >= 0) {
+                values = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    String href = readUri(in);
+                    String value = href != null ? readToken(in) : in.readString();
+                    values.add(new LocalizedPropertyValue(value, href));
+                }
+            }
+            properties.add(new LocalizedProperty(lang, id, istitle, label, values, order, tablevisible));
+        }
+        return properties;
+    }
+
+    private void writeVersion(Writer out, VersionInformation version) {
+        out.writeBoolean(version != null);
+        if (version != null) {
+            out.writeVarint(version.getNumber());
+            writeUri(out, version.getUri());
+        }
+    }
+
+    private VersionInformation readVersion(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int number = in.readVarint();
+        return new VersionInformation(number, readUri(in));
+    }
+
+    private void writeDate(Writer out, Date date) {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.getTime());
+        }
+    }
+
+    private Date readDate(Reader in) {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+
+    private boolean writeSize(Writer out, List<?> list) {
+        out.writeVarint(list == null ? 0 : list.size() + 1);
+        return list != null;
+    }
+
+    private void writeToken(Writer out, String s) {
+        if (s == null) {
+            out.writeVarint(REF_NULL);
+            return;
+        }
+        int id = getId(s);
+        if (id < 0) {
+            out.writeVarint(REF_INLINE);
+            out.writeString(s);
+        } else {
+            out.writeVarint(id + REF_OFFSET);
+        }
+    }
+
+    private String readToken(Reader in) {
+        int ref = in.readVarint();
+        if (ref == REF_NULL) {
+            return null;
+        }
+        return ref == REF_INLINE ? in.readString() : strings[ref - REF_OFFSET];
+    }
+
+    // The URIs are written as the id of their prefix (up to the last slash) and their suffix
+    private void writeUri(Writer out, String uri) {
+        if (uri == null) {
+            writeToken(out, null);
+            return;
+        }
+        int i = uri.lastIndexOf('/') + 1;
+        writeToken(out, uri.substring(0, i));
+        out.writeString(uri.substring(i));
+    }
+
+    private String readUri(Reader in) {
+        String prefix = readToken(in);
+        if (prefix == null) {
+            return null;
+        }
+        String suffix = in.readString();
+        return prefix.isEmpty() ? suffix : suffix.isEmpty() ? prefix : prefix + suffix;
+    }
+
+    private static class Writer extends ByteArrayOutputStream {
+
+        private Writer() {
+            super(256);
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        private void writeBoolean(boolean value) {
+            write(value ? 1 : 0);
+        }
+
+        // Length + 1 (0 for null) followed by the UTF-8 bytes
+        private void writeString(String s) {
+            if (s == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+
+    }
+
+    private static class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private int readSize() {
+            return readVarint() - 1;
+        }
+
+        private long readLong() {
+            long value = 0L;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private boolean readBoolean() {
+            return bytes[position++] != 0;
+        }
+
+        private String readString() {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String s = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return s;
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of the time spent assembling the items missing from the cache.
+ * The times are counted in buckets (1-2-5 series, from 0.5 ms to 1 minute):
+ * the percentiles are the upper bounds of their bucket.
+ */
+public class LoadLatencies {
+
+    // Upper bounds of the buckets, in microseconds
+    private static final long[] BOUNDS = {
+        500L, 1000L, 2000L, 5000L, 10000L, 20000L, 50000L, 100000L, 200000L, 500000L,
+        1000000L, 2000000L, 5000000L, 10000000L, 20000000L, 60000000L
+    };
+
+    // The last bucket counts the loads longer than the last bound
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maximumMicros = new AtomicLong();
+
+    public void record(long loadTimeNanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(loadTimeNanos);
+        int bucket = 0;
+        while (bucket < BOUNDS.length && micros > BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        totalMicros.add(micros);
+        maximumMicros.accumulateAndGet(micros, Math::max);
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new Snapshot(snapshot, failures.sum(), totalMicros.sum(), maximumMicros.get());
+    }
+
+    private static double toMillis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    /**
+     * Load times at a given moment, in milliseconds.
+     */
+    public static class Snapshot {
+
+        private final long loads;
+        private final long failures;
+        private final double averageMillis;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maximumMillis;
+
+        private Snapshot(long[] counts, long failures, long totalMicros, long maximumMicros) {
+            long total = 0L;
+            for (long count : counts) {
+                total += count;
+            }
+            this.loads = total;
+            this.failures = failures;
+            this.averageMillis = total == 0L ? 0.0 : toMillis(totalMicros / total);
+            this.p50Millis = toMillis(getPercentile(counts, total, 0.50, maximumMicros));
+            this.p90Millis = toMillis(getPercentile(counts, total, 0.90, maximumMicros));
+            this.p99Millis = toMillis(getPercentile(counts, total, 0.99, maximumMicros));
+            this.maximumMillis = toMillis(maximumMicros);
+        }
+
+        private static long getPercentile(long[] counts, long total, double percentile, long maximumMicros) {
+            if (total == 0L) {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long cumulated = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                cumulated += counts[i];
+                if (cumulated >= rank) {
+                    // Never beyond the slowest load seen
+                    return i < BOUNDS.length ? Math.min(BOUNDS[i], maximumMicros) : maximumMicros;
+                }
+            }
+            return maximumMicros;
+        }
+
+        public long getLoads() {
+            return loads;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public double getAverageMillis() {
+            return averageMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaximumMillis() {
+            return maximumMillis;
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+
+/**
+ * Remembers, for a short time, the uuids and URIs not found, so that repeated
+ * requests for them are answered without querying the database again. The
+ * cache is bounded in size, and emptied whenever a change is published (the
+ * missing item may have been published meanwhile).
+ */
+public class NegativeCache {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    private static final long DEFAULT_TTL_SECONDS = 60;
+
+    private final Cache<String, Boolean> misses;
+    private final boolean enabled;
+
+    public NegativeCache() {
+        long maximumSize = getLong(BaseConstants.KEY_NEGATIVE_CACHE_MAXIMUM_SIZE, DEFAULT_MAXIMUM_SIZE);
+        long ttl = getLong(BaseConstants.KEY_NEGATIVE_CACHE_TTL, DEFAULT_TTL_SECONDS);
+        this.enabled = maximumSize > 0 && ttl > 0;
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(Math.max(maximumSize, 0))
+                .expireAfterWrite(Math.max(ttl, 0), TimeUnit.SECONDS)
+                .build();
+    }
+
+    private static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(Configuration.getInstance().getProperties()
+                    .getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static String getKey(String uuid, String uri) {
+        return uuid != null ? "uuid|" + uuid : "uri|" + uri;
+    }
+
+    public boolean isMissing(String key) {
+        return enabled && misses.getIfPresent(key) != null;
+    }
+
+    public void putMissing(String key) {
+        if (enabled) {
+            misses.put(key, Boolean.TRUE);
+        }
+    }
+
+    public long getSize() {
+        return misses.estimatedSize();
+    }
+
+    public void removeAll() {
+        misses.invalidateAll();
+    }
+
+}
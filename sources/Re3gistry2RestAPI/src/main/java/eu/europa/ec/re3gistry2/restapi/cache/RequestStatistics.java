@@ -0,0 +1,182 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Number of requests served per item, used to warm up the most requested
+ * items first. The counters are kept in memory; with a persistent cache they
+ * are saved next to it at shutdown and read again at the start, so that they
+ * cover the previous runs too.
+ */
+public class RequestStatistics {
+
+    private static final Logger LOG = LogManager.getLogger(RequestStatistics.class.getName());
+
+    // Bounding the memory used: the items past this limit are not counted
+    private static final int MAXIMUM_TRACKED_ITEMS = 100000;
+
+    private static final Map<String, LongAdder> REQUESTS_BY_UUID = new ConcurrentHashMap<>();
+
+    private RequestStatistics() {
+    }
+
+    public static void record(String uuid) {
+        if (uuid == null) {
+            return;
+        }
+        add(uuid, 1L);
+    }
+
+    private static void add(String uuid, long count) {
+        LongAdder requests = REQUESTS_BY_UUID.get(uuid);
+        if (requests == null) {
+            if (REQUESTS_BY_UUID.size() >= MAXIMUM_TRACKED_ITEMS) {
+                return;
+            }
+            requests = REQUESTS_BY_UUID.computeIfAbsent(uuid, k -> new LongAdder());
+        }
+        requests.add(count);
+    }
+
+    public static long getRequests(String uuid) {
+        LongAdder requests = REQUESTS_BY_UUID.get(uuid);
+        return requests == null ? 0L : requests.sum();
+    }
+
+    /**
+     * Returns the most requested items, most requested first.
+     *
+     * @param limit the maximum number of items returned
+     * @return the number of requests by uuid
+     */
+    public static Map<String, Long> getMostRequested(int limit) {
+        // Keeping the limit most requested only, the least requested on top
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<String, LongAdder> entry : REQUESTS_BY_UUID.entrySet()) {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().sum()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> list = new ArrayList<>(top);
+        list.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : list) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the uuids passed by parameter by number of requests, most
+     * requested first (the order of the items never requested is kept).
+     *
+     * @param uuids the uuids to be sorted
+     */
+    public static void sortByRequests(List<String> uuids) {
+        // The counters keep changing: sorting on a snapshot of them
+        Map<String, Long> requests = new HashMap<>(uuids.size() * 2);
+        for (String uuid : uuids) {
+            requests.put(uuid, getRequests(uuid));
+        }
+        uuids.sort(Comparator.comparingLong((String uuid) -> requests.get(uuid)).reversed());
+    }
+
+    /**
+     * Adds the counters saved to the file passed by parameter, if any, to the
+     * current ones.
+     *
+     * @param file the file written by {@link #save(Path)}
+     */
+    public static void load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        Properties saved = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            saved.load(in);
+        } catch (IOException e) {
+            LOG.error("Unable to read the request statistics from " + file, e);
+            return;
+        }
+        for (String uuid : saved.stringPropertyNames()) {
+            try {
+                add(uuid, Long.parseLong(saved.getProperty(uuid).trim()));
+            } catch (NumberFormatException e) {
+                LOG.warn("Ignoring the request count of " + uuid + " read from " + file);
+            }
+        }
+    }
+
+    /**
+     * Saves the current counters to the file passed by parameter.
+     *
+     * @param file the file to be written
+     */
+    public static void save(Path file) {
+        Properties saved = new Properties();
+        for (Map.Entry<String, LongAdder> entry : REQUESTS_BY_UUID.entrySet()) {
+            saved.setProperty(entry.getKey(), Long.toString(entry.getValue().sum()));
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                saved.store(out, null);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.error("Unable to save the request statistics to " + file, e);
+        }
+    }
+
+    static void clear() {
+        REQUESTS_BY_UUID.clear();
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.restapi.util.PageRequest;
+import eu.europa.ec.re3gistry2.restapi.util.Projection;
+
+/**
+ * Cache of the encoded responses, keyed by request path, item identifier
+ * (uuid or URI), language and format. It sits in front of the ItemCache so
+ * that repeated requests are answered with a plain byte copy, without running
+ * the formatters again.
+ */
+public class ResponseCache {
+
+    private static final long DEFAULT_MAXIMUM_SPACE_MB = 64;
+
+    private final Cache<String, CachedResponse> responses;
+    private final boolean enabled;
+    private final boolean gzip;
+
+    public ResponseCache() {
+        long maximumSpace;
+        try {
+            maximumSpace = Long.parseLong(Configuration.getInstance().getProperties()
+                    .getProperty(BaseConstants.KEY_RESPONSE_CACHE_MAXIMUM_SPACE, String.valueOf(DEFAULT_MAXIMUM_SPACE_MB)).trim());
+        } catch (NumberFormatException e) {
+            maximumSpace = DEFAULT_MAXIMUM_SPACE_MB;
+        }
+        this.enabled = maximumSpace > 0;
+        this.gzip = BaseConstants.KEY_BOOLEAN_STRING_TRUE.equals(Configuration.getInstance().getProperties()
+                .getProperty(BaseConstants.KEY_RESPONSE_CACHE_GZIP, BaseConstants.KEY_BOOLEAN_STRING_TRUE).trim());
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(Math.max(maximumSpace, 0) * 1024 * 1024)
+                .weigher((String key, CachedResponse response) -> response.getWeight())
+                .build();
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public static String getKey(String path, String identifier, String language, String format) {
+        return path + "|" + identifier + "|" + (language == null ? "" : language) + "|" + format;
+    }
+
+    public static String getKey(String path, String identifier, String language, String format, PageRequest page) {
+        String key = getKey(path, identifier, language, format);
+        return page == null ? key : key + "|" + page.getKey();
+    }
+
+    public static String getKey(String path, String identifier, String language, String format, PageRequest page, Projection projection) {
+        String key = getKey(path, identifier, language, format, page);
+        // Never equal to a page key, which starts with the limit
+        return projection == null ? key : key + "|@" + projection.getKey();
+    }
+
+    public CachedResponse get(String key) {
+        return enabled ? responses.getIfPresent(key) : null;
+    }
+
+    public void put(String key, CachedResponse response) {
+        if (enabled) {
+            responses.put(key, response);
+        }
+    }
+
+    public long getSize() {
+        return responses.estimatedSize();
+    }
+
+    public long getWeight() {
+        return responses.policy().eviction().map(Policy.Eviction::weightedSize)
+                .map(size -> size.orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * Removes all the responses of the item with the uuid passed by parameter,
+     * whatever the identifier, language and format they were requested with.
+     *
+     * @param uuid the uuid of the item
+     */
+    public void remove(String uuid) {
+        responses.asMap().values().removeIf(response -> uuid.equals(response.getUuid()));
+    }
+
+    public void removeAll() {
+        responses.invalidateAll();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces the concurrent loads of the same key: the first caller runs the
+ * loader, the others wait for its result (or its exception) instead of
+ * running the same load in parallel. Nothing is kept once the load is over:
+ * the result has to be cached by the loader itself.
+ *
+ * @param <T> the type of the loaded values
+ */
+public class SingleFlight<T> {
+
+    private final ConcurrentMap<String, CompletableFuture<T>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the value loaded by the loader passed by parameter or, if the
+     * same key is already being loaded, the value of that load.
+     *
+     * @param key the key of the value
+     * @param loader the loader of the value
+     * @return the loaded value
+     * @throws Exception the exception thrown by the loader
+     */
+    public T load(String key, Callable<T> loader) throws Exception {
+        CompletableFuture<T> load = new CompletableFuture<>();
+        CompletableFuture<T> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            try {
+                return running.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            T value = loader.call();
+            load.complete(value);
+            return value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+}
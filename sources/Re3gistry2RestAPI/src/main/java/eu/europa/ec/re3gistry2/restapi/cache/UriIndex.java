@@ -0,0 +1,201 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemuriManager;
+import eu.europa.ec.re3gistry2.model.RegItemuri;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.persistence.NoResultException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * In-memory copy of the persistent URI index (reg_itemuri table), loaded once
+ * and then read-through for the URIs not yet known by this instance.
+ */
+public class UriIndex {
+
+    private static final Logger LOG = LogManager.getLogger(UriIndex.class.getName());
+
+    private static final Map<String, String> UUID_BY_URI = new ConcurrentHashMap<>();
+    private static final Map<String, String> URI_BY_UUID = new ConcurrentHashMap<>();
+    private static volatile boolean loaded = false;
+    private static volatile boolean available = true;
+
+    private UriIndex() {
+    }
+
+    /**
+     * Returns the uuid of the RegItem identified by the URI, looking in the
+     * database if the URI is not yet in memory.
+     *
+     * @param uri the URI of the RegItem
+     * @param regItemuriManager the manager used to read the index
+     * @return the uuid of the RegItem, or null if the URI is not indexed
+     */
+    public static String getUuid(String uri, RegItemuriManager regItemuriManager) {
+        load(regItemuriManager);
+        String uuid = UUID_BY_URI.get(uri);
+        if (uuid != null || !available) {
+            return uuid;
+        }
+        try {
+            RegItemuri regItemuri = regItemuriManager.get(uri);
+            uuid = regItemuri.getRegItem().getUuid();
+            put(uri, uuid);
+            return uuid;
+        } catch (NoResultException e) {
+            return null;
+        } catch (Exception e) {
+            LOG.error("Unable to read the URI index", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the uuid of the RegItem identified by the URI, if already in
+     * memory.
+     *
+     * @param uri the URI of the RegItem
+     * @return the uuid of the RegItem, or null if unknown
+     */
+    public static String getUuid(String uri) {
+        return uri == null ? null : UUID_BY_URI.get(uri);
+    }
+
+    /**
+     * Returns the indexed URI of the RegItem.
+     *
+     * @param uuid the uuid of the RegItem
+     * @param regItemuriManager the manager used to load the index
+     * @return the URI of the RegItem, or null if the RegItem is not indexed
+     */
+    public static String getUri(String uuid, RegItemuriManager regItemuriManager) {
+        load(regItemuriManager);
+        return URI_BY_UUID.get(uuid);
+    }
+
+    /**
+     * Returns the URI of the RegItem, if already in memory.
+     *
+     * @param uuid the uuid of the RegItem
+     * @return the URI of the RegItem, or null if unknown
+     */
+    public static String getUri(String uuid) {
+        return uuid == null ? null : URI_BY_UUID.get(uuid);
+    }
+
+    /**
+     * Returns the uuids of the indexed RegItems whose URI starts with the
+     * prefix passed by parameter, ordered by URI (a register before its
+     * items).
+     *
+     * @param prefix the prefix of the URIs
+     * @param regItemuriManager the manager used to load the index
+     * @return the uuids of the matching RegItems
+     */
+    public static List<String> getUuidsByUriPrefix(String prefix, RegItemuriManager regItemuriManager) {
+        load(regItemuriManager);
+        Map<String, String> matching = new TreeMap<>();
+        for (Map.Entry<String, String> entry : UUID_BY_URI.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                matching.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new ArrayList<>(matching.values());
+    }
+
+    /**
+     * Forgets the RegItems whose URI starts with the prefix passed by
+     * parameter, e.g. the items below a moved collection or parent: their
+     * URIs are read again from the database when requested.
+     *
+     * @param prefix the prefix of the URIs
+     * @return the uuids of the forgotten RegItems
+     */
+    public static Set<String> removeByUriPrefix(String prefix) {
+        Set<String> removed = new HashSet<>();
+        for (Map.Entry<String, String> entry : UUID_BY_URI.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                removed.add(entry.getValue());
+                URI_BY_UUID.remove(entry.getValue(), entry.getKey());
+                UUID_BY_URI.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return removed;
+    }
+
+    public static void remove(String uuid) {
+        String uri = URI_BY_UUID.remove(uuid);
+        if (uri != null) {
+            UUID_BY_URI.remove(uri, uuid);
+        }
+    }
+
+    public static void removeAll() {
+        UUID_BY_URI.clear();
+        URI_BY_UUID.clear();
+        loaded = false;
+        available = true;
+    }
+
+    private static void put(String uri, String uuid) {
+        String previous = URI_BY_UUID.put(uuid, uri);
+        if (previous != null && !previous.equals(uri)) {
+            UUID_BY_URI.remove(previous, uuid);
+        }
+        UUID_BY_URI.put(uri, uuid);
+    }
+
+    private static void load(RegItemuriManager regItemuriManager) {
+        if (loaded) {
+            return;
+        }
+        synchronized (UriIndex.class) {
+            if (loaded) {
+                return;
+            }
+            try {
+                for (Map.Entry<String, String> entry : regItemuriManager.getAllUuidByUri().entrySet()) {
+                    put(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                // The index is optional: the URIs are computed from the relations
+                LOG.error("Unable to load the URI index", e);
+                available = false;
+            }
+            loaded = true;
+        }
+    }
+
+}
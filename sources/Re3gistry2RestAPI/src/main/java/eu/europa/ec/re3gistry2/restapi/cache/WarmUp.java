@@ -0,0 +1,550 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
+import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.ItemSupplier;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Warms up the item cache with a bounded pool of workers.
+ *
+ * The work list (registries, registers, the most requested items, then the
+ * other items by data procedure order) is split in chunks of items in one
+ * language. Each worker keeps its own EntityManager, cleared after every
+ * chunk, and the requests to the database are throttled. The completed chunks
+ * are saved to a checkpoint, so that an interrupted warm-up resumes where it
+ * stopped after a restart.
+ */
+public class WarmUp {
+
+    private static final Logger LOG = LogManager.getLogger(WarmUp.class.getName());
+
+    private static final String ITEMS_FILE = "warmup-items.txt";
+    private static final String PROGRESS_FILE = "warmup-progress.properties";
+    private static final String PROGRESS_LANGUAGES = "languages";
+    private static final String PROGRESS_CHUNK_SIZE = "chunk.size";
+    private static final String PROGRESS_DONE = "done";
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 5000L;
+
+    public enum State {
+        IDLE, RUNNING, STOPPING, STOPPED, FINISHED
+    }
+
+    private final EntityManagerFactory emf;
+    private final ItemCache cache;
+    private final int threads;
+    private final int chunkSize;
+    private final long throttleNanos;
+    private final File checkpointDirectory;
+
+    private volatile State state = State.IDLE;
+    // Warming up the items passed by the operator, without checkpoint
+    private boolean partial;
+    private List<String> uuids;
+    private List<String> languages;
+    private BitSet doneChunks;
+    private int chunkCount;
+    private int nextChunk;
+    private long nextSlot;
+    private long lastCheckpoint;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong runTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private volatile long startTime;
+    private volatile long endTime;
+
+    public WarmUp(EntityManagerFactory emf, ItemCache cache) {
+        this.emf = emf;
+        this.cache = cache;
+        Properties properties = Configuration.getInstance().getProperties();
+        this.threads = Math.max(getInt(properties, BaseConstants.KEY_WARMUP_THREADS, 2), 1);
+        this.chunkSize = Math.max(getInt(properties, BaseConstants.KEY_WARMUP_CHUNK_SIZE, 100), 1);
+        int maximumRate = getInt(properties, BaseConstants.KEY_WARMUP_MAXIMUM_RATE, 200);
+        this.throttleNanos = maximumRate > 0 ? TimeUnit.SECONDS.toNanos(1) / maximumRate : 0L;
+        String path = properties.getProperty(BaseConstants.KEY_WARMUP_CHECKPOINT_PATH, "").trim();
+        this.checkpointDirectory = path.isEmpty() ? null : new File(path);
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        try {
+            return Integer.parseInt(properties.getProperty(key, Integer.toString(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Starts the warm-up, resuming the interrupted one if a checkpoint is
+     * available.
+     *
+     * @param restart true to ignore the checkpoint and rebuild the work list
+     * @return false if a warm-up is already running
+     * @throws Exception
+     */
+    public synchronized boolean start(boolean restart) throws Exception {
+        if (state == State.RUNNING || state == State.STOPPING) {
+            return false;
+        }
+        boolean resumable = (state == State.STOPPED && !partial) || loadCheckpoint();
+        partial = false;
+        if (restart || !resumable) {
+            createWorkList();
+        }
+        startWorkers();
+        return true;
+    }
+
+    /**
+     * Warms up the items passed by parameter (e.g. the items of a register),
+     * in every language. The progress of this warm-up is not saved: the
+     * checkpoint of an interrupted warm-up is kept for later.
+     *
+     * @param items the uuids of the items, in the order they are loaded
+     * @return false if a warm-up is already running
+     * @throws Exception
+     */
+    public synchronized boolean start(List<String> items) throws Exception {
+        if (state == State.RUNNING || state == State.STOPPING) {
+            return false;
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            this.languages = getLanguageCodes(RegistryMetadata.get(em));
+        } finally {
+            em.close();
+        }
+        this.partial = true;
+        this.uuids = new ArrayList<>(items);
+        this.chunkCount = ((uuids.size() + chunkSize - 1) / chunkSize) * languages.size();
+        this.doneChunks = new BitSet(chunkCount);
+        startWorkers();
+        return true;
+    }
+
+    private void startWorkers() {
+        completedTasks.set(0L);
+        for (int chunk = doneChunks.nextSetBit(0); chunk >= 0; chunk = doneChunks.nextSetBit(chunk + 1)) {
+            completedTasks.addAndGet(getChunkEnd(chunk) - getChunkStart(chunk));
+        }
+        runTasks.set(0L);
+        failedTasks.set(0L);
+        nextChunk = 0;
+        startTime = System.currentTimeMillis();
+        endTime = 0L;
+        state = State.RUNNING;
+        LOG.info("Cache warm-up started: " + getTotalTasks() + " items, " + completedTasks.get() + " already done");
+
+        int workers = Math.min(threads, Math.max(chunkCount, 1));
+        activeWorkers.set(workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "re3gistry-rest-api-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(new Worker());
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Resumes the warm-up interrupted by a restart, if any.
+     */
+    public void resume() {
+        try {
+            if (checkpointDirectory != null && new File(checkpointDirectory, PROGRESS_FILE).exists()) {
+                start(false);
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to resume the cache warm-up", e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (state == State.RUNNING) {
+            state = State.STOPPING;
+        }
+    }
+
+    public Status getStatus() {
+        return new Status();
+    }
+
+    private void createWorkList() throws Exception {
+        EntityManager em = emf.createEntityManager();
+        try {
+            RegistryMetadata metadata = RegistryMetadata.get(em);
+            RegItemManager regItemManager = new RegItemManager(em);
+
+            List<RegItemclass> itemclasses = new ArrayList<>(metadata.getItemclasses());
+            itemclasses.sort(Comparator.comparingInt(RegItemclass::getDataprocedureorder));
+
+            List<String> list = new ArrayList<>();
+            for (String type : new String[]{BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY, BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER}) {
+                for (RegItemclass itemclass : itemclasses) {
+                    if (type.equals(itemclass.getRegItemclasstype().getLocalid())) {
+                        list.addAll(regItemManager.getAllUuids(itemclass));
+                    }
+                }
+            }
+            List<String> items = new ArrayList<>();
+            for (RegItemclass itemclass : itemclasses) {
+                if (BaseConstants.KEY_ITEMCLASS_TYPE_ITEM.equals(itemclass.getRegItemclasstype().getLocalid())) {
+                    items.addAll(regItemManager.getAllUuids(itemclass));
+                }
+            }
+            RequestStatistics.sortByRequests(items);
+            list.addAll(items);
+
+            List<String> codes = getLanguageCodes(metadata);
+
+            this.uuids = list;
+            this.languages = codes;
+            this.chunkCount = ((list.size() + chunkSize - 1) / chunkSize) * codes.size();
+            this.doneChunks = new BitSet(chunkCount);
+            saveWorkList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<String> getLanguageCodes(RegistryMetadata metadata) {
+        List<String> codes = new ArrayList<>();
+        codes.add(metadata.getMasterLanguage().getIso6391code());
+        for (RegLanguagecode language : metadata.getLanguages()) {
+            if (!codes.contains(language.getIso6391code())) {
+                codes.add(language.getIso6391code());
+            }
+        }
+        return codes;
+    }
+
+    private synchronized int nextChunk() {
+        if (state != State.RUNNING) {
+            return -1;
+        }
+        nextChunk = doneChunks.nextClearBit(nextChunk);
+        if (nextChunk >= chunkCount) {
+            return -1;
+        }
+        return nextChunk++;
+    }
+
+    private synchronized void chunkDone(int chunk) {
+        doneChunks.set(chunk);
+        long now = System.currentTimeMillis();
+        if (now - lastCheckpoint >= CHECKPOINT_INTERVAL_MILLIS) {
+            lastCheckpoint = now;
+            saveProgress();
+        }
+    }
+
+    private synchronized void workerDone() {
+        if (activeWorkers.decrementAndGet() > 0) {
+            return;
+        }
+        endTime = System.currentTimeMillis();
+        if (doneChunks.nextClearBit(0) >= chunkCount) {
+            state = State.FINISHED;
+            deleteCheckpoint();
+        } else {
+            state = State.STOPPED;
+            saveProgress();
+        }
+        LOG.info("Cache warm-up " + state.name().toLowerCase() + ": " + runTasks.get() + " items in "
+                + (endTime - startTime) / 1000 + "s, " + failedTasks.get() + " failed");
+    }
+
+    // Language of the chunk: the chunks of the same items follow each other
+    private String getChunkLanguage(int chunk) {
+        return languages.get(chunk % languages.size());
+    }
+
+    private int getChunkStart(int chunk) {
+        return (chunk / languages.size()) * chunkSize;
+    }
+
+    private int getChunkEnd(int chunk) {
+        return Math.min(getChunkStart(chunk) + chunkSize, uuids.size());
+    }
+
+    private long getTotalTasks() {
+        return uuids == null ? 0L : (long) uuids.size() * languages.size();
+    }
+
+    private void throttle() throws InterruptedException {
+        if (throttleNanos <= 0L) {
+            return;
+        }
+        long slot;
+        synchronized (this) {
+            long now = System.nanoTime();
+            slot = Math.max(now, nextSlot);
+            nextSlot = slot + throttleNanos;
+        }
+        long wait = slot - System.nanoTime();
+        if (wait > 0L) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private void saveWorkList() throws IOException {
+        if (checkpointDirectory == null || partial) {
+            return;
+        }
+        Files.createDirectories(checkpointDirectory.toPath());
+        Path tmp = new File(checkpointDirectory, ITEMS_FILE + ".tmp").toPath();
+        Files.write(tmp, uuids, StandardCharsets.UTF_8);
+        Files.move(tmp, new File(checkpointDirectory, ITEMS_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        saveProgress();
+    }
+
+    private void saveProgress() {
+        if (checkpointDirectory == null || partial) {
+            return;
+        }
+        Properties progress = new Properties();
+        progress.setProperty(PROGRESS_LANGUAGES, String.join(",", languages));
+        progress.setProperty(PROGRESS_CHUNK_SIZE, Integer.toString(chunkSize));
+        progress.setProperty(PROGRESS_DONE, Base64.getEncoder().encodeToString(doneChunks.toByteArray()));
+        Path tmp = new File(checkpointDirectory, PROGRESS_FILE + ".tmp").toPath();
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                progress.store(out, "Re3gistry REST API cache warm-up");
+            }
+            Files.move(tmp, new File(checkpointDirectory, PROGRESS_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.error("Unable to save the cache warm-up checkpoint", e);
+        }
+    }
+
+    private boolean loadCheckpoint() {
+        if (checkpointDirectory == null) {
+            return false;
+        }
+        File items = new File(checkpointDirectory, ITEMS_FILE);
+        File progressFile = new File(checkpointDirectory, PROGRESS_FILE);
+        if (!items.exists() || !progressFile.exists()) {
+            return false;
+        }
+        try {
+            Properties progress = new Properties();
+            try (InputStream in = Files.newInputStream(progressFile.toPath())) {
+                progress.load(in);
+            }
+            if (!Integer.toString(chunkSize).equals(progress.getProperty(PROGRESS_CHUNK_SIZE))) {
+                // The chunks would not match
+                return false;
+            }
+            List<String> list = new ArrayList<>();
+            for (String uuid : Files.readAllLines(items.toPath(), StandardCharsets.UTF_8)) {
+                if (!uuid.isEmpty()) {
+                    list.add(uuid);
+                }
+            }
+            List<String> codes = new ArrayList<>();
+            for (String code : progress.getProperty(PROGRESS_LANGUAGES, "").split(",")) {
+                if (!code.isEmpty()) {
+                    codes.add(code);
+                }
+            }
+            if (codes.isEmpty()) {
+                return false;
+            }
+            this.uuids = list;
+            this.languages = codes;
+            this.chunkCount = ((list.size() + chunkSize - 1) / chunkSize) * codes.size();
+            this.doneChunks = BitSet.valueOf(Base64.getDecoder().decode(progress.getProperty(PROGRESS_DONE, "")));
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.error("Unable to read the cache warm-up checkpoint, starting again", e);
+            return false;
+        }
+    }
+
+    private void deleteCheckpoint() {
+        if (checkpointDirectory == null || partial) {
+            return;
+        }
+        new File(checkpointDirectory, ITEMS_FILE).delete();
+        new File(checkpointDirectory, PROGRESS_FILE).delete();
+    }
+
+    private class Worker implements Runnable {
+
+        private EntityManager em;
+
+        @Override
+        public void run() {
+            try {
+                em = emf.createEntityManager();
+                int chunk;
+                while ((chunk = nextChunk()) >= 0) {
+                    if (warmUp(chunk)) {
+                        chunkDone(chunk);
+                    }
+                    // Not keeping the entities of the chunk in memory
+                    em.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOG.error("Unexpected exception occured during the cache warm-up", e);
+            } finally {
+                if (em != null && em.isOpen()) {
+                    em.close();
+                }
+                workerDone();
+            }
+        }
+
+        private boolean warmUp(int chunk) throws Exception {
+            String language = getChunkLanguage(chunk);
+            RegistryMetadata metadata = RegistryMetadata.get(em);
+            RegLanguagecode languageCode = metadata.getLanguage(language);
+            if (languageCode == null) {
+                // Language removed after the checkpoint
+                return true;
+            }
+            ItemSupplier itemSupplier = new ItemSupplier(em, metadata.getMasterLanguage(), languageCode);
+            for (int i = getChunkStart(chunk); i < getChunkEnd(chunk); i++) {
+                if (state != State.RUNNING) {
+                    return false;
+                }
+                String uuid = uuids.get(i);
+                if (!cache.contains(language, uuid)) {
+                    throttle();
+                    try {
+                        Item item = itemSupplier.getItemByUuid(uuid);
+                        if (item != null) {
+                            cache.add(language, item);
+                        }
+                    } catch (PersistenceException e) {
+                        // e.g. removed item, or connection lost: starting with a new EntityManager
+                        LOG.warn("Unable to warm up the item " + uuid + " (" + language + "): " + e.getMessage());
+                        failedTasks.incrementAndGet();
+                        em.close();
+                        em = emf.createEntityManager();
+                        itemSupplier = new ItemSupplier(em, metadata.getMasterLanguage(), languageCode);
+                    } catch (Exception e) {
+                        LOG.warn("Unable to warm up the item " + uuid + " (" + language + "): " + e.getMessage());
+                        failedTasks.incrementAndGet();
+                    }
+                }
+                runTasks.incrementAndGet();
+                completedTasks.incrementAndGet();
+            }
+            return true;
+        }
+
+    }
+
+    /**
+     * Progress of the warm-up
+     */
+    public class Status {
+
+        private final State state;
+        private final long total;
+        private final long completed;
+        private final long failed;
+        private final double itemsPerSecond;
+        private final Long etaSeconds;
+
+        private Status() {
+            this.state = WarmUp.this.state;
+            this.total = getTotalTasks();
+            this.completed = completedTasks.get();
+            this.failed = failedTasks.get();
+            long end = endTime > 0L ? endTime : System.currentTimeMillis();
+            long elapsed = startTime > 0L ? end - startTime : 0L;
+            this.itemsPerSecond = elapsed > 0L ? runTasks.get() * 1000.0 / elapsed : 0.0;
+            this.etaSeconds = state == State.RUNNING && itemsPerSecond > 0.0
+                    ? Long.valueOf((long) ((total - completed) / itemsPerSecond)) : null;
+        }
+
+        public String getState() {
+            return state.name().toLowerCase();
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public double getItemsPerSecond() {
+            return Math.round(itemsPerSecond * 100.0) / 100.0;
+        }
+
+        public Long getEtaSeconds() {
+            return etaSeconds;
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import eu.europa.ec.re3gistry2.restapi.format.Formatter;
+
+/**
+ * Generates the Apache rewrite rules serving the files of the static export,
+ * to be included in the virtual host before the rules proxying to the REST
+ * API (see apache-example-configuration.conf). A request is answered from the
+ * static files only if the file exists, otherwise the next rules apply.
+ */
+public class RewriteRules {
+
+    private static final String LANGUAGE_VARIABLE = "RE3GISTRY_LANG";
+
+    private RewriteRules() {
+    }
+
+    /**
+     * Writes the rules to the file passed by parameter.
+     *
+     * @param file the file of the rules
+     * @param current the folder of the published export
+     * @param formatters the exported formats
+     * @param masterLanguage the language served when the request has no
+     * Accept-Language header
+     * @throws IOException
+     */
+    public static void write(Path file, Path current, List<Formatter> formatters, String masterLanguage) throws IOException {
+        String dir = current.toAbsolutePath().toString();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer w = new BufferedWriter(Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))) {
+            w.write("### Generated by the Re3gistry 2 REST API: serves the static export ###\n");
+            w.write("# " + dir + " is a symbolic link to the last export\n\n");
+
+            w.write("<Directory \"" + current.getParent().toAbsolutePath() + "\">\n");
+            w.write("\tOptions -Indexes +FollowSymLinks\n");
+            w.write("\tRequire all granted\n");
+            w.write("</Directory>\n\n");
+
+            w.write("RewriteEngine on\n\n");
+
+            w.write("## Handling direct request to a file\n");
+            for (Formatter formatter : formatters) {
+                String format = formatter.getFormatName();
+                w.write("RewriteCond " + dir + "/$1/$2.$3." + format + " -f\n");
+                w.write("RewriteRule ^/(.*)/([^/]+)\\.([a-z]{2})\\." + format + "$ "
+                        + dir + "/$1/$2.$3." + format + " [T=" + formatter.getContentType() + ",L]\n");
+            }
+            w.write("\n");
+
+            w.write("## Language of the content negotiation\n");
+            w.write("RewriteRule ^ - [E=" + LANGUAGE_VARIABLE + ":" + masterLanguage + "]\n");
+            w.write("RewriteCond %{HTTP:Accept-Language} ^([a-z]{2})\n");
+            w.write("RewriteRule ^ - [E=" + LANGUAGE_VARIABLE + ":%1]\n");
+
+            // The first formatter of a media type is the negotiated one
+            Set<String> contentTypes = new HashSet<>();
+            for (Formatter formatter : formatters) {
+                String contentType = formatter.getContentType();
+                if (!contentTypes.add(contentType)) {
+                    continue;
+                }
+                String path = "$1/$2.%{ENV:" + LANGUAGE_VARIABLE + "}." + formatter.getFormatName();
+                w.write("\n## Handling content negotiation: " + formatter.getFormatName() + "\n");
+                w.write("RewriteCond %{HTTP_ACCEPT} ^" + contentType.replace(".", "\\.").replace("+", "\\+") + "$\n");
+                w.write("RewriteCond " + dir + "/" + path + " -f\n");
+                w.write("RewriteRule ^/((?:.*/)?([^/]+))$ " + dir + "/" + path + " [T=" + contentType + ",L]\n");
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
@@ -0,0 +1,566 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegItemchangeManager;
+import eu.europa.ec.re3gistry2.crudimplementation.RegRelationManager;
+import eu.europa.ec.re3gistry2.model.RegItem;
+import eu.europa.ec.re3gistry2.model.RegItemchange;
+import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.model.RegRelation;
+import eu.europa.ec.re3gistry2.restapi.ItemSupplier;
+import eu.europa.ec.re3gistry2.restapi.ItemsServlet;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
+import eu.europa.ec.re3gistry2.restapi.format.Formatter;
+import eu.europa.ec.re3gistry2.restapi.format.RenderContext;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.util.ChangeToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Pre-renders the published items to static files, so that the web server
+ * can serve them without calling the REST API.
+ *
+ * Every published item is written in every active language and every format
+ * to &lt;path of its URI&gt;/&lt;last segment&gt;.&lt;language&gt;.&lt;format&gt;,
+ * the layout of the public file URLs: registry/codelist/X/X.en.json for
+ * http://host/registry/codelist/X. Each export is written to a new generation
+ * folder and published by replacing the "current" symbolic link, so the web
+ * server never sees a half-written tree.
+ *
+ * The first export renders everything. The next ones follow the log of the
+ * published changes (reg_itemchange table) and render again only the items
+ * affected by a publication, i.e. the changed item, the register,
+ * collection or parent listing it and the items embedding it or below it;
+ * the files of the other items are hard linked from the previous generation.
+ */
+public class StaticExport implements Runnable {
+
+    private static final Logger LOG = LogManager.getLogger(StaticExport.class.getName());
+
+    private static final String GENERATIONS = "generations";
+    private static final String CURRENT = "current";
+    private static final String MANIFEST_EXTENSION = ".properties";
+    private static final String MANIFEST_TOKEN = "change.token";
+    private static final String MANIFEST_ITEM = "item.";
+    private static final String REWRITE_FILE = "apache-rewrite.conf";
+    // The last changes are exported once this delay has passed, as in the
+    // change feed: a change may commit after a later dated one
+    private static final long SETTLE_MILLIS = 60 * 1000L;
+    private static final int CHANGES_PAGE_SIZE = 1000;
+    // The persistence context is cleared after this number of items
+    private static final int CLEAR_INTERVAL = 100;
+    private static final int BUFFER_SIZE = 8192;
+
+    public enum State {
+        IDLE, RUNNING, FAILED
+    }
+
+    private final EntityManagerFactory emf;
+    private final Path root;
+    private final List<Formatter> formatters;
+
+    private volatile State state = State.IDLE;
+    private volatile String generation;
+    private volatile long lastRun;
+    private volatile int renderedItems;
+
+    public StaticExport(EntityManagerFactory emf, Path root, List<Formatter> formatters) {
+        this.emf = emf;
+        this.root = root;
+        this.formatters = formatters;
+    }
+
+    /**
+     * Exports the changes published since the last export, or everything if
+     * nothing has been exported yet.
+     */
+    @Override
+    public synchronized void run() {
+        export(false);
+    }
+
+    /**
+     * Exports everything again.
+     */
+    public synchronized void rebuild() {
+        export(true);
+    }
+
+    public Status getStatus() {
+        return new Status();
+    }
+
+    private void export(boolean full) {
+        state = State.RUNNING;
+        EntityManager em = null;
+        try {
+            Path generations = root.resolve(GENERATIONS);
+            Files.createDirectories(generations);
+            Path current = root.resolve(CURRENT);
+            String previous = Files.isSymbolicLink(current) ? Files.readSymbolicLink(current).getFileName().toString() : null;
+            Properties manifest = previous != null ? readManifest(generations.resolve(previous + MANIFEST_EXTENSION)) : null;
+            if (manifest == null) {
+                full = true;
+            }
+
+            em = emf.createEntityManager();
+            RegistryMetadata metadata = RegistryMetadata.get(em);
+            Date until = new Date(System.currentTimeMillis() - SETTLE_MILLIS);
+
+            Collection<String> uuids;
+            String token;
+            if (full) {
+                manifest = new Properties();
+                uuids = getAllUuids(em, metadata);
+                token = ChangeToken.getToken(until);
+            } else {
+                ChangeToken position = ChangeToken.parse(manifest.getProperty(MANIFEST_TOKEN));
+                List<RegItemchange> changes = getChanges(em, position, until);
+                if (changes.isEmpty()) {
+                    state = State.IDLE;
+                    return;
+                }
+                uuids = getAffectedUuids(em, changes);
+                token = ChangeToken.getToken(changes.get(changes.size() - 1));
+            }
+
+            String name = Long.toString(System.currentTimeMillis());
+            Path tmp = generations.resolve(name + ".tmp");
+            deleteTree(tmp);
+            if (full) {
+                Files.createDirectories(tmp);
+            } else {
+                linkTree(generations.resolve(previous), tmp);
+            }
+
+            renderedItems = 0;
+            render(em, metadata, uuids, tmp, manifest);
+            manifest.setProperty(MANIFEST_TOKEN, token);
+
+            // Publishing the new generation
+            Path target = generations.resolve(name);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            writeManifest(generations.resolve(name + MANIFEST_EXTENSION), manifest);
+            Path link = root.resolve(CURRENT + ".tmp");
+            Files.deleteIfExists(link);
+            Files.createSymbolicLink(link, Paths.get(GENERATIONS, name));
+            Files.move(link, current, StandardCopyOption.ATOMIC_MOVE);
+            RewriteRules.write(root.resolve(REWRITE_FILE), current, formatters, metadata.getMasterLanguage().getIso6391code());
+
+            if (previous != null) {
+                deleteTree(generations.resolve(previous));
+                Files.deleteIfExists(generations.resolve(previous + MANIFEST_EXTENSION));
+            }
+            generation = name;
+            lastRun = System.currentTimeMillis();
+            state = State.IDLE;
+            LOG.info("Static export " + name + ": " + renderedItems + " items rendered" + (full ? "" : " (incremental)"));
+        } catch (Exception e) {
+            state = State.FAILED;
+            LOG.error("Unable to export the static files", e);
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the uuids of all the registries, registers and items, in the
+     * order of their item classes.
+     */
+    private List<String> getAllUuids(EntityManager em, RegistryMetadata metadata) throws Exception {
+        RegItemManager regItemManager = new RegItemManager(em);
+
+        List<RegItemclass> itemclasses = new ArrayList<>(metadata.getItemclasses());
+        itemclasses.sort(Comparator.comparingInt(RegItemclass::getDataprocedureorder));
+
+        List<String> list = new ArrayList<>();
+        for (String type : new String[]{BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY, BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER, BaseConstants.KEY_ITEMCLASS_TYPE_ITEM}) {
+            for (RegItemclass itemclass : itemclasses) {
+                if (type.equals(itemclass.getRegItemclasstype().getLocalid())) {
+                    list.addAll(regItemManager.getAllUuids(itemclass));
+                }
+            }
+        }
+        return list;
+    }
+
+    private List<RegItemchange> getChanges(EntityManager em, ChangeToken position, Date until) throws Exception {
+        RegItemchangeManager regItemchangeManager = new RegItemchangeManager(em);
+        List<RegItemchange> changes = new ArrayList<>();
+        Date insertdate = position.getInsertdate();
+        String afterUuid = position.getAfterUuid();
+        List<RegItemchange> rows;
+        do {
+            rows = regItemchangeManager.getAllAfter(insertdate, afterUuid, until, CHANGES_PAGE_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            changes.addAll(rows);
+            RegItemchange last = rows.get(rows.size() - 1);
+            insertdate = last.getInsertdate();
+            afterUuid = last.getUuid();
+        } while (rows.size() == CHANGES_PAGE_SIZE);
+        return changes;
+    }
+
+    /**
+     * Returns the changed items, the items they point to (register,
+     * collection, parent...), which list them among their contained items,
+     * and the items pointing to them: the items of a register or registry
+     * embed its label, and the URIs of the items below a collection or
+     * parent follow its URI.
+     */
+    private Set<String> getAffectedUuids(EntityManager em, List<RegItemchange> changes) throws Exception {
+        RegItemManager regItemManager = new RegItemManager(em);
+        RegRelationManager regRelationManager = new RegRelationManager(em);
+        Set<String> uuids = new LinkedHashSet<>();
+        Deque<RegItem> subtrees = new ArrayDeque<>();
+        for (RegItemchange change : changes) {
+            String uuid = change.getRegItemUuid();
+            if (!uuids.add(uuid)) {
+                continue;
+            }
+            try {
+                RegItem regItem = regItemManager.get(uuid);
+                for (RegRelation relation : regRelationManager.getAllBySubject(regItem)) {
+                    uuids.add(relation.getRegItemObject().getUuid());
+                }
+                subtrees.add(regItem);
+            } catch (NoResultException e) {
+                // Removed item: only its files are deleted
+            }
+        }
+
+        Set<String> visited = new HashSet<>();
+        while (!subtrees.isEmpty()) {
+            RegItem regItem = subtrees.poll();
+            if (!visited.add(regItem.getUuid())) {
+                continue;
+            }
+            for (RegRelation relation : regRelationManager.getAllByObject(regItem)) {
+                String predicate = relation.getRegRelationpredicate().getUuid();
+                RegItem subject = relation.getRegItemSubject();
+                switch (predicate) {
+                    case BaseConstants.KEY_PREDICATE_COLLECTION:
+                    case BaseConstants.KEY_PREDICATE_PARENT:
+                        // The whole subtree may have moved
+                        uuids.add(subject.getUuid());
+                        subtrees.add(subject);
+                        break;
+                    case BaseConstants.KEY_PREDICATE_REGISTRY:
+                    case BaseConstants.KEY_PREDICATE_REGISTER:
+                        uuids.add(subject.getUuid());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return uuids;
+    }
+
+    /**
+     * Deletes the files of the items, then renders them again in every
+     * language and format, if they are still published.
+     */
+    private void render(EntityManager em, RegistryMetadata metadata, Collection<String> uuids, Path dir, Properties manifest) throws Exception {
+        for (String uuid : uuids) {
+            String path = manifest.getProperty(MANIFEST_ITEM + uuid);
+            if (path != null) {
+                deleteItemFiles(dir, dir.resolve(path));
+                manifest.remove(MANIFEST_ITEM + uuid);
+            }
+        }
+
+        for (RegLanguagecode language : metadata.getLanguages()) {
+            if (!Boolean.TRUE.equals(language.getActive())) {
+                continue;
+            }
+            ItemSupplier itemSupplier = new ItemSupplier(em, metadata.getMasterLanguage(), language);
+            ItemSupplier streamingSupplier = newStreamingSupplier(em, metadata, language);
+
+            int count = 0;
+            for (String uuid : uuids) {
+                Item item = getItem(itemSupplier, uuid);
+                String path = item != null ? getPath(item.getUri()) : null;
+                if (path != null) {
+                    manifest.setProperty(MANIFEST_ITEM + uuid, path);
+                    renderItem(metadata, language, itemSupplier, streamingSupplier, item, dir.resolve(path));
+                    renderedItems++;
+                }
+                if (++count % CLEAR_INTERVAL == 0) {
+                    em.clear();
+                    // The relation graphs of the suppliers keep the entities
+                    // they have read: new suppliers let them go too
+                    itemSupplier = new ItemSupplier(em, metadata.getMasterLanguage(), language);
+                    streamingSupplier = newStreamingSupplier(em, metadata, language);
+                }
+            }
+            em.clear();
+        }
+    }
+
+    private ItemSupplier newStreamingSupplier(EntityManager em, RegistryMetadata metadata, RegLanguagecode language) throws Exception {
+        ItemSupplier streamingSupplier = new ItemSupplier(em, metadata.getMasterLanguage(), language);
+        streamingSupplier.setContainedItemsStreamed(true);
+        return streamingSupplier;
+    }
+
+    private Item getItem(ItemSupplier itemSupplier, String uuid) throws Exception {
+        try {
+            return itemSupplier.getItemByUuid(uuid);
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
+    private void renderItem(RegistryMetadata metadata, RegLanguagecode language, ItemSupplier itemSupplier,
+            ItemSupplier streamingSupplier, Item item, Path file) throws Exception {
+        Files.createDirectories(file);
+        boolean register = BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER.equals(item.getType());
+        Item streamedItem = null;
+        for (Formatter formatter : formatters) {
+            Path target = file.resolve(file.getFileName() + "." + language.getIso6391code() + "." + formatter.getFormatName());
+            // Never writing through a link to the previous generation
+            Files.deleteIfExists(target);
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), BUFFER_SIZE)) {
+                if (register && ItemsServlet.streamsContainedItems(formatter)) {
+                    if (streamedItem == null) {
+                        streamedItem = streamingSupplier.getItemByUuid(item.getUuid());
+                    }
+                    RenderContext context = new RenderContext(language, metadata,
+                            handler -> streamingSupplier.forEachContainedItem(item.getUuid(), handler));
+                    formatter.write(streamedItem, context, out);
+                } else {
+                    formatter.write(item, new RenderContext(language, metadata), out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the path of the files of the item, relative to the generation
+     * folder: the path of its URI.
+     *
+     * @param uri the URI of the item
+     * @return the path, or null if the URI can not be mapped to a path
+     */
+    static String getPath(String uri) {
+        String path;
+        try {
+            path = new URI(uri).getPath();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        if (path == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals(".") || segment.equals("..")) {
+                return null;
+            }
+            if (sb.length() > 0) {
+                sb.append('/');
+            }
+            sb.append(segment);
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    /**
+     * Deletes the files of the item (not the folders of the items below it),
+     * and its folder and the folders above it left empty, e.g. the old path
+     * of a moved item
+     */
+    private void deleteItemFiles(Path dir, Path file) throws IOException {
+        if (!Files.isDirectory(file)) {
+            return;
+        }
+        String prefix = file.getFileName() + ".";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(file)) {
+            for (Path child : stream) {
+                if (Files.isRegularFile(child) && child.getFileName().toString().startsWith(prefix)) {
+                    Files.delete(child);
+                }
+            }
+        }
+        for (Path folder = file; folder != null && !folder.equals(dir) && folder.startsWith(dir); folder = folder.getParent()) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                if (stream.iterator().hasNext()) {
+                    break;
+                }
+            }
+            Files.delete(folder);
+        }
+    }
+
+    /**
+     * Copies the folders of the tree, and hard links its files (copying them
+     * if the file system does not support links).
+     */
+    private void linkTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path link = target.resolve(source.relativize(file).toString());
+                try {
+                    Files.createLink(link, file);
+                } catch (UnsupportedOperationException | IOException e) {
+                    Files.copy(file, link, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private Properties readManifest(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            manifest.load(in);
+        } catch (IOException e) {
+            LOG.error("Unable to read the manifest " + file + ", exporting everything", e);
+            return null;
+        }
+        try {
+            ChangeToken.parse(manifest.getProperty(MANIFEST_TOKEN, ""));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return manifest;
+    }
+
+    private void writeManifest(Path file, Properties manifest) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            manifest.store(out, null);
+        }
+    }
+
+    public class Status {
+
+        private final State state;
+        private final String generation;
+        private final long lastRun;
+        private final int renderedItems;
+
+        private Status() {
+            this.state = StaticExport.this.state;
+            this.generation = StaticExport.this.generation;
+            this.lastRun = StaticExport.this.lastRun;
+            this.renderedItems = StaticExport.this.renderedItems;
+        }
+
+        public String getState() {
+            return state.name().toLowerCase();
+        }
+
+        public String getGeneration() {
+            return generation;
+        }
+
+        public String getLastRun() {
+            return lastRun > 0L ? new Date(lastRun).toInstant().toString() : null;
+        }
+
+        public int getRenderedItems() {
+            return renderedItems;
+        }
+
+    }
+
+}
@@ -0,0 +1,603 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.model.BasicContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
+import eu.europa.ec.re3gistry2.restapi.model.VersionInformation;
+import eu.europa.ec.re3gistry2.restapi.util.AvailableFormatsUtil;
+import eu.europa.ec.re3gistry2.restapi.util.DateUtil;
+
+/**
+ * Maps the items to DCAT/SKOS statements, shared by all the RDF formats.
+ *
+ * The statements are passed to the {@link TripleWriter} of the format as soon
+ * as they are produced, no RDF model is built in between.
+ */
+public abstract class AbstractRDFFormatter implements Formatter {
+
+    static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    static final String DC = "http://purl.org/dc/elements/1.1/";
+    static final String DCT = "http://purl.org/dc/terms/";
+    static final String XPATH_FUNTIONS = "http://www.w3.org/2005/02/xpath-functions";
+    static final String FOAF = "http://xmlns.com/foaf/0.1/";
+    static final String GML = "http://www.opengis.net/gml#";
+    static final String GRG = "http://www.isotc211.org/schemas/grg/";
+    static final String OWL = "http://www.w3.org/2002/07/owl#";
+    static final String VOID = "http://rdfs.org/ns/void#";
+    static final String RDFS = "http://www.w3.org/2000/01/rdf-schema#";
+    static final String SKOS = "http://www.w3.org/2004/02/skos/core#";
+    static final String XPATH = "http://www.w3.org/2005/02/xpath-datatypes";
+    static final String XSI = "http://www.w3.org/2001/XMLSchema-instance";
+
+    static final String DCAT = "http://www.w3.org/ns/dcat#";
+    static final String ADMS = "http://www.w3.org/ns/adms#";
+    static final String VCARD = "http://www.w3.org/2006/vcard/ns#";
+    static final String VANN = "http://purl.org/vocab/vann/";
+
+    /**
+     * Prefixes of the namespaces used in the statements, in declaration order
+     */
+    static final Map<String, String> PREFIX_TO_NS;
+    private static final Map<String, String> ROLE_PROPERTY_TO_ELEMENT;
+    private static final Pattern LOCAL_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_-]*");
+
+    static {
+        Map<String, String> prefixToNs = new LinkedHashMap<>();
+        prefixToNs.put("dcat", DCAT);
+        prefixToNs.put("adms", ADMS);
+        prefixToNs.put("vcard", VCARD);
+        prefixToNs.put("vann", VANN);
+        prefixToNs.put("dc", DC);
+        prefixToNs.put("rdf", RDF);
+        prefixToNs.put("xsi", XSI);
+        prefixToNs.put("rdfs", RDFS);
+        prefixToNs.put("owl", OWL);
+        prefixToNs.put("skos", SKOS);
+        prefixToNs.put("dct", DCT);
+        prefixToNs.put("foaf", FOAF);
+        PREFIX_TO_NS = Collections.unmodifiableMap(prefixToNs);
+
+        Map<String, String> roleToElement = new LinkedHashMap<>();
+        roleToElement.put(BaseConstants.KEY_ROLE_REGISTRYMANAGER, "publisher");
+        roleToElement.put(BaseConstants.KEY_ROLE_REGISTEROWNER, "rightsHolder");
+        roleToElement.put(BaseConstants.KEY_ROLE_REGISTERMANAGER, "publisher");
+        roleToElement.put(BaseConstants.KEY_ROLE_CONTROLBODY, "creator");
+        roleToElement.put(BaseConstants.KEY_ROLE_CONTACT_POINT, "contactPoint");
+        ROLE_PROPERTY_TO_ELEMENT = Collections.unmodifiableMap(roleToElement);
+    }
+
+    /**
+     * Shortens a URI in one of the declared namespaces to prefix:localName
+     *
+     * @return the prefixed name, or null if the URI has no simple local name
+     * in one of the namespaces
+     */
+    static String prefixedName(String uri) {
+        for (Map.Entry<String, String> namespace : PREFIX_TO_NS.entrySet()) {
+            String ns = namespace.getValue();
+            if (uri.startsWith(ns) && LOCAL_NAME.matcher(uri.substring(ns.length())).matches()) {
+                return namespace.getKey() + ":" + uri.substring(ns.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the writer of one response, with the document already started
+     */
+    protected abstract TripleWriter createWriter(OutputStream out) throws Exception;
+
+    @Override
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
+        TripleWriter w = createWriter(out);
+        RegLanguagecode lang = context.getLanguage();
+
+        switch (item.getType()) {
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
+                writeRegistry(w, item, lang);
+                break;
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
+                writeRegister(w, item, lang, context.getContainedItemSource());
+                break;
+            default:
+                writeItem(w, item, lang);
+                break;
+        }
+
+        w.close();
+    }
+
+    private void writeRegistry(TripleWriter w, ContainedItem item, RegLanguagecode lang) throws Exception {
+        w.startDescription(item.getUri());
+        w.literal(DCT, "identifier", "http://www.w3.org/2000/01/rdf-schema#Literal", item.getUri());
+
+        writeRDFType(w, item);
+
+        writeVersion(w, item);
+        writeDate(w, item);
+        writeFileFormat(w, item);
+        writeAuthorityFrequency(w, item);
+
+        writeTitle(w, item);
+        writeDefinition(w, item);
+        writeDescription(w, item);
+
+        writeRoles(w, item);
+        writeHasPartsTopConcepts(w, item);
+        writeStatus(w, item);
+        w.endDescription();
+
+//        write formats by selected language
+        writeFormats(w, item, lang);
+
+//        write registers
+        for (ContainedItem ci : item.getContainedItems()) {
+            writeRegisterShortVersion(w, ci, item, lang);
+            writeFormats(w, ci, lang);
+        }
+    }
+
+    private void writeRegisterShortVersion(TripleWriter w, ContainedItem containedItem, ContainedItem item, RegLanguagecode lang) throws Exception {
+        w.startDescription(containedItem.getUri());
+        w.literal(DCT, "identifier", "http://www.w3.org/2000/01/rdf-schema#Literal", containedItem.getUri());
+
+        w.resource(RDF, "type", "http://www.w3.org/ns/dcat#Dataset");
+        w.resource(RDF, "type", "http://www.w3.org/2004/02/skos/core#Concept");
+
+        writeTitle(w, containedItem);
+        writeDefinition(w, containedItem);
+        writeDescription(w, containedItem);
+
+        writeInScheme(w, containedItem, item);
+        writeBroader(w, containedItem);
+        writeNarrower(w, containedItem);
+        w.endDescription();
+        //        write formats by selected language
+//        writeFormats(w, item);
+
+//        write items
+        List<ContainedItem> containedItemList = containedItem.getContainedItems();
+        if (containedItemList != null && !containedItemList.isEmpty()) {
+            for (ContainedItem ci : containedItemList) {
+                writeItemShortVersion(w, ci);
+                writeFormats(w, ci, lang);
+            }
+        }
+    }
+
+    private void writeRegister(TripleWriter w, Item item, RegLanguagecode lang, ContainedItemSource source) throws Exception {
+        w.startDescription(item.getUri());
+        w.literal(DCT, "identifier", "http://www.w3.org/2000/01/rdf-schema#Literal", item.getUri());
+
+        writeRDFType(w, item);
+
+        writeVersion(w, item);
+        writeDate(w, item);
+        writeFileFormat(w, item);
+        writeAuthorityFrequency(w, item);
+        writeTitle(w, item);
+        writeDefinition(w, item);
+        writeDescription(w, item);
+
+        writeRoles(w, item);
+        writeInScheme(w, item);
+        writeHasPartsTopConcepts(w, item);
+        writeStatus(w, item);
+
+        w.endDescription();
+
+        //        write formats by selected language
+        writeFormats(w, item, lang);
+
+//        write items
+        if (source != null) {
+            source.forEach(ci -> {
+                writeItemShortVersion(w, ci);
+                writeFormats(w, ci, lang);
+            });
+        } else if (item.getContainedItems() != null) {
+            for (ContainedItem ci : item.getContainedItems()) {
+                writeItemShortVersion(w, ci);
+                writeFormats(w, ci, lang);
+            }
+        }
+    }
+
+    private void writeItemShortVersion(TripleWriter w, ContainedItem item) throws Exception {
+        w.startDescription(item.getUri());
+        w.literal(DCT, "identifier", "http://www.w3.org/2000/01/rdf-schema#Literal", item.getUri());
+
+        writeRegistryElement(w, item);
+        writeRegisterElement(w, item);
+
+        writeVersion(w, item);
+
+//        writeRDFType(w, item);
+        w.resource(RDF, "type", "http://www.w3.org/2004/02/skos/core#Concept");
+
+        writeInScheme(w, item);
+        writeTopConceptOf(w, item);
+
+        writeDate(w, item);
+
+//        writeFileFormat(w, item);
+//        writeAuthorityFrequency(w, item);
+//        writeRoles(w, item);
+        writeTitle(w, item);
+        writeDefinition(w, item);
+        writeDescription(w, item);
+
+        writeNarrower(w, item);
+        writeBroader(w, item);//WRONG
+//        writeHasPartsTopConcepts(w, item);
+
+        writeIsDefinedBy(w, item);
+        writeStatus(w, item);
+        w.endDescription();
+
+        //        write formats by selected language
+//        writeFormats(w, item);
+//        write items
+        if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
+            for (ContainedItem ci : item.getContainedItems()) {
+                writeItemShortVersion(w, ci);
+            }
+        }
+    }
+
+    private void writeItem(TripleWriter w, ContainedItem item, RegLanguagecode lang) throws Exception {
+        w.startDescription(item.getUri());
+        w.literal(DCT, "identifier", "http://www.w3.org/2000/01/rdf-schema#Literal", item.getUri());
+
+        writeRegistryElement(w, item);
+        writeRegisterElement(w, item);
+
+        writeVersion(w, item);
+
+        writeRDFType(w, item);
+
+        writeInScheme(w, item);
+        writeTopConceptOf(w, item);
+
+        writeDate(w, item);
+
+        writeFileFormat(w, item);
+        writeAuthorityFrequency(w, item);
+
+        writeRoles(w, item);
+
+        writeTitle(w, item);
+        writeDefinition(w, item);
+        writeDescription(w, item);
+
+//        writeNarrower(w, item);
+//        writeBroader(w, item);//WRONG
+        writeHasPartsTopConcepts(w, item);
+
+        writeIsDefinedBy(w, item);
+        writeStatus(w, item);
+        w.endDescription();
+
+        writeFormats(w, item, lang);
+
+        if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
+            for (ContainedItem ci : item.getContainedItems()) {
+                writeItemShortVersion(w, ci);
+            }
+        }
+    }
+
+    private void writeRDFType(TripleWriter w, ContainedItem item) throws Exception {
+        switch (item.getType()) {
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
+                w.resource(RDF, "type", "http://www.w3.org/ns/dcat#Catalog");
+                w.resource(RDF, "type", "http://www.w3.org/2004/02/skos/core#ConceptScheme");
+                break;
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
+                w.resource(RDF, "type", "http://www.w3.org/ns/dcat#Dataset");
+                w.resource(RDF, "type", "http://www.w3.org/2004/02/skos/core#ConceptScheme");
+                break;
+            default:
+                if (item.isIsParent()) {
+                    w.resource(RDF, "type", "http://www.w3.org/2004/02/skos/core#Dataset");
+                } else if (item.isHasCollection()) {
+                    w.resource(RDF, "type", "http://www.w3.org/2004/02/skos/core#Concept");
+                } else {
+                    w.resource(RDF, "type", "http://www.w3.org/2004/02/skos/core#ConceptScheme");
+                }
+                break;
+        }
+    }
+
+    private void writeDate(TripleWriter w, ContainedItem item) throws Exception {
+        String convertedInsertDate = DateUtil.convertDate(item.getInsertdate());
+        if (convertedInsertDate != null) {
+            w.literal(DCT, "created", "http://www.w3.org/2001/XMLSchema#date", convertedInsertDate);
+        }
+
+        if (item.getEditdate() != null) {
+            String convertedEditDate = DateUtil.convertDate(item.getEditdate());
+            if (convertedEditDate != null) {
+                w.literal(DCT, "issued", "http://www.w3.org/2001/XMLSchema#date", convertedEditDate);
+            }
+        }
+    }
+
+    private void writeTitle(TripleWriter w, ContainedItem item) throws Exception {
+        Optional<LocalizedProperty> maybeTitle = item.getProperties().stream()
+                .filter(it -> "true".equals(it.getIstitle()))
+                .findAny();
+        if (!maybeTitle.isPresent()) {
+            return;
+        }
+        LocalizedProperty title = maybeTitle.get();
+        String lang = title.getLang();
+        w.langLiteral(DCT, "title", lang, title.getValues().get(0).getValue());
+        w.langLiteral(SKOS, "prefLabel", lang, title.getValues().get(0).getValue());
+    }
+
+    private void writeDefinition(TripleWriter w, ContainedItem item) throws Exception {
+        Optional<LocalizedProperty> maybeDefinition = item.getProperty("contentsummary");
+        if (!maybeDefinition.isPresent()) {
+            maybeDefinition = item.getProperty("definition");
+        }
+        if (!maybeDefinition.isPresent()) {
+            return;
+        }
+        LocalizedProperty desc = maybeDefinition.get();
+        String lang = desc.getLang();
+        String description = desc.getValues().stream()
+                .findAny().map(it -> it.getValue()).orElse(null);
+        if (description == null || description.isEmpty()) {
+            return;
+        }
+        w.langLiteral(DCT, "description", lang, description);
+        w.langLiteral(SKOS, "definition", lang, description);
+    }
+
+    private void writeDescription(TripleWriter w, ContainedItem item) throws Exception {
+        Optional<LocalizedProperty> maybeDescription = item.getProperty("description");
+        if (!maybeDescription.isPresent()) {
+            return;
+        }
+        LocalizedProperty desc = maybeDescription.get();
+        String lang = desc.getLang();
+        String description = desc.getValues().stream()
+                .findAny().map(it -> it.getValue()).orElse(null);
+        if (description == null || description.isEmpty()) {
+            return;
+        }
+        w.langLiteral(VANN, "usageNote", lang, description);
+    }
+
+    private void writeRoles(TripleWriter w, ContainedItem item) throws Exception {
+        for (String roleProperty : ROLE_PROPERTY_TO_ELEMENT.keySet()) {
+            Optional<LocalizedProperty> p = item.getProperty(roleProperty);
+            if (!p.isPresent()) {
+                continue;
+            }
+            String localName = ROLE_PROPERTY_TO_ELEMENT.get(roleProperty);
+
+            String lang = p.get().getLang();
+            String value = p.get().getValues().get(0).getValue();
+            String href = p.get().getValues().get(0).getHref();
+
+            if ("contactPoint".equals(localName)) {
+                w.startNode(DCAT, "contactPoint", VCARD, "Kind");
+                w.langLiteral(VCARD, "fn", lang, value);
+                w.resource(VCARD, "hasEmail", href);
+                w.endNode();
+            } else {
+                w.startNode(DCT, localName, FOAF, "Agent");
+                w.langLiteral(FOAF, "name", lang, value);
+                w.endNode();
+            }
+
+        }
+    }
+
+    private void writeHasPartsTopConcepts(TripleWriter w, ContainedItem containedItem) throws Exception {
+        if (containedItem.getTopConcepts() != null) {
+            for (BasicContainedItem ci : containedItem.getTopConcepts()) {
+                switch (containedItem.getType()) {
+                    case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY: {
+                        w.resource(DCAT, "dataset", ci.getUri());
+                    }
+                    break;
+                    default:
+                        w.resource(DCT, "hasPart", ci.getUri());
+                        break;
+                }
+            }
+            for (BasicContainedItem ci : containedItem.getTopConcepts()) {
+                w.resource(SKOS, "hasTopConcept", ci.getUri());
+            }
+        }
+    }
+
+    private void writeNarrower(TripleWriter w, ContainedItem containedItem) throws Exception {
+        List<BasicContainedItem> narrowerList = containedItem.getNarrower();
+        if (narrowerList != null && !narrowerList.isEmpty()) {
+            for (BasicContainedItem narrower : narrowerList) {
+                w.resource(SKOS, "narrower", narrower.getUri());
+            }
+        }
+    }
+
+    private void writeBroader(TripleWriter w, ContainedItem containedItem) throws Exception {
+        List<BasicContainedItem> broaderList = containedItem.getBroader();
+        if (broaderList != null && !broaderList.isEmpty()) {
+            for (BasicContainedItem broader : broaderList) {
+                w.resource(SKOS, "broader", broader.getUri());
+            }
+        }
+    }
+
+    private void writeInScheme(TripleWriter w, ContainedItem item) throws Exception {
+        switch (item.getType()) {
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
+                break;
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
+                w.resource(SKOS, "inScheme", item.getRegistry().getUri());
+                break;
+            default:
+                if (item.getInScheme() != null && item.getInScheme().getUri() != null) {
+                    w.resource(SKOS, "inScheme", item.getInScheme().getUri());
+                }
+                break;
+        }
+    }
+
+    private void writeTopConceptOf(TripleWriter w, ContainedItem item) throws Exception {
+        switch (item.getType()) {
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY: {
+            }
+            break;
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
+                w.resource(SKOS, "topConceptOf", item.getRegistry().getUri());
+                break;
+            default:
+                if (item.getTopConceptOf() != null) {
+                    w.resource(SKOS, "topConceptOf", item.getTopConceptOf().getUri());
+                }
+                break;
+        }
+    }
+
+    private void writeIsDefinedBy(TripleWriter w, ContainedItem item) throws Exception {
+        switch (item.getType()) {
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
+                break;
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
+                break;
+            default:
+                List<ContainedItem> referenceList = item.getIsDefinedBy();
+                if (referenceList != null) {
+                    for (ContainedItem basicContainedItem : referenceList) {
+                        w.resource(RDFS, "isDefinedBy", basicContainedItem.getUri());
+                    }
+                }
+                break;
+        }
+    }
+
+    private void writeInScheme(TripleWriter w, ContainedItem containedItem, ContainedItem item) throws Exception {
+        switch (item.getType()) {
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY: {
+                w.resource(SKOS, "inScheme", containedItem.getRegistry().getUri());
+            }
+            break;
+            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
+                w.resource(SKOS, "inScheme", containedItem.getRegister().getUri());
+                break;
+            default:
+                w.resource(SKOS, "inScheme", item.getUri());
+                break;
+        }
+    }
+
+    private void writeFormats(TripleWriter w, ContainedItem item, RegLanguagecode lang) throws Exception {
+        String identifierPart;
+        if (item.isExternal()) {
+            identifierPart = item.getUri() + "." + lang.getIso6391code() + ".";
+        } else {
+            w.startDescription(item.getUri());
+            w.resource(FOAF, "primaryTopic", item.getUri());
+            identifierPart = item.getUri() + "/" + item.getLocalid() + "." + lang.getIso6391code() + ".";
+
+            AvailableFormatsUtil availableFormatsUtil = new AvailableFormatsUtil();
+            final List<String> availableFormatsList = availableFormatsUtil.getFormatList();
+            for (String format : availableFormatsList) {
+                w.resource(DCT, "hasFormat", identifierPart + format);
+            }
+
+            w.endDescription();
+
+            for (String format : availableFormatsList) {
+                w.startDescription(identifierPart + format);
+                w.langLiteral(RDFS, "label", lang.getIso6391code(), format.toUpperCase());
+                w.resource(DCT, "format", "http://publications.europa.eu/resource/authority/file-type/" + format.toUpperCase());
+                w.resource(DCT, "language", "http://publications.europa.eu/resource/authority/file-type/" + lang.getIso6392code().toUpperCase());
+                w.endDescription();
+            }
+        }
+    }
+
+    private void writeStatus(TripleWriter w, ContainedItem item) throws Exception {
+        Optional<LocalizedProperty> maybeStatus = item.getProperty("status");
+        if (!maybeStatus.isPresent()) {
+            return;
+        }
+        LocalizedProperty desc = maybeStatus.get();
+        String status = desc.getValues().stream()
+                .findAny().map(it -> it.getHref()).orElse(null);
+        if (status == null || status.isEmpty()) {
+            return;
+        }
+
+        w.resource(ADMS, "status", status);
+    }
+
+    private void writeFileFormat(TripleWriter w, ContainedItem item) throws Exception {
+        w.resource(DCT, "format", "http://www.iana.org/assignments/media-types/" + getContentType());
+    }
+
+    private void writeAuthorityFrequency(TripleWriter w, ContainedItem item) throws Exception {
+        w.resource(DCT, "accrualPeriodicity", "http://publications.europa.eu/resource/authority/frequency/UNKNOWN");
+    }
+
+    private void writeVersion(TripleWriter w, ContainedItem item) throws Exception {
+        List<VersionInformation> versionHistory = item.getVersionHistory();
+        w.resource(OWL, "sameAs", item.getUri() + ":" + (versionHistory.size() + 1));
+        w.resource(ADMS, "last", item.getUri());
+        if (versionHistory.size() != 0) {
+            w.resource(ADMS, "prev", item.getUri() + ":" + versionHistory.size());
+        }
+    }
+
+    private void writeRegistryElement(TripleWriter w, ContainedItem item) throws Exception {
+        w.typedResource(DCAT, "isPartOf", DCAT, "Catalog", item.getRegistry().getUri());
+    }
+
+    private void writeRegisterElement(TripleWriter w, ContainedItem item) throws Exception {
+        w.typedResource(DCAT, "isPartOf", DCAT, "Catalog", item.getRegister().getUri());
+    }
+
+}
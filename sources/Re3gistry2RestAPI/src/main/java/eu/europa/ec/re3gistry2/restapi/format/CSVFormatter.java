@@ -27,36 +27,29 @@
 package eu.europa.ec.re3gistry2.restapi.format;
 
 import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
-import eu.europa.ec.re3gistry2.crudimplementation.RegFieldmappingManager;
-import eu.europa.ec.re3gistry2.crudimplementation.RegItemclassManager;
 import eu.europa.ec.re3gistry2.model.RegFieldmapping;
-import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
 import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
 import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
+import java.io.BufferedWriter;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import javax.persistence.EntityManager;
-import javax.persistence.EntityManagerFactory;
 import javax.xml.stream.XMLStreamException;
 
 public class CSVFormatter implements Formatter {
 
     private static final String XSISCHEMALOCATION = "http://www.w3.org/2001/XMLSchema-instance";
     private static final String NS_XML = "http://www.w3.org/XML/1998/namespace";
-    private RegLanguagecode languageFile;
     private final String NEW_LINE = "\n";
     private final String PIPE = "|";
 
-    private EntityManager em;
-
-    public CSVFormatter(EntityManagerFactory emf) {
-        this.em = emf.createEntityManager();
-    }
-
     @Override
     public String getFormatName() {
         return "csv";
@@ -68,70 +61,92 @@ public class CSVFormatter implements Formatter {
     }
 
     @Override
-    public void write(Item item, RegLanguagecode lang, OutputStream out) throws Exception {
-        this.languageFile = lang;
-
-        writeItem(out, item);
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            RowWriter rowWriter = new RowWriter(writer, context.getMetadata(), context.getLanguage().getIso6391code());
+            writer.write("ID|Language");
+
+            ContainedItemSource source = context.getContainedItemSource();
+            if (source != null) {
+                // Whole register: the rows are written while they are read
+                source.forEach(rowWriter::write);
+            } else if (item.getContainedItems() != null) {
+                for (ContainedItem ci : item.getContainedItems()) {
+                    rowWriter.write(ci);
+                }
+            }
+        }
     }
 
-    private void writeItem(OutputStream out, Item item) throws Exception {
-        OutputStreamWriter osw = new OutputStreamWriter(out, "UTF-8");
-
-        RegFieldmappingManager regFieldmappingManager = new RegFieldmappingManager(em);
-        RegItemclassManager regItemclassManager = new RegItemclassManager(em);
-
-        String fileContent = "ID|Language";
-        List<String> headerFieldsList = new ArrayList<>();
-
-        if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
-
-            ContainedItem firstItem = item.getContainedItems().get(0);
-
-            List<RegFieldmapping> fieldList = regFieldmappingManager.getAllOrderAscByListorder(regItemclassManager.getByLocalid(firstItem.getItemclass().getId()));
-            for (RegFieldmapping regFieldmapping : fieldList) {
-                String fieldName = regFieldmapping.getRegField().getLocalid();
+    /**
+     * Writes one row per contained item, the header (with the fields of the
+     * item class of the first item, in list order) before the first row.
+     */
+    private class RowWriter {
+
+        private final Writer writer;
+        private final RegistryMetadata metadata;
+        private final String language;
+        private List<String> headerFieldsList;
+
+        private RowWriter(Writer writer, RegistryMetadata metadata, String language) {
+            this.writer = writer;
+            this.metadata = metadata;
+            this.language = language;
+        }
 
-                fileContent = fileContent + PIPE + fieldName;
-                headerFieldsList.add(fieldName);
+        private void write(ContainedItem ci) throws Exception {
+            if (headerFieldsList == null) {
+                writeHeader(ci);
             }
-            fileContent = fileContent + NEW_LINE;
-
-            for (ContainedItem ci : item.getContainedItems()) {
-                fileContent = fileContent + ci.getUri() + PIPE + languageFile.getIso6391code();
 
-                for (String filedName : headerFieldsList) {
-                    fileContent = fileContent + PIPE + getFieldValue(ci, filedName);
-                }
-                fileContent = fileContent + NEW_LINE;
-                if (ci.isHasCollection()) {
-                    if (ci.getContainedItems() != null && !ci.getContainedItems().isEmpty()) {
-                        for (ContainedItem containedItem : ci.getContainedItems()) {
-                            fileContent = fileContent + containedItem.getUri() + PIPE + languageFile.getIso6391code();
-
-                            for (String filedName : headerFieldsList) {
-                                if (null != filedName) {
-                                    switch (filedName) {
-                                        case "registry":
-                                            fileContent = fileContent + PIPE + getRegistryValue(containedItem, filedName);
-                                            break;
-                                        case "register":
-                                            fileContent = fileContent + PIPE + getRegisterValue(containedItem, filedName);
-                                            break;
-                                        default:
-                                            fileContent = fileContent + PIPE + getFieldValue(containedItem, filedName);
-                                            break;
-                                    }
-                                }
-                            }
-                            fileContent = fileContent + NEW_LINE;
+            writer.write(ci.getUri());
+            writer.write(PIPE);
+            writer.write(language);
+            for (String filedName : headerFieldsList) {
+                writer.write(PIPE);
+                writer.write(getFieldValue(ci, filedName));
+            }
+            writer.write(NEW_LINE);
+
+            if (ci.isHasCollection() && ci.getContainedItems() != null) {
+                for (ContainedItem containedItem : ci.getContainedItems()) {
+                    writer.write(containedItem.getUri());
+                    writer.write(PIPE);
+                    writer.write(language);
+                    for (String filedName : headerFieldsList) {
+                        writer.write(PIPE);
+                        switch (filedName) {
+                            case "registry":
+                                writer.write(getRegistryValue(containedItem, filedName));
+                                break;
+                            case "register":
+                                writer.write(getRegisterValue(containedItem, filedName));
+                                break;
+                            default:
+                                writer.write(getFieldValue(containedItem, filedName));
+                                break;
                         }
                     }
+                    writer.write(NEW_LINE);
                 }
             }
         }
-        osw.write(fileContent);
-        osw.flush();
-        osw.close();
+
+        private void writeHeader(ContainedItem firstItem) throws Exception {
+            headerFieldsList = new ArrayList<>();
+            RegItemclass itemclass = metadata.getItemclassByLocalid(firstItem.getItemclass().getId());
+            if (itemclass != null) {
+                for (RegFieldmapping regFieldmapping : metadata.getFieldmappings(itemclass)) {
+                    String fieldName = regFieldmapping.getRegField().getLocalid();
+                    headerFieldsList.add(fieldName);
+                    writer.write(PIPE);
+                    writer.write(fieldName);
+                }
+            }
+            writer.write(NEW_LINE);
+        }
+
     }
 
     private String getRegistryValue(ContainedItem item, String propertyName) throws XMLStreamException {
@@ -28,13 +28,12 @@ package eu.europa.ec.re3gistry2.restapi.format;
 
 import java.io.OutputStream;
 
-import eu.europa.ec.re3gistry2.model.RegLanguagecode;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
 
 public interface Formatter {
 
     public String getFormatName();
     public String getContentType();
-    public void write(Item item, RegLanguagecode lang, OutputStream out) throws Exception;
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception;
 
 }
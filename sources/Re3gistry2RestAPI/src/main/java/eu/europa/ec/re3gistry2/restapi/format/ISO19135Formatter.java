@@ -58,7 +58,8 @@ public class ISO19135Formatter implements Formatter {
     }
 
     @Override
-    public void write(Item item, RegLanguagecode lang, OutputStream out) throws Exception {
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
+        RegLanguagecode lang = context.getLanguage();
         if (BaseConstants.KEY_ITEMCLASS_TYPE_ITEM.equals(item.getType())) {
             if (item.getContainedItems() == null || item.getContainedItems().isEmpty()) {
                 // Not a Collection
@@ -26,28 +26,54 @@
  */
 package eu.europa.ec.re3gistry2.restapi.format;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
-import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
 import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
 import eu.europa.ec.re3gistry2.restapi.model.ItemRef;
 import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
 import eu.europa.ec.re3gistry2.restapi.model.VersionInformation;
 import eu.europa.ec.re3gistry2.restapi.util.DateUtil;
-import java.io.OutputStreamWriter;
-import java.util.List;
-import java.util.Optional;
-import org.json.JSONArray;
-import org.json.simple.JSONObject;
 
+/**
+ * Writes the items in JSON, straight from the model to the output stream.
+ *
+ * The fields of an object are collected first (a field set twice keeps its
+ * last value, in the position of the first one) and then written with a
+ * streaming generator; the values themselves are read from the model only
+ * while writing.
+ */
 public class JSONFormatter implements Formatter {
 
-    private RegLanguagecode languageFile;
+    // Thread-safe, shared by all the generators
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    static {
+        JSON_FACTORY.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private final boolean compact;
+
+    public JSONFormatter() {
+        this(false);
+    }
+
+    /**
+     * @param compact true to write the items without indentation, registries
+     * and registers are never indented
+     */
+    public JSONFormatter(boolean compact) {
+        this.compact = compact;
+    }
 
     @Override
     public String getFormatName() {
@@ -60,251 +86,161 @@ public class JSONFormatter implements Formatter {
     }
 
     @Override
-    public void write(Item item, RegLanguagecode language, OutputStream out) throws Exception {
-        this.languageFile = language;
-
-        switch (item.getType()) {
-            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
-                writeRegistry(out, item);
-                break;
-            case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
-                writeRegister(out, item);
-                break;
-            default:
-                writeItem(out, item);
-                break;
-        }
-    }
-
-    private void writeRegistry(OutputStream out, Item item) throws Exception {
-        OutputStreamWriter osw = new OutputStreamWriter(out, "UTF-8");
-
-        JSONObject regItemJsonObject = new JSONObject();
-        writeLanguage(regItemJsonObject);
-        writeDate(regItemJsonObject, item);
-        writeVersions(regItemJsonObject, item);
-        writeFields(regItemJsonObject, item);
-        writeItemclass(regItemJsonObject, item);
-        writeIsDefinedBy(regItemJsonObject, item);
-        writeRegistryAndRegister(regItemJsonObject, item);
-
-        if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
-            JSONObject containedItemsJSON = new JSONObject();
-            for (ContainedItem ci : item.getContainedItems()) {
-                regItemJsonObject.put("register", writeRegisterShortVersion(containedItemsJSON, ci));
-            }
-            regItemJsonObject.put("registers", containedItemsJSON);
-        }
-
-        //First Employee
-        JSONObject employeeObject = new JSONObject();
-        employeeObject.put(item.getItemclass().getId().toLowerCase(), regItemJsonObject);
-
-        osw.write(employeeObject.toJSONString());
-        osw.flush();
-        osw.close();
-    }
-
-    private JSONObject writeRegisterShortVersion(JSONObject regItemJsonObject, ContainedItem item) {
-        writeVersions(regItemJsonObject, item);
-        writeLanguage(regItemJsonObject);
-        writeDate(regItemJsonObject, item);
-        writeFields(regItemJsonObject, item);
-        writeItemclass(regItemJsonObject, item);
-        writeIsDefinedBy(regItemJsonObject, item);
-        writeRegistryAndRegister(regItemJsonObject, item);
-        return regItemJsonObject;
-    }
-
-    private void writeRegister(OutputStream out, Item item) throws Exception {
-        OutputStreamWriter osw = new OutputStreamWriter(out, "UTF-8");
-
-        JSONObject regItemJsonObject = new JSONObject();
-        writeVersions(regItemJsonObject, item);
-        writeLanguage(regItemJsonObject);
-        writeDate(regItemJsonObject, item);
-        writeFields(regItemJsonObject, item);
-        writeItemclass(regItemJsonObject, item);
-        writeIsDefinedBy(regItemJsonObject, item);
-        writeRegistryAndRegister(regItemJsonObject, item);
-
-        if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
-            JSONObject containedItemsJSON = new JSONObject();
-            for (ContainedItem ci : item.getContainedItems()) {
-                regItemJsonObject.put("value", writeItemShortVersion(containedItemsJSON, ci));
-
-                if (ci.isHasCollection()) {
-                    if (ci.getContainedItems() != null && !ci.getContainedItems().isEmpty()) {
-                        for (ContainedItem c : ci.getContainedItems()) {
-                            regItemJsonObject.put(ci.getItemclass().getId().toLowerCase(), writeItemShortVersion(containedItemsJSON, c));
-                        }
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
+        String languageCode = context.getLanguage().getIso6391code();
+
+        Map<String, FieldWriter> fields = new LinkedHashMap<>();
+        putFields(fields, item, languageCode);
+
+        List<ContainedItem> containedItems = item.getContainedItems();
+        if (containedItems != null && !containedItems.isEmpty()) {
+            boolean registry = BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY.equals(item.getType());
+            // The contained items are merged in one object, written only once
+            // all of them are collected
+            Map<String, FieldWriter> containedFields = new LinkedHashMap<>();
+            FieldWriter contained = gen -> writeObject(gen, containedFields);
+            for (ContainedItem ci : containedItems) {
+                putFields(containedFields, ci, languageCode);
+                if (registry) {
+                    fields.put("register", contained);
+                    continue;
+                }
+                fields.put("value", contained);
+
+                if (ci.isHasCollection() && ci.getContainedItems() != null && !ci.getContainedItems().isEmpty()) {
+                    String key = BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER.equals(item.getType())
+                            ? ci.getItemclass().getId().toLowerCase()
+                            : "value";
+                    for (ContainedItem c : ci.getContainedItems()) {
+                        putFields(containedFields, c, languageCode);
+                        fields.put(key, contained);
                     }
                 }
             }
-            regItemJsonObject.put("containeditems", containedItemsJSON);
+            fields.put(registry ? "registers" : "containeditems", contained);
         }
 
-        JSONObject regiItemJSONObject = new JSONObject();
-        regiItemJSONObject.put(item.getItemclass().getId().toLowerCase(), regItemJsonObject);
-
-        osw.write(regiItemJSONObject.toJSONString());
-        osw.flush();
-        osw.close();
-    }
-
-    private void writeItem(OutputStream out, Item item) throws Exception {
-        OutputStreamWriter osw = new OutputStreamWriter(out, "UTF-8");
-
-        JSONObject regItemJsonObject = new JSONObject();
-        writeVersions(regItemJsonObject, item);
-        writeLanguage(regItemJsonObject);
-        writeDate(regItemJsonObject, item);
-        writeFields(regItemJsonObject, item);
-        writeItemclass(regItemJsonObject, item);
-        writeIsDefinedBy(regItemJsonObject, item);
-        writeRegistryAndRegister(regItemJsonObject, item);
-
-        if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
-            JSONObject containedItemsJSON = new JSONObject();
-            for (ContainedItem ci : item.getContainedItems()) {
-                regItemJsonObject.put("value", writeItemShortVersion(containedItemsJSON, ci));
-
-                if (ci.isHasCollection()) {
-                    if (ci.getContainedItems() != null && !ci.getContainedItems().isEmpty()) {
-                        for (ContainedItem c : ci.getContainedItems()) {
-                            regItemJsonObject.put("value", writeItemShortVersion(containedItemsJSON, c));
-                        }
-                    }
-                }
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            // As before the streaming writer, registries and registers are
+            // always written on one line
+            if (!compact && !isRegistryOrRegister(item)) {
+                gen.useDefaultPrettyPrinter();
             }
-            regItemJsonObject.put("containeditems", containedItemsJSON);
+            gen.writeStartObject();
+            gen.writeFieldName(item.getItemclass().getId().toLowerCase());
+            writeObject(gen, fields);
+            gen.writeEndObject();
         }
-
-        JSONObject regiItemJSONObject = new JSONObject();
-        regiItemJSONObject.put(item.getItemclass().getId().toLowerCase(), regItemJsonObject);
-
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-
-        osw.write(mapper.writeValueAsString(regiItemJSONObject));
-        osw.flush();
-        osw.close();
     }
 
-    private JSONObject writeItemShortVersion(JSONObject regItemJsonObject, ContainedItem item) {
-        writeVersions(regItemJsonObject, item);
-        writeLanguage(regItemJsonObject);
-        writeDate(regItemJsonObject, item);
-        writeFields(regItemJsonObject, item);
-        writeItemclass(regItemJsonObject, item);
-        writeIsDefinedBy(regItemJsonObject, item);
-        writeRegistryAndRegister(regItemJsonObject, item);
-        return regItemJsonObject;
+    private static boolean isRegistryOrRegister(Item item) {
+        return BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY.equals(item.getType())
+                || BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER.equals(item.getType());
     }
 
-    private void writeLanguage(JSONObject regItemJsonObject) {
-        regItemJsonObject.put("language", languageFile.getIso6391code());
+    private void putFields(Map<String, FieldWriter> fields, ContainedItem item, String language) {
+        putVersions(fields, item);
+        fields.put("language", gen -> gen.writeString(language));
+        putDate(fields, item);
+        putProperties(fields, item);
+        putItemclass(fields, item);
+        putIsDefinedBy(fields, item);
+        putRegistryAndRegister(fields, item);
     }
 
-    private void writeDate(JSONObject regItemJsonObject, ContainedItem item) {
-        String convertedInsertDate = DateUtil.convertDate(item.getInsertdate());
-        if (convertedInsertDate != null) {
-            regItemJsonObject.put("created", convertedInsertDate);
+    private void putDate(Map<String, FieldWriter> fields, ContainedItem item) {
+        if (item.getInsertdate() != null) {
+            String convertedInsertDate = DateUtil.convertDate(item.getInsertdate());
+            if (convertedInsertDate != null) {
+                fields.put("created", gen -> gen.writeString(convertedInsertDate));
+            }
         }
 
         if (item.getEditdate() != null) {
             String convertedEditDate = DateUtil.convertDate(item.getEditdate());
             if (convertedEditDate != null) {
-                regItemJsonObject.put("issued", convertedEditDate);
+                fields.put("issued", gen -> gen.writeString(convertedEditDate));
             }
         }
     }
 
-    private void writeVersions(JSONObject regItemJsonObject, ContainedItem item) {
+    private void putVersions(Map<String, FieldWriter> fields, ContainedItem item) {
         List<VersionInformation> versionHistory = item.getVersionHistory();
         VersionInformation version = item.getVersion();
 
-        regItemJsonObject.put("id", item.getUri());
-        regItemJsonObject.put("thisversion", version.getUri() + ":" + version.getNumber());
-        regItemJsonObject.put("latestversion", item.getUri());
-        if (!versionHistory.isEmpty()) {
-            JSONArray previousversionsArray = new JSONArray();
-            JSONObject versionJson = new JSONObject();
-            for (VersionInformation versionInformation : versionHistory) {
-                versionJson.put("version", versionInformation.getUri() + ":" + versionInformation.getNumber());
-            }
-            previousversionsArray.put(versionJson);
-            regItemJsonObject.put("previousversions", previousversionsArray);
+        fields.put("id", gen -> gen.writeString(item.getUri()));
+        // Left out of the projected items
+        if (version != null) {
+            fields.put("thisversion", gen -> gen.writeString(version.getUri() + ":" + version.getNumber()));
+            fields.put("latestversion", gen -> gen.writeString(item.getUri()));
+        }
+        if (versionHistory != null && !versionHistory.isEmpty()) {
+            // Only the last previous version is listed
+            VersionInformation last = versionHistory.get(versionHistory.size() - 1);
+            fields.put("previousversions", gen -> {
+                gen.writeStartArray();
+                gen.writeStartObject();
+                gen.writeStringField("version", last.getUri() + ":" + last.getNumber());
+                gen.writeEndObject();
+                gen.writeEndArray();
+            });
         }
     }
 
-    private void writeFields(JSONObject regItemJsonObject, ContainedItem item) {
-        List<LocalizedProperty> maybeDefinition = item.getProperties();
-        maybeDefinition.forEach((localizedProperty) -> {
+    private void putProperties(Map<String, FieldWriter> fields, ContainedItem item) {
+        if (item.getProperties() == null) {
+            return;
+        }
+        for (LocalizedProperty localizedProperty : item.getProperties()) {
+            if (localizedProperty.getValues().isEmpty()) {
+                continue;
+            }
             String lang = localizedProperty.getLang();
-            if (!localizedProperty.getValues().isEmpty()) {
-                String value = localizedProperty.getValues().get(0).getValue();
-                String href = localizedProperty.getValues().get(0).getHref();
-
-                String fieldName = localizedProperty.getLabel().replace("-item", "");
-
-                String localNameLowerCase = fieldName.toLowerCase();
-
-                if (fieldName != null && "contactpoint".equals(localNameLowerCase)) {
-                    JSONObject json = new JSONObject();
-                    json.put("label", value);
-                    json.put("email", href);
-                    regItemJsonObject.put(fieldName, json);
-                } else if (fieldName != null && "license".equals(localNameLowerCase)) {
-                    JSONObject json = new JSONObject();
-                    json.put("label", value);
-                    json.put("uri", href);
-                    regItemJsonObject.put(fieldName, json);
-                } else if (fieldName != null && "governance-level".equals(localNameLowerCase)) {
-                    JSONObject labelJson = new JSONObject();
-                    labelJson.put("lang", item.getLanguage());
-                    labelJson.put("text", value);
-
-                    JSONObject json = new JSONObject();
-                    json.put("label", labelJson);
-                    json.put("uri", href);
-
-                    regItemJsonObject.put(fieldName, json);
-                } else if (fieldName != null && "status".equals(localNameLowerCase)) {
-                    String itemClassName = item.getItemclass().getId();
-                    JSONObject labelJson = new JSONObject();
-                    labelJson.put("lang", item.getLanguage());
-                    labelJson.put("text", value);
-
-                    JSONObject json = new JSONObject();
-                    json.put("label", labelJson);
-                    json.put("id", href);
-
-                    regItemJsonObject.put(fieldName, json);
-                } else if (fieldName != null && ("annex".equals(localNameLowerCase) || "themenumber".equals(localNameLowerCase))) {
-                    regItemJsonObject.put(localNameLowerCase, value);
-                } else if (!href.isEmpty() && !value.isEmpty()) {
-                    JSONObject labelJson = new JSONObject();
-                    labelJson.put("lang", item.getLanguage());
-                    labelJson.put("text", value);
-
-                    JSONObject json = new JSONObject();
-                    json.put("label", labelJson);
-                    json.put("uri", href);
-
-                    regItemJsonObject.put(fieldName, json);
-                } else {
-                    JSONObject labelJson = new JSONObject();
-                    labelJson.put("lang", lang);
-                    labelJson.put("text", value);
-
-                    regItemJsonObject.put(localNameLowerCase, labelJson);
-                }
+            String value = localizedProperty.getValues().get(0).getValue();
+            String href = localizedProperty.getValues().get(0).getHref();
+
+            String fieldName = localizedProperty.getLabel().replace("-item", "");
+            String localNameLowerCase = fieldName.toLowerCase();
+
+            switch (localNameLowerCase) {
+                case "contactpoint":
+                    fields.put(fieldName, gen -> {
+                        gen.writeStartObject();
+                        gen.writeStringField("label", value);
+                        gen.writeStringField("email", href);
+                        gen.writeEndObject();
+                    });
+                    break;
+                case "license":
+                    fields.put(fieldName, gen -> {
+                        gen.writeStartObject();
+                        gen.writeStringField("label", value);
+                        gen.writeStringField("uri", href);
+                        gen.writeEndObject();
+                    });
+                    break;
+                case "governance-level":
+                    fields.put(fieldName, gen -> writeReference(gen, item.getLanguage(), value, "uri", href));
+                    break;
+                case "status":
+                    fields.put(fieldName, gen -> writeReference(gen, item.getLanguage(), value, "id", href));
+                    break;
+                case "annex":
+                case "themenumber":
+                    fields.put(localNameLowerCase, gen -> gen.writeString(value));
+                    break;
+                default:
+                    if (!href.isEmpty() && !value.isEmpty()) {
+                        fields.put(fieldName, gen -> writeReference(gen, item.getLanguage(), value, "uri", href));
+                    } else {
+                        fields.put(localNameLowerCase, gen -> writeLabel(gen, lang, value));
+                    }
+                    break;
             }
-        });
+        }
     }
 
-    private void writeItemclass(JSONObject regItemJsonObject, ContainedItem item) {
+    private void putItemclass(Map<String, FieldWriter> fields, ContainedItem item) {
         switch (item.getType()) {
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
                 break;
@@ -312,20 +248,12 @@ public class JSONFormatter implements Formatter {
                 break;
             default:
                 String itemClassName = item.getItemclass().getId();
-                JSONObject labelJson = new JSONObject();
-                labelJson.put("lang", item.getLanguage());
-                labelJson.put("text", itemClassName);
-
-                JSONObject json = new JSONObject();
-                json.put("label", labelJson);
-                json.put("uriname", itemClassName);
-
-                regItemJsonObject.put("itemclass", json);
+                fields.put("itemclass", gen -> writeReference(gen, item.getLanguage(), itemClassName, "uriname", itemClassName));
                 break;
         }
     }
 
-    private void writeIsDefinedBy(JSONObject regItemJsonObject, ContainedItem item) {
+    private void putIsDefinedBy(Map<String, FieldWriter> fields, ContainedItem item) {
         switch (item.getType()) {
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
                 break;
@@ -334,63 +262,84 @@ public class JSONFormatter implements Formatter {
             default:
                 List<ContainedItem> referenceList = item.getIsDefinedBy();
                 if (referenceList != null) {
-                    referenceList.forEach((containedItem) -> {
-                        JSONObject labelJson = new JSONObject();
-                        labelJson.put("lang", containedItem.getLanguage());
-                        labelJson.put("text", containedItem.getLocalid());
-
-                        JSONObject json = new JSONObject();
-                        json.put("label", labelJson);
-                        json.put("uri", containedItem.getUri());
-
-                        regItemJsonObject.put(containedItem.getItemclass().getId().toLowerCase().replace("-item", ""), json);
-                    });
+                    for (ContainedItem containedItem : referenceList) {
+                        fields.put(containedItem.getItemclass().getId().toLowerCase().replace("-item", ""),
+                                gen -> writeReference(gen, containedItem.getLanguage(), containedItem.getLocalid(), "uri", containedItem.getUri()));
+                    }
                 }
                 break;
         }
     }
 
-    private void writeRegistryAndRegister(JSONObject regItemJsonObject, ContainedItem item) {
+    private void putRegistryAndRegister(Map<String, FieldWriter> fields, ContainedItem item) {
         switch (item.getType()) {
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
                 break;
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
-                JSONObject jsonRegistry = new JSONObject();
-                jsonRegistry.put("label", writeTitle(item.getRegistry()));
-                jsonRegistry.put("id", item.getRegistry().getUri());
-
-                regItemJsonObject.put("register", jsonRegistry);
+                if (item.getRegistry() != null) {
+                    fields.put("register", gen -> writeRef(gen, item.getRegistry()));
+                }
                 break;
             default:
-                JSONObject jsonDefaultRegistry = new JSONObject();
-                jsonDefaultRegistry.put("label", writeTitle(item.getRegistry()));
-                jsonDefaultRegistry.put("id", item.getRegistry().getUri());
+                if (item.getRegistry() != null) {
+                    fields.put("registry", gen -> writeRef(gen, item.getRegistry()));
+                }
+                if (item.getRegister() != null) {
+                    fields.put("register", gen -> writeRef(gen, item.getRegister()));
+                }
+                break;
+        }
+    }
 
-                regItemJsonObject.put("registry", jsonDefaultRegistry);
+    private static void writeObject(JsonGenerator gen, Map<String, FieldWriter> fields) throws IOException {
+        gen.writeStartObject();
+        for (Map.Entry<String, FieldWriter> field : fields.entrySet()) {
+            gen.writeFieldName(field.getKey());
+            field.getValue().write(gen);
+        }
+        gen.writeEndObject();
+    }
 
-                JSONObject jsonDefaultRegister = new JSONObject();
-                jsonDefaultRegister.put("label", writeTitle(item.getRegister()));
-                jsonDefaultRegister.put("id", item.getRegister().getUri());
+    private static void writeLabel(JsonGenerator gen, String lang, String text) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("lang", lang);
+        gen.writeStringField("text", text);
+        gen.writeEndObject();
+    }
 
-                regItemJsonObject.put("register", jsonDefaultRegister);
-                break;
-        }
+    private static void writeReference(JsonGenerator gen, String lang, String text, String key, String value) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("label");
+        writeLabel(gen, lang, text);
+        gen.writeStringField(key, value);
+        gen.writeEndObject();
     }
 
-    private JSONObject writeTitle(ItemRef item) {
+    private static void writeRef(JsonGenerator gen, ItemRef item) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("label");
+        writeTitle(gen, item);
+        gen.writeStringField("id", item.getUri());
+        gen.writeEndObject();
+    }
+
+    private static void writeTitle(JsonGenerator gen, ItemRef item) throws IOException {
         Optional<LocalizedProperty> maybeTitle = item.getProperties().stream()
                 .filter(it -> "true".equals(it.getIstitle()))
                 .findAny();
         if (!maybeTitle.isPresent()) {
-            return new JSONObject();
+            gen.writeStartObject();
+            gen.writeEndObject();
+            return;
         }
         LocalizedProperty title = maybeTitle.get();
-        String lang = title.getLang();
+        writeLabel(gen, title.getLang(), title.getValues().get(0).getValue());
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
 
-        JSONObject labelRegister = new JSONObject();
-        labelRegister.put("lang", lang);
-        labelRegister.put("text", title.getValues().get(0).getValue());
-        return labelRegister;
+        public void write(JsonGenerator gen) throws IOException;
 
     }
 
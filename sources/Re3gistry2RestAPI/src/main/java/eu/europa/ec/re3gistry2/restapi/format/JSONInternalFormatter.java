@@ -32,7 +32,6 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
-import eu.europa.ec.re3gistry2.model.RegLanguagecode;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
 
 public class JSONInternalFormatter implements Formatter {
@@ -54,7 +53,7 @@ public class JSONInternalFormatter implements Formatter {
     }
 
     @Override
-    public void write(Item item, RegLanguagecode language, OutputStream out) throws Exception {
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
         OM.writeValue(out, item);
     }
 
@@ -0,0 +1,251 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the RDF statements as JSON-LD, one node of the @graph per
+ * description.
+ *
+ * The statements of a description are grouped by predicate before the node
+ * is written, so only the current description is kept in memory.
+ */
+public class JSONLDFormatter extends AbstractRDFFormatter {
+
+    // Thread-safe, shared by all the generators
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    static {
+        JSON_FACTORY.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private final boolean compact;
+
+    public JSONLDFormatter() {
+        this(false);
+    }
+
+    /**
+     * @param compact true to write the JSON without indentation
+     */
+    public JSONLDFormatter(boolean compact) {
+        this.compact = compact;
+    }
+
+    @Override
+    public String getFormatName() {
+        return "jsonld";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/ld+json";
+    }
+
+    @Override
+    protected TripleWriter createWriter(OutputStream out) throws IOException {
+        JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        if (!compact) {
+            gen.useDefaultPrettyPrinter();
+        }
+        gen.writeStartObject();
+        gen.writeObjectFieldStart("@context");
+        for (Map.Entry<String, String> namespace : PREFIX_TO_NS.entrySet()) {
+            gen.writeStringField(namespace.getKey(), namespace.getValue());
+        }
+        gen.writeEndObject();
+        gen.writeArrayFieldStart("@graph");
+        return new JSONLDWriter(gen);
+    }
+
+    private static String term(String uri) {
+        String prefixedName = prefixedName(uri);
+        return prefixedName != null ? prefixedName : uri;
+    }
+
+    @FunctionalInterface
+    private static interface ValueWriter {
+        public void write(JsonGenerator gen) throws IOException;
+    }
+
+    private static class Node {
+
+        private final String id;
+        private final List<String> types = new ArrayList<>();
+        private final Map<String, List<ValueWriter>> properties = new LinkedHashMap<>();
+
+        private Node(String id) {
+            this.id = id;
+        }
+
+        private void add(String ns, String localName, ValueWriter value) {
+            properties.computeIfAbsent(term(ns + localName), k -> new ArrayList<>()).add(value);
+        }
+
+        private void write(JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            if (id != null) {
+                gen.writeStringField("@id", id);
+            }
+            if (types.size() == 1) {
+                gen.writeStringField("@type", types.get(0));
+            } else if (!types.isEmpty()) {
+                gen.writeArrayFieldStart("@type");
+                for (String type : types) {
+                    gen.writeString(type);
+                }
+                gen.writeEndArray();
+            }
+            for (Map.Entry<String, List<ValueWriter>> property : properties.entrySet()) {
+                List<ValueWriter> values = property.getValue();
+                gen.writeFieldName(property.getKey());
+                if (values.size() == 1) {
+                    values.get(0).write(gen);
+                    continue;
+                }
+                gen.writeStartArray();
+                for (ValueWriter value : values) {
+                    value.write(gen);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+
+    }
+
+    private static class JSONLDWriter implements TripleWriter {
+
+        private final JsonGenerator gen;
+        // The description, and the blank nodes open in it
+        private final Deque<Node> nodes = new ArrayDeque<>();
+
+        private JSONLDWriter(JsonGenerator gen) {
+            this.gen = gen;
+        }
+
+        @Override
+        public void startDescription(String about) {
+            nodes.push(new Node(about));
+        }
+
+        @Override
+        public void endDescription() throws IOException {
+            nodes.pop().write(gen);
+        }
+
+        @Override
+        public void resource(String ns, String localName, String uri) {
+            if (uri == null) {
+                return;
+            }
+            if (RDF.equals(ns) && "type".equals(localName)) {
+                nodes.peek().types.add(term(uri));
+                return;
+            }
+            nodes.peek().add(ns, localName, gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("@id", uri);
+                gen.writeEndObject();
+            });
+        }
+
+        @Override
+        public void literal(String ns, String localName, String datatype, String value) {
+            if (value == null) {
+                return;
+            }
+            nodes.peek().add(ns, localName, gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("@value", value);
+                gen.writeStringField("@type", term(datatype));
+                gen.writeEndObject();
+            });
+        }
+
+        @Override
+        public void langLiteral(String ns, String localName, String lang, String value) {
+            if (value == null) {
+                return;
+            }
+            nodes.peek().add(ns, localName, gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("@value", value);
+                if (lang != null && !lang.isEmpty()) {
+                    gen.writeStringField("@language", lang);
+                }
+                gen.writeEndObject();
+            });
+        }
+
+        @Override
+        public void typedResource(String ns, String localName, String typeNs, String typeLocalName, String uri) {
+            if (uri == null) {
+                return;
+            }
+            nodes.peek().add(ns, localName, gen -> {
+                gen.writeStartObject();
+                gen.writeStringField("@id", uri);
+                gen.writeStringField("@type", term(typeNs + typeLocalName));
+                gen.writeEndObject();
+            });
+        }
+
+        @Override
+        public void startNode(String ns, String localName, String typeNs, String typeLocalName) {
+            Node node = new Node(null);
+            node.types.add(term(typeNs + typeLocalName));
+            nodes.peek().add(ns, localName, node::write);
+            nodes.push(node);
+        }
+
+        @Override
+        public void endNode() {
+            nodes.pop();
+        }
+
+        @Override
+        public void close() throws IOException {
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.close();
+        }
+
+    }
+
+}
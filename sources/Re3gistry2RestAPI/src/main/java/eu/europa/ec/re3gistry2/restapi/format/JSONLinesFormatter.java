@@ -0,0 +1,82 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+
+/**
+ * Writes the same model as {@link JSONInternalFormatter} as JSON Lines: the
+ * item on the first line, then one line per contained item when they are
+ * streamed. The output stream is left open, so that the documents of several
+ * items can be written one after the other.
+ */
+public class JSONLinesFormatter implements Formatter {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    static {
+        OM.setSerializationInclusion(Include.NON_NULL);
+        OM.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        OM.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public String getFormatName() {
+        return "jsonl";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/x-ndjson";
+    }
+
+    @Override
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
+        try (JsonGenerator gen = OM.getFactory().createGenerator(out)) {
+            gen.setRootValueSeparator(null);
+            writeLine(gen, item);
+
+            ContainedItemSource source = context.getContainedItemSource();
+            if (source != null) {
+                source.forEach(ci -> writeLine(gen, ci));
+            }
+        }
+    }
+
+    private void writeLine(JsonGenerator gen, ContainedItem item) throws Exception {
+        OM.writeValue(gen, item);
+        gen.writeRaw('\n');
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes the RDF statements as N-Triples, one line per statement
+ */
+public class NTriplesFormatter extends AbstractRDFFormatter {
+
+    @Override
+    public String getFormatName() {
+        return "nt";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/n-triples";
+    }
+
+    @Override
+    protected TripleWriter createWriter(OutputStream out) {
+        return new NTriplesWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    static String iri(String uri) {
+        StringBuilder sb = new StringBuilder(uri.length() + 2);
+        sb.append('<');
+        for (int i = 0; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c <= 0x20 || "<>\"{}|^`\\".indexOf(c) >= 0) {
+                sb.append(String.format("\\u%04X", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('>').toString();
+    }
+
+    static String literal(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static String langLiteral(String value, String lang) {
+        return lang == null || lang.isEmpty() ? literal(value) : literal(value) + "@" + lang;
+    }
+
+    private static class NTriplesWriter implements TripleWriter {
+
+        private final Writer out;
+        // Subject of the statements: the description, or the open blank nodes
+        private final Deque<String> subjects = new ArrayDeque<>();
+        // The types of the linked resources are written only once
+        private final Set<String> typedResources = new HashSet<>();
+        // Unique per document, so that the documents can be concatenated
+        private final String blankNodePrefix = "_:b" + Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE) + "x";
+        private int blankNodes;
+
+        private NTriplesWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void startDescription(String about) {
+            subjects.push(iri(about));
+        }
+
+        @Override
+        public void endDescription() {
+            subjects.pop();
+        }
+
+        @Override
+        public void resource(String ns, String localName, String uri) throws IOException {
+            if (uri != null) {
+                writeTriple(subjects.peek(), iri(ns + localName), iri(uri));
+            }
+        }
+
+        @Override
+        public void literal(String ns, String localName, String datatype, String value) throws IOException {
+            if (value != null) {
+                writeTriple(subjects.peek(), iri(ns + localName), NTriplesFormatter.literal(value) + "^^" + iri(datatype));
+            }
+        }
+
+        @Override
+        public void langLiteral(String ns, String localName, String lang, String value) throws IOException {
+            if (value != null) {
+                writeTriple(subjects.peek(), iri(ns + localName), NTriplesFormatter.langLiteral(value, lang));
+            }
+        }
+
+        @Override
+        public void typedResource(String ns, String localName, String typeNs, String typeLocalName, String uri) throws IOException {
+            if (uri == null) {
+                return;
+            }
+            writeTriple(subjects.peek(), iri(ns + localName), iri(uri));
+            if (typedResources.add(uri + ' ' + typeNs + typeLocalName)) {
+                writeTriple(iri(uri), iri(RDF + "type"), iri(typeNs + typeLocalName));
+            }
+        }
+
+        @Override
+        public void startNode(String ns, String localName, String typeNs, String typeLocalName) throws IOException {
+            String node = blankNodePrefix + (++blankNodes);
+            writeTriple(subjects.peek(), iri(ns + localName), node);
+            writeTriple(node, iri(RDF + "type"), iri(typeNs + typeLocalName));
+            subjects.push(node);
+        }
+
+        @Override
+        public void endNode() {
+            subjects.pop();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+
+        private void writeTriple(String subject, String predicate, String object) throws IOException {
+            out.write(subject);
+            out.write(' ');
+            out.write(predicate);
+            out.write(' ');
+            out.write(object);
+            out.write(" .\n");
+        }
+
+    }
+
+}
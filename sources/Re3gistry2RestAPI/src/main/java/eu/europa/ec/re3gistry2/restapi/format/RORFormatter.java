@@ -38,7 +38,6 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
 import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
-import eu.europa.ec.re3gistry2.model.RegLanguagecode;
 import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
 import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
@@ -76,7 +75,6 @@ public class RORFormatter implements Formatter {
         ROLE_PROPERTY_TO_ELEMENT = Collections.unmodifiableMap(roleToElement);
     }
 
-    private RegLanguagecode languageFile;
 
     private MapNameSpaceContext getNSContext() {
         MapNameSpaceContext nsCtx = new MapNameSpaceContext();
@@ -107,9 +105,8 @@ public class RORFormatter implements Formatter {
     }
 
     @Override
-    public void write(Item item, RegLanguagecode lang, OutputStream out) throws Exception {
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
         XMLStreamWriter xml = getXMLWriter(out, RDF, "RDF");
-        this.languageFile = lang;
 
         switch (item.getType()) {
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
@@ -0,0 +1,72 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
+
+/**
+ * State of one response, passed to the formatters.
+ *
+ * The formatters are shared by all the requests: they keep no state of their
+ * own, everything they need to write a response comes from the context.
+ */
+public class RenderContext {
+
+    private final RegLanguagecode language;
+    private final RegistryMetadata metadata;
+    private final ContainedItemSource containedItemSource;
+
+    public RenderContext(RegLanguagecode language, RegistryMetadata metadata) {
+        this(language, metadata, null);
+    }
+
+    public RenderContext(RegLanguagecode language, RegistryMetadata metadata, ContainedItemSource containedItemSource) {
+        this.language = language;
+        this.metadata = metadata;
+        this.containedItemSource = containedItemSource;
+    }
+
+    public RegLanguagecode getLanguage() {
+        return language;
+    }
+
+    public RegistryMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns the source of the contained items, when they are streamed
+     * instead of being part of the item.
+     *
+     * @return the source, or null if the contained items are in the item
+     */
+    public ContainedItemSource getContainedItemSource() {
+        return containedItemSource;
+    }
+
+}
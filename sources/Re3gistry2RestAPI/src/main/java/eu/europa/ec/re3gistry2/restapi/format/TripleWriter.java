@@ -0,0 +1,69 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+/**
+ * Receives the statements produced by {@link AbstractRDFFormatter} and writes
+ * them in one RDF serialization, as they arrive.
+ *
+ * The statements are grouped by subject: every statement between
+ * {@link #startDescription(String)} and {@link #endDescription()} has that
+ * subject, or the blank node opened by {@link #startNode} if there is one.
+ * Predicates are given as namespace and local name, like the RDF/XML elements.
+ */
+interface TripleWriter {
+
+    public void startDescription(String about) throws Exception;
+
+    public void endDescription() throws Exception;
+
+    public void resource(String ns, String localName, String uri) throws Exception;
+
+    public void literal(String ns, String localName, String datatype, String value) throws Exception;
+
+    public void langLiteral(String ns, String localName, String lang, String value) throws Exception;
+
+    /**
+     * Links the current subject to a resource that is declared to be of the
+     * given type.
+     */
+    public void typedResource(String ns, String localName, String typeNs, String typeLocalName, String uri) throws Exception;
+
+    /**
+     * Opens a blank node of the given type, linked to the current subject; the
+     * next statements have the blank node as subject until {@link #endNode()}.
+     */
+    public void startNode(String ns, String localName, String typeNs, String typeLocalName) throws Exception;
+
+    public void endNode() throws Exception;
+
+    /**
+     * Completes the document and flushes it, the output stream is left open.
+     */
+    public void close() throws Exception;
+
+}
@@ -0,0 +1,190 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the RDF statements as Turtle: one block per description, with the
+ * blank nodes nested in square brackets.
+ */
+public class TurtleFormatter extends AbstractRDFFormatter {
+
+    @Override
+    public String getFormatName() {
+        return "ttl";
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/turtle";
+    }
+
+    @Override
+    protected TripleWriter createWriter(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (Map.Entry<String, String> namespace : PREFIX_TO_NS.entrySet()) {
+            writer.write("@prefix " + namespace.getKey() + ": " + NTriplesFormatter.iri(namespace.getValue()) + " .\n");
+        }
+        writer.write('\n');
+        return new TurtleWriter(writer);
+    }
+
+    private static String term(String uri) {
+        String prefixedName = prefixedName(uri);
+        return prefixedName != null ? prefixedName : NTriplesFormatter.iri(uri);
+    }
+
+    private static class TurtleWriter implements TripleWriter {
+
+        private static final String INDENT = "    ";
+
+        private final Writer out;
+        // The types of the linked resources, written after the description
+        private final List<String> pendingTypes = new ArrayList<>();
+        private final Set<String> typedResources = new HashSet<>();
+        private String subject;
+        // 1 in a description, one more for each open blank node
+        private int depth;
+        private boolean first;
+
+        private TurtleWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void startDescription(String about) {
+            subject = NTriplesFormatter.iri(about);
+            depth = 1;
+            first = true;
+        }
+
+        @Override
+        public void endDescription() throws IOException {
+            if (!first) {
+                out.write(" .\n\n");
+            }
+            for (String pendingType : pendingTypes) {
+                out.write(pendingType);
+            }
+            pendingTypes.clear();
+            depth = 0;
+        }
+
+        @Override
+        public void resource(String ns, String localName, String uri) throws IOException {
+            if (uri != null) {
+                writeStatement(predicate(ns, localName), term(uri));
+            }
+        }
+
+        @Override
+        public void literal(String ns, String localName, String datatype, String value) throws IOException {
+            if (value != null) {
+                writeStatement(predicate(ns, localName), NTriplesFormatter.literal(value) + "^^" + term(datatype));
+            }
+        }
+
+        @Override
+        public void langLiteral(String ns, String localName, String lang, String value) throws IOException {
+            if (value != null) {
+                writeStatement(predicate(ns, localName), NTriplesFormatter.langLiteral(value, lang));
+            }
+        }
+
+        @Override
+        public void typedResource(String ns, String localName, String typeNs, String typeLocalName, String uri) throws IOException {
+            if (uri == null) {
+                return;
+            }
+            writeStatement(predicate(ns, localName), term(uri));
+            if (typedResources.add(uri + ' ' + typeNs + typeLocalName)) {
+                pendingTypes.add(NTriplesFormatter.iri(uri) + " a " + term(typeNs + typeLocalName) + " .\n\n");
+            }
+        }
+
+        @Override
+        public void startNode(String ns, String localName, String typeNs, String typeLocalName) throws IOException {
+            writeStatement(predicate(ns, localName), "[");
+            depth++;
+            first = true;
+            writeStatement("a", term(typeNs + typeLocalName));
+        }
+
+        @Override
+        public void endNode() throws IOException {
+            out.write('\n');
+            depth--;
+            writeIndent();
+            out.write(']');
+            first = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+
+        private String predicate(String ns, String localName) {
+            return RDF.equals(ns) && "type".equals(localName) ? "a" : term(ns + localName);
+        }
+
+        private void writeStatement(String predicate, String object) throws IOException {
+            if (first) {
+                if (depth == 1) {
+                    out.write(subject);
+                }
+                out.write('\n');
+                first = false;
+            } else {
+                out.write(" ;\n");
+            }
+            writeIndent();
+            out.write(predicate);
+            out.write(' ');
+            out.write(object);
+        }
+
+        private void writeIndent() throws IOException {
+            for (int i = 0; i < depth; i++) {
+                out.write(INDENT);
+            }
+        }
+
+    }
+
+}
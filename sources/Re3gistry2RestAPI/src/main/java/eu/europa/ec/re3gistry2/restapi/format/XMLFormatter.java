@@ -47,7 +47,6 @@ public class XMLFormatter implements Formatter {
 
     private static final String XSISCHEMALOCATION = "http://www.w3.org/2001/XMLSchema-instance";
     private static final String NS_XML = "http://www.w3.org/XML/1998/namespace";
-    private RegLanguagecode languageFile;
 
     @Override
     public String getFormatName() {
@@ -60,18 +59,18 @@ public class XMLFormatter implements Formatter {
     }
 
     @Override
-    public void write(Item item, RegLanguagecode lang, OutputStream out) throws Exception {
-        this.languageFile = lang;
+    public void write(Item item, RenderContext context, OutputStream out) throws Exception {
+        RegLanguagecode lang = context.getLanguage();
 
         switch (item.getType()) {
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY:
-                writeRegistry(out, item);
+                writeRegistry(out, item, lang);
                 break;
             case BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER:
-                writeRegister(out, item);
+                writeRegister(out, item, lang);
                 break;
             default:
-                writeItem(out, item);
+                writeItem(out, item, lang);
                 break;
         }
     }
@@ -102,10 +101,10 @@ public class XMLFormatter implements Formatter {
         return xml;
     }
 
-    private void writeRegistry(OutputStream out, Item item) throws XMLStreamException {
+    private void writeRegistry(OutputStream out, Item item, RegLanguagecode lang) throws XMLStreamException {
         XMLStreamWriter xml = getXMLWriter(out, item);
 
-        writeLanguage(xml);
+        writeLanguage(xml, lang);
         writeDate(xml, item);
         writeFields(xml, item);
 
@@ -131,10 +130,10 @@ public class XMLFormatter implements Formatter {
         xml.writeEndElement();
     }
 
-    private void writeRegister(OutputStream out, Item item) throws XMLStreamException {
+    private void writeRegister(OutputStream out, Item item, RegLanguagecode lang) throws XMLStreamException {
         XMLStreamWriter xml = getXMLWriter(out, item);
 
-        writeLanguage(xml);
+        writeLanguage(xml, lang);
         writeDate(xml, item);
         writeFields(xml, item);
         writeRegistryAndRegister(xml, item);
@@ -142,7 +141,7 @@ public class XMLFormatter implements Formatter {
         if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
             xml.writeStartElement("containeditems");
             for (ContainedItem ci : item.getContainedItems()) {
-                writeItemShortVersion(xml, ci, ci.getItemclass().getId());
+                writeItemShortVersion(xml, ci, ci.getItemclass().getId(), lang);
             }
             xml.writeEndElement();
         }
@@ -151,11 +150,11 @@ public class XMLFormatter implements Formatter {
         xml.close();
     }
 
-    private void writeItemShortVersion(XMLStreamWriter xml, ContainedItem item, String mainElementName) throws XMLStreamException {
+    private void writeItemShortVersion(XMLStreamWriter xml, ContainedItem item, String mainElementName, RegLanguagecode lang) throws XMLStreamException {
         xml.writeStartElement(mainElementName.toLowerCase());
         xml.writeAttribute(NS_XML, "id", item.getUri());
 
-        writeLanguage(xml);
+        writeLanguage(xml, lang);
         writeVersions(xml, item);
         writeFields(xml, item);
         writeItemclass(xml, item);
@@ -165,10 +164,10 @@ public class XMLFormatter implements Formatter {
         xml.writeEndElement();
     }
 
-    private void writeItem(OutputStream out, Item item) throws XMLStreamException {
+    private void writeItem(OutputStream out, Item item, RegLanguagecode lang) throws XMLStreamException {
         XMLStreamWriter xml = getXMLWriter(out, item);
 
-        writeLanguage(xml);
+        writeLanguage(xml, lang);
         writeDate(xml, item);
         writeVersions(xml, item);
         writeFields(xml, item);
@@ -179,12 +178,12 @@ public class XMLFormatter implements Formatter {
         if (item.getContainedItems() != null && !item.getContainedItems().isEmpty()) {
             xml.writeStartElement("containeditems");
             for (ContainedItem ci : item.getContainedItems()) {
-                writeItemShortVersion(xml, ci, "value");
+                writeItemShortVersion(xml, ci, "value", lang);
 
                 if (ci.isHasCollection()) {
                     if (ci.getContainedItems() != null && !ci.getContainedItems().isEmpty()) {
                         for (ContainedItem c : ci.getContainedItems()) {
-                            writeItemShortVersion(xml, c, "value");
+                            writeItemShortVersion(xml, c, "value", lang);
                         }
                     }
                 }
@@ -211,8 +210,8 @@ public class XMLFormatter implements Formatter {
         }
     }
 
-    private void writeLanguage(XMLStreamWriter xml) throws XMLStreamException {
-        writeEmptyElement(xml, "language", languageFile.getIso6391code());
+    private void writeLanguage(XMLStreamWriter xml, RegLanguagecode lang) throws XMLStreamException {
+        writeEmptyElement(xml, "language", lang.getIso6391code());
     }
 
     private void writeDate(XMLStreamWriter xml, ContainedItem item) throws XMLStreamException {
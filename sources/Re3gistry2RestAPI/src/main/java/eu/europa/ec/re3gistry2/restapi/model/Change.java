@@ -0,0 +1,73 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.model;
+
+import java.io.Serializable;
+
+/**
+ * Published change of an item, as listed by the change feed
+ */
+public class Change implements Serializable {
+
+    private final String uuid;
+    private final String uri;
+    private final String type;
+    private final String date;
+
+    public Change(String uuid, String uri, String type, String date) {
+        this.uuid = uuid;
+        this.uri = uri;
+        this.type = type;
+        this.date = date;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return the URI of the item, null if the item no longer exists
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return created, updated, superseded, retired or invalidated
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the date of the change, in ISO 8601 format
+     */
+    public String getDate() {
+        return date;
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Page of the change feed
+ */
+public class ChangeList implements Serializable {
+
+    private final List<Change> changes;
+    private final String next;
+    private final boolean more;
+
+    public ChangeList(List<Change> changes, String next, boolean more) {
+        this.changes = changes;
+        this.next = next;
+        this.more = more;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return the token to be passed as since to get the following changes
+     * (also when this page is empty)
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * @return true if more changes can be read right away with the next token
+     */
+    public boolean isMore() {
+        return more;
+    }
+
+}
@@ -47,7 +47,8 @@ import java.io.Serializable;
     "registry",
     "register",
     "properties",
-    "containedItems"
+    "containedItems",
+    "pagination"
 })
 public class Item extends ContainedItem implements Serializable {
 
@@ -55,6 +56,7 @@ public class Item extends ContainedItem implements Serializable {
     private ItemRef registry;
     private ItemRef register;
     private List<ContainedItem> containedItems;
+    private Pagination pagination;
 
     public ItemRef getRegistry() {
         return registry;
@@ -80,4 +82,12 @@ public class Item extends ContainedItem implements Serializable {
         this.containedItems = containedItems;
     }
 
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setPagination(Pagination pagination) {
+        this.pagination = pagination;
+    }
+
 }
@@ -0,0 +1,70 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.model;
+
+import java.io.Serializable;
+
+/**
+ * Position of a page of contained items in the whole list
+ */
+public class Pagination implements Serializable {
+
+    private final int total;
+    private final int limit;
+    private final Integer offset;
+    private final String next;
+
+    public Pagination(int total, int limit, Integer offset, String next) {
+        this.total = total;
+        this.limit = limit;
+        this.offset = offset;
+        this.next = next;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the offset of the page, null if the page was requested by cursor
+     */
+    public Integer getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the cursor of the next page, null if this is the last page
+     */
+    public String getNext() {
+        return next;
+    }
+
+}
@@ -18,7 +18,11 @@ public class AvailableFormatsUtil {
         formatList.add("xml");
         formatList.add("iso19135xml");
         formatList.add("rdf");
+        formatList.add("ttl");
+        formatList.add("nt");
+        formatList.add("jsonld");
         formatList.add("csv");
+        formatList.add("jsonl");
     }
 
     public List<String> getFormatList() {
@@ -0,0 +1,136 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Date;
+
+import eu.europa.ec.re3gistry2.model.RegItemchange;
+
+/**
+ * Position in the log of the published changes, ordered by insert date and
+ * uuid. It is passed by the clients as the since query parameter: either a
+ * timestamp (ISO 8601 date or date-time, UTC if without offset, included) or the opaque token
+ * returned with the previous page of changes (excluded).
+ */
+public class ChangeToken {
+
+    private static final char TOKEN_SEPARATOR = '\n';
+
+    private final Date insertdate;
+    private final String afterUuid;
+
+    private ChangeToken(Date insertdate, String afterUuid) {
+        this.insertdate = insertdate;
+        this.afterUuid = afterUuid;
+    }
+
+    /**
+     * Parses the since query parameter.
+     *
+     * @param since the timestamp or the token
+     * @return the position in the log
+     * @throws IllegalArgumentException if the parameter is not valid
+     */
+    public static ChangeToken parse(String since) throws IllegalArgumentException {
+        Date date = parseTimestamp(since);
+        if (date != null) {
+            // Empty uuid: all the changes inserted at that date are included
+            return new ChangeToken(date, "");
+        }
+        String token = new String(Base64.getUrlDecoder().decode(since), StandardCharsets.UTF_8);
+        int i = token.indexOf(TOKEN_SEPARATOR);
+        if (i <= 0) {
+            throw new IllegalArgumentException("Invalid token");
+        }
+        try {
+            return new ChangeToken(new Date(Long.parseLong(token.substring(0, i))), token.substring(i + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid token", e);
+        }
+    }
+
+    private static Date parseTimestamp(String since) {
+        try {
+            return Date.from(OffsetDateTime.parse(since).toInstant());
+        } catch (DateTimeParseException e) {
+            // Not a date-time
+        }
+        try {
+            return Date.from(LocalDateTime.parse(since).toInstant(ZoneOffset.UTC));
+        } catch (DateTimeParseException e) {
+            // Not a date-time without offset
+        }
+        try {
+            return Date.from(LocalDate.parse(since).atStartOfDay(ZoneOffset.UTC).toInstant());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the token of the position following the change passed by
+     * parameter.
+     *
+     * @param change the last change of the page
+     * @return the opaque token
+     */
+    public static String getToken(RegItemchange change) {
+        return new ChangeToken(change.getInsertdate(), change.getUuid()).getToken();
+    }
+
+    /**
+     * Returns the token of the position of the first change dated from the
+     * date passed by parameter.
+     *
+     * @param insertdate the date
+     * @return the opaque token
+     */
+    public static String getToken(Date insertdate) {
+        return new ChangeToken(insertdate, "").getToken();
+    }
+
+    public String getToken() {
+        String token = Long.toString(insertdate.getTime()) + TOKEN_SEPARATOR + afterUuid;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Date getInsertdate() {
+        return insertdate;
+    }
+
+    public String getAfterUuid() {
+        return afterUuid;
+    }
+
+}
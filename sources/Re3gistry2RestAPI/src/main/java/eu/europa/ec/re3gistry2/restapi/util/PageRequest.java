@@ -0,0 +1,148 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.servlet.http.HttpServletRequest;
+
+import eu.europa.ec.re3gistry2.model.RegItem;
+
+/**
+ * Page of contained items requested with the limit, offset and cursor query
+ * parameters. The cursor is an opaque token holding the localid and uuid of
+ * the last item of the previous page, the contained items being ordered by
+ * localid and uuid.
+ */
+public class PageRequest {
+
+    public static final String PARAM_LIMIT = "limit";
+    public static final String PARAM_OFFSET = "offset";
+    public static final String PARAM_CURSOR = "cursor";
+
+    private static final char CURSOR_SEPARATOR = '\n';
+
+    private final int limit;
+    private final int offset;
+    private final String afterLocalid;
+    private final String afterUuid;
+
+    private PageRequest(int limit, int offset, String afterLocalid, String afterUuid) {
+        this.limit = limit;
+        this.offset = offset;
+        this.afterLocalid = afterLocalid;
+        this.afterUuid = afterUuid;
+    }
+
+    /**
+     * Parses the page requested by the client.
+     *
+     * @param req the request
+     * @param maxLimit the maximum page size, also used if limit is missing
+     * @return the requested page, null if none of the parameters is set
+     * @throws IllegalArgumentException if a parameter is not valid
+     */
+    public static PageRequest parse(HttpServletRequest req, int maxLimit) throws IllegalArgumentException {
+        String limitParam = RequestUtil.getParamTrimmed(req, PARAM_LIMIT, null);
+        String offsetParam = RequestUtil.getParamTrimmed(req, PARAM_OFFSET, null);
+        String cursorParam = RequestUtil.getParamTrimmed(req, PARAM_CURSOR, null);
+        if (limitParam == null && offsetParam == null && cursorParam == null) {
+            return null;
+        }
+        if (offsetParam != null && cursorParam != null) {
+            throw new IllegalArgumentException("offset and cursor are mutually exclusive");
+        }
+
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : maxLimit;
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        limit = Math.min(limit, maxLimit);
+
+        int offset = offsetParam != null ? Integer.parseInt(offsetParam) : 0;
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+
+        String afterLocalid = null;
+        String afterUuid = null;
+        if (cursorParam != null) {
+            String cursor = new String(Base64.getUrlDecoder().decode(cursorParam), StandardCharsets.UTF_8);
+            int i = cursor.indexOf(CURSOR_SEPARATOR);
+            if (i <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            afterUuid = cursor.substring(0, i);
+            afterLocalid = cursor.substring(i + 1);
+        }
+        return new PageRequest(limit, offset, afterLocalid, afterUuid);
+    }
+
+    /**
+     * Returns the cursor of the page that starts after the item passed by
+     * parameter.
+     *
+     * @param regItem the last item of the page
+     * @return the opaque cursor
+     */
+    public static String getCursor(RegItem regItem) {
+        String cursor = regItem.getUuid() + CURSOR_SEPARATOR + regItem.getLocalid();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean hasCursor() {
+        return afterUuid != null;
+    }
+
+    public String getAfterLocalid() {
+        return afterLocalid;
+    }
+
+    public String getAfterUuid() {
+        return afterUuid;
+    }
+
+    /**
+     * Returns the key of the page, to tell apart the cached responses of the
+     * different pages of the same item.
+     *
+     * @return the key of the page
+     */
+    public String getKey() {
+        return limit + ":" + (hasCursor() ? afterUuid + ":" + afterLocalid : Integer.toString(offset));
+    }
+
+}
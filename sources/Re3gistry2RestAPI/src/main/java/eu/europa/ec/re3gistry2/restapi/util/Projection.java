@@ -0,0 +1,197 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Parts of the items requested with the fields and embed query parameters,
+ * e.g. fields=uri,label&amp;embed=none.
+ *
+ * The fields are the attributes of the item (as named in the jsonc model) and
+ * the ids of its properties, "properties" selecting all of them. The uri, the
+ * type, the language and the item class are always included. The embedded
+ * sections are the related items: without the embed parameter, the ones
+ * listed in the fields (all of them if fields is missing too).
+ */
+public class Projection {
+
+    public static final String PARAM_FIELDS = "fields";
+    public static final String PARAM_EMBED = "embed";
+
+    public static final String LOCALID = "localid";
+    public static final String VERSION = "version";
+    public static final String VERSION_HISTORY = "versionHistory";
+    public static final String INSERT_DATE = "insertDate";
+    public static final String EDIT_DATE = "editDate";
+    public static final String REGISTRY = "registry";
+    public static final String REGISTER = "register";
+    public static final String HAS_COLLECTION = "hasCollection";
+    public static final String IS_PARENT = "isParent";
+    public static final String PROPERTIES = "properties";
+
+    public static final String CONTAINED_ITEMS = "containedItems";
+    public static final String IS_DEFINED_BY = "isDefinedBy";
+    // The inScheme and topConceptOf of the item
+    public static final String IN_SCHEME = "inScheme";
+    public static final String TOP_CONCEPTS = "topConcepts";
+    public static final String NARROWER = "narrower";
+    public static final String BROADER = "broader";
+
+    private static final String EMBED_ALL = "all";
+    private static final String EMBED_NONE = "none";
+
+    private static final Set<String> ALWAYS_INCLUDED = new HashSet<>(Arrays.asList(
+            "uri", "type", "language", "itemclass"));
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            LOCALID, VERSION, VERSION_HISTORY, INSERT_DATE, EDIT_DATE, REGISTRY, REGISTER,
+            HAS_COLLECTION, IS_PARENT, PROPERTIES));
+    private static final Set<String> SECTIONS = new HashSet<>(Arrays.asList(
+            CONTAINED_ITEMS, IS_DEFINED_BY, IN_SCHEME, TOP_CONCEPTS, NARROWER, BROADER));
+
+    // null if all of them are included
+    private final Set<String> fields;
+    private final Set<String> sections;
+
+    private Projection(Set<String> fields, Set<String> sections) {
+        this.fields = fields;
+        this.sections = sections;
+    }
+
+    /**
+     * Parses the projection requested by the client.
+     *
+     * @param req the request
+     * @return the requested projection, null if none of the parameters is set
+     * @throws IllegalArgumentException if a parameter is not valid
+     */
+    public static Projection parse(HttpServletRequest req) throws IllegalArgumentException {
+        String fieldsParam = RequestUtil.getParamTrimmed(req, PARAM_FIELDS, null);
+        String embedParam = RequestUtil.getParamTrimmed(req, PARAM_EMBED, null);
+        if (fieldsParam == null && embedParam == null) {
+            return null;
+        }
+
+        Set<String> fields = null;
+        if (fieldsParam != null) {
+            fields = split(fieldsParam);
+            fields.removeAll(ALWAYS_INCLUDED);
+        }
+
+        Set<String> sections;
+        if (embedParam == null) {
+            sections = new TreeSet<>(SECTIONS);
+            if (fields != null) {
+                sections.retainAll(fields);
+            }
+        } else if (EMBED_ALL.equals(embedParam)) {
+            sections = new TreeSet<>(SECTIONS);
+        } else if (EMBED_NONE.equals(embedParam)) {
+            sections = new TreeSet<>();
+        } else {
+            sections = split(embedParam);
+            if (!SECTIONS.containsAll(sections)) {
+                throw new IllegalArgumentException("Unknown embedded section");
+            }
+        }
+        if (fields != null) {
+            // The sections are not properties
+            fields.removeAll(SECTIONS);
+        }
+        return new Projection(fields, sections);
+    }
+
+    private static Set<String> split(String param) {
+        Set<String> set = new TreeSet<>();
+        for (String value : param.split(",")) {
+            if (!value.trim().isEmpty()) {
+                set.add(value.trim());
+            }
+        }
+        return set;
+    }
+
+    /**
+     * @param attribute one of the attributes of the item
+     * @return true if the attribute is requested
+     */
+    public boolean includes(String attribute) {
+        return fields == null || fields.contains(attribute);
+    }
+
+    /**
+     * @param id the id of a property (localid of the field)
+     * @return true if the property is requested
+     */
+    public boolean includesProperty(String id) {
+        return fields == null || fields.contains(PROPERTIES) || fields.contains(id);
+    }
+
+    /**
+     * @return true if at least one property is requested
+     */
+    public boolean includesProperties() {
+        if (fields == null || fields.contains(PROPERTIES)) {
+            return true;
+        }
+        for (String field : fields) {
+            if (!ATTRIBUTES.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param section one of the sections of related items
+     * @return true if the section is requested
+     */
+    public boolean embeds(String section) {
+        return sections.contains(section);
+    }
+
+    public Set<String> getSections() {
+        return Collections.unmodifiableSet(sections);
+    }
+
+    /**
+     * Returns the key of the projection, to tell apart the cached responses
+     * of the different projections of the same item.
+     *
+     * @return the key of the projection
+     */
+    public String getKey() {
+        return (fields == null ? "*" : String.join(",", fields)) + ";" + String.join(",", sections);
+    }
+
+}
@@ -26,6 +26,9 @@
  */
 package eu.europa.ec.re3gistry2.restapi.util;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.servlet.http.HttpServletRequest;
 
 public class RequestUtil {
@@ -41,4 +44,86 @@ public class RequestUtil {
         return value;
     }
 
+    /**
+     * Checks if the ETag passed by parameter matches one of the entity tags of
+     * the If-None-Match header of the request (weak comparison).
+     *
+     * @param req the request
+     * @param etag the ETag of the current representation
+     * @return true if the client already holds the current representation
+     */
+    public static boolean isNotModified(HttpServletRequest req, String etag) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if ("*".equals(tag) || opaqueTag.equals(stripWeakPrefix(tag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean acceptsGzip(HttpServletRequest req) {
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the media types of the Accept header of the request, the most
+     * preferred first (the types with the same quality keep their order). The
+     * types refused with q=0 are left out.
+     *
+     * @param req the request
+     * @return the accepted media types in lower case, without parameters
+     */
+    public static List<String> getAcceptedMediaTypes(HttpServletRequest req) {
+        List<String> mediaTypes = new ArrayList<>();
+        String accept = req.getHeader("Accept");
+        if (accept == null) {
+            return mediaTypes;
+        }
+        List<Float> qualities = new ArrayList<>();
+        for (String range : accept.split(",")) {
+            String[] parts = range.trim().split(";");
+            float q = 1.0f;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0.0f;
+                    }
+                }
+            }
+            if (q <= 0.0f || parts[0].trim().isEmpty()) {
+                continue;
+            }
+            int i = 0;
+            while (i < qualities.size() && qualities.get(i) >= q) {
+                i++;
+            }
+            qualities.add(i, q);
+            mediaTypes.add(i, parts[0].trim().toLowerCase());
+        }
+        return mediaTypes;
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
 }
@@ -26,31 +26,136 @@
  */
 package eu.europa.ec.re3gistry2.restapi.util;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import eu.europa.ec.re3gistry2.model.RegLanguagecode;
 import eu.europa.ec.re3gistry2.restapi.ApiError;
 import eu.europa.ec.re3gistry2.restapi.ApiResponse;
+import eu.europa.ec.re3gistry2.restapi.cache.CachedResponse;
 import eu.europa.ec.re3gistry2.restapi.format.Formatter;
 import eu.europa.ec.re3gistry2.restapi.format.JSONInternalFormatter;
+import eu.europa.ec.re3gistry2.restapi.format.RenderContext;
 import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.Pagination;
 
 public class ResponseUtil {
 
-    public static void ok(HttpServletResponse resp, Item item, RegLanguagecode lang, Formatter formatter) throws Exception {
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    // The format can be negotiated, and the response gzipped
+    private static final String VARY = "Accept, Accept-Encoding";
+
+    public static void ok(HttpServletResponse resp, Item item, RenderContext context, Formatter formatter) throws Exception {
         int sc = HttpServletResponse.SC_OK;
         String type = formatter.getContentType();
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        formatter.write(item, lang, baos);
+        formatter.write(item, context, baos);
         send(resp, sc, type, baos);
     }
 
+    /**
+     * Writes the formatted item straight to the response, without buffering
+     * the whole document: the response is sent chunked (and gzipped, if the
+     * client accepts it), so its length is not known in advance.
+     *
+     * @param req the request
+     * @param resp the response
+     * @param item the item to be written
+     * @param context the context of the response
+     * @param formatter the formatter of the response
+     * @throws Exception
+     */
+    public static void stream(HttpServletRequest req, HttpServletResponse resp, Item item, RenderContext context, Formatter formatter) throws Exception {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(formatter.getContentType());
+        resp.setHeader("Vary", VARY);
+        setPaginationHeaders(req, resp, item.getPagination());
+        OutputStream out = resp.getOutputStream();
+        if (RequestUtil.acceptsGzip(req)) {
+            resp.setHeader("Content-Encoding", "gzip");
+            out = new GZIPOutputStream(out, STREAM_BUFFER_SIZE);
+        }
+        try (OutputStream bos = new BufferedOutputStream(out, STREAM_BUFFER_SIZE)) {
+            formatter.write(item, context, bos);
+        }
+    }
+
+    /**
+     * Checks if the client needs an exact Content-Length, i.e. if the response
+     * can not be sent with the chunked transfer encoding.
+     *
+     * @param req the request
+     * @return true if the response has to be buffered
+     */
+    public static boolean requiresContentLength(HttpServletRequest req) {
+        return "HTTP/1.0".equals(req.getProtocol());
+    }
+
+    public static void ok(HttpServletRequest req, HttpServletResponse resp, CachedResponse response) throws IOException {
+        resp.setHeader("ETag", response.getEtag());
+        resp.setHeader("Vary", VARY);
+        setPaginationHeaders(req, resp, response.getPagination());
+        if (RequestUtil.isNotModified(req, response.getEtag())) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        byte[] body = response.getBody();
+        if (response.getGzippedBody() != null && RequestUtil.acceptsGzip(req)) {
+            resp.setHeader("Content-Encoding", "gzip");
+            body = response.getGzippedBody();
+        }
+        send(resp, HttpServletResponse.SC_OK, response.getContentType(), body);
+    }
+
+    /**
+     * Sets the total count of the contained items and, if there is a next
+     * page, the link to it (keeping the other query parameters and replacing
+     * offset with the cursor of the next page).
+     *
+     * @param req the request
+     * @param resp the response
+     * @param pagination the pagination of the response, null if not paged
+     * @throws UnsupportedEncodingException
+     */
+    private static void setPaginationHeaders(HttpServletRequest req, HttpServletResponse resp, Pagination pagination) throws UnsupportedEncodingException {
+        if (pagination == null) {
+            return;
+        }
+        resp.setHeader("X-Total-Count", Integer.toString(pagination.getTotal()));
+        if (pagination.getNext() == null) {
+            return;
+        }
+        StringBuilder link = new StringBuilder(req.getRequestURL()).append('?');
+        for (Map.Entry<String, String[]> parameter : ((Map<String, String[]>) req.getParameterMap()).entrySet()) {
+            String name = parameter.getKey();
+            if (PageRequest.PARAM_OFFSET.equals(name) || PageRequest.PARAM_CURSOR.equals(name)) {
+                continue;
+            }
+            for (String value : parameter.getValue()) {
+                link.append(URLEncoder.encode(name, "UTF-8")).append('=').append(URLEncoder.encode(value, "UTF-8")).append('&');
+            }
+        }
+        link.append(PageRequest.PARAM_CURSOR).append('=').append(pagination.getNext());
+        resp.setHeader("Link", "<" + link + ">; rel=\"next\"");
+    }
+
     public static void ok(HttpServletResponse resp, ApiResponse value) throws Exception {
-        int sc = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        int sc = HttpServletResponse.SC_OK;
+        String type = "application/json";
+        byte[] body = JSONInternalFormatter.OM.writeValueAsBytes(value);
+        send(resp, sc, type, body);
+    }
+
+    public static void okJson(HttpServletResponse resp, Object value) throws IOException {
+        int sc = HttpServletResponse.SC_OK;
         String type = "application/json";
         byte[] body = JSONInternalFormatter.OM.writeValueAsBytes(value);
         send(resp, sc, type, body);
@@ -0,0 +1,146 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.restapi.cache.CaffeineCache;
+import eu.europa.ec.re3gistry2.restapi.cache.DependencyTrackingCache;
+import eu.europa.ec.re3gistry2.restapi.cache.NegativeCache;
+import eu.europa.ec.re3gistry2.restapi.cache.ResponseCache;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+
+/**
+ * Without an admin token only /cache/flush is open: the statistics, which
+ * disclose the requested URIs, are disabled like the eviction and the
+ * warm-up.
+ */
+public class CacheServletTest {
+
+    private static final String UUID = "uuid-red";
+
+    private DependencyTrackingCache cache;
+    private CacheServlet servlet;
+
+    @BeforeClass
+    public static void configure() {
+        // No configuration file: the defaults apply, without admin token
+        Configuration.getLightInstance();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new DependencyTrackingCache(new CaffeineCache());
+        Item item = new Item();
+        item.setUuid(UUID);
+        item.setUri("http://example.org/registry/codelist/red");
+        item.setLocalid("red");
+        item.setLanguage("en");
+        item.setType(BaseConstants.KEY_ITEMCLASS_TYPE_ITEM);
+        cache.add("en", item);
+
+        servlet = new CacheServlet();
+        set("cache", cache);
+        set("responseCache", new ResponseCache());
+        set("negativeCache", new NegativeCache());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        set("cache", null);
+        set("responseCache", null);
+        set("negativeCache", null);
+        RegistryMetadata.invalidate();
+    }
+
+    @Test
+    public void statisticsRequireAnAdminToken() throws Exception {
+        assertEquals(ApiError.ADMIN_TOKEN_NOT_CONFIGURED.getError().getCode(), get("/stats"));
+    }
+
+    @Test
+    public void evictionRequiresAnAdminToken() throws Exception {
+        assertEquals(ApiError.ADMIN_TOKEN_NOT_CONFIGURED.getError().getCode(), get("/evict"));
+    }
+
+    @Test
+    public void flushIsOpenWithoutAdminToken() throws Exception {
+        assertEquals(HttpServletResponse.SC_OK, get("/flush"));
+        assertNull(cache.getByUuid("en", UUID));
+    }
+
+    private int get(String path) throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int[] status = new int[1];
+        HttpServletRequest req = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> "getPathInfo".equals(method.getName()) ? path : null);
+        HttpServletResponse resp = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setStatus":
+                            status[0] = (Integer) args[0];
+                            return null;
+                        case "getOutputStream":
+                            return new ServletOutputStream() {
+                                @Override
+                                public void write(int b) {
+                                    body.write(b);
+                                }
+                            };
+                        default:
+                            return null;
+                    }
+                });
+        servlet.doGet(req, resp);
+        return status[0];
+    }
+
+    private void set(String name, Object value) throws Exception {
+        Field field = CacheServlet.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.model.RegItemchange;
+import eu.europa.ec.re3gistry2.restapi.cache.UriIndex;
+import eu.europa.ec.re3gistry2.restapi.format.JSONInternalFormatter;
+
+/**
+ * Lists changes of items missing from the in-memory URI index, as the items
+ * just created or evicted by the cache invalidator are: their URIs are read
+ * from the index table, with one query per page.
+ */
+public class ChangesServletTest {
+
+    private static final Date INSERTDATE = new Date(1589198400000L);
+    private static final String REGISTER_URI = "http://example.org/registry/codelist";
+
+    private final Map<String, String> uriByUuid = new HashMap<>();
+    private final List<RegItemchange> changes = new ArrayList<>();
+    private final AtomicInteger uriQueries = new AtomicInteger();
+    private ChangesServlet servlet;
+
+    @Before
+    public void setUp() throws Exception {
+        UriIndex.removeAll();
+        uriByUuid.put("uuid-red", REGISTER_URI + "/red");
+        uriByUuid.put("uuid-green", REGISTER_URI + "/green");
+        changes.add(new RegItemchange("1", "uuid-red", "created", INSERTDATE));
+        changes.add(new RegItemchange("2", "uuid-green", "updated", INSERTDATE));
+        changes.add(new RegItemchange("3", "uuid-red", "updated", INSERTDATE));
+        // Not indexed, e.g. removed
+        changes.add(new RegItemchange("4", "uuid-blue", "invalidated", INSERTDATE));
+
+        servlet = new ChangesServlet();
+        set("emf", entityManagerFactory());
+        set("maximumLimit", 1000);
+    }
+
+    @After
+    public void tearDown() {
+        UriIndex.removeAll();
+    }
+
+    @Test
+    public void listsTheUrisOfItemsMissingFromTheUriIndex() throws Exception {
+        JsonNode list = get();
+        List<String> uris = new ArrayList<>();
+        for (JsonNode change : list.get("changes")) {
+            uris.add(change.hasNonNull("uri") ? change.get("uri").asText() : null);
+        }
+        assertEquals(Arrays.asList(REGISTER_URI + "/red", REGISTER_URI + "/green", REGISTER_URI + "/red", null), uris);
+        assertEquals(1, uriQueries.get());
+        // The in-memory index is left as it is
+        assertEquals(null, UriIndex.getUri("uuid-red"));
+    }
+
+    @Test
+    public void readsNoUriOfAnEmptyPage() throws Exception {
+        changes.clear();
+        assertEquals(0, get().get("changes").size());
+        assertEquals(0, uriQueries.get());
+    }
+
+    private JsonNode get() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int[] status = new int[1];
+        HttpServletRequest req = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> "getParameter".equals(method.getName()) && "since".equals(args[0]) ? "2020-01-01" : null);
+        HttpServletResponse resp = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setStatus":
+                            status[0] = (Integer) args[0];
+                            return null;
+                        case "getOutputStream":
+                            return new ServletOutputStream() {
+                                @Override
+                                public void write(int b) {
+                                    body.write(b);
+                                }
+                            };
+                        default:
+                            return null;
+                    }
+                });
+        servlet.doGet(req, resp);
+        assertEquals(HttpServletResponse.SC_OK, status[0]);
+        return JSONInternalFormatter.OM.readTree(body.toByteArray());
+    }
+
+    private void set(String name, Object value) throws Exception {
+        Field field = ChangesServlet.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(servlet, value);
+    }
+
+    /**
+     * Returns an EntityManagerFactory answering the query of the changes and
+     * the queries of the URI index: the whole index is never read.
+     */
+    private EntityManagerFactory entityManagerFactory() {
+        EntityManager em = (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("create") && method.getName().endsWith("Query")) {
+                        return query((String) args[0]);
+                    }
+                    return null;
+                });
+        return (EntityManagerFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntityManagerFactory.class},
+                (proxy, method, args) -> "createEntityManager".equals(method.getName()) ? em : null);
+    }
+
+    private Query query(String query) {
+        Map<String, Object> parameters = new HashMap<>();
+        return (Query) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Query.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setParameter":
+                            parameters.put((String) args[0], args[1]);
+                            return proxy;
+                        case "getResultList":
+                            if (SQLConstants.SQL_GET_ITEMCHANGE_AFTER.equals(query)) {
+                                return new ArrayList<>(changes);
+                            }
+                            if (SQLConstants.SQL_GET_ITEMURI_URI_AND_ITEM_UUID_BY_ITEM_UUIDS.equals(query)) {
+                                uriQueries.incrementAndGet();
+                                List<Object[]> rows = new ArrayList<>();
+                                for (String uuid : (Collection<String>) parameters.get(SQLConstants.SQL_PARAMETERS_UUIDS)) {
+                                    if (uriByUuid.containsKey(uuid)) {
+                                        rows.add(new Object[]{uriByUuid.get(uuid), uuid});
+                                    }
+                                }
+                                return rows;
+                            }
+                            throw new AssertionError("Unexpected query " + query);
+                        default:
+                            return proxy;
+                    }
+                });
+    }
+
+}
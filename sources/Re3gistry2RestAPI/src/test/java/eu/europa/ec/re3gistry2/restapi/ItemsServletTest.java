@@ -0,0 +1,493 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+import javax.persistence.Query;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.model.RegRelationpredicate;
+import eu.europa.ec.re3gistry2.restapi.cache.CacheStatistics;
+import eu.europa.ec.re3gistry2.restapi.cache.CaffeineCache;
+import eu.europa.ec.re3gistry2.restapi.cache.EhCache;
+import eu.europa.ec.re3gistry2.restapi.cache.ItemCache;
+import eu.europa.ec.re3gistry2.restapi.cache.NegativeCache;
+import eu.europa.ec.re3gistry2.restapi.cache.ResponseCache;
+import eu.europa.ec.re3gistry2.restapi.format.Formatter;
+import eu.europa.ec.re3gistry2.restapi.format.JSONInternalFormatter;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+
+/**
+ * Requests the items cached in English (the master language) and in French,
+ * with and without the lang parameter, with both item caches. The item cache
+ * rejects the requests made without a language code.
+ *
+ * The cached items are answered on the calling thread, without waiting for
+ * the executor of the assemblies nor opening an EntityManager.
+ */
+@RunWith(Parameterized.class)
+public class ItemsServletTest {
+
+    private static final String UUID = "uuid-red";
+    private static final String URI = "http://example.org/registry/codelist/red";
+
+    @Parameter(0)
+    public String name;
+    @Parameter(1)
+    public Supplier<ItemCache> cacheSupplier;
+
+    private final AtomicInteger entityManagers = new AtomicInteger();
+    private ItemCache cache;
+    private ItemsServlet servlet;
+    private boolean asyncSupported;
+
+    @Parameters(name = "{0}")
+    public static List<Object[]> parameters() {
+        Supplier<ItemCache> caffeine = CaffeineCache::new;
+        Supplier<ItemCache> ehcache = EhCache::new;
+        return Arrays.asList(
+                new Object[]{"caffeine", caffeine},
+                new Object[]{"ehcache", ehcache});
+    }
+
+    @BeforeClass
+    public static void configure() {
+        // No configuration file: the defaults apply
+        Configuration.getLightInstance();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        RegistryMetadata.invalidate();
+        cache = new LanguageCheckingCache(cacheSupplier.get());
+        cache.add("en", item("en"));
+        cache.add("fr", item("fr"));
+
+        Map<String, Formatter> formatters = new HashMap<>();
+        Map<String, Formatter> mediaTypes = new HashMap<>();
+        for (Formatter formatter : ItemsServlet.createFormatters()) {
+            formatters.put(formatter.getFormatName(), formatter);
+            mediaTypes.putIfAbsent(formatter.getContentType(), formatter);
+        }
+        set("emf", entityManagerFactory());
+        set("cache", cache);
+        set("responseCache", new ResponseCache());
+        set("negativeCache", new NegativeCache());
+        set("formatters", formatters);
+        set("mediaTypes", mediaTypes);
+        set("maximumBatchSize", 1000);
+        set("streamingThreshold", 1000);
+        set("maximumPageLimit", 1000);
+        // Assembling on the calling thread
+        set("assemblyExecutor", null);
+        servlet = new ItemsServlet();
+    }
+
+    @After
+    public void tearDown() {
+        cache.close();
+        RegistryMetadata.invalidate();
+    }
+
+    @Test
+    public void requestByUuidWithoutLanguageIsAnsweredInTheMasterLanguage() throws Exception {
+        Response response = get("uuid", UUID);
+        assertEquals(HttpServletResponse.SC_OK, response.status);
+        assertEquals("en", response.json().get("language").asText());
+    }
+
+    @Test
+    public void requestByUriWithoutLanguageIsAnsweredInTheMasterLanguage() throws Exception {
+        Response response = get("uri", URI);
+        assertEquals(HttpServletResponse.SC_OK, response.status);
+        assertEquals("en", response.json().get("language").asText());
+    }
+
+    @Test
+    public void requestWithLanguageIsAnsweredInThatLanguage() throws Exception {
+        assertEquals("fr", get("uuid", UUID, "lang", "fr").json().get("language").asText());
+        // ISO 639-2 codes are accepted too
+        assertEquals("fr", get("uuid", UUID, "lang", "fra").json().get("language").asText());
+        assertEquals("en", get("uuid", UUID, "lang", "en").json().get("language").asText());
+    }
+
+    @Test
+    public void requestInAnUnknownLanguageIsRejected() throws Exception {
+        assertEquals(406, get("uuid", UUID, "lang", "xx").status);
+    }
+
+    @Test
+    public void cachedItemIsAnsweredWithoutTheExecutorNorTheDatabase() throws Exception {
+        // Loading the metadata snapshot
+        assertEquals(HttpServletResponse.SC_OK, get("uuid", UUID).status);
+        entityManagers.set(0);
+
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        try {
+            // One running assembly and one queued: the executor is full
+            executor.execute(() -> await(release));
+            executor.execute(() -> await(release));
+            set("assemblyExecutor", executor);
+            set("assemblyTimeoutNanos", TimeUnit.SECONDS.toNanos(30));
+            asyncSupported = true;
+
+            Response hit = get("uri", URI, "lang", "fr");
+            assertEquals(HttpServletResponse.SC_OK, hit.status);
+            assertEquals("fr", hit.json().get("language").asText());
+            assertEquals(0, entityManagers.get());
+
+            assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, get("uuid", "uuid-missing").status);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cachedItemIsExportedWithoutCountingItsContainedItems() throws Exception {
+        // Loading the metadata snapshot
+        assertEquals(HttpServletResponse.SC_OK, get("uuid", UUID).status);
+        entityManagers.set(0);
+
+        for (String format : Arrays.asList("csv", "jsonl")) {
+            assertEquals(format, HttpServletResponse.SC_OK, get("uuid", UUID, "format", format).status);
+        }
+        assertEquals(0, entityManagers.get());
+    }
+
+    @Test
+    public void batchWithoutLanguageIsAnsweredInTheMasterLanguage() throws Exception {
+        Response response = post("{\"uuid\":[\"" + UUID + "\"],\"uri\":[\"" + URI + "\"]}");
+        assertEquals(HttpServletResponse.SC_OK, response.status);
+        JsonNode entries = response.json();
+        assertEquals(2, entries.size());
+        for (JsonNode entry : entries) {
+            assertEquals(HttpServletResponse.SC_OK, entry.get("status").asInt());
+            assertEquals("en", entry.get("item").get("language").asText());
+        }
+    }
+
+    private Response get(String... parameters) throws Exception {
+        Response response = new Response();
+        servlet.doGet(request("/any", null, parameters("format", "jsonc", parameters)), response.proxy());
+        return response;
+    }
+
+    private Response post(String body) throws Exception {
+        Response response = new Response();
+        servlet.doPost(request("/batch", body, Collections.emptyMap()), response.proxy());
+        return response;
+    }
+
+    private static Map<String, String> parameters(String key, String value, String... more) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(key, value);
+        for (int i = 0; i < more.length; i += 2) {
+            parameters.put(more[i], more[i + 1]);
+        }
+        return parameters;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void set(String name, Object value) throws Exception {
+        Field field = ItemsServlet.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
+
+    private static Item item(String language) {
+        Item item = new Item();
+        item.setUuid(UUID);
+        item.setUri(URI);
+        item.setLocalid("red");
+        item.setLanguage(language);
+        item.setType(BaseConstants.KEY_ITEMCLASS_TYPE_ITEM);
+        return item;
+    }
+
+    private static RegLanguagecode language(String uuid, String iso6391code, String iso6392code, boolean master) {
+        RegLanguagecode language = new RegLanguagecode(uuid, iso6391code, iso6391code, null);
+        language.setIso6392code(iso6392code);
+        language.setMasterlanguage(master);
+        language.setActive(Boolean.TRUE);
+        return language;
+    }
+
+    /**
+     * Returns an EntityManagerFactory answering the queries of the languages
+     * and of the relation predicates, and every other query with no result.
+     */
+    private EntityManagerFactory entityManagerFactory() {
+        RegLanguagecode english = language("1", "en", "eng", true);
+        List<RegLanguagecode> languages = Arrays.asList(english, language("2", "fr", "fra", false));
+        List<RegRelationpredicate> predicates = Arrays.asList(
+                new RegRelationpredicate(BaseConstants.KEY_PREDICATE_REGISTRY, "registry", null),
+                new RegRelationpredicate(BaseConstants.KEY_PREDICATE_REGISTER, "register", null),
+                new RegRelationpredicate(BaseConstants.KEY_PREDICATE_COLLECTION, "collection", null),
+                new RegRelationpredicate(BaseConstants.KEY_PREDICATE_PARENT, "parent", null),
+                new RegRelationpredicate(BaseConstants.KEY_PREDICATE_SUCCESSOR, "successor", null),
+                new RegRelationpredicate(BaseConstants.KEY_PREDICATE_PREDECESSOR, "predecessor", null),
+                new RegRelationpredicate(BaseConstants.KEY_PREDICATE_REFERENCE, "reference", null));
+        Map<String, Object> results = new HashMap<>();
+        results.put("RegLanguagecode.findAll", languages);
+        results.put(SQLConstants.SQL_GET_LANGUAGECODE_MASTERLANGUAGE, english);
+        results.put("RegRelationpredicate.findAll", predicates);
+
+        EntityManager em = (EntityManager) Proxy.newProxyInstance(ItemsServletTest.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("create") && method.getName().endsWith("Query")) {
+                        return query(results.get((String) args[0]));
+                    }
+                    return null;
+                });
+        return (EntityManagerFactory) Proxy.newProxyInstance(ItemsServletTest.class.getClassLoader(),
+                new Class<?>[]{EntityManagerFactory.class},
+                (proxy, method, args) -> {
+                    if ("createEntityManager".equals(method.getName())) {
+                        entityManagers.incrementAndGet();
+                        return em;
+                    }
+                    return null;
+                });
+    }
+
+    private static Query query(Object result) {
+        return (Query) Proxy.newProxyInstance(ItemsServletTest.class.getClassLoader(),
+                new Class<?>[]{Query.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getResultList":
+                            return result == null ? Collections.emptyList() : result;
+                        case "getSingleResult":
+                            if (result == null) {
+                                throw new NoResultException();
+                            }
+                            return result;
+                        default:
+                            return proxy;
+                    }
+                });
+    }
+
+    private HttpServletRequest request(String pathInfo, String body, Map<String, String> parameters) {
+        InputStream in = new ByteArrayInputStream(body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8));
+        return (HttpServletRequest) Proxy.newProxyInstance(ItemsServletTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getPathInfo":
+                            return pathInfo;
+                        case "getParameter":
+                            return parameters.get((String) args[0]);
+                        case "getProtocol":
+                            return "HTTP/1.1";
+                        case "getInputStream":
+                            return new ServletInputStream() {
+                                @Override
+                                public int read() throws IOException {
+                                    return in.read();
+                                }
+                            };
+                        case "isAsyncSupported":
+                            return asyncSupported;
+                        case "startAsync":
+                            return Proxy.newProxyInstance(ItemsServletTest.class.getClassLoader(),
+                                    new Class<?>[]{AsyncContext.class}, (context, contextMethod, contextArgs) -> null);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static class Response {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status;
+
+        private HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(ItemsServletTest.class.getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            case "getStatus":
+                                return status;
+                            case "isCommitted":
+                                return false;
+                            case "getOutputStream":
+                                return new ServletOutputStream() {
+                                    @Override
+                                    public void write(int b) {
+                                        body.write(b);
+                                    }
+                                };
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private JsonNode json() throws IOException {
+            JsonNode json = JSONInternalFormatter.OM.readTree(body.toByteArray());
+            assertNotNull(json);
+            return json;
+        }
+
+    }
+
+    /**
+     * ItemCache failing on the requests made without a language code.
+     */
+    private static class LanguageCheckingCache implements ItemCache {
+
+        private final ItemCache cache;
+
+        private LanguageCheckingCache(ItemCache cache) {
+            this.cache = cache;
+        }
+
+        private static String check(String language) {
+            if (language == null) {
+                throw new AssertionError("Item cache used without a language code");
+            }
+            return language;
+        }
+
+        @Override
+        public Set<String> getLanguages() {
+            return cache.getLanguages();
+        }
+
+        @Override
+        public Item getByUuid(String language, String uuid) {
+            return cache.getByUuid(check(language), uuid);
+        }
+
+        @Override
+        public Item getByUrl(String language, String url) {
+            return cache.getByUrl(check(language), url);
+        }
+
+        @Override
+        public boolean contains(String language, String uuid) {
+            return cache.contains(check(language), uuid);
+        }
+
+        @Override
+        public void add(String language, Item item) {
+            cache.add(check(language), item);
+        }
+
+        @Override
+        public void remove(String language, String uuid) {
+            cache.remove(check(language), uuid);
+        }
+
+        @Override
+        public void removeAll() {
+            cache.removeAll();
+        }
+
+        @Override
+        public void close() {
+            cache.close();
+        }
+
+        @Override
+        public void setEvictionListener(BiConsumer<String, String> listener) {
+            cache.setEvictionListener(listener);
+        }
+
+        @Override
+        public CacheStatistics getStatistics() {
+            return cache.getStatistics();
+        }
+
+        @Override
+        public Map<String, Long> countEntriesByLanguage() {
+            return cache.countEntriesByLanguage();
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+
+/**
+ * Runs concurrent get/invalidate cycles of the metadata snapshot: a snapshot
+ * loaded before an invalidation must never be served once the invalidation
+ * is over.
+ */
+public class RegistryMetadataTest {
+
+    private static final int READERS = 8;
+    private static final int INVALIDATIONS = 500;
+
+    // Version of the data read by the snapshots, in the label of the master language
+    private final AtomicInteger version = new AtomicInteger();
+    // Last version whose invalidation is over
+    private final AtomicInteger invalidated = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        RegistryMetadata.invalidate();
+    }
+
+    @After
+    public void tearDown() {
+        RegistryMetadata.invalidate();
+    }
+
+    @Test
+    public void servesTheSameSnapshotUntilInvalidated() throws Exception {
+        EntityManager em = entityManager();
+        RegistryMetadata metadata = RegistryMetadata.get(em);
+        assertTrue(metadata == RegistryMetadata.get(em));
+
+        version.incrementAndGet();
+        RegistryMetadata.invalidate();
+        RegistryMetadata reloaded = RegistryMetadata.get(em);
+        assertTrue(metadata != reloaded);
+        assertEquals(1, versionOf(reloaded));
+    }
+
+    @Test
+    public void servesNoStaleSnapshotAfterAnInvalidation() throws Exception {
+        EntityManager em = entityManager();
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    int reads = 0;
+                    while (!done.get()) {
+                        int expected = invalidated.get();
+                        int actual = versionOf(RegistryMetadata.get(em));
+                        if (actual < expected) {
+                            throw new AssertionError("Snapshot of version " + actual + " served after the invalidation of version " + expected);
+                        }
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+            Future<?> writer = executor.submit(() -> {
+                start.await();
+                try {
+                    for (int i = 0; i < INVALIDATIONS; i++) {
+                        int v = version.incrementAndGet();
+                        RegistryMetadata.invalidate();
+                        invalidated.set(v);
+                        Thread.yield();
+                    }
+                } finally {
+                    done.set(true);
+                }
+                return null;
+            });
+
+            start.countDown();
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+            }
+            assertEquals(INVALIDATIONS, versionOf(RegistryMetadata.get(em)));
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    private static int versionOf(RegistryMetadata metadata) {
+        return Integer.parseInt(metadata.getMasterLanguage().getLabel());
+    }
+
+    /**
+     * Returns an EntityManager answering the query of the master language
+     * with a language labelled with the current version, and every other
+     * query with no result.
+     */
+    private EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("create") && method.getName().endsWith("Query")) {
+                        return query((String) args[0]);
+                    }
+                    return null;
+                });
+    }
+
+    private Query query(String query) {
+        return (Query) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Query.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getSingleResult":
+                            if (SQLConstants.SQL_GET_LANGUAGECODE_MASTERLANGUAGE.equals(query)) {
+                                // Read once per load, before the rest of the snapshot
+                                return new RegLanguagecode("1", String.valueOf(version.get()), "en", null);
+                            }
+                            return null;
+                        case "getResultList":
+                            return Collections.emptyList();
+                        default:
+                            return proxy;
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.base.utility.Configuration;
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+
+/**
+ * Changes of the configuration of the registry (item classes, fields,
+ * statuses...) are not in the log of the published changes: they are
+ * detected from the configuration tables at each poll.
+ */
+public class CacheInvalidatorTest {
+
+    private static final Date INSERTDATE = new Date(1589198400000L);
+    private static final String UUID = "uuid-red";
+    private static final String MISSING = NegativeCache.getKey("uuid-blue", null);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DependencyTrackingCache cache;
+    private NegativeCache negativeCache;
+    private Date itemclassEditdate;
+
+    @BeforeClass
+    public static void configure() {
+        // No configuration file: the defaults apply
+        Configuration.getLightInstance();
+    }
+
+    @Before
+    public void setUp() {
+        cache = new DependencyTrackingCache(new CaffeineCache());
+        negativeCache = new NegativeCache();
+    }
+
+    @Test
+    public void flushesTheCachesWhenTheConfigurationChanges() {
+        CacheInvalidator invalidator = invalidator(null);
+        invalidator.run();
+        fill();
+
+        invalidator.run();
+        assertNotNull(cache.getByUuid("en", UUID));
+        assertTrue(negativeCache.isMissing(MISSING));
+
+        // An item class edited
+        itemclassEditdate = new Date(INSERTDATE.getTime() + 1000L);
+        invalidator.run();
+        assertNull(cache.getByUuid("en", UUID));
+        assertFalse(negativeCache.isMissing(MISSING));
+
+        fill();
+        invalidator.run();
+        assertNotNull(cache.getByUuid("en", UUID));
+    }
+
+    @Test
+    public void flushesThePersistentCacheWhenTheConfigurationChangedWhileDown() throws Exception {
+        Path stateFile = folder.getRoot().toPath().resolve("cache.state");
+        invalidator(stateFile).run();
+        fill();
+
+        // Restarted with the same configuration
+        invalidator(stateFile).run();
+        assertNotNull(cache.getByUuid("en", UUID));
+
+        // Restarted after an item class was edited
+        itemclassEditdate = new Date(INSERTDATE.getTime() + 1000L);
+        invalidator(stateFile).run();
+        assertNull(cache.getByUuid("en", UUID));
+    }
+
+    private void fill() {
+        Item item = new Item();
+        item.setUuid(UUID);
+        item.setUri("http://example.org/registry/codelist/red");
+        item.setLocalid("red");
+        item.setLanguage("en");
+        item.setType(BaseConstants.KEY_ITEMCLASS_TYPE_ITEM);
+        cache.add("en", item);
+        negativeCache.putMissing(MISSING);
+    }
+
+    private CacheInvalidator invalidator(Path stateFile) {
+        return new CacheInvalidator(entityManagerFactory(), cache, new ResponseCache(), negativeCache, stateFile);
+    }
+
+    /**
+     * Returns an EntityManagerFactory answering the queries of the log of the
+     * published changes (always empty) and of the configuration tables.
+     */
+    private EntityManagerFactory entityManagerFactory() {
+        EntityManager em = (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("create") && method.getName().endsWith("Query")) {
+                        return query((String) args[0]);
+                    }
+                    return null;
+                });
+        return (EntityManagerFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EntityManagerFactory.class},
+                (proxy, method, args) -> "createEntityManager".equals(method.getName()) ? em : null);
+    }
+
+    private Query query(String query) {
+        return (Query) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Query.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getResultList":
+                            return new ArrayList<>();
+                        case "getSingleResult":
+                            if (SQLConstants.SQL_GET_ITEMCHANGE_LAST_INSERTDATE.equals(query)) {
+                                return INSERTDATE;
+                            }
+                            if (SQLConstants.SQL_GET_CONFIGURATION_STATE_ITEMCLASS.equals(query)) {
+                                return new Object[]{1L, INSERTDATE, itemclassEditdate};
+                            }
+                            return new Object[]{1L, INSERTDATE, null};
+                        default:
+                            return proxy;
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import eu.europa.ec.re3gistry2.restapi.model.BasicContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.ItemClass;
+import eu.europa.ec.re3gistry2.restapi.model.ItemRef;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedPropertyValue;
+import eu.europa.ec.re3gistry2.restapi.model.Pagination;
+import eu.europa.ec.re3gistry2.restapi.model.VersionInformation;
+
+/**
+ * Encodes and decodes items: every field of the items, of the contained
+ * items and of the pagination must come back unchanged.
+ */
+public class ItemCodecTest {
+
+    private static final String BASE = "http://example.org/registry/codelist/";
+
+    @Test
+    public void theFixtureSetsEveryField() throws Exception {
+        // A field added to the model has to be added to the fixture, and to the codec
+        assertAllFieldsSet("item", fullItem());
+    }
+
+    @Test
+    public void decodesEveryField() throws Exception {
+        ItemCodec codec = new ItemCodec();
+        Item item = fullItem();
+        assertDeepEquals("item", item, codec.decode(codec.encode(item)));
+    }
+
+    @Test
+    public void decodesTheNullAndEmptyFields() throws Exception {
+        ItemCodec codec = new ItemCodec();
+
+        Item empty = new Item();
+        assertDeepEquals("empty", empty, codec.decode(codec.encode(empty)));
+
+        Item item = new Item();
+        item.setUri("");
+        item.setLocalid("");
+        item.setVersionHistory(Collections.emptyList());
+        item.setProperties(Arrays.asList(
+                new LocalizedProperty(null, "label", false, null, null, 0, false),
+                new LocalizedProperty("en", "definition", false, "Definition",
+                        Arrays.asList(new LocalizedPropertyValue(null, null), new LocalizedPropertyValue("", "")), 0, false)));
+        item.setContainedItems(Collections.emptyList());
+        item.setNarrower(Arrays.asList(basic(BASE), null));
+        item.setPagination(new Pagination(0, 0, null, null));
+        assertDeepEquals("item", item, codec.decode(codec.encode(item)));
+    }
+
+    @Test
+    public void decodesTheUris() throws Exception {
+        ItemCodec codec = new ItemCodec();
+        for (String uri : Arrays.asList("", "/", "a", "a/", "/a", BASE, BASE + "red", "urn:x-example:red")) {
+            Item item = new Item();
+            item.setUri(uri);
+            assertEquals(uri, codec.decode(codec.encode(item)).getUri());
+        }
+    }
+
+    @Test
+    public void decodesTheItemsOfAnotherEncoding() throws Exception {
+        // Decoded after the dictionary grew with other items
+        ItemCodec codec = new ItemCodec();
+        Item item = fullItem();
+        byte[] bytes = codec.encode(item);
+        for (int i = 0; i < 5000; i++) {
+            Item other = new Item();
+            other.setUri(BASE + "other" + i + "/red");
+            other.setLanguage("l" + i);
+            codec.encode(other);
+        }
+        assertDeepEquals("item", item, codec.decode(bytes));
+    }
+
+    @Test
+    public void writesInlineTheStringsPastTheDictionaryLimit() throws Exception {
+        ItemCodec codec = new ItemCodec();
+        List<byte[]> encoded = new ArrayList<>();
+        for (int i = 0; i < 70000; i++) {
+            Item item = new Item();
+            item.setLanguage("l" + i);
+            encoded.add(codec.encode(item));
+        }
+        assertEquals(65536, codec.getDictionarySize());
+        for (int i = 0; i < encoded.size(); i += 997) {
+            assertEquals("l" + i, codec.decode(encoded.get(i)).getLanguage());
+        }
+        assertEquals("l69999", codec.decode(encoded.get(69999)).getLanguage());
+    }
+
+    @Test
+    public void sharesTheRepeatedStrings() throws Exception {
+        ItemCodec codec = new ItemCodec();
+        Item first = codec.decode(codec.encode(fullItem()));
+        Item second = codec.decode(codec.encode(fullItem()));
+        assertSame(first.getLanguage(), second.getLanguage());
+        assertSame(first.getProperties().get(0).getLabel(), second.getProperties().get(0).getLabel());
+    }
+
+    @Test
+    public void rejectsTheUnknownItemTypes() {
+        Item item = new Item();
+        item.setInScheme(new BasicContainedItem() {
+        });
+        try {
+            new ItemCodec().encode(item);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    private static Item fullItem() {
+        Item item = new Item();
+        setContainedItem(item, "red");
+        item.setPagination(new Pagination(120, 50, 50, BASE + "red?offset=100&limit=50"));
+        return item;
+    }
+
+    private static ContainedItem containedItem(String localid) {
+        ContainedItem item = new ContainedItem();
+        setContainedItem(item, localid);
+        return item;
+    }
+
+    private static void setContainedItem(ContainedItem item, String localid) {
+        String uri = BASE + localid;
+        item.setUuid("uuid-" + localid);
+        item.setUri(uri);
+        item.setLocalid(localid);
+        item.setVersion(new VersionInformation(3, uri + ":3"));
+        item.setVersionHistory(Arrays.asList(new VersionInformation(1, uri + ":1"), new VersionInformation(2, uri + ":2")));
+        item.setLanguage("en");
+        item.setType("item");
+        item.setHasCollection(true);
+        item.setIsParent(true);
+        item.setLatest(true);
+        item.setExternal(true);
+        item.setInsertdate(new Date(1589198400123L));
+        item.setEditdate(new Date(-1L));
+        item.setItemclass(new ItemClass("value"));
+        item.setRegistry(new ItemRef("http://example.org/registry", Collections.singletonList(
+                new LocalizedProperty("en", "label", true, "label", Collections.singletonList(new LocalizedPropertyValue("Registry", "")), 0, true))));
+        item.setRegister(new ItemRef(BASE, Collections.singletonList(
+                new LocalizedProperty("fr", "label", true, "label", Collections.singletonList(new LocalizedPropertyValue("Liste de codes", "")), 0, true))));
+        item.setInScheme(basic(BASE));
+        item.setTopConceptOf(basic(BASE));
+        item.setProperties(Arrays.asList(
+                new LocalizedProperty("en", "label", true, "Label", Collections.singletonList(new LocalizedPropertyValue("Red é中😀", "")), 1, true),
+                new LocalizedProperty("en", "status", false, "Status", Collections.singletonList(new LocalizedPropertyValue("Valid", "http://example.org/status/valid")), 2, false),
+                new LocalizedProperty("en", "parent", false, "Parent", Arrays.asList(
+                        new LocalizedPropertyValue("Colour", BASE + "Colour"),
+                        new LocalizedPropertyValue("Shade", "urn:shade")), 300, true)));
+        item.setNarrower(Arrays.asList(basic(uri + "/dark"), basic(uri + "/light")));
+        item.setBroader(Collections.singletonList(basic(BASE + "Colour")));
+        item.setTopConcepts(Collections.singletonList(basic(BASE + "Colour")));
+        // Nested once, the contained items of the contained items have none
+        if (localid.indexOf('/') < 0) {
+            item.setIsDefinedBy(Collections.singletonList(containedItem(localid + "/theme")));
+            item.setContainedItemsBeeingParentItemClass(Collections.singletonList(containedItem(localid + "/parent")));
+            item.setContainedItems(Arrays.asList(containedItem(localid + "/dark"), containedItem(localid + "/light")));
+        } else {
+            item.setIsDefinedBy(Collections.emptyList());
+            item.setContainedItemsBeeingParentItemClass(Collections.emptyList());
+            item.setContainedItems(Collections.emptyList());
+        }
+    }
+
+    private static BasicContainedItem basic(String uri) {
+        BasicContainedItem item = new BasicContainedItem();
+        item.setUri(uri);
+        return item;
+    }
+
+    private static void assertAllFieldsSet(String path, Object o) throws Exception {
+        for (Field field : fields(o.getClass())) {
+            Object value = field.get(o);
+            String fieldPath = path + "." + field.getName();
+            assertNotNull(fieldPath, value);
+            if (value instanceof Boolean) {
+                assertTrue(fieldPath, (Boolean) value);
+            } else if (isModel(value)) {
+                assertAllFieldsSet(fieldPath, value);
+            }
+        }
+    }
+
+    private static void assertDeepEquals(String path, Object expected, Object actual) throws Exception {
+        if (expected == null || actual == null) {
+            assertSame(path, expected, actual);
+            return;
+        }
+        if (expected instanceof List) {
+            assertTrue(path, actual instanceof List);
+            List<?> expectedList = (List<?>) expected;
+            List<?> actualList = (List<?>) actual;
+            assertEquals(path + ".size", expectedList.size(), actualList.size());
+            for (int i = 0; i < expectedList.size(); i++) {
+                assertDeepEquals(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+            }
+        } else if (isModel(expected)) {
+            assertSame(path, expected.getClass(), actual.getClass());
+            for (Field field : fields(expected.getClass())) {
+                assertDeepEquals(path + "." + field.getName(), field.get(expected), field.get(actual));
+            }
+        } else {
+            assertEquals(path, expected, actual);
+        }
+    }
+
+    private static boolean isModel(Object o) {
+        return o.getClass().getPackage() == Item.class.getPackage();
+    }
+
+    // The fields hidden by a subclass (e.g. Item.registry) are left out
+    private static List<Field> fields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && names.add(field.getName())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The request counters saved at shutdown order the warm-up after a restart.
+ */
+public class RequestStatisticsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        RequestStatistics.clear();
+    }
+
+    @Test
+    public void countersSurviveARestart() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("request-statistics.properties");
+        RequestStatistics.record("uuid-red");
+        RequestStatistics.record("uuid-green");
+        RequestStatistics.record("uuid-green");
+        RequestStatistics.save(file);
+
+        // Restarted
+        RequestStatistics.clear();
+        RequestStatistics.load(file);
+        RequestStatistics.record("uuid-red");
+        assertEquals(2L, RequestStatistics.getRequests("uuid-red"));
+        assertEquals(2L, RequestStatistics.getRequests("uuid-green"));
+
+        RequestStatistics.record("uuid-green");
+        List<String> uuids = new ArrayList<>(Arrays.asList("uuid-blue", "uuid-red", "uuid-green"));
+        RequestStatistics.sortByRequests(uuids);
+        assertEquals(Arrays.asList("uuid-green", "uuid-red", "uuid-blue"), uuids);
+    }
+
+    @Test
+    public void noFileLeavesTheCountersEmpty() {
+        RequestStatistics.load(folder.getRoot().toPath().resolve("missing.properties"));
+        assertEquals(0, RequestStatistics.getMostRequested(10).size());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.Pagination;
+import eu.europa.ec.re3gistry2.restapi.model.VersionInformation;
+
+/**
+ * Decodes the Smile and CBOR outputs: they must hold the same fields, in the
+ * same order and with the same values, as the jsonc output of the item.
+ */
+public class BinaryFormatterTest {
+
+    @Test
+    public void smileHoldsTheJsoncModel() throws Exception {
+        for (Item item : items()) {
+            byte[] smile = write(new SmileFormatter(), item);
+            // Smile header
+            assertTrue(smile[0] == ':' && smile[1] == ')' && smile[2] == '\n');
+            assertSameModel(item, SmileFormatter.OM, smile);
+        }
+    }
+
+    @Test
+    public void cborHoldsTheJsoncModel() throws Exception {
+        for (Item item : items()) {
+            assertSameModel(item, CBORFormatter.OM, write(new CBORFormatter(), item));
+        }
+    }
+
+    @Test
+    public void binaryFormatsAreSmallerThanJsonc() throws Exception {
+        Item register = FormatterFixtures.register();
+        int jsonc = write(new JSONInternalFormatter(), register).length;
+        assertTrue(write(new SmileFormatter(), register).length < jsonc);
+        assertTrue(write(new CBORFormatter(), register).length < jsonc);
+    }
+
+    private static void assertSameModel(Item item, ObjectMapper om, byte[] bytes) throws Exception {
+        JsonNode expected = JSONInternalFormatter.OM.readTree(write(new JSONInternalFormatter(), item));
+        JsonNode actual = om.readTree(bytes);
+        assertEquals(item.getUri(), expected, actual);
+        // JsonNode.equals ignores the order of the fields
+        assertEquals(item.getUri(), expected.toString(), actual.toString());
+    }
+
+    private static List<Item> items() {
+        Item paged = FormatterFixtures.register();
+        paged.setPagination(new Pagination(2, 1, 0, FormatterFixtures.REGISTER_URI + "?offset=1&limit=1"));
+        Item versioned = FormatterFixtures.item();
+        versioned.setVersionHistory(Arrays.asList(
+                new VersionInformation(1, FormatterFixtures.ITEM_URI + ":1"),
+                new VersionInformation(2, FormatterFixtures.ITEM_URI + ":2")));
+        return Arrays.asList(FormatterFixtures.registry(), FormatterFixtures.register(), FormatterFixtures.item(), paged, versioned);
+    }
+
+    private static byte[] write(Formatter formatter, Item item) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.write(item, new RenderContext(FormatterFixtures.language(), null), out);
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+
+/**
+ * Writes the items with shared formatters from many threads at once, in
+ * different languages: every response must be the one written by a single
+ * thread. The blank nodes of the n-triples, unique per document, are
+ * renamed before the comparison.
+ */
+public class FormatterConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 500;
+    private static final Pattern BLANK_NODE_PREFIX = Pattern.compile("_:b[0-9a-f]+x");
+
+    private static TimeZone defaultTimeZone;
+    private static RegistryMetadata metadata;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        RegistryMetadata.invalidate();
+        metadata = RegistryMetadata.get(FormatterFixtures.entityManager());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        RegistryMetadata.invalidate();
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void writesTheSameOutputFromManyThreads() throws Exception {
+        List<Formatter> formatters = Arrays.asList(
+                new JSONFormatter(),
+                new JSONInternalFormatter(),
+                new SmileFormatter(),
+                new CBORFormatter(),
+                new XMLFormatter(),
+                new ISO19135Formatter(),
+                new RDFFormatter(),
+                new TurtleFormatter(),
+                new NTriplesFormatter(),
+                new JSONLDFormatter(false),
+                new CSVFormatter(),
+                new JSONLinesFormatter(),
+                new RORFormatter());
+        List<Item> items = Arrays.asList(FormatterFixtures.registry(), FormatterFixtures.register(), FormatterFixtures.item());
+        RegLanguagecode french = new RegLanguagecode("2", "French", "fr", null);
+        french.setIso6392code("fra");
+        List<RegLanguagecode> languages = Arrays.asList(FormatterFixtures.language(), french);
+
+        // Expected output of each formatter, item and language, written by one thread
+        List<Object[]> cases = new ArrayList<>();
+        for (Formatter formatter : formatters) {
+            for (Item item : items) {
+                for (RegLanguagecode language : languages) {
+                    cases.add(new Object[]{formatter, item, language, write(formatter, item, language)});
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < WRITES_PER_THREAD; j++) {
+                        Object[] c = cases.get(ThreadLocalRandom.current().nextInt(cases.size()));
+                        Formatter formatter = (Formatter) c[0];
+                        RegLanguagecode language = (RegLanguagecode) c[2];
+                        String actual = write(formatter, (Item) c[1], language);
+                        assertEquals(formatter.getFormatName() + " " + language.getIso6391code(), c[3], actual);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String write(Formatter formatter, Item item, RegLanguagecode language) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.write(item, new RenderContext(language, metadata), out);
+        // Compared as ISO-8859-1 to keep the bytes of the binary formats
+        String written = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+        if (formatter instanceof NTriplesFormatter) {
+            return BLANK_NODE_PREFIX.matcher(written).replaceAll("_:b");
+        }
+        return written;
+    }
+
+}
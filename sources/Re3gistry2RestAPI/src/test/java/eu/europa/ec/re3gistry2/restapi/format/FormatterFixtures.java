@@ -0,0 +1,302 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NoResultException;
+import javax.persistence.Query;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.crudimplementation.constants.SQLConstants;
+import eu.europa.ec.re3gistry2.model.RegField;
+import eu.europa.ec.re3gistry2.model.RegFieldmapping;
+import eu.europa.ec.re3gistry2.model.RegItemclass;
+import eu.europa.ec.re3gistry2.model.RegLanguagecode;
+import eu.europa.ec.re3gistry2.restapi.model.BasicContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.ContainedItem;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+import eu.europa.ec.re3gistry2.restapi.model.ItemClass;
+import eu.europa.ec.re3gistry2.restapi.model.ItemRef;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedProperty;
+import eu.europa.ec.re3gistry2.restapi.model.LocalizedPropertyValue;
+import eu.europa.ec.re3gistry2.restapi.model.VersionInformation;
+
+/**
+ * Items used to test the formatters: a registry, a register with a collection
+ * and an item, with the fields the formatters write set.
+ *
+ * The golden files under src/test/resources were written from these items by
+ * the formatters of the release before the streaming writers.
+ */
+final class FormatterFixtures {
+
+    static final String REGISTRY_URI = "http://example.org/registry";
+    static final String REGISTER_URI = REGISTRY_URI + "/codelist";
+    static final String COLLECTION_URI = REGISTER_URI + "/Colour";
+    static final String ITEM_URI = COLLECTION_URI + "/red";
+
+    // 2020-05-11T12:00:00Z and 2021-06-15T12:00:00Z
+    private static final Date INSERTDATE = new Date(1589198400000L);
+    private static final Date EDITDATE = new Date(1623758400000L);
+
+    private FormatterFixtures() {
+    }
+
+    static RegLanguagecode language() {
+        RegLanguagecode language = new RegLanguagecode("1", "English", "en", INSERTDATE);
+        language.setIso6392code("eng");
+        language.setMasterlanguage(Boolean.TRUE);
+        language.setActive(Boolean.TRUE);
+        return language;
+    }
+
+    static Item registry() {
+        Item registry = new Item();
+        setItem(registry, REGISTRY_URI, "registry", BaseConstants.KEY_ITEMCLASS_TYPE_REGISTRY, "registry");
+        registry.setProperties(Arrays.asList(
+                property("label", "Label", true, "Example registry", ""),
+                property("contentsummary", "Content summary", false, "Registry of the examples", ""),
+                property("contactpoint", "Contact point", false, "Registry team", "mailto:registry@example.org"),
+                property("license", "License", false, "CC BY 4.0", "https://creativecommons.org/licenses/by/4.0/")));
+        ContainedItem register = register(new ContainedItem());
+        registry.setContainedItems(Collections.singletonList(register));
+        registry.setTopConcepts(Collections.singletonList(basic(REGISTER_URI)));
+        return registry;
+    }
+
+    static Item register() {
+        Item register = register(new Item());
+        ContainedItem collection = collection();
+        collection.setContainedItems(Arrays.asList(item(new ContainedItem()), blue()));
+        register.setContainedItems(Arrays.asList(collection, green()));
+        register.setTopConcepts(Arrays.asList(basic(COLLECTION_URI), basic(REGISTER_URI + "/green")));
+        return register;
+    }
+
+    static Item item() {
+        Item item = item(new Item());
+        item.setRegistry(registryRef());
+        item.setRegister(registerRef());
+        return item;
+    }
+
+    /**
+     * Returns an EntityManagerFactory answering the queries of the item
+     * classes, of the field mappings and of the languages with the fixtures,
+     * and every other query with no result.
+     */
+    static EntityManagerFactory entityManagerFactory() {
+        EntityManager em = entityManager();
+        return (EntityManagerFactory) Proxy.newProxyInstance(FormatterFixtures.class.getClassLoader(),
+                new Class<?>[]{EntityManagerFactory.class},
+                (proxy, method, args) -> "createEntityManager".equals(method.getName()) ? em : null);
+    }
+
+    static EntityManager entityManager() {
+        List<RegItemclass> itemclasses = new ArrayList<>();
+        List<RegFieldmapping> fieldmappings = new ArrayList<>();
+        addItemclass(itemclasses, fieldmappings, "registry", "label", "contentsummary");
+        addItemclass(itemclasses, fieldmappings, "codelist", "label", "contentsummary", "status");
+        addItemclass(itemclasses, fieldmappings, "value", "label", "definition", "status", "parent", "registry", "register");
+
+        Map<String, Function<Map<String, Object>, Object>> queries = new HashMap<>();
+        queries.put("RegItemclass.findAll", parameters -> itemclasses);
+        queries.put("RegItemclass.findByLocalid", parameters -> itemclasses.stream()
+                .filter(it -> it.getLocalid().equals(parameters.get(SQLConstants.SQL_PARAMETERS_LOCALID)))
+                .findAny()
+                .orElseThrow(NoResultException::new));
+        queries.put("RegFieldmapping.findAll", parameters -> fieldmappings);
+        queries.put(SQLConstants.SQL_GET_REG_FIELDMAPPING_BY_ITEMCLASS_ORDER_BY_LISTORDER, parameters -> fieldmappings.stream()
+                .filter(it -> it.getRegItemclass() == parameters.get(SQLConstants.SQL_PARAMETERS_REGITEMCLASS))
+                .collect(Collectors.toList()));
+        queries.put("RegLanguagecode.findAll", parameters -> Collections.singletonList(language()));
+        queries.put(SQLConstants.SQL_GET_LANGUAGECODE_MASTERLANGUAGE, parameters -> language());
+
+        return (EntityManager) Proxy.newProxyInstance(FormatterFixtures.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("create") && method.getName().endsWith("Query")) {
+                        return query(queries.getOrDefault((String) args[0], parameters -> Collections.emptyList()));
+                    }
+                    return null;
+                });
+    }
+
+    private static void addItemclass(List<RegItemclass> itemclasses, List<RegFieldmapping> fieldmappings,
+            String localid, String... fields) {
+        RegItemclass itemclass = new RegItemclass("ic-" + localid, localid, itemclasses.size() + 1, INSERTDATE);
+        itemclasses.add(itemclass);
+        for (int i = 0; i < fields.length; i++) {
+            RegFieldmapping fieldmapping = new RegFieldmapping("fm-" + localid + "-" + fields[i], i + 1, true, false, false, false, INSERTDATE);
+            fieldmapping.setRegField(new RegField("f-" + fields[i], fields[i], INSERTDATE));
+            fieldmapping.setRegItemclass(itemclass);
+            fieldmappings.add(fieldmapping);
+        }
+    }
+
+    private static Query query(Function<Map<String, Object>, Object> result) {
+        Map<String, Object> parameters = new HashMap<>();
+        return (Query) Proxy.newProxyInstance(FormatterFixtures.class.getClassLoader(),
+                new Class<?>[]{Query.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setParameter":
+                            parameters.put((String) args[0], args[1]);
+                            return proxy;
+                        case "getResultList":
+                        case "getSingleResult":
+                            return result.apply(parameters);
+                        default:
+                            return proxy;
+                    }
+                });
+    }
+
+    private static <T extends ContainedItem> T register(T register) {
+        setItem(register, REGISTER_URI, "codelist", BaseConstants.KEY_ITEMCLASS_TYPE_REGISTER, "codelist");
+        register.setProperties(Arrays.asList(
+                property("label", "Label", true, "Code list", ""),
+                property("contentsummary", "Content summary", false, "Colours & shades", ""),
+                property("registerManager", "Register manager", false, "Colour <board>", "http://example.org/board"),
+                property("governance-level", "Governance level", false, "Legal", "http://example.org/governance-level/legal"),
+                property("status", "Status", false, "Valid", "http://example.org/status/valid")));
+        register.setRegistry(registryRef());
+        return register;
+    }
+
+    private static ContainedItem collection() {
+        ContainedItem collection = new ContainedItem();
+        setItem(collection, COLLECTION_URI, "Colour", BaseConstants.KEY_ITEMCLASS_TYPE_ITEM, "value");
+        collection.setHasCollection(true);
+        collection.setProperties(Arrays.asList(
+                property("label", "Label", true, "Colour", ""),
+                property("definition", "Definition", false, "A colour", ""),
+                property("status", "Status", false, "Valid", "http://example.org/status/valid")));
+        collection.setRegistry(registryRef());
+        collection.setRegister(registerRef());
+        collection.setInScheme(basic(REGISTER_URI));
+        collection.setTopConceptOf(basic(REGISTER_URI));
+        collection.setNarrower(Arrays.asList(basic(ITEM_URI), basic(COLLECTION_URI + "/blue")));
+        return collection;
+    }
+
+    private static <T extends ContainedItem> T item(T item) {
+        setItem(item, ITEM_URI, "red", BaseConstants.KEY_ITEMCLASS_TYPE_ITEM, "value");
+        item.setProperties(Arrays.asList(
+                property("label", "Label", true, "Red", ""),
+                property("definition", "Definition", false, "The colour of \"blood\"", ""),
+                property("description", "Description", false, "Between orange and purple", ""),
+                property("status", "Status", false, "Valid", "http://example.org/status/valid"),
+                property("parent", "Parent", false, "Colour", COLLECTION_URI),
+                property("annex", "Annex", false, "II", "")));
+        item.setRegistry(registryRef());
+        item.setRegister(registerRef());
+        item.setInScheme(basic(REGISTER_URI));
+        item.setBroader(Collections.singletonList(basic(COLLECTION_URI)));
+
+        ContainedItem definedBy = new ContainedItem();
+        setItem(definedBy, REGISTER_URI + "/theme", "theme", BaseConstants.KEY_ITEMCLASS_TYPE_ITEM, "theme-item");
+        definedBy.setProperties(Collections.singletonList(property("label", "Label", true, "Theme", "")));
+        item.setIsDefinedBy(Collections.singletonList(definedBy));
+        return item;
+    }
+
+    private static ContainedItem blue() {
+        ContainedItem blue = new ContainedItem();
+        setItem(blue, COLLECTION_URI + "/blue", "blue", BaseConstants.KEY_ITEMCLASS_TYPE_ITEM, "value");
+        blue.setProperties(Arrays.asList(
+                property("label", "Label", true, "Blue", ""),
+                property("status", "Status", false, "Retired", "http://example.org/status/retired"),
+                property("parent", "Parent", false, "Colour", COLLECTION_URI)));
+        blue.setRegistry(registryRef());
+        blue.setRegister(registerRef());
+        blue.setInScheme(basic(REGISTER_URI));
+        blue.setBroader(Collections.singletonList(basic(COLLECTION_URI)));
+        return blue;
+    }
+
+    private static ContainedItem green() {
+        ContainedItem green = new ContainedItem();
+        setItem(green, REGISTER_URI + "/green", "green", BaseConstants.KEY_ITEMCLASS_TYPE_ITEM, "value");
+        green.setProperties(Arrays.asList(
+                property("label", "Label", true, "Green", ""),
+                property("definition", "Definition", false, "The colour of grass", ""),
+                property("status", "Status", false, "Valid", "http://example.org/status/valid")));
+        green.setRegistry(registryRef());
+        green.setRegister(registerRef());
+        green.setInScheme(basic(REGISTER_URI));
+        green.setTopConceptOf(basic(REGISTER_URI));
+        return green;
+    }
+
+    private static void setItem(ContainedItem item, String uri, String localid, String type, String itemclass) {
+        item.setUuid("uuid-" + localid);
+        item.setUri(uri);
+        item.setLocalid(localid);
+        item.setLanguage("en");
+        item.setType(type);
+        item.setItemclass(new ItemClass(itemclass));
+        item.setVersion(new VersionInformation(1, uri + ":1"));
+        // The json format failed on the items with previous versions
+        item.setVersionHistory(Collections.emptyList());
+        item.setLatest(true);
+        item.setInsertdate(INSERTDATE);
+        item.setEditdate(EDITDATE);
+    }
+
+    private static ItemRef registryRef() {
+        return new ItemRef(REGISTRY_URI, Collections.singletonList(property("label", "label", true, "Example registry", "")));
+    }
+
+    private static ItemRef registerRef() {
+        return new ItemRef(REGISTER_URI, Collections.singletonList(property("label", "label", true, "Code list", "")));
+    }
+
+    private static BasicContainedItem basic(String uri) {
+        BasicContainedItem item = new BasicContainedItem();
+        item.setUri(uri);
+        return item;
+    }
+
+    private static LocalizedProperty property(String id, String label, boolean istitle, String value, String href) {
+        return new LocalizedProperty("en", id, istitle, label,
+                Collections.singletonList(new LocalizedPropertyValue(value, href)), 0, true);
+    }
+
+}
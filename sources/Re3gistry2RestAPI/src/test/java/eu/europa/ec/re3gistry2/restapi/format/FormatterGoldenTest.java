@@ -0,0 +1,166 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.regex.Pattern;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.europa.ec.re3gistry2.base.utility.BaseConstants;
+import eu.europa.ec.re3gistry2.restapi.RegistryMetadata;
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+
+/**
+ * Checks the output of the formatters against the output of the release
+ * before the streaming writers, kept in the golden directory.
+ *
+ * The json objects are compared as trees: the previous writer kept the fields
+ * in a hash map, the order of the fields was not defined. The rdf format lists
+ * the formats added since then, left out of the comparison.
+ */
+@RunWith(Parameterized.class)
+public class FormatterGoldenTest {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final Pattern ADDED_FORMATS = Pattern.compile(
+            "\\s*<dct:hasFormat rdf:resource=\"[^\"]*\\.(ttl|nt|jsonld|jsonl)\"/>"
+            + "|\\s*<rdf:Description rdf:about=\"[^\"]*\\.(ttl|nt|jsonld|jsonl)\">.*?</rdf:Description>",
+            Pattern.DOTALL);
+
+    private static TimeZone defaultTimeZone;
+    private static RegistryMetadata metadata;
+
+    private final String name;
+    private final Item item;
+    private final Formatter formatter;
+
+    public FormatterGoldenTest(String name, Item item, Formatter formatter) {
+        this.name = name;
+        this.item = item;
+        this.formatter = formatter;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> parameters() {
+        List<Formatter> formatters = Arrays.asList(
+                new JSONFormatter(),
+                new JSONInternalFormatter(),
+                new XMLFormatter(),
+                new ISO19135Formatter(),
+                new RDFFormatter(),
+                new RORFormatter(),
+                new CSVFormatter());
+        List<Object[]> parameters = new ArrayList<>();
+        for (Formatter formatter : formatters) {
+            parameters.add(new Object[]{"registry." + formatter.getFormatName(), FormatterFixtures.registry(), formatter});
+            parameters.add(new Object[]{"register." + formatter.getFormatName(), FormatterFixtures.register(), formatter});
+            parameters.add(new Object[]{"item." + formatter.getFormatName(), FormatterFixtures.item(), formatter});
+        }
+        return parameters;
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        // The dates are written in the default time zone
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        RegistryMetadata.invalidate();
+        metadata = RegistryMetadata.get(FormatterFixtures.entityManager());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        RegistryMetadata.invalidate();
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void writesTheBaselineOutput() throws Exception {
+        String expected = readGolden(name);
+        String actual = write(formatter);
+
+        if (formatter instanceof JSONFormatter || formatter instanceof JSONInternalFormatter) {
+            assertEquals(name, OM.readTree(expected), OM.readTree(actual));
+        } else if (formatter instanceof RDFFormatter) {
+            assertEquals(name, expected, ADDED_FORMATS.matcher(actual).replaceAll(""));
+        } else {
+            assertEquals(name, expected, actual);
+        }
+    }
+
+    @Test
+    public void indentsOnlyTheItemsInJson() throws Exception {
+        if (!(formatter instanceof JSONFormatter)) {
+            return;
+        }
+        String actual = write(formatter);
+        if (BaseConstants.KEY_ITEMCLASS_TYPE_ITEM.equals(item.getType())) {
+            assertTrue(name, actual.contains("\n  \""));
+        } else {
+            assertFalse(name, actual.contains("\n"));
+        }
+        assertFalse(name, write(new JSONFormatter(true)).contains("\n"));
+    }
+
+    private String write(Formatter formatter) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.write(item, new RenderContext(FormatterFixtures.language(), metadata), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String readGolden(String name) throws Exception {
+        try (InputStream in = FormatterGoldenTest.class.getResourceAsStream("golden/" + name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
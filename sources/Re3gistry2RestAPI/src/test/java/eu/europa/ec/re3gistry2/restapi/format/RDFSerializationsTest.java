@@ -0,0 +1,391 @@
+/*
+ * /*
+ *  * Copyright 2007,2016 EUROPEAN UNION
+ *  * Licensed under the EUPL, Version 1.2 or - as soon they will be approved by
+ *  * the European Commission - subsequent versions of the EUPL (the "Licence");
+ *  * You may not use this work except in compliance with the Licence.
+ *  * You may obtain a copy of the Licence at:
+ *  *
+ *  * https://ec.europa.eu/isa2/solutions/european-union-public-licence-eupl_en
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the Licence is distributed on an "AS IS" basis,
+ *  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  * See the Licence for the specific language governing permissions and
+ *  * limitations under the Licence.
+ *  *
+ *  * Date: 2020/05/11
+ *  * Authors:
+ *  * European Commission, Joint Research Centre - jrc-inspire-support@ec.europa.eu
+ *  * National Land Survey of Finland, SDI Services - inspire@nls.fi
+ *  *
+ *  * This work was supported by the Interoperability solutions for public
+ *  * administrations, businesses and citizens programme (http://ec.europa.eu/isa2)
+ *  * through Action 2016.10: European Location Interoperability Solutions for e-Government (ELISE)
+ *  * for e-Government (ELISE)
+ */
+package eu.europa.ec.re3gistry2.restapi.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import eu.europa.ec.re3gistry2.restapi.model.Item;
+
+/**
+ * Reads back the Turtle, N-Triples, JSON-LD and RDF/XML outputs of the items:
+ * all of them must hold the same triples.
+ *
+ * The parsers only cover the syntax written by the formatters. The blank
+ * nodes are renamed after their statements, so that the graphs can be
+ * compared, and the statement naming the format of each document is left
+ * out.
+ */
+public class RDFSerializationsTest {
+
+    private static final String RDF_TYPE = "<" + AbstractRDFFormatter.RDF + "type>";
+    private static final String FORMAT = "<" + AbstractRDFFormatter.DCT + "format> <http://www.iana.org/assignments/media-types/";
+    private static final Pattern NTRIPLE = Pattern.compile(
+            "(<[^>]*>|_:\\S+) (<[^>]*>) (<[^>]*>|_:\\S+|\"(?:[^\"\\\\]|\\\\.)*\"(?:@\\S+|\\^\\^<[^>]*>)?) \\.");
+
+    private static TimeZone defaultTimeZone;
+
+    @BeforeClass
+    public static void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void writesTheSameTriplesInEveryFormat() throws Exception {
+        for (Item item : Arrays.asList(FormatterFixtures.registry(), FormatterFixtures.register(), FormatterFixtures.item())) {
+            Set<String> ntriples = canonical(readNTriples(write(new NTriplesFormatter(), item)));
+            assertTrue(item.getUri(), ntriples.contains("<" + item.getUri() + "> <" + AbstractRDFFormatter.DCT
+                    + "identifier> \"" + item.getUri() + "\"^^<" + AbstractRDFFormatter.RDFS + "Literal>"));
+
+            assertEquals(item.getUri() + " ttl", ntriples, canonical(new TurtleReader(write(new TurtleFormatter(), item)).read()));
+            assertEquals(item.getUri() + " jsonld", ntriples, canonical(readJSONLD(write(new JSONLDFormatter(false), item))));
+            assertEquals(item.getUri() + " rdf", ntriples, canonical(readRDFXML(write(new RDFFormatter(), item))));
+        }
+    }
+
+    @Test
+    public void writesTheBlankNodes() throws Exception {
+        Set<String> triples = canonical(readNTriples(write(new NTriplesFormatter(), FormatterFixtures.register())));
+        assertTrue(triples.toString(), triples.contains("<" + FormatterFixtures.REGISTER_URI + "> <" + AbstractRDFFormatter.DCT
+                + "publisher> [" + RDF_TYPE + " <" + AbstractRDFFormatter.FOAF + "Agent>; <" + AbstractRDFFormatter.FOAF
+                + "name> \"Colour <board>\"@en]"));
+    }
+
+    @Test
+    public void escapesTheLiterals() throws Exception {
+        String value = "A \"quoted\"\\ line\nand\r another";
+        assertEquals("\"A \\\"quoted\\\"\\\\ line\\nand\\r another\"", NTriplesFormatter.literal(value));
+        assertEquals(value, unescape(NTriplesFormatter.literal(value)));
+    }
+
+    private static String write(Formatter formatter, Item item) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.write(item, new RenderContext(FormatterFixtures.language(), null), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static List<String[]> readNTriples(String nt) {
+        List<String[]> triples = new ArrayList<>();
+        for (String line : nt.split("\n")) {
+            Matcher m = NTRIPLE.matcher(line);
+            assertTrue(line, m.matches());
+            triples.add(new String[]{m.group(1), m.group(2), literal(m.group(3))});
+        }
+        return triples;
+    }
+
+    private static List<String[]> readJSONLD(String jsonld) throws Exception {
+        JsonNode document = new ObjectMapper().readTree(jsonld);
+        Map<String, String> context = new HashMap<>();
+        document.get("@context").fields().forEachRemaining(e -> context.put(e.getKey(), e.getValue().asText()));
+        List<String[]> triples = new ArrayList<>();
+        int[] blankNodes = {0};
+        for (JsonNode node : document.get("@graph")) {
+            readJSONLDNode(node, context, triples, blankNodes);
+        }
+        return triples;
+    }
+
+    private static String readJSONLDNode(JsonNode node, Map<String, String> context, List<String[]> triples, int[] blankNodes) {
+        String subject = node.has("@id") ? "<" + node.get("@id").asText() + ">" : "_:j" + (++blankNodes[0]);
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getKey().equals("@id")) {
+                continue;
+            }
+            String predicate = field.getKey().equals("@type") ? RDF_TYPE : "<" + expand(field.getKey(), context) + ">";
+            List<JsonNode> values = new ArrayList<>();
+            if (field.getValue().isArray()) {
+                field.getValue().forEach(values::add);
+            } else {
+                values.add(field.getValue());
+            }
+            for (JsonNode value : values) {
+                String object;
+                if (value.isTextual()) {
+                    object = "<" + expand(value.asText(), context) + ">";
+                } else if (value.has("@value")) {
+                    object = literal(value.get("@value").asText(),
+                            value.has("@language") ? value.get("@language").asText() : null,
+                            value.has("@type") ? expand(value.get("@type").asText(), context) : null);
+                } else {
+                    object = readJSONLDNode(value, context, triples, blankNodes);
+                }
+                triples.add(new String[]{subject, predicate, object});
+            }
+        }
+        return subject;
+    }
+
+    private static String expand(String term, Map<String, String> context) {
+        int i = term.indexOf(':');
+        String ns = i < 0 ? null : context.get(term.substring(0, i));
+        return ns == null ? term : ns + term.substring(i + 1);
+    }
+
+    private static List<String[]> readRDFXML(String xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Element root = factory.newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)))
+                .getDocumentElement();
+        List<String[]> triples = new ArrayList<>();
+        int[] blankNodes = {0};
+        for (Element node : children(root)) {
+            readRDFXMLNode(node, triples, blankNodes);
+        }
+        return triples;
+    }
+
+    private static String readRDFXMLNode(Element node, List<String[]> triples, int[] blankNodes) {
+        String about = node.getAttributeNS(AbstractRDFFormatter.RDF, "about");
+        String subject = !about.isEmpty() ? "<" + about + ">" : "_:x" + (++blankNodes[0]);
+        if (!(AbstractRDFFormatter.RDF.equals(node.getNamespaceURI()) && "Description".equals(node.getLocalName()))) {
+            triples.add(new String[]{subject, RDF_TYPE, "<" + node.getNamespaceURI() + node.getLocalName() + ">"});
+        }
+        for (Element property : children(node)) {
+            String predicate = "<" + property.getNamespaceURI() + property.getLocalName() + ">";
+            String resource = property.getAttributeNS(AbstractRDFFormatter.RDF, "resource");
+            List<Element> nested = children(property);
+            String object;
+            if (!resource.isEmpty()) {
+                object = "<" + resource + ">";
+            } else if (!nested.isEmpty()) {
+                object = readRDFXMLNode(nested.get(0), triples, blankNodes);
+            } else {
+                String lang = property.getAttributeNS("http://www.w3.org/XML/1998/namespace", "lang");
+                String datatype = property.getAttributeNS(AbstractRDFFormatter.RDF, "datatype");
+                object = literal(property.getTextContent(), lang.isEmpty() ? null : lang, datatype.isEmpty() ? null : datatype);
+            }
+            triples.add(new String[]{subject, predicate, object});
+        }
+        return subject;
+    }
+
+    private static List<Element> children(Element element) {
+        List<Element> children = new ArrayList<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                children.add((Element) child);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Reads the Turtle written by TurtleFormatter: prefixes, descriptions
+     * and nested blank nodes, one statement per predicate.
+     */
+    private static class TurtleReader {
+
+        private static final Pattern TOKEN = Pattern.compile(
+                "\\s*(<[^>]*>|\"(?:[^\"\\\\]|\\\\.)*\"(?:@[A-Za-z0-9-]+|\\^\\^(?:<[^>]*>|[A-Za-z][\\w-]*:[\\w-]*))?|@prefix|[\\[\\];.]|[A-Za-z][\\w-]*:[\\w.-]*|a(?=\\s))",
+                Pattern.DOTALL);
+
+        private final List<String> tokens = new ArrayList<>();
+        private final Map<String, String> prefixes = new HashMap<>();
+        private final List<String[]> triples = new ArrayList<>();
+        private int position;
+        private int blankNodes;
+
+        private TurtleReader(String ttl) {
+            Matcher m = TOKEN.matcher(ttl);
+            int end = 0;
+            while (m.find() && m.start() == end) {
+                tokens.add(m.group(1));
+                end = m.end();
+            }
+            assertTrue("unparsed turtle: " + ttl.substring(end), ttl.substring(end).trim().isEmpty());
+        }
+
+        private List<String[]> read() {
+            while (position < tokens.size()) {
+                if (tokens.get(position).equals("@prefix")) {
+                    String prefix = tokens.get(position + 1);
+                    String iri = tokens.get(position + 2);
+                    prefixes.put(prefix.substring(0, prefix.length() - 1), iri.substring(1, iri.length() - 1));
+                    expect(position + 3, ".");
+                    position += 4;
+                    continue;
+                }
+                String subject = term(tokens.get(position++));
+                readPredicates(subject, ".");
+            }
+            return triples;
+        }
+
+        private void readPredicates(String subject, String end) {
+            while (!tokens.get(position).equals(end)) {
+                String predicate = tokens.get(position).equals("a") ? RDF_TYPE : term(tokens.get(position));
+                position++;
+                String object;
+                if (tokens.get(position).equals("[")) {
+                    position++;
+                    object = "_:t" + (++blankNodes);
+                    readPredicates(object, "]");
+                } else {
+                    object = term(tokens.get(position));
+                }
+                position++;
+                triples.add(new String[]{subject, predicate, object});
+                if (tokens.get(position).equals(";")) {
+                    position++;
+                }
+            }
+            position++;
+        }
+
+        private String term(String token) {
+            if (token.startsWith("<")) {
+                return token;
+            }
+            if (token.startsWith("\"")) {
+                int close = token.lastIndexOf('"');
+                String suffix = token.substring(close + 1);
+                if (suffix.startsWith("^^")) {
+                    String datatype = term(suffix.substring(2));
+                    return literal(token.substring(0, close + 1) + "^^" + datatype);
+                }
+                return literal(token);
+            }
+            int i = token.indexOf(':');
+            String ns = prefixes.get(token.substring(0, i));
+            assertTrue(token, ns != null);
+            return "<" + ns + token.substring(i + 1) + ">";
+        }
+
+        private void expect(int i, String token) {
+            assertEquals(token, tokens.get(i));
+        }
+
+    }
+
+    // Canonical form of a literal in N-Triples syntax, of a resource as is
+    private static String literal(String term) {
+        if (!term.startsWith("\"")) {
+            return term;
+        }
+        int close = term.lastIndexOf('"');
+        String suffix = term.substring(close + 1);
+        String value = unescape(term.substring(0, close + 1));
+        if (suffix.startsWith("@")) {
+            return literal(value, suffix.substring(1), null);
+        }
+        if (suffix.startsWith("^^")) {
+            return literal(value, null, suffix.substring(3, suffix.length() - 1));
+        }
+        return literal(value, null, null);
+    }
+
+    private static String literal(String value, String lang, String datatype) {
+        if (datatype != null) {
+            return NTriplesFormatter.literal(value) + "^^<" + datatype + ">";
+        }
+        return NTriplesFormatter.langLiteral(value, lang);
+    }
+
+    private static String unescape(String quoted) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < quoted.length() - 1; i++) {
+            char c = quoted.charAt(i);
+            if (c == '\\') {
+                char e = quoted.charAt(++i);
+                sb.append(e == 'n' ? '\n' : e == 'r' ? '\r' : e == 't' ? '\t' : e);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the triples as "subject predicate object" strings, leaving out
+     * the format of the document. The blank nodes are replaced by their
+     * statements, written between square brackets.
+     */
+    private static Set<String> canonical(List<String[]> triples) {
+        Map<String, List<String[]>> blankNodeStatements = new HashMap<>();
+        for (String[] triple : triples) {
+            if (triple[0].startsWith("_:")) {
+                blankNodeStatements.computeIfAbsent(triple[0], k -> new ArrayList<>()).add(triple);
+            }
+        }
+        Set<String> canonical = new TreeSet<>();
+        for (String[] triple : triples) {
+            if (triple[0].startsWith("_:") || (triple[1] + " " + triple[2]).startsWith(FORMAT)) {
+                continue;
+            }
+            canonical.add(triple[0] + " " + triple[1] + " " + object(triple[2], blankNodeStatements));
+        }
+        return canonical;
+    }
+
+    private static String object(String object, Map<String, List<String[]>> blankNodeStatements) {
+        if (!object.startsWith("_:")) {
+            return object;
+        }
+        Set<String> statements = new TreeSet<>();
+        for (String[] triple : blankNodeStatements.getOrDefault(object, new ArrayList<>())) {
+            statements.add(triple[1] + " " + object(triple[2], blankNodeStatements));
+        }
+        return "[" + String.join("; ", statements) + "]";
+    }
+
+}